@@ -1,17 +1,31 @@
 package dev.dsf.process.tutorial.tools.generator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.Identifier;
 import org.hl7.fhir.r4.model.Organization;
 import org.hl7.fhir.r4.model.StringType;
 import org.slf4j.Logger;
@@ -23,19 +37,61 @@ import dev.dsf.fhir.service.ReferenceCleaner;
 import dev.dsf.fhir.service.ReferenceCleanerImpl;
 import dev.dsf.fhir.service.ReferenceExtractor;
 import dev.dsf.fhir.service.ReferenceExtractorImpl;
-import dev.dsf.process.tutorial.tools.generator.CertificateGenerator.CertificateFiles;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.tools.generator.ThumbprintRewriter.StructuralEditRequiredException;
 
 public class BundleGenerator
 {
 	private static final Logger logger = LoggerFactory.getLogger(BundleGenerator.class);
 
-	private final FhirContext fhirContext = FhirContext.forR4();
+	private static final Path BUNDLE_TEMPLATE_FILE = Paths.get("src/main/resources/bundle-templates/bundle.xml");
+	private static final Path BUNDLE_FILE = Paths.get("bundle/bundle.xml");
+	private static final List<Path> DOCKER_TEST_BUNDLE_FILES = List.of(
+			Paths.get("../dev-setup/cos/fhir/conf/bundle.xml"), Paths.get("../dev-setup/dic/fhir/conf/bundle.xml"),
+			Paths.get("../dev-setup/hrp/fhir/conf/bundle.xml"));
+	private static final SortedMap<String, String> BUNDLE_USER_COMMON_NAME_BY_ORGANIZATION_IDENTIFIER = Collections
+			.unmodifiableSortedMap(new TreeMap<>(Map.of(ConstantsTutorial.TUTORIAL_COS_ORGANIZATION_IDENTIFIER,
+					"cos-client", ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER, "dic-client",
+					ConstantsTutorial.TUTORIAL_HRP_ORGANIZATION_IDENTIFIER, "hrp-client")));
+
+	private static final class EncodedBundleOutputStream extends ByteArrayOutputStream
+	{
+		EncodedBundleOutputStream()
+		{
+			super(64 * 1024);
+		}
+
+		// exposes the internal buffer, avoids copying the encoded bundle
+		ByteBuffer toByteBuffer()
+		{
+			return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+		}
+	}
+
+	// created on first use, up to date bundles are copied without parsing
+	private FhirContext fhirContext;
 	private final ReferenceExtractor extractor = new ReferenceExtractorImpl();
 	private final ReferenceCleaner cleaner = new ReferenceCleanerImpl(extractor);
 
-	private Bundle bundle;
+	private final boolean prettyPrint;
+
+	private ByteBuffer encodedBundle;
 
-	private Bundle readAndCleanBundle(Path bundleTemplateFile)
+	public BundleGenerator()
+	{
+		this(true);
+	}
+
+	/**
+	 * @param prettyPrint
+	 *            <code>false</code> to write compact XML, reduces size and encoding time of large bundles
+	 */
+	public BundleGenerator(boolean prettyPrint)
+	{
+		this.prettyPrint = prettyPrint;
+	}
+
+	Bundle readAndCleanBundle(Path bundleTemplateFile)
 	{
 		try (InputStream in = Files.newInputStream(bundleTemplateFile))
 		{
@@ -51,14 +107,33 @@ public class BundleGenerator
 		}
 	}
 
-	private void writeBundle(Path bundleFile, Bundle bundle)
+	private ByteBuffer encodeBundle(Bundle bundle)
 	{
-		try (OutputStream out = Files.newOutputStream(bundleFile);
-				OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8))
+		EncodedBundleOutputStream out = new EncodedBundleOutputStream();
+
+		try (OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8))
 		{
 			newXmlParser().encodeResourceToWriter(bundle, writer);
 		}
 		catch (IOException e)
+		{
+			logger.error("Error while encoding bundle", e);
+			throw new RuntimeException(e);
+		}
+
+		return out.toByteBuffer();
+	}
+
+	private void writeBundle(ByteBuffer encodedBundle, Path bundleFile)
+	{
+		try (FileChannel channel = FileChannel.open(bundleFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer buffer = encodedBundle.duplicate();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+		catch (IOException e)
 		{
 			logger.error("Error while writing bundle to " + bundleFile.toString(), e);
 			throw new RuntimeException(e);
@@ -67,57 +142,111 @@ public class BundleGenerator
 
 	private IParser newXmlParser()
 	{
+		if (fhirContext == null)
+			fhirContext = FhirContext.forR4();
+
 		IParser parser = fhirContext.newXmlParser();
 		parser.setStripVersionsFromReferences(false);
 		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
-		parser.setPrettyPrint(true);
+		parser.setPrettyPrint(prettyPrint);
 		return parser;
 	}
 
-	public void createDockerTestBundles(Map<String, CertificateFiles> clientCertificateFilesByCommonName)
+	public void createDockerTestBundles(ThumbprintIndex clientThumbprints)
 	{
-		createDockerTestBundle(clientCertificateFilesByCommonName);
+		createDockerTestBundle(clientThumbprints);
 	}
 
-	private void createDockerTestBundle(Map<String, CertificateFiles> clientCertificateFilesByCommonName)
+	/**
+	 * @return hash of the bundle template and the bundle user thumbprints
+	 */
+	public String getDockerTestBundleInputHash(ThumbprintIndex clientThumbprints)
 	{
-		Path bundleTemplateFile = Paths.get("src/main/resources/bundle-templates/bundle.xml");
+		return GeneratorManifest.hashValues(Stream
+				.concat(Stream.of(GeneratorManifest.hashFiles(BUNDLE_TEMPLATE_FILE), String.valueOf(prettyPrint)),
+						BUNDLE_USER_COMMON_NAME_BY_ORGANIZATION_IDENTIFIER.values().stream()
+								.map(clientThumbprints::getHex))
+				.toArray(String[]::new));
+	}
 
-		bundle = readAndCleanBundle(bundleTemplateFile);
+	public Path getDockerTestBundleFile()
+	{
+		return BUNDLE_FILE;
+	}
 
-		Organization organizationCos = (Organization) bundle.getEntry().get(0).getResource();
-		Extension organizationCosThumbprintExtension = organizationCos
-				.getExtensionByUrl("http://dsf.dev/fhir/StructureDefinition/extension-certificate-thumbprint");
-		organizationCosThumbprintExtension.setValue(new StringType(
-				clientCertificateFilesByCommonName.get("cos-client").getCertificateSha512ThumbprintHex()));
+	/**
+	 * Patches the thumbprints into the template with a streaming {@link ThumbprintRewriter}, falls back to parsing the
+	 * template with HAPI if extensions need to be added.
+	 */
+	private void createDockerTestBundle(ThumbprintIndex clientThumbprints)
+	{
+		Map<String, String> thumbprintByOrganizationIdentifier = BUNDLE_USER_COMMON_NAME_BY_ORGANIZATION_IDENTIFIER
+				.entrySet().stream()
+				.collect(Collectors.toMap(Entry::getKey, e -> clientThumbprints.getHex(e.getValue())));
 
-		Organization organizationDic = (Organization) bundle.getEntry().get(1).getResource();
-		Extension organizationDicThumbprintExtension = organizationDic
-				.getExtensionByUrl("http://dsf.dev/fhir/StructureDefinition/extension-certificate-thumbprint");
-		organizationDicThumbprintExtension.setValue(new StringType(
-				clientCertificateFilesByCommonName.get("dic-client").getCertificateSha512ThumbprintHex()));
+		try
+		{
+			EncodedBundleOutputStream out = new EncodedBundleOutputStream();
+			new ThumbprintRewriter(prettyPrint).rewrite(BUNDLE_TEMPLATE_FILE, thumbprintByOrganizationIdentifier, out);
+			encodedBundle = out.toByteBuffer();
+		}
+		catch (StructuralEditRequiredException e)
+		{
+			logger.info("{}, parsing bundle template {}", e.getMessage(), BUNDLE_TEMPLATE_FILE.toString());
 
-		Organization organizationHrp = (Organization) bundle.getEntry().get(2).getResource();
-		Extension organizationHrpThumbprintExtension = organizationHrp
-				.getExtensionByUrl("http://dsf.dev/fhir/StructureDefinition/extension-certificate-thumbprint");
-		organizationHrpThumbprintExtension.setValue(new StringType(
-				clientCertificateFilesByCommonName.get("hrp-client").getCertificateSha512ThumbprintHex()));
+			Bundle bundle = readAndCleanBundle(BUNDLE_TEMPLATE_FILE);
+			setThumbprints(bundle, thumbprintByOrganizationIdentifier);
+			encodedBundle = encodeBundle(bundle);
+		}
 
-		writeBundle(Paths.get("bundle/bundle.xml"), bundle);
+		writeBundle(encodedBundle, BUNDLE_FILE);
 	}
 
-	public void copyDockerTestBundles()
+	private void setThumbprints(Bundle bundle, Map<String, String> thumbprintByOrganizationIdentifier)
 	{
-		Path cosBundleFile = Paths.get("../dev-setup/cos/fhir/conf/bundle.xml");
-		logger.info("Copying fhir bundle to {}", cosBundleFile);
-		writeBundle(cosBundleFile, bundle);
-
-		Path dicBundleFile = Paths.get("../dev-setup/dic/fhir/conf/bundle.xml");
-		logger.info("Copying fhir bundle to {}", dicBundleFile);
-		writeBundle(dicBundleFile, bundle);
+		Set<String> missing = new HashSet<>(thumbprintByOrganizationIdentifier.keySet());
+
+		bundle.getEntry().stream().map(BundleEntryComponent::getResource).filter(r -> r instanceof Organization)
+				.map(r -> (Organization) r).forEach(organization ->
+				{
+					String identifier = organization.getIdentifier().stream()
+							.filter(i -> ThumbprintRewriter.ORGANIZATION_IDENTIFIER_SID.equals(i.getSystem()))
+							.map(Identifier::getValue).findFirst().orElse(null);
+					String thumbprint = identifier == null ? null : thumbprintByOrganizationIdentifier.get(identifier);
+
+					if (thumbprint != null)
+					{
+						Extension extension = organization
+								.getExtensionByUrl(ThumbprintRewriter.EXTENSION_THUMBPRINT_URL);
+						if (extension == null)
+							extension = organization.addExtension().setUrl(ThumbprintRewriter.EXTENSION_THUMBPRINT_URL);
+
+						extension.setValue(new StringType(thumbprint));
+						missing.remove(identifier);
+					}
+				});
+
+		if (!missing.isEmpty())
+			throw new IllegalStateException(
+					"Organizations " + missing + " not found in " + BUNDLE_TEMPLATE_FILE.toString());
+	}
 
-		Path hrpBundleFile = Paths.get("../dev-setup/hrp/fhir/conf/bundle.xml");
-		logger.info("Copying fhir bundle to {}", hrpBundleFile);
-		writeBundle(hrpBundleFile, bundle);
+	/**
+	 * Writes the bundle encoded by {@link #createDockerTestBundles(ThumbprintIndex)} to all dev-setup FHIR servers
+	 * without encoding it again. If the bundle was not created in this run, the existing bundle file is copied and
+	 * targets with identical content are not rewritten.
+	 */
+	public void copyDockerTestBundles()
+	{
+		for (Path target : DOCKER_TEST_BUNDLE_FILES)
+		{
+			if (encodedBundle != null)
+			{
+				logger.info("Copying fhir bundle to {}", target.toString());
+				writeBundle(encodedBundle, target);
+			}
+			else
+				GeneratorManifest.copyIfChanged(BUNDLE_FILE, target);
+		}
 	}
 }
@@ -2,10 +2,12 @@ package dev.dsf.process.tutorial.tools.generator;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.KeyPair;
@@ -22,24 +24,49 @@ import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPrivateCrtKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.RSAPublicKeySpec;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x500.style.BCStyle;
 import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.CertIOException;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jcajce.interfaces.EdDSAPrivateKey;
+import org.bouncycastle.jce.interfaces.ECPrivateKey;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.jce.spec.ECPublicKeySpec;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.pkcs.PKCSException;
 import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -75,19 +102,17 @@ public class CertificateGenerator
 	public static final class CertificateFiles
 	{
 		private final String commonName;
-
-		private final KeyPair keyPair;
 		private final X509Certificate certificate;
 
 		private final byte[] certificateSha512Thumbprint;
+		private final String certificateSha512ThumbprintHex;
 
-		CertificateFiles(String commonName, KeyPair keyPair, Path keyPairPrivateKeyFile, X509Certificate certificate,
-				byte[] certificateSha512Thumbprint)
+		CertificateFiles(String commonName, X509Certificate certificate, byte[] certificateSha512Thumbprint)
 		{
 			this.commonName = commonName;
-			this.keyPair = keyPair;
 			this.certificate = certificate;
 			this.certificateSha512Thumbprint = certificateSha512Thumbprint;
+			this.certificateSha512ThumbprintHex = Hex.encodeHexString(certificateSha512Thumbprint);
 		}
 
 		public String getCommonName()
@@ -100,30 +125,212 @@ public class CertificateGenerator
 			return certificate;
 		}
 
+		public byte[] getCertificateSha512Thumbprint()
+		{
+			return certificateSha512Thumbprint.clone();
+		}
+
 		public String getCertificateSha512ThumbprintHex()
 		{
-			return Hex.encodeHexString(certificateSha512Thumbprint);
+			return certificateSha512ThumbprintHex;
 		}
 	}
 
-	private CertificateAuthority ca;
+	private final Path certFolder;
+	private final KeyType keyType;
+
+	private volatile CertificateAuthority ca;
+	private volatile KeyMaterialStore keyMaterialStore;
 	private Map<String, CertificateFiles> serverCertificateFilesByCommonName;
 	private Map<String, CertificateFiles> clientCertificateFilesByCommonName;
 
+	public CertificateGenerator()
+	{
+		this(KeyType.RSA_4096);
+	}
+
+	/**
+	 * @param keyType
+	 *            not <code>null</code>, certificates are generated in <code>cert</code> or a key type specific sub
+	 *            folder, see {@link KeyType#resolveCertFolder(Path)}
+	 */
+	public CertificateGenerator(KeyType keyType)
+	{
+		this(keyType.resolveCertFolder(Paths.get("cert")), keyType);
+	}
+
+	/**
+	 * @param certFolder
+	 *            not <code>null</code>, base folder for the CA and all generated certificates
+	 */
+	public CertificateGenerator(Path certFolder)
+	{
+		this(certFolder, KeyType.RSA_4096);
+	}
+
+	/**
+	 * @param certFolder
+	 *            not <code>null</code>, base folder for the CA and all generated certificates
+	 * @param keyType
+	 *            not <code>null</code>, key type of the CA and all generated certificates
+	 */
+	public CertificateGenerator(Path certFolder, KeyType keyType)
+	{
+		this.certFolder = certFolder;
+		this.keyType = keyType;
+	}
+
 	public void generateCertificates()
 	{
 		ca = initCA();
-		serverCertificateFilesByCommonName = Arrays.stream(SERVER_COMMON_NAMES)
-				.map(commonName -> createCert(CertificateType.SERVER, commonName,
-						DNS_NAMES.getOrDefault(commonName, Collections.singletonList(commonName))))
-				.collect(Collectors.toMap(CertificateFiles::getCommonName, Function.identity()));
-		clientCertificateFilesByCommonName = Arrays.stream(CLIENT_COMMON_NAMES)
-				.map(commonName -> createCert(CertificateType.CLIENT, commonName, Collections.emptyList()))
-				.collect(Collectors.toMap(CertificateFiles::getCommonName, Function.identity()));
+
+		// key pair generation dominates, certificates are created in parallel, signing is serialized on the ca
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try
+		{
+			ForkJoinTask<Map<String, CertificateFiles>> serverCertificates = pool
+					.submit(() -> createCerts(CertificateType.SERVER, SERVER_COMMON_NAMES));
+			ForkJoinTask<Map<String, CertificateFiles>> clientCertificates = pool
+					.submit(() -> createCerts(CertificateType.CLIENT, CLIENT_COMMON_NAMES));
+
+			serverCertificateFilesByCommonName = serverCertificates.join();
+			clientCertificateFilesByCommonName = clientCertificates.join();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		saveKeyMaterial();
 
 		writeThumbprints();
 	}
 
+	private Map<String, CertificateFiles> createCerts(CertificateType certificateType, String[] commonNames)
+	{
+		return Arrays.stream(commonNames).parallel().map(commonName -> createCert(certificateType, commonName,
+				CertificateType.SERVER.equals(certificateType)
+						? DNS_NAMES.getOrDefault(commonName, Collections.singletonList(commonName))
+						: Collections.emptyList()))
+				.collect(Collectors.toMap(CertificateFiles::getCommonName, Function.identity()));
+	}
+
+	/**
+	 * Creates or reads a single client certificate, initializes the CA on first use. Thread-safe, the key pair is not
+	 * kept after the files are written.
+	 *
+	 * @param commonName
+	 *            not <code>null</code>
+	 * @return SHA-512 thumbprint of the certificate as hex string
+	 */
+	public String createClientCertificate(String commonName)
+	{
+		if (ca == null)
+		{
+			synchronized (this)
+			{
+				if (ca == null)
+					ca = initCA();
+			}
+		}
+
+		return createCert(CertificateType.CLIENT, commonName, Collections.emptyList())
+				.getCertificateSha512ThumbprintHex();
+	}
+
+	/**
+	 * @return hash of the CA, all certificate, certificate request and private-key files, the key type and the
+	 *         configured common and dns names
+	 */
+	public String getCertificatesInputHash()
+	{
+		Stream<Path> files = Stream.concat(
+				Stream.of(certFolder.resolve("ca/testca_certificate.pem"),
+						certFolder.resolve("ca/testca_private-key.pem")),
+				Stream.concat(Arrays.stream(SERVER_COMMON_NAMES), Arrays.stream(CLIENT_COMMON_NAMES))
+						.flatMap(cn -> Stream.of(getPrivateKeyPath(cn), getCertReqPath(cn), getCertPemPath(cn))));
+
+		return GeneratorManifest.hashValues(GeneratorManifest.hashFiles(files.toArray(Path[]::new)),
+				String.join(",", SERVER_COMMON_NAMES), String.join(",", CLIENT_COMMON_NAMES), DNS_NAMES.toString(),
+				keyType.name());
+	}
+
+	/**
+	 * @return files written by {@link #writeThumbprints()}, {@link #copyDockerTestClientCerts()},
+	 *         {@link #copyDockerTestServerCert()} and {@link #createP12(CertificateFiles)} for all client certificates
+	 */
+	public List<Path> getDockerTestOutputFiles()
+	{
+		Path secrets = Paths.get("../dev-setup/secrets");
+
+		return Streams.concat(Stream.of(certFolder.resolve("thumbprints.txt")),
+				Arrays.stream(CLIENT_COMMON_NAMES).filter(cn -> !cn.equals("Webbrowser Test User"))
+						.map(cn -> "app_" + cn.replace('-', '_') + "_certificate")
+						.flatMap(n -> Stream.of(n + ".pem", n + "_private_key.pem")).map(secrets::resolve),
+				Stream.of("app_client_trust_certificates.pem", "proxy_trusted_client_cas.pem",
+						"proxy_certificate_and_int_cas.pem", "proxy_certificate_private_key.pem",
+						"keycloak_certificate_and_int_cas.pem", "keycloak_certificate_private_key.pem",
+						"keycloak_trust_store.jks").map(secrets::resolve),
+				Arrays.stream(CLIENT_COMMON_NAMES).map(this::getCertP12Path)).toList();
+	}
+
+	/**
+	 * Reads existing certificates without decrypting private-keys or initializing the CA. Only thumbprints and
+	 * certificates of the returned {@link CertificateFiles} are available, use if {@link #getCertificatesInputHash()}
+	 * is unchanged since the last {@link #generateCertificates()}.
+	 */
+	public void readCertificates()
+	{
+		serverCertificateFilesByCommonName = readCertificates(SERVER_COMMON_NAMES);
+		clientCertificateFilesByCommonName = readCertificates(CLIENT_COMMON_NAMES);
+	}
+
+	private Map<String, CertificateFiles> readCertificates(String[] commonNames)
+	{
+		return Arrays.stream(commonNames).map(cn ->
+		{
+			X509Certificate certificate = readCertificate(getCertPemPath(cn));
+			return new CertificateFiles(cn, certificate, calculateSha512CertificateThumbprint(certificate));
+		}).collect(Collectors.toMap(CertificateFiles::getCommonName, Function.identity()));
+	}
+
+	private KeyMaterialStore getKeyMaterialStore()
+	{
+		if (keyMaterialStore == null)
+		{
+			synchronized (this)
+			{
+				if (keyMaterialStore == null)
+					keyMaterialStore = KeyMaterialStore.open(certFolder.resolve("key-material.p12"), CERT_PASSWORD,
+							this::createKeyPair);
+			}
+		}
+
+		return keyMaterialStore;
+	}
+
+	/**
+	 * Starts generating spare key pairs in the background, used for new certificates instead of generating keys.
+	 * Spares are persisted by {@link #saveKeyMaterial()}.
+	 *
+	 * @param spareTarget
+	 *            &gt;= 0
+	 */
+	public void preGenerateKeyPairs(int spareTarget)
+	{
+		getKeyMaterialStore().preGenerate(spareTarget);
+	}
+
+	/**
+	 * Stops running key pre-generation and writes new key pairs and the spares generated so far to the key material
+	 * store.
+	 */
+	public void saveKeyMaterial()
+	{
+		if (keyMaterialStore != null)
+			keyMaterialStore.close();
+	}
+
 	public Map<String, CertificateFiles> getClientCertificateFilesByCommonName()
 	{
 		return clientCertificateFilesByCommonName != null
@@ -133,8 +340,8 @@ public class CertificateGenerator
 
 	public CertificateAuthority initCA()
 	{
-		Path caCertFile = createFolderIfNotExists(Paths.get("cert/ca/testca_certificate.pem"));
-		Path caPrivateKeyFile = createFolderIfNotExists(Paths.get("cert/ca/testca_private-key.pem"));
+		Path caCertFile = createFolderIfNotExists(certFolder.resolve("ca/testca_certificate.pem"));
+		Path caPrivateKeyFile = createFolderIfNotExists(certFolder.resolve("ca/testca_private-key.pem"));
 
 		if (Files.isReadable(caCertFile) && Files.isReadable(caPrivateKeyFile))
 		{
@@ -144,15 +351,25 @@ public class CertificateGenerator
 			X509Certificate caCertificate = readCertificate(caCertFile);
 			PrivateKey caPrivateKey = readPrivatekey(caPrivateKeyFile);
 
-			return CertificateAuthorityBuilder.create(caCertificate, caPrivateKey).initialize();
+			KeyType caKeyType = KeyType.of(caCertificate.getPublicKey());
+			if (!keyType.equals(caKeyType))
+				throw new IllegalStateException("CA at " + caCertFile.toString() + " has key type " + caKeyType.name()
+						+ ", expected " + keyType.name());
+
+			if (KeyType.RSA_4096.equals(keyType))
+				return CertificateAuthorityBuilder.create(caCertificate, caPrivateKey).initialize();
+			else
+				return new CertificateAuthority(caCertificate,
+						new KeyPair(caCertificate.getPublicKey(), caPrivateKey), keyType.getSignatureAlgorithm());
 		}
 		else
 		{
 			logger.info("Initializing CA with new cert file: {}, private key {}", caCertFile.toString(),
 					caPrivateKeyFile.toString());
 
-			CertificateAuthority ca = CertificateAuthorityBuilder.create("DE", null, null, null, null, "Test")
-					.initialize();
+			CertificateAuthority ca = KeyType.RSA_4096.equals(keyType)
+					? CertificateAuthorityBuilder.create("DE", null, null, null, null, "Test").initialize()
+					: createCA(CertificationRequestBuilder.createSubject("DE", null, null, null, null, "Test"));
 
 			writeCertificate(caCertFile, ca.getCertificate());
 			writePrivateKeyEncrypted(caPrivateKeyFile, ca.getCaKeyPair().getPrivate());
@@ -161,6 +378,42 @@ public class CertificateGenerator
 		}
 	}
 
+	/**
+	 * {@link CertificateAuthority#initialize()} only creates RSA CAs, the certificate is created here with the same
+	 * extensions and validity.
+	 */
+	private CertificateAuthority createCA(X500Name name)
+	{
+		try
+		{
+			KeyPair caKeyPair = createKeyPair();
+			LocalDateTime notBefore = LocalDateTime.now();
+			LocalDateTime notAfter = notBefore.plus(CertificateAuthority.TEN_YEARS);
+
+			X509CertificateHolder certificate = new JcaX509v3CertificateBuilder(name,
+					BigInteger.valueOf(System.currentTimeMillis()), toDate(notBefore), toDate(notAfter), name,
+					caKeyPair.getPublic())
+					.addExtension(Extension.subjectKeyIdentifier, false,
+							CertificateHelper.toSubjectKeyIdentifier(caKeyPair.getPublic()))
+					.addExtension(Extension.basicConstraints, true, new BasicConstraints(1))
+					.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign))
+					.build(CertificateHelper.getContentSigner(keyType.getSignatureAlgorithm(), caKeyPair.getPrivate()));
+
+			return new CertificateAuthority(new JcaX509CertificateConverter().getCertificate(certificate), caKeyPair,
+					keyType.getSignatureAlgorithm());
+		}
+		catch (NoSuchAlgorithmException | CertIOException | OperatorCreationException | CertificateException e)
+		{
+			logger.error("Error while creating " + keyType + " CA", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Date toDate(LocalDateTime dateTime)
+	{
+		return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+	}
+
 	private void writePrivateKeyEncrypted(Path privateKeyFile, PrivateKey privateKey)
 	{
 		try
@@ -213,6 +466,12 @@ public class CertificateGenerator
 		}
 	}
 
+	private PrivateKey getPrivateKey(String commonName)
+	{
+		// written by createCert, the file wins over the key material store
+		return readPrivatekey(getPrivateKeyPath(commonName));
+	}
+
 	private X509Certificate readCertificate(Path certFile)
 	{
 		try
@@ -228,7 +487,7 @@ public class CertificateGenerator
 
 	public void writeThumbprints()
 	{
-		Path thumbprintsFile = Paths.get("cert", "thumbprints.txt");
+		Path thumbprintsFile = certFolder.resolve("thumbprints.txt");
 
 		Stream<String> certificates = Streams
 				.concat(serverCertificateFilesByCommonName.values().stream(),
@@ -261,8 +520,9 @@ public class CertificateGenerator
 		X509Certificate certificate = signOrReadCertificate(certificatePemFile, certificateRequest, commonName,
 				certificateType);
 
-		return new CertificateFiles(commonName, keyPair, privateKeyFile, certificate,
-				calculateSha512CertificateThumbprint(certificate));
+		getKeyMaterialStore().put(commonName, keyPair, certificate);
+
+		return new CertificateFiles(commonName, certificate, calculateSha512CertificateThumbprint(certificate));
 	}
 
 	private X509Certificate signOrReadCertificate(Path certificateFile,
@@ -290,14 +550,18 @@ public class CertificateGenerator
 	{
 		try
 		{
-			switch (certificateType)
+			// CertificateAuthority is not documented as thread-safe
+			synchronized (ca)
 			{
-				case CLIENT:
-					return ca.signWebClientCertificate(certificateRequest);
-				case SERVER:
-					return ca.signWebServerCertificate(certificateRequest);
-				default:
-					throw new RuntimeException("Unknown certificate type " + certificateType);
+				switch (certificateType)
+				{
+					case CLIENT:
+						return ca.signWebClientCertificate(certificateRequest);
+					case SERVER:
+						return ca.signWebServerCertificate(certificateRequest);
+					default:
+						throw new RuntimeException("Unknown certificate type " + certificateType);
+				}
 			}
 		}
 		catch (InvalidKeyException | NoSuchAlgorithmException | InvalidKeySpecException | OperatorCreationException
@@ -336,6 +600,9 @@ public class CertificateGenerator
 	private JcaPKCS10CertificationRequest createCertificateRequest(CertificateType certificateType, X500Name subject,
 			KeyPair keyPair, List<String> dnsNames)
 	{
+		if (!KeyType.RSA_4096.equals(keyType))
+			return createNonRsaCertificateRequest(certificateType, subject, keyPair, dnsNames);
+
 		try
 		{
 			switch (certificateType)
@@ -356,6 +623,47 @@ public class CertificateGenerator
 		}
 	}
 
+	/**
+	 * {@link CertificationRequestBuilder} signs requests with RSA only. Extensions are encoded like the builder does,
+	 * {@link CertificateAuthority} reads subject alternative names from this structure.
+	 */
+	private JcaPKCS10CertificationRequest createNonRsaCertificateRequest(CertificateType certificateType,
+			X500Name subject, KeyPair keyPair, List<String> dnsNames)
+	{
+		try
+		{
+			List<ASN1Encodable> extensions = new ArrayList<>();
+			extensions.add(new DERSequence(new ASN1Encodable[] { Extension.basicConstraints,
+					new DEROctetString(new BasicConstraints(false)) }));
+			// Ed25519 keys can only sign, key agreement is EC only
+			int keyUsage = KeyType.ED25519.equals(keyType) ? KeyUsage.digitalSignature
+					: KeyUsage.digitalSignature | KeyUsage.keyAgreement;
+			extensions.add(new DERSequence(new ASN1Encodable[] { Extension.keyUsage,
+					new DEROctetString(new KeyUsage(keyUsage)) }));
+
+			if (CertificateType.SERVER.equals(certificateType) && !dnsNames.isEmpty())
+			{
+				GeneralName[] names = dnsNames.stream().map(n -> new GeneralName(GeneralName.dNSName, n))
+						.toArray(GeneralName[]::new);
+				extensions.add(new DERSequence(new ASN1Encodable[] { Extension.subjectAlternativeName,
+						new DEROctetString(new GeneralNames(names)) }));
+			}
+
+			JcaPKCS10CertificationRequestBuilder builder = new JcaPKCS10CertificationRequestBuilder(subject,
+					keyPair.getPublic());
+			builder.addAttribute(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest,
+					new DERSequence(extensions.toArray(ASN1Encodable[]::new)));
+
+			return new JcaPKCS10CertificationRequest(builder
+					.build(CertificateHelper.getContentSigner(keyType.getSignatureAlgorithm(), keyPair.getPrivate())));
+		}
+		catch (OperatorCreationException | IOException e)
+		{
+			logger.error("Error while creating " + keyType + " certificate-request", e);
+			throw new RuntimeException(e);
+		}
+	}
+
 	private void writeCertificateRequest(Path certificateRequestFile, JcaPKCS10CertificationRequest certificateRequest)
 	{
 		try
@@ -384,6 +692,7 @@ public class CertificateGenerator
 
 	private KeyPair createOrReadKeyPair(Path privateKeyFile, String commonName)
 	{
+		// private-key files win over stored key pairs, the store is a cache of the certificate folder
 		if (Files.isReadable(privateKeyFile))
 		{
 			logger.info("Reading private-key from {} [{}]", privateKeyFile.toString(), commonName);
@@ -392,10 +701,18 @@ public class CertificateGenerator
 
 			return new KeyPair(publicKey, privateKey);
 		}
+
+		Optional<KeyPair> storedKeyPair = getKeyMaterialStore().get(commonName);
+		if (storedKeyPair.isPresent())
+		{
+			logger.info("Saving stored private-key to {} [{}]", privateKeyFile.toString(), commonName);
+			writePrivateKeyEncrypted(privateKeyFile, storedKeyPair.get().getPrivate());
+
+			return storedKeyPair.get();
+		}
 		else
 		{
-			logger.info("Generating 4096 bit key pair [{}]", commonName);
-			KeyPair keyPair = createKeyPair();
+			KeyPair keyPair = getKeyMaterialStore().takeSpareOrCreate();
 
 			logger.info("Saving private-key to {} [{}]", privateKeyFile.toString(), commonName);
 			writePrivateKeyEncrypted(privateKeyFile, keyPair.getPrivate());
@@ -425,20 +742,39 @@ public class CertificateGenerator
 						"Error while generating public key from private key modules and public exponent", e);
 			}
 		}
+		else if (privateKey instanceof ECPrivateKey ecPrivateKey)
+		{
+			ECParameterSpec parameters = ecPrivateKey.getParameters();
+
+			try
+			{
+				return KeyFactory.getInstance("EC", PROVIDER).generatePublic(
+						new ECPublicKeySpec(parameters.getG().multiply(ecPrivateKey.getD()).normalize(), parameters));
+			}
+			catch (NoSuchAlgorithmException | InvalidKeySpecException e)
+			{
+				throw new RuntimeException("Error while generating public key from EC private key", e);
+			}
+		}
+		else if (privateKey instanceof EdDSAPrivateKey edPrivateKey)
+			return edPrivateKey.getPublicKey();
 		else
 			throw new RuntimeException("Error while generating public key: private key for " + commonName + " at "
-					+ privateKeyFile + " not a RSA private crt key");
+					+ privateKeyFile + " not a RSA private crt, EC or EdDSA private key");
 	}
 
 	private KeyPair createKeyPair()
 	{
 		try
 		{
-			return CertificationRequestBuilder.createRsaKeyPair4096Bit();
+			logger.info("Generating {} key pair", keyType);
+
+			return KeyType.RSA_4096.equals(keyType) ? CertificationRequestBuilder.createRsaKeyPair4096Bit()
+					: keyType.createKeyPair();
 		}
-		catch (NoSuchAlgorithmException e)
+		catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException e)
 		{
-			logger.error("Error while creating RSA key pair", e);
+			logger.error("Error while creating " + keyType + " key pair", e);
 			throw new RuntimeException(e);
 		}
 	}
@@ -461,25 +797,25 @@ public class CertificateGenerator
 	private Path getCertReqPath(String commonName)
 	{
 		commonName = commonName.replaceAll("\\s+", "_");
-		return Paths.get("cert", commonName, commonName + "_" + "certificate.csr");
+		return certFolder.resolve(commonName).resolve(commonName + "_" + "certificate.csr");
 	}
 
 	private Path getCertP12Path(String commonName)
 	{
 		commonName = commonName.replaceAll("\\s+", "_");
-		return Paths.get("cert", commonName, commonName + "_" + "certificate.p12");
+		return certFolder.resolve(commonName).resolve(commonName + "_" + "certificate.p12");
 	}
 
 	private Path getCertPemPath(String commonName)
 	{
 		commonName = commonName.replaceAll("\\s+", "_");
-		return Paths.get("cert", commonName, commonName + "_" + "certificate.pem");
+		return certFolder.resolve(commonName).resolve(commonName + "_" + "certificate.pem");
 	}
 
 	private Path getPrivateKeyPath(String commonName)
 	{
 		commonName = commonName.replaceAll("\\s+", "_");
-		return Paths.get("cert", commonName, commonName + "_" + "private-key.pem");
+		return certFolder.resolve(commonName).resolve(commonName + "_" + "private-key.pem");
 	}
 
 	private byte[] calculateSha512CertificateThumbprint(X509Certificate certificate)
@@ -518,7 +854,7 @@ public class CertificateGenerator
 		Path bpeClientPrivateKeyFile = Paths.get(folder,
 				"app_" + commonName.replace('-', '_') + "_certificate_private_key.pem");
 		logger.info("Copying {} certificate private-key file to {}", commonName, bpeClientPrivateKeyFile);
-		writePrivateKeyEncrypted(bpeClientPrivateKeyFile, clientCertFiles.keyPair.getPrivate());
+		writePrivateKeyEncrypted(bpeClientPrivateKeyFile, getPrivateKey(commonName));
 	}
 
 	public void copyDockerTestServerCert()
@@ -548,7 +884,7 @@ public class CertificateGenerator
 
 		Path serverCertificatePrivateKey = Paths.get(folder, "proxy_certificate_private_key.pem");
 		logger.info("Copying server private-key file to {}", serverCertificatePrivateKey.toString());
-		writePrivateKeyNotEncrypted(serverCertificatePrivateKey, localhost.keyPair.getPrivate());
+		writePrivateKeyNotEncrypted(serverCertificatePrivateKey, getPrivateKey(localhost.getCommonName()));
 
 		CertificateFiles keycloak = serverCertificateFilesByCommonName.get("keycloak");
 
@@ -558,7 +894,7 @@ public class CertificateGenerator
 
 		Path keycloakCertificatePrivateKey = Paths.get(folder, "keycloak_certificate_private_key.pem");
 		logger.info("Copying keycloak private-key file to {}", keycloakCertificatePrivateKey);
-		writePrivateKeyNotEncrypted(keycloakCertificatePrivateKey, keycloak.keyPair.getPrivate());
+		writePrivateKeyNotEncrypted(keycloakCertificatePrivateKey, getPrivateKey(keycloak.getCommonName()));
 
 		Path keycloakTrustStoreFile = Paths.get(folder, "keycloak_trust_store.jks");
 		logger.info("Copying Test CA certificate as trust store file to {}", keycloakTrustStoreFile.toString());
@@ -609,7 +945,8 @@ public class CertificateGenerator
 
 		logger.info("Saving certificate (p21) to {}, password '{}' [{}]", certP12Path.toString(),
 				String.valueOf(CERT_PASSWORD), files.commonName);
-		KeyStore p12KeyStore = createP12KeyStore(files.keyPair.getPrivate(), files.commonName, files.certificate);
+		KeyStore p12KeyStore = createP12KeyStore(getPrivateKey(files.commonName), files.commonName,
+				files.certificate);
 		writeP12File(certP12Path, p12KeyStore);
 
 		return certP12Path;
@@ -4,18 +4,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dev.dsf.process.tutorial.TutorialProcessPluginDefinition;
-import dev.dsf.process.tutorial.tools.generator.CertificateGenerator.CertificateFiles;
 
 public class EnvGenerator
 {
@@ -37,58 +33,19 @@ public class EnvGenerator
 		}
 	}
 
-	public void generateAndWriteDockerTestFhirEnvFiles(Map<String, CertificateFiles> clientCertificateFilesByCommonName)
+	public void generateAndWriteDockerTestFhirEnvFiles(ThumbprintIndex clientThumbprints)
 	{
-		/*
-		 * Stream<String> cosUserThumbprints = filterAndMapToThumbprint(clientCertificateFilesByCommonName,
-		 * "cos-client", "Webbrowser Test User"); Stream<String> cosUserThumbprintsPermanentDelete =
-		 * filterAndMapToThumbprint(clientCertificateFilesByCommonName, "cos-client", "Webbrowser Test User");
-		 *
-		 * Stream<String> dicUserThumbprints = filterAndMapToThumbprint(clientCertificateFilesByCommonName,
-		 * "dic-client", "Webbrowser Test User"); Stream<String> dicUserThumbprintsPermanentDelete =
-		 * filterAndMapToThumbprint(clientCertificateFilesByCommonName, "dic-client", "Webbrowser Test User");
-		 *
-		 * Stream<String> hrpUserThumbprints = filterAndMapToThumbprint(clientCertificateFilesByCommonName,
-		 * "hrp-client", "Webbrowser Test User"); Stream<String> hrpUserThumbprintsPermanentDelete =
-		 * filterAndMapToThumbprint(clientCertificateFilesByCommonName, "hrp-client", "Webbrowser Test User");
-		 */
-
-		String webbroserTestUserThumbprint = filterAndMapToThumbprint(clientCertificateFilesByCommonName,
-				"Webbrowser Test User").findFirst().get();
-
-		String bundleCosUserThumbprint = filterAndMapToThumbprint(clientCertificateFilesByCommonName, "cos-client")
-				.findFirst().get();
-
-		String bundleDicUserThumbprint = filterAndMapToThumbprint(clientCertificateFilesByCommonName, "dic-client")
-				.findFirst().get();
-
-		String bundleHrpUserThumbprint = filterAndMapToThumbprint(clientCertificateFilesByCommonName, "hrp-client")
-				.findFirst().get();
-
-		/*
-		 * String bundleTtpUserThumbprint = filterAndMapToThumbprint(clientCertificateFilesByCommonName, "ttp-client")
-		 * .findFirst().get();
-		 */
-
-		List<EnvEntry> entries = List.of(new EnvEntry(WEBBROSER_TEST_USER_THUMBPRINT, webbroserTestUserThumbprint),
-				new EnvEntry("COS_" + BUNDLE_USER_THUMBPRINT, bundleCosUserThumbprint),
-				new EnvEntry("DIC_" + BUNDLE_USER_THUMBPRINT, bundleDicUserThumbprint),
-				new EnvEntry("HRP_" + BUNDLE_USER_THUMBPRINT, bundleHrpUserThumbprint));
+		List<EnvEntry> entries = List.of(
+				new EnvEntry(WEBBROSER_TEST_USER_THUMBPRINT, clientThumbprints.getHex("Webbrowser Test User")),
+				new EnvEntry("COS_" + BUNDLE_USER_THUMBPRINT, clientThumbprints.getHex("cos-client")),
+				new EnvEntry("DIC_" + BUNDLE_USER_THUMBPRINT, clientThumbprints.getHex("dic-client")),
+				new EnvEntry("HRP_" + BUNDLE_USER_THUMBPRINT, clientThumbprints.getHex("hrp-client")));
 
 		Map<String, String> additionalEntries = Map.of(PROCESS_VERSION, TutorialProcessPluginDefinition.VERSION);
 
 		writeEnvFile(Paths.get("../dev-setup/.env"), entries, additionalEntries);
 	}
 
-	private Stream<String> filterAndMapToThumbprint(Map<String, CertificateFiles> clientCertificateFilesByCommonName,
-			String... commonNames)
-	{
-		return clientCertificateFilesByCommonName.entrySet().stream()
-				.filter(entry -> Arrays.asList(commonNames).contains(entry.getKey()))
-				.sorted(Comparator.comparing(e -> Arrays.asList(commonNames).indexOf(e.getKey()))).map(Entry::getValue)
-				.map(CertificateFiles::getCertificateSha512ThumbprintHex);
-	}
-
 	private void writeEnvFile(Path target, List<? extends EnvEntry> entries, Map<String, String> additionalEntries)
 	{
 		StringBuilder builder = new StringBuilder();
@@ -118,6 +75,12 @@ public class EnvGenerator
 
 		try
 		{
+			if (Files.isReadable(target) && builder.toString().equals(Files.readString(target)))
+			{
+				logger.info(".env file {} up to date", target.toString());
+				return;
+			}
+
 			logger.info("Writing .env file to {}", target.toString());
 			Files.writeString(target, builder.toString());
 		}
@@ -0,0 +1,193 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.OrganizationAffiliation;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StringType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+
+/**
+ * Writes the Organization, Endpoint and OrganizationAffiliation transaction bundle of a federation entry by entry.
+ * Resources are copied from the first Organization, Endpoint, parent Organization and OrganizationAffiliation of the
+ * docker test bundle template, only one organization is held in memory at a time.
+ */
+public class FederationBundleWriter implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(FederationBundleWriter.class);
+
+	private static final String ORGANIZATION_IDENTIFIER_SID = "http://dsf.dev/sid/organization-identifier";
+	private static final String ENDPOINT_IDENTIFIER_SID = "http://dsf.dev/sid/endpoint-identifier";
+	private static final String EXTENSION_THUMBPRINT =
+			"http://dsf.dev/fhir/StructureDefinition/extension-certificate-thumbprint";
+	private static final String PROFILE_ORGANIZATION_PARENT =
+			"http://dsf.dev/fhir/StructureDefinition/organization-parent";
+
+	private final Path bundleFile;
+	private final FhirContext fhirContext;
+	private final Writer writer;
+
+	private final Organization organizationTemplate;
+	private final Endpoint endpointTemplate;
+	private final Organization parentOrganization;
+	private final OrganizationAffiliation affiliationTemplate;
+
+	private final String parentOrganizationFullUrl;
+	private final String parentOrganizationIdentifier;
+
+	private int organizationCount;
+
+	/**
+	 * @param bundleFile
+	 *            not <code>null</code>
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param template
+	 *            not <code>null</code>, must contain at least one Organization, Endpoint, parent Organization and
+	 *            OrganizationAffiliation
+	 */
+	public FederationBundleWriter(Path bundleFile, FhirContext fhirContext, Bundle template)
+	{
+		this.bundleFile = bundleFile;
+		this.fhirContext = fhirContext;
+
+		organizationTemplate = template.getEntry().stream().map(BundleEntryComponent::getResource)
+				.filter(r -> r instanceof Organization o && !isParent(o)).map(r -> (Organization) r).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Template without Organization"));
+		endpointTemplate = template.getEntry().stream().map(BundleEntryComponent::getResource)
+				.filter(r -> r instanceof Endpoint).map(r -> (Endpoint) r).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Template without Endpoint"));
+		BundleEntryComponent parentEntry = template.getEntry().stream()
+				.filter(e -> e.getResource() instanceof Organization o && isParent(o)).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Template without parent Organization"));
+		affiliationTemplate = template.getEntry().stream().map(BundleEntryComponent::getResource)
+				.filter(r -> r instanceof OrganizationAffiliation).map(r -> (OrganizationAffiliation) r).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Template without OrganizationAffiliation"));
+
+		parentOrganization = (Organization) parentEntry.getResource();
+		parentOrganizationFullUrl = parentEntry.getFullUrl();
+		parentOrganizationIdentifier = parentOrganization.getIdentifierFirstRep().getValue();
+
+		try
+		{
+			Files.createDirectories(bundleFile.toAbsolutePath().getParent());
+			writer = new BufferedWriter(Files.newBufferedWriter(bundleFile, StandardCharsets.UTF_8), 1 << 16);
+
+			writer.write("<Bundle xmlns=\"http://hl7.org/fhir\">\n\t<type value=\"transaction\"/>\n");
+			writeEntry(parentOrganizationFullUrl, parentOrganization, "Organization?identifier="
+					+ ORGANIZATION_IDENTIFIER_SID + "|" + parentOrganizationIdentifier);
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while writing bundle to " + bundleFile.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static boolean isParent(Organization organization)
+	{
+		return organization.getMeta().getProfile().stream()
+				.anyMatch(p -> PROFILE_ORGANIZATION_PARENT.equals(p.getValue()));
+	}
+
+	private static String fullUrl(String type, String identifier)
+	{
+		return "urn:uuid:" + UUID.nameUUIDFromBytes((type + "|" + identifier).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void write(FederationOrganization organization)
+	{
+		String organizationFullUrl = fullUrl("Organization", organization.getIdentifier());
+		String endpointFullUrl = fullUrl("Endpoint", organization.getIdentifier());
+		String endpointIdentifier = organization.getIdentifier() + "_Endpoint";
+
+		Organization o = organizationTemplate.copy();
+		o.getIdentifierFirstRep().setValue(organization.getIdentifier());
+		o.setName(organization.getName());
+		o.getExtensionByUrl(EXTENSION_THUMBPRINT).setValue(new StringType(organization.getThumbprint()));
+		o.getEndpointFirstRep().setReference(endpointFullUrl);
+
+		Endpoint e = endpointTemplate.copy();
+		e.getIdentifierFirstRep().setValue(endpointIdentifier);
+		e.setName(organization.getName() + " Endpoint");
+		e.getManagingOrganization().setReference(organizationFullUrl);
+		e.setAddress(organization.getEndpointAddress());
+
+		OrganizationAffiliation a = affiliationTemplate.copy();
+		a.getOrganization().setReference(parentOrganizationFullUrl);
+		a.getParticipatingOrganization().setReference(organizationFullUrl);
+		a.getCodeFirstRep().getCodingFirstRep().setCode(organization.getRole());
+		a.getEndpointFirstRep().setReference(endpointFullUrl);
+
+		try
+		{
+			writeEntry(organizationFullUrl, o,
+					"Organization?identifier=" + ORGANIZATION_IDENTIFIER_SID + "|" + organization.getIdentifier());
+			writeEntry(endpointFullUrl, e, "Endpoint?identifier=" + ENDPOINT_IDENTIFIER_SID + "|" + endpointIdentifier);
+			writeEntry(fullUrl("OrganizationAffiliation", organization.getIdentifier()), a,
+					"OrganizationAffiliation?primary-organization:identifier=" + ORGANIZATION_IDENTIFIER_SID + "|"
+							+ parentOrganizationIdentifier + "&participating-organization:identifier="
+							+ ORGANIZATION_IDENTIFIER_SID + "|" + organization.getIdentifier());
+		}
+		catch (IOException ex)
+		{
+			logger.error("Error while writing bundle to " + bundleFile.toString(), ex);
+			throw new RuntimeException(ex);
+		}
+
+		organizationCount++;
+	}
+
+	private void writeEntry(String fullUrl, Resource resource, String requestUrl) throws IOException
+	{
+		writer.write("\t<entry>\n\t\t<fullUrl value=\"");
+		writer.write(escape(fullUrl));
+		writer.write("\"/>\n\t\t<resource>\n");
+		writer.write(newXmlParser().encodeResourceToString(resource));
+		writer.write("\n\t\t</resource>\n\t\t<request>\n\t\t\t<method value=\"PUT\"/>\n\t\t\t<url value=\"");
+		writer.write(escape(requestUrl));
+		writer.write("\"/>\n\t\t</request>\n\t</entry>\n");
+	}
+
+	private String escape(String value)
+	{
+		return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+
+	private IParser newXmlParser()
+	{
+		IParser parser = fhirContext.newXmlParser();
+		parser.setStripVersionsFromReferences(false);
+		parser.setOverrideResourceIdWithBundleEntryFullUrl(false);
+		return parser;
+	}
+
+	@Override
+	public void close()
+	{
+		try (writer)
+		{
+			writer.write("</Bundle>\n");
+			logger.info("{} organization(s) written to {}", organizationCount, bundleFile.toString());
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while writing bundle to " + bundleFile.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+}
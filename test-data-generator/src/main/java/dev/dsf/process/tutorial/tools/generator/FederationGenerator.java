@@ -0,0 +1,210 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import de.rwh.utils.crypto.CertificateAuthority;
+import dev.dsf.process.tutorial.TutorialProcessPluginDefinition;
+
+/**
+ * Generates a test federation of N organizations: client certificates signed by a shared CA, an Organization,
+ * Endpoint and OrganizationAffiliation transaction bundle, a <code>.env</code> file with the bundle user thumbprints
+ * and per node <code>fhir.env</code> and <code>bpe.env</code> files.
+ * <p>
+ * Certificates are created in parallel, all files are written in organization order while organizations are
+ * generated. Memory use grows with N: the key material store keeps the key pairs of all organizations until it is
+ * saved after the run, and organizations generated ahead of the next one to be written are buffered until it is done.
+ * <p>
+ * Key pairs are kept in the key material store of the output folder. If spare key pairs are requested, they are
+ * generated in the background while the federation is generated, the spares finished when the run ends are stored and
+ * used when organizations are added by a later run.
+ * <p>
+ * Arguments:
+ * <code>&lt;organization-count&gt; [output-folder] [endpoint-address-pattern] [spare-key-pairs] [key-type]</code>,
+ * defaults <code>federation</code>, <code>https://%s/fhir</code>, <code>0</code> and <code>RSA_4096</code>, see
+ * {@link KeyType}.
+ */
+public class FederationGenerator
+{
+	private static final Logger logger = LoggerFactory.getLogger(FederationGenerator.class);
+
+	public static final int MIN_ORGANIZATIONS = 10;
+	public static final int MAX_ORGANIZATIONS = 1_000;
+
+	private static final String[] ROLES = { "DIC", "COS", "HRP" };
+	private static final String PROCESS_VERSION = "PROCESS_VERSION";
+
+	static
+	{
+		CertificateAuthority.registerBouncyCastleProvider();
+	}
+
+	private final int organizationCount;
+	private final Path outputFolder;
+	private final String endpointAddressPattern;
+	private final int spareKeyPairs;
+	private final KeyType keyType;
+
+	/**
+	 * @param organizationCount
+	 *            {@value #MIN_ORGANIZATIONS} to {@value #MAX_ORGANIZATIONS}
+	 * @param outputFolder
+	 *            not <code>null</code>
+	 * @param endpointAddressPattern
+	 *            not <code>null</code>, {@link String#format(String, Object...)} pattern, the organization name as
+	 *            argument
+	 * @param spareKeyPairs
+	 *            &gt;= 0, number of key pairs to pre-generate for later runs
+	 * @param keyType
+	 *            not <code>null</code>, key type of the CA and all client certificates
+	 */
+	public FederationGenerator(int organizationCount, Path outputFolder, String endpointAddressPattern,
+			int spareKeyPairs, KeyType keyType)
+	{
+		if (organizationCount < MIN_ORGANIZATIONS || organizationCount > MAX_ORGANIZATIONS)
+			throw new IllegalArgumentException("organizationCount " + organizationCount + " not in ["
+					+ MIN_ORGANIZATIONS + ", " + MAX_ORGANIZATIONS + "]");
+
+		this.organizationCount = organizationCount;
+		this.outputFolder = outputFolder;
+		this.endpointAddressPattern = endpointAddressPattern;
+		this.spareKeyPairs = spareKeyPairs;
+		this.keyType = keyType;
+	}
+
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			logger.error(
+					"Usage: {} <organization-count> [output-folder] [endpoint-address-pattern] [spare-key-pairs] [key-type]",
+					FederationGenerator.class.getName());
+			System.exit(1);
+		}
+
+		int organizationCount = Integer.parseInt(args[0]);
+		Path outputFolder = Paths.get(args.length > 1 ? args[1] : "federation");
+		String endpointAddressPattern = args.length > 2 ? args[2] : "https://%s/fhir";
+		int spareKeyPairs = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+		KeyType keyType = args.length > 4 ? KeyType.valueOf(args[4].toUpperCase()) : KeyType.RSA_4096;
+
+		new FederationGenerator(organizationCount, outputFolder, endpointAddressPattern, spareKeyPairs, keyType)
+				.generate();
+	}
+
+	public void generate()
+	{
+		logger.info("Generating federation with {} organizations and {} keys in {}", organizationCount, keyType,
+				outputFolder.toAbsolutePath().toString());
+
+		CertificateGenerator certificateGenerator = new CertificateGenerator(
+				keyType.resolveCertFolder(outputFolder.resolve("cert")), keyType);
+		Path bundleTemplateFile = Paths.get("src/main/resources/bundle-templates/bundle.xml");
+
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try (FederationBundleWriter bundleWriter = new FederationBundleWriter(
+				outputFolder.resolve("bundle/bundle.xml"), FhirContext.forR4(),
+				new BundleGenerator().readAndCleanBundle(bundleTemplateFile));
+				Writer envWriter = newWriter(outputFolder.resolve(".env")))
+		{
+			envWriter.write(PROCESS_VERSION + "=" + TutorialProcessPluginDefinition.VERSION + "\n");
+
+			// spares are generated on low priority threads while the federation is generated, until the run ends
+			certificateGenerator.preGenerateKeyPairs(spareKeyPairs);
+
+			// key pair generation dominates and runs in parallel, results are written in organization order
+			pool.submit(() -> IntStream.rangeClosed(1, organizationCount).parallel()
+					.mapToObj(i -> createOrganization(certificateGenerator, i)).forEachOrdered(o ->
+					{
+						bundleWriter.write(o);
+						writeEnv(envWriter, o);
+						writeNodeConfig(o);
+					})).join();
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while writing federation to " + outputFolder.toString(), e);
+			throw new RuntimeException(e);
+		}
+		finally
+		{
+			pool.shutdown();
+			certificateGenerator.saveKeyMaterial();
+		}
+	}
+
+	private FederationOrganization createOrganization(CertificateGenerator certificateGenerator, int index)
+	{
+		String name = String.format("org-%04d", index);
+		String clientCommonName = name + "-client";
+		String thumbprint = certificateGenerator.createClientCertificate(clientCommonName);
+
+		return new FederationOrganization(index, name + ".dsf.test", ROLES[(index - 1) % ROLES.length],
+				String.format(endpointAddressPattern, name), clientCommonName, thumbprint);
+	}
+
+	private void writeEnv(Writer envWriter, FederationOrganization organization)
+	{
+		try
+		{
+			envWriter.write(organization.getThumbprintVariable() + "=" + organization.getThumbprint() + "\n");
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while writing .env entry for " + organization.getIdentifier(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void writeNodeConfig(FederationOrganization organization)
+	{
+		Path nodeFolder = outputFolder.resolve("nodes").resolve(organization.getName());
+		String certificateName = organization.getClientCommonName().replace('-', '_');
+		String fhirBaseUrl = organization.getEndpointAddress();
+		String thumbprintVariable = "${" + organization.getThumbprintVariable() + "}";
+
+		try (Writer fhir = newWriter(nodeFolder.resolve("fhir.env"));
+				Writer bpe = newWriter(nodeFolder.resolve("bpe.env")))
+		{
+			fhir.write("DEV_DSF_FHIR_SERVER_BASE_URL=" + fhirBaseUrl + "\n");
+			fhir.write("DEV_DSF_FHIR_SERVER_ORGANIZATION_IDENTIFIER_VALUE=" + organization.getIdentifier() + "\n");
+			fhir.write("DEV_DSF_FHIR_SERVER_ORGANIZATION_THUMBPRINT=" + thumbprintVariable + "\n");
+			writeClientCertificate(fhir, "DEV_DSF_FHIR_CLIENT_CERTIFICATE", certificateName);
+
+			bpe.write("DEV_DSF_BPE_FHIR_SERVER_BASE_URL=" + fhirBaseUrl + "\n");
+			bpe.write("DEV_DSF_BPE_SERVER_BASE_URL=" + fhirBaseUrl.replaceFirst("/fhir$", "/bpe") + "\n");
+			writeClientCertificate(bpe, "DEV_DSF_BPE_FHIR_CLIENT_CERTIFICATE", certificateName);
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while writing node config to " + nodeFolder.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void writeClientCertificate(Writer writer, String variable, String certificateName) throws IOException
+	{
+		String secret = "/run/secrets/app_" + certificateName + "_certificate";
+
+		writer.write(variable + "=" + secret + ".pem\n");
+		writer.write(variable + "_PRIVATE_KEY=" + secret + "_private_key.pem\n");
+		writer.write(variable + "_PRIVATE_KEY_PASSWORD_FILE=" + secret + "_private_key.pem.password\n");
+	}
+
+	private Writer newWriter(Path file) throws IOException
+	{
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+	}
+}
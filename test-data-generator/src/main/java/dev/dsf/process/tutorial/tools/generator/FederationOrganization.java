@@ -0,0 +1,80 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+/**
+ * Generated member of a test federation, key material is only kept on disk.
+ */
+public class FederationOrganization
+{
+	private final int index;
+	private final String identifier;
+	private final String role;
+	private final String endpointAddress;
+	private final String clientCommonName;
+	private final String thumbprint;
+
+	public FederationOrganization(int index, String identifier, String role, String endpointAddress,
+			String clientCommonName, String thumbprint)
+	{
+		this.index = index;
+		this.identifier = identifier;
+		this.role = role;
+		this.endpointAddress = endpointAddress;
+		this.clientCommonName = clientCommonName;
+		this.thumbprint = thumbprint;
+	}
+
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * @return organization identifier, e.g. <code>org-0001.dsf.test</code>
+	 */
+	public String getIdentifier()
+	{
+		return identifier;
+	}
+
+	/**
+	 * @return host name part of the identifier, e.g. <code>org-0001</code>
+	 */
+	public String getName()
+	{
+		return identifier.substring(0, identifier.indexOf('.'));
+	}
+
+	/**
+	 * @return organization-role code, <code>DIC</code>, <code>COS</code> or <code>HRP</code>
+	 */
+	public String getRole()
+	{
+		return role;
+	}
+
+	public String getEndpointAddress()
+	{
+		return endpointAddress;
+	}
+
+	public String getClientCommonName()
+	{
+		return clientCommonName;
+	}
+
+	/**
+	 * @return SHA-512 thumbprint of the client certificate as hex string
+	 */
+	public String getThumbprint()
+	{
+		return thumbprint;
+	}
+
+	/**
+	 * @return .env variable name of the thumbprint, e.g. <code>ORG_0001_BUNDLE_USER_THUMBPRINT</code>
+	 */
+	public String getThumbprintVariable()
+	{
+		return getName().toUpperCase().replace('-', '_') + "_BUNDLE_USER_THUMBPRINT";
+	}
+}
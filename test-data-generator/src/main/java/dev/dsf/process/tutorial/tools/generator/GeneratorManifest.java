@@ -0,0 +1,203 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records SHA-256 content hashes of the inputs and outputs of generated artifacts. An artifact is up to date if the
+ * hash of its inputs did not change and all outputs still exist with the recorded content.
+ */
+public class GeneratorManifest
+{
+	private static final Logger logger = LoggerFactory.getLogger(GeneratorManifest.class);
+
+	private static final String INPUT_SUFFIX = ".input";
+	private static final String OUTPUT_SUFFIX = ".output.";
+	private static final byte[] MISSING = "<missing>".getBytes(StandardCharsets.UTF_8);
+
+	private final Path manifestFile;
+	private final Properties entries = new Properties();
+
+	private GeneratorManifest(Path manifestFile)
+	{
+		this.manifestFile = manifestFile;
+	}
+
+	/**
+	 * @param manifestFile
+	 *            not <code>null</code>
+	 * @param full
+	 *            <code>true</code> to ignore an existing manifest, all artifacts are out of date
+	 * @return manifest with the entries of the given file, empty if the file does not exist
+	 */
+	public static GeneratorManifest read(Path manifestFile, boolean full)
+	{
+		GeneratorManifest manifest = new GeneratorManifest(manifestFile);
+
+		if (!full && Files.isReadable(manifestFile))
+		{
+			try (InputStream in = Files.newInputStream(manifestFile))
+			{
+				manifest.entries.load(in);
+			}
+			catch (IOException e)
+			{
+				logger.error("Error while reading generator manifest from " + manifestFile.toString(), e);
+				throw new RuntimeException(e);
+			}
+		}
+
+		return manifest;
+	}
+
+	public void write()
+	{
+		try (OutputStream out = Files.newOutputStream(manifestFile))
+		{
+			entries.store(out, "test-data-generator content hashes, delete to force full regeneration");
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while writing generator manifest to " + manifestFile.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @param artifact
+	 *            not <code>null</code>
+	 * @param inputHash
+	 *            not <code>null</code>
+	 * @param outputs
+	 *            not <code>null</code>
+	 * @return <code>true</code> if the recorded input hash matches and all outputs exist with unchanged content
+	 */
+	public boolean isUpToDate(String artifact, String inputHash, List<Path> outputs)
+	{
+		if (!inputHash.equals(entries.getProperty(artifact + INPUT_SUFFIX)))
+			return false;
+
+		for (Path output : outputs)
+		{
+			if (!Files.isRegularFile(output)
+					|| !hashFiles(output).equals(entries.getProperty(artifact + OUTPUT_SUFFIX + output.normalize())))
+				return false;
+		}
+
+		logger.info("{} up to date", artifact);
+		return true;
+	}
+
+	public void update(String artifact, String inputHash, List<Path> outputs)
+	{
+		String outputPrefix = artifact + OUTPUT_SUFFIX;
+		entries.stringPropertyNames().stream().filter(n -> n.startsWith(outputPrefix)).forEach(entries::remove);
+
+		entries.setProperty(artifact + INPUT_SUFFIX, inputHash);
+		for (Path output : outputs)
+			entries.setProperty(outputPrefix + output.normalize(), hashFiles(output));
+	}
+
+	/**
+	 * @param values
+	 *            not <code>null</code>
+	 * @return hex encoded SHA-256 hash of the given values
+	 */
+	public static String hashValues(String... values)
+	{
+		MessageDigest digest = newDigest();
+		for (String value : values)
+		{
+			digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * @param files
+	 *            not <code>null</code>
+	 * @return hex encoded SHA-256 hash of the given file names and contents, missing files are hashed as a marker
+	 */
+	public static String hashFiles(Path... files)
+	{
+		MessageDigest digest = newDigest();
+		for (Path file : files)
+		{
+			digest.update(file.normalize().toString().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+
+			try
+			{
+				digest.update(Files.isRegularFile(file) ? Files.readAllBytes(file) : MISSING);
+			}
+			catch (IOException e)
+			{
+				logger.error("Error while reading " + file.toString(), e);
+				throw new RuntimeException(e);
+			}
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * Copies the source file byte by byte if the target does not exist or has different content.
+	 *
+	 * @return <code>true</code> if the target was written
+	 */
+	public static boolean copyIfChanged(Path source, Path target)
+	{
+		try
+		{
+			if (Files.isRegularFile(target) && Files.mismatch(source, target) == -1)
+			{
+				logger.debug("{} unchanged", target.toString());
+				return false;
+			}
+
+			logger.info("Copying {} to {}", source.toString(), target.toString());
+			try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+					FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+							StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				long size = in.size();
+				for (long position = 0; position < size;)
+					position += in.transferTo(position, size - position, out);
+			}
+			return true;
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while copying " + source.toString() + " to " + target.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
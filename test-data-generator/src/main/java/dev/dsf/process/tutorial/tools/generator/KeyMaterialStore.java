@@ -0,0 +1,354 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.KeyStore.PasswordProtection;
+import java.security.KeyStore.PrivateKeyEntry;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.UnrecoverableEntryException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.crypto.spec.PBEParameterSpec;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * PKCS#12 key store with the key pairs of all generated certificates by common name and spare key pairs for new
+ * certificates. Entries are decrypted once when the store is opened, lookups are map lookups. Spare key pairs can be
+ * generated in the background with {@link #preGenerate(int)} until the store is closed.
+ * <p>
+ * The store is a cache of the certificate folder, deleting it is safe. Entries use a low PBE iteration count, the key
+ * material is test data protected by a well known password.
+ */
+public class KeyMaterialStore implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(KeyMaterialStore.class);
+
+	private static final String SPARE_ALIAS_PREFIX = "spare-";
+	private static final String PBE_ALGORITHM = "PBEWithHmacSHA256AndAES_256";
+	private static final int PBE_ITERATIONS = 1_000;
+	private static final long PRE_GENERATION_STOP_TIMEOUT_SECONDS = 30;
+
+	private final Path storeFile;
+	private final char[] password;
+	private final Supplier<KeyPair> keyPairFactory;
+
+	private final Map<String, PrivateKeyEntry> entriesByCommonName = new ConcurrentHashMap<>();
+	private final Deque<PrivateKeyEntry> spares = new ConcurrentLinkedDeque<>();
+	private final SecureRandom random = new SecureRandom();
+
+	private volatile boolean modified;
+	private ExecutorService preGeneration;
+
+	private KeyMaterialStore(Path storeFile, char[] password, Supplier<KeyPair> keyPairFactory)
+	{
+		this.storeFile = storeFile;
+		this.password = password;
+		this.keyPairFactory = keyPairFactory;
+	}
+
+	/**
+	 * @param storeFile
+	 *            not <code>null</code>, created on {@link #save()} if it does not exist
+	 * @param password
+	 *            not <code>null</code>
+	 * @param keyPairFactory
+	 *            not <code>null</code>, creates new key pairs if no spare is available
+	 * @return store with the entries of the given file
+	 */
+	public static KeyMaterialStore open(Path storeFile, char[] password, Supplier<KeyPair> keyPairFactory)
+	{
+		KeyMaterialStore store = new KeyMaterialStore(storeFile, password, keyPairFactory);
+
+		if (Files.isReadable(storeFile))
+			store.load();
+
+		return store;
+	}
+
+	private void load()
+	{
+		try (InputStream in = Files.newInputStream(storeFile))
+		{
+			KeyStore keyStore = KeyStore.getInstance("PKCS12");
+			keyStore.load(in, password);
+
+			PasswordProtection protection = new PasswordProtection(password);
+			for (String alias : Collections.list(keyStore.aliases()))
+			{
+				if (keyStore.getEntry(alias, protection) instanceof PrivateKeyEntry entry)
+				{
+					if (alias.startsWith(SPARE_ALIAS_PREFIX))
+						spares.add(entry);
+					else
+						entriesByCommonName.put(alias, entry);
+				}
+			}
+
+			logger.info("Key material store {} loaded, {} key pair(s), {} spare(s)", storeFile.toString(),
+					entriesByCommonName.size(), spares.size());
+		}
+		catch (IOException | KeyStoreException | NoSuchAlgorithmException | CertificateException
+				| UnrecoverableEntryException e)
+		{
+			logger.error("Error while reading key material store from " + storeFile.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @param commonName
+	 *            not <code>null</code>
+	 * @return key pair of the certificate with the given common name, empty if not stored
+	 */
+	public Optional<KeyPair> get(String commonName)
+	{
+		return Optional.ofNullable(entriesByCommonName.get(commonName)).map(this::toKeyPair);
+	}
+
+	/**
+	 * @param commonName
+	 *            not <code>null</code>
+	 * @param keyPair
+	 *            not <code>null</code>
+	 * @param certificate
+	 *            not <code>null</code>, certificate of the given key pair
+	 */
+	public void put(String commonName, KeyPair keyPair, X509Certificate certificate)
+	{
+		PrivateKeyEntry existing = entriesByCommonName.get(commonName);
+		if (existing != null && existing.getCertificate().equals(certificate))
+			return;
+
+		entriesByCommonName.put(commonName, toEntry(keyPair.getPrivate(), certificate));
+		modified = true;
+	}
+
+	/**
+	 * @return a spare key pair, or a new key pair if no spare is available
+	 */
+	public KeyPair takeSpareOrCreate()
+	{
+		PrivateKeyEntry spare = spares.poll();
+		if (spare != null)
+		{
+			modified = true;
+			return toKeyPair(spare);
+		}
+		else
+			return keyPairFactory.get();
+	}
+
+	public int getSpareCount()
+	{
+		return spares.size();
+	}
+
+	/**
+	 * Starts generating spare key pairs on low priority background threads until the given number of spares is
+	 * available or the store is closed. Spares taken while the generation is running are replaced.
+	 *
+	 * @param spareTarget
+	 *            &gt;= 0
+	 */
+	public synchronized void preGenerate(int spareTarget)
+	{
+		if (preGeneration != null || spareTarget <= spares.size())
+			return;
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadCount = new AtomicInteger();
+		preGeneration = Executors.newFixedThreadPool(threads, r ->
+		{
+			Thread thread = new Thread(r, "key-pre-generation-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+
+		logger.info("Pre-generating {} spare key pair(s) in the background", spareTarget - spares.size());
+
+		for (int i = 0; i < threads; i++)
+		{
+			preGeneration.execute(() ->
+			{
+				while (!Thread.currentThread().isInterrupted() && spares.size() < spareTarget)
+				{
+					KeyPair keyPair = keyPairFactory.get();
+					spares.add(toEntry(keyPair.getPrivate(), createPlaceholderCertificate(keyPair)));
+					modified = true;
+				}
+			});
+		}
+
+		preGeneration.shutdown();
+	}
+
+	private X509Certificate createPlaceholderCertificate(KeyPair keyPair)
+	{
+		// PKCS#12 private key entries need a certificate, spares are stored with a self-signed placeholder
+		X500Name subject = new X500Name("CN=" + SPARE_ALIAS_PREFIX + UUID.randomUUID());
+		Instant now = Instant.now();
+
+		try
+		{
+			return new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(subject,
+					BigInteger.valueOf(random.nextLong() & Long.MAX_VALUE), Date.from(now),
+					Date.from(now.plus(Duration.ofDays(3650))), subject, keyPair.getPublic())
+					.build(new JcaContentSignerBuilder(KeyType.of(keyPair.getPublic()).getSignatureAlgorithm())
+									.build(keyPair.getPrivate())));
+		}
+		catch (CertificateException | OperatorCreationException e)
+		{
+			logger.error("Error while creating placeholder certificate", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private PrivateKeyEntry toEntry(PrivateKey privateKey, X509Certificate certificate)
+	{
+		if (privateKey.getAlgorithm().equals(certificate.getPublicKey().getAlgorithm()))
+			return new PrivateKeyEntry(privateKey, new Certificate[] { certificate });
+
+		// e.g. Ed25519 from BouncyCastle and EdDSA from the JDK, entries need matching names, both are re-encoded with
+		// the default providers
+		try
+		{
+			Certificate converted = CertificateFactory.getInstance("X.509")
+					.generateCertificate(new ByteArrayInputStream(certificate.getEncoded()));
+			PrivateKey convertedPrivateKey = KeyFactory.getInstance(converted.getPublicKey().getAlgorithm())
+					.generatePrivate(new PKCS8EncodedKeySpec(privateKey.getEncoded()));
+
+			return new PrivateKeyEntry(convertedPrivateKey, new Certificate[] { converted });
+		}
+		catch (CertificateException | NoSuchAlgorithmException | InvalidKeySpecException e)
+		{
+			logger.error("Error while converting " + privateKey.getAlgorithm() + " key material", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private KeyPair toKeyPair(PrivateKeyEntry entry)
+	{
+		return new KeyPair(entry.getCertificate().getPublicKey(), entry.getPrivateKey());
+	}
+
+	/**
+	 * Writes all entries and spares to the store file if the store was modified.
+	 */
+	public synchronized void save()
+	{
+		if (!modified)
+			return;
+
+		try
+		{
+			KeyStore keyStore = KeyStore.getInstance("PKCS12");
+			keyStore.load(null, null);
+
+			for (Map.Entry<String, PrivateKeyEntry> entry : entriesByCommonName.entrySet())
+				keyStore.setEntry(entry.getKey(), entry.getValue(), newProtection());
+
+			int i = 0;
+			for (PrivateKeyEntry spare : spares)
+				keyStore.setEntry(SPARE_ALIAS_PREFIX + i++, spare, newProtection());
+
+			Path tempFile = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+			try (OutputStream out = Files.newOutputStream(tempFile))
+			{
+				keyStore.store(out, password);
+			}
+			Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING);
+
+			modified = false;
+			logger.info("Key material store {} saved, {} key pair(s), {} spare(s)", storeFile.toString(),
+					entriesByCommonName.size(), i);
+		}
+		catch (IOException | KeyStoreException | NoSuchAlgorithmException | CertificateException e)
+		{
+			logger.error("Error while writing key material store to " + storeFile.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private PasswordProtection newProtection()
+	{
+		byte[] salt = new byte[16];
+		random.nextBytes(salt);
+
+		return new PasswordProtection(password, PBE_ALGORITHM, new PBEParameterSpec(salt, PBE_ITERATIONS));
+	}
+
+	/**
+	 * Stops a running {@link #preGenerate(int)} and saves the store with the spares generated so far. Key pairs in
+	 * generation are awaited for up to {@value #PRE_GENERATION_STOP_TIMEOUT_SECONDS} seconds.
+	 */
+	@Override
+	public void close()
+	{
+		ExecutorService preGeneration;
+		synchronized (this)
+		{
+			preGeneration = this.preGeneration;
+			this.preGeneration = null;
+		}
+
+		if (preGeneration != null)
+		{
+			preGeneration.shutdownNow();
+
+			try
+			{
+				if (!preGeneration.awaitTermination(PRE_GENERATION_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+					logger.warn("Key pre-generation not stopped after {} seconds, saving {} spare(s)",
+							PRE_GENERATION_STOP_TIMEOUT_SECONDS, spares.size());
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			logger.info("Key pre-generation stopped, {} spare(s) available", spares.size());
+		}
+
+		save();
+	}
+}
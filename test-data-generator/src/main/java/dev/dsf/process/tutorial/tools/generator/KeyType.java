@@ -0,0 +1,114 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import java.nio.file.Path;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * Key pair and signature algorithms of the CA and all generated certificates. EC and Ed25519 key pairs are generated
+ * in milliseconds and make TLS handshakes cheaper than RSA 4096. Ed25519 certificates are not supported by web
+ * browsers, use them for client certificates of the FHIR and BPE servers only.
+ */
+public enum KeyType
+{
+	RSA_4096("RSA", 4096, null, "SHA512WithRSA"),
+	EC_P256("EC", 256, "secp256r1", "SHA256withECDSA"),
+	EC_P384("EC", 384, "secp384r1", "SHA384withECDSA"),
+	ED25519("Ed25519", 255, null, "Ed25519");
+
+	private final String keyAlgorithm;
+	private final int keySize;
+	private final String curve;
+	private final String signatureAlgorithm;
+
+	private KeyType(String keyAlgorithm, int keySize, String curve, String signatureAlgorithm)
+	{
+		this.keyAlgorithm = keyAlgorithm;
+		this.keySize = keySize;
+		this.curve = curve;
+		this.signatureAlgorithm = signatureAlgorithm;
+	}
+
+	public String getKeyAlgorithm()
+	{
+		return keyAlgorithm;
+	}
+
+	public String getSignatureAlgorithm()
+	{
+		return signatureAlgorithm;
+	}
+
+	public KeyPair createKeyPair() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException
+	{
+		KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+
+		if (curve != null)
+			generator.initialize(new ECGenParameterSpec(curve));
+		else if (RSA_4096.equals(this))
+			generator.initialize(keySize);
+
+		return generator.generateKeyPair();
+	}
+
+	/**
+	 * @param baseFolder
+	 *            not <code>null</code>
+	 * @return the given folder for {@link #RSA_4096}, a sub folder named after the key type otherwise, certificates
+	 *         of different key types are kept apart and switching key types does not regenerate anything
+	 */
+	public Path resolveCertFolder(Path baseFolder)
+	{
+		return RSA_4096.equals(this) ? baseFolder : baseFolder.resolve(name().toLowerCase().replace('_', '-'));
+	}
+
+	@Override
+	public String toString()
+	{
+		return curve != null ? keyAlgorithm + " " + curve : keyAlgorithm + " " + keySize + " bit";
+	}
+
+	/**
+	 * @param key
+	 *            not <code>null</code>
+	 * @return key type of the given key, {@link #RSA_4096} for RSA keys of any size
+	 * @throws IllegalArgumentException
+	 *             if the key algorithm or curve is not supported
+	 */
+	public static KeyType of(Key key)
+	{
+		switch (key.getAlgorithm())
+		{
+			case "RSA":
+				return RSA_4096;
+
+			case "EC":
+			case "ECDSA":
+				if (key instanceof ECKey ecKey)
+				{
+					int fieldSize = ecKey.getParams().getCurve().getField().getFieldSize();
+					if (fieldSize == EC_P256.keySize)
+						return EC_P256;
+					else if (fieldSize == EC_P384.keySize)
+						return EC_P384;
+				}
+				break;
+
+			case "Ed25519":
+				return ED25519;
+
+			case "EdDSA":
+				if (key instanceof EdECKey edKey && "Ed25519".equals(edKey.getParams().getName()))
+					return ED25519;
+				break;
+		}
+
+		throw new IllegalArgumentException("Key algorithm " + key.getAlgorithm() + " not supported");
+	}
+}
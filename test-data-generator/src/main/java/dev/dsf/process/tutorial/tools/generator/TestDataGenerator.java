@@ -1,6 +1,9 @@
 package dev.dsf.process.tutorial.tools.generator;
 
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -13,16 +16,65 @@ public class TestDataGenerator
 {
 	private static final Logger logger = LoggerFactory.getLogger(TestDataGenerator.class);
 
-	private static final CertificateGenerator certificateGenerator = new CertificateGenerator();
-	private static final BundleGenerator bundleGenerator = new BundleGenerator();
 	private static final EnvGenerator envGenerator = new EnvGenerator();
 
+	private static final Path MANIFEST_FILE = Paths.get("generator-manifest.properties");
+	private static final String CERTIFICATES = "certificates";
+	private static final String BUNDLE = "bundle";
+	private static final String KEY_TYPE_ARGUMENT = "--key-type=";
+
 	static
 	{
 		CertificateAuthority.registerBouncyCastleProvider();
 	}
 
+	/**
+	 * Regenerates only artifacts whose inputs changed since the last run, see {@link GeneratorManifest}. Use argument
+	 * <code>--full</code> to regenerate everything, <code>--compact</code> to write the bundle without pretty printing
+	 * and <code>--key-type=&lt;RSA_4096|EC_P256|EC_P384|ED25519&gt;</code> to select the key type of all certificates,
+	 * default <code>RSA_4096</code>.
+	 */
 	public static void main(String[] args)
+	{
+		List<String> arguments = Arrays.asList(args);
+		GeneratorManifest manifest = GeneratorManifest.read(MANIFEST_FILE, arguments.contains("--full"));
+		BundleGenerator bundleGenerator = new BundleGenerator(!arguments.contains("--compact"));
+		CertificateGenerator certificateGenerator = new CertificateGenerator(getKeyType(arguments));
+
+		List<Path> certificateOutputs = certificateGenerator.getDockerTestOutputFiles();
+		if (manifest.isUpToDate(CERTIFICATES, certificateGenerator.getCertificatesInputHash(), certificateOutputs))
+			certificateGenerator.readCertificates();
+		else
+		{
+			generateCertificates(certificateGenerator);
+			manifest.update(CERTIFICATES, certificateGenerator.getCertificatesInputHash(), certificateOutputs);
+		}
+
+		ThumbprintIndex clientThumbprints = ThumbprintIndex
+				.of(certificateGenerator.getClientCertificateFilesByCommonName().values());
+
+		String bundleInputHash = bundleGenerator.getDockerTestBundleInputHash(clientThumbprints);
+		List<Path> bundleOutputs = List.of(bundleGenerator.getDockerTestBundleFile());
+		if (!manifest.isUpToDate(BUNDLE, bundleInputHash, bundleOutputs))
+		{
+			bundleGenerator.createDockerTestBundles(clientThumbprints);
+			manifest.update(BUNDLE, bundleInputHash, bundleOutputs);
+		}
+		bundleGenerator.copyDockerTestBundles();
+
+		envGenerator.generateAndWriteDockerTestFhirEnvFiles(clientThumbprints);
+
+		manifest.write();
+	}
+
+	private static KeyType getKeyType(List<String> arguments)
+	{
+		return arguments.stream().filter(a -> a.startsWith(KEY_TYPE_ARGUMENT))
+				.map(a -> KeyType.valueOf(a.substring(KEY_TYPE_ARGUMENT.length()).toUpperCase())).findFirst()
+				.orElse(KeyType.RSA_4096);
+	}
+
+	private static void generateCertificates(CertificateGenerator certificateGenerator)
 	{
 		certificateGenerator.generateCertificates();
 
@@ -54,11 +106,5 @@ public class TestDataGenerator
 		logger.warn(
 				"Install DIC client-certificate and CA certificate from \"{}\" into your browsers certificate store to access fhir and bpe servers with your webbrowser",
 				p12File.toAbsolutePath().toString());
-
-
-		bundleGenerator.createDockerTestBundles(clientCertificateFilesByCommonName);
-		bundleGenerator.copyDockerTestBundles();
-
-		envGenerator.generateAndWriteDockerTestFhirEnvFiles(clientCertificateFilesByCommonName);
 	}
 }
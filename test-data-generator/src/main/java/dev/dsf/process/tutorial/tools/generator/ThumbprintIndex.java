@@ -0,0 +1,88 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dev.dsf.process.tutorial.tools.generator.CertificateGenerator.CertificateFiles;
+
+/**
+ * Immutable SHA-512 certificate thumbprints by common name, computed once per generator run and shared by all
+ * consumers.
+ */
+public final class ThumbprintIndex
+{
+	private final Map<String, String> hexByCommonName;
+	private final Map<String, byte[]> sha512ByCommonName;
+
+	private ThumbprintIndex(Map<String, String> hexByCommonName, Map<String, byte[]> sha512ByCommonName)
+	{
+		this.hexByCommonName = Collections.unmodifiableMap(hexByCommonName);
+		this.sha512ByCommonName = Collections.unmodifiableMap(sha512ByCommonName);
+	}
+
+	/**
+	 * @param certificateFiles
+	 *            not <code>null</code>
+	 * @return index in iteration order of the given certificates
+	 */
+	public static ThumbprintIndex of(Collection<CertificateFiles> certificateFiles)
+	{
+		Map<String, String> hexByCommonName = new LinkedHashMap<>();
+		Map<String, byte[]> sha512ByCommonName = new LinkedHashMap<>();
+
+		for (CertificateFiles files : certificateFiles)
+		{
+			hexByCommonName.put(files.getCommonName(), files.getCertificateSha512ThumbprintHex());
+			sha512ByCommonName.put(files.getCommonName(), files.getCertificateSha512Thumbprint());
+		}
+
+		return new ThumbprintIndex(hexByCommonName, sha512ByCommonName);
+	}
+
+	/**
+	 * @param commonName
+	 *            not <code>null</code>
+	 * @return hex encoded SHA-512 thumbprint
+	 * @throws IllegalArgumentException
+	 *             if no certificate with the given common name exists
+	 */
+	public String getHex(String commonName)
+	{
+		String hex = hexByCommonName.get(commonName);
+		if (hex == null)
+			throw new IllegalArgumentException("No certificate with common name " + commonName);
+
+		return hex;
+	}
+
+	/**
+	 * @param commonName
+	 *            not <code>null</code>
+	 * @return copy of the SHA-512 thumbprint
+	 * @throws IllegalArgumentException
+	 *             if no certificate with the given common name exists
+	 */
+	public byte[] getSha512(String commonName)
+	{
+		byte[] sha512 = sha512ByCommonName.get(commonName);
+		if (sha512 == null)
+			throw new IllegalArgumentException("No certificate with common name " + commonName);
+
+		return sha512.clone();
+	}
+
+	/**
+	 * @return unmodifiable map of hex encoded thumbprints
+	 */
+	public Map<String, String> getHexByCommonName()
+	{
+		return hexByCommonName;
+	}
+
+	public int size()
+	{
+		return hexByCommonName.size();
+	}
+}
@@ -0,0 +1,240 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replaces certificate thumbprint extension values of Organizations in a bundle template in a single StAX pass. Only
+ * the events of the current Organization are held in memory, everything else is copied from input to output
+ * unchanged. Adding missing extensions is not supported, see {@link StructuralEditRequiredException}.
+ */
+public class ThumbprintRewriter
+{
+	private static final Logger logger = LoggerFactory.getLogger(ThumbprintRewriter.class);
+
+	public static final String EXTENSION_THUMBPRINT_URL =
+			"http://dsf.dev/fhir/StructureDefinition/extension-certificate-thumbprint";
+	public static final String ORGANIZATION_IDENTIFIER_SID = "http://dsf.dev/sid/organization-identifier";
+
+	private static final QName URL = new QName("url");
+	private static final QName VALUE = new QName("value");
+
+	/**
+	 * Thrown if the template can not be patched in place, e.g. an Organization without thumbprint extension
+	 */
+	public static class StructuralEditRequiredException extends Exception
+	{
+		private static final long serialVersionUID = 1L;
+
+		public StructuralEditRequiredException(String message)
+		{
+			super(message);
+		}
+	}
+
+	private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+	private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+	private final XMLEventFactory eventFactory = XMLEventFactory.newFactory();
+
+	private final boolean prettyPrint;
+
+	/**
+	 * @param prettyPrint
+	 *            <code>false</code> to drop whitespace between elements, <code>true</code> keeps the template
+	 *            formatting
+	 */
+	public ThumbprintRewriter(boolean prettyPrint)
+	{
+		this.prettyPrint = prettyPrint;
+
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	/**
+	 * @param template
+	 *            not <code>null</code>, FHIR XML bundle
+	 * @param thumbprintByOrganizationIdentifier
+	 *            not <code>null</code>, organization identifier value to SHA-512 thumbprint hex
+	 * @param out
+	 *            not <code>null</code>, not closed by this method, contains partial output if an exception is thrown
+	 * @throws StructuralEditRequiredException
+	 *             if an Organization with an identifier from the given map has no thumbprint extension
+	 */
+	public void rewrite(Path template, Map<String, String> thumbprintByOrganizationIdentifier, OutputStream out)
+			throws StructuralEditRequiredException
+	{
+		try (InputStream in = Files.newInputStream(template))
+		{
+			XMLEventReader reader = inputFactory.createXMLEventReader(in, "UTF-8");
+			XMLEventWriter writer = outputFactory.createXMLEventWriter(out, "UTF-8");
+
+			Set<String> patched = rewrite(reader, writer, thumbprintByOrganizationIdentifier);
+
+			writer.flush();
+			writer.close();
+			reader.close();
+
+			Set<String> missing = new HashSet<>(thumbprintByOrganizationIdentifier.keySet());
+			missing.removeAll(patched);
+			if (!missing.isEmpty())
+				throw new IllegalStateException("Organizations " + missing + " not found in " + template.toString());
+
+			logger.debug("{} thumbprint(s) replaced in {}", patched.size(), template.toString());
+		}
+		catch (IOException | XMLStreamException e)
+		{
+			logger.error("Error while rewriting thumbprints of " + template.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Set<String> rewrite(XMLEventReader reader, XMLEventWriter writer,
+			Map<String, String> thumbprintByOrganizationIdentifier)
+			throws XMLStreamException, StructuralEditRequiredException
+	{
+		Set<String> patched = new HashSet<>();
+		Deque<String> path = new ArrayDeque<>();
+
+		List<XMLEvent> organization = null;
+		int organizationDepth = 0;
+
+		while (reader.hasNext())
+		{
+			XMLEvent event = reader.nextEvent();
+
+			if (event.isStartElement())
+			{
+				String name = event.asStartElement().getName().getLocalPart();
+				if (organization == null && "Organization".equals(name) && "resource".equals(path.peek()))
+				{
+					organization = new ArrayList<>();
+					organizationDepth = path.size() + 1;
+				}
+
+				path.push(name);
+			}
+			else if (event.isEndElement())
+				path.pop();
+			else if (!prettyPrint && event.isCharacters() && event.asCharacters().isWhiteSpace())
+				continue;
+
+			if (organization == null)
+				writer.add(event);
+			else
+			{
+				organization.add(event);
+
+				if (event.isEndElement() && path.size() == organizationDepth - 1)
+				{
+					patch(organization, thumbprintByOrganizationIdentifier).ifPresent(patched::add);
+					for (XMLEvent e : organization)
+						writer.add(e);
+
+					organization = null;
+				}
+			}
+		}
+
+		return patched;
+	}
+
+	/**
+	 * @return identifier of the Organization if the thumbprint was replaced
+	 */
+	private Optional<String> patch(List<XMLEvent> organization,
+			Map<String, String> thumbprintByOrganizationIdentifier) throws StructuralEditRequiredException
+	{
+		int depth = 0, valueStringIndex = -1;
+		String child = null, identifierSystem = null, identifierValue = null, identifier = null;
+		boolean thumbprintExtension = false;
+
+		for (int i = 0; i < organization.size(); i++)
+		{
+			XMLEvent event = organization.get(i);
+			if (event.isStartElement())
+			{
+				StartElement element = event.asStartElement();
+				String name = element.getName().getLocalPart();
+				depth++;
+
+				if (depth == 2)
+				{
+					child = name;
+					thumbprintExtension = "extension".equals(name)
+							&& EXTENSION_THUMBPRINT_URL.equals(value(element, URL));
+					identifierSystem = identifierValue = null;
+				}
+				else if (depth == 3 && thumbprintExtension && "valueString".equals(name))
+					valueStringIndex = i;
+				else if (depth == 3 && "identifier".equals(child) && "system".equals(name))
+					identifierSystem = value(element, VALUE);
+				else if (depth == 3 && "identifier".equals(child) && "value".equals(name))
+					identifierValue = value(element, VALUE);
+			}
+			else if (event.isEndElement())
+			{
+				if (depth == 2 && "identifier".equals(child) && identifier == null
+						&& ORGANIZATION_IDENTIFIER_SID.equals(identifierSystem))
+					identifier = identifierValue;
+
+				depth--;
+			}
+		}
+
+		String thumbprint = identifier == null ? null : thumbprintByOrganizationIdentifier.get(identifier);
+		if (thumbprint == null)
+			return Optional.empty();
+		else if (valueStringIndex < 0)
+			throw new StructuralEditRequiredException("Organization " + identifier + " has no thumbprint extension");
+
+		organization.set(valueStringIndex, withValue(organization.get(valueStringIndex).asStartElement(), thumbprint));
+		return Optional.of(identifier);
+	}
+
+	private String value(StartElement element, QName attributeName)
+	{
+		Attribute attribute = element.getAttributeByName(attributeName);
+		return attribute == null ? null : attribute.getValue();
+	}
+
+	private StartElement withValue(StartElement element, String value)
+	{
+		List<Attribute> attributes = new ArrayList<>();
+		for (Iterator<Attribute> it = element.getAttributes(); it.hasNext();)
+		{
+			Attribute attribute = it.next();
+			if (!VALUE.equals(attribute.getName()))
+				attributes.add(attribute);
+		}
+		attributes.add(eventFactory.createAttribute(VALUE, value));
+
+		return eventFactory.createStartElement(element.getName(), attributes.iterator(), element.getNamespaces());
+	}
+}
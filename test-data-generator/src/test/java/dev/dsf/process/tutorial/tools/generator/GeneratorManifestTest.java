@@ -0,0 +1,99 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GeneratorManifestTest
+{
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Path manifestFile;
+	private Path input;
+	private Path output;
+
+	@Before
+	public void before() throws Exception
+	{
+		manifestFile = folder.getRoot().toPath().resolve("generator-manifest.properties");
+		input = Files.writeString(folder.newFile("input.txt").toPath(), "input", StandardCharsets.UTF_8);
+		output = Files.writeString(folder.newFile("output.txt").toPath(), "output", StandardCharsets.UTF_8);
+
+		GeneratorManifest manifest = GeneratorManifest.read(manifestFile, false);
+		manifest.update("artifact", GeneratorManifest.hashFiles(input), List.of(output));
+		manifest.write();
+	}
+
+	@Test
+	public void testUpToDate() throws Exception
+	{
+		assertTrue(GeneratorManifest.read(manifestFile, false).isUpToDate("artifact",
+				GeneratorManifest.hashFiles(input), List.of(output)));
+	}
+
+	@Test
+	public void testFullIgnoresManifest() throws Exception
+	{
+		assertFalse(GeneratorManifest.read(manifestFile, true).isUpToDate("artifact",
+				GeneratorManifest.hashFiles(input), List.of(output)));
+	}
+
+	@Test
+	public void testInputModified() throws Exception
+	{
+		Files.writeString(input, "modified", StandardCharsets.UTF_8);
+
+		assertFalse(GeneratorManifest.read(manifestFile, false).isUpToDate("artifact",
+				GeneratorManifest.hashFiles(input), List.of(output)));
+	}
+
+	@Test
+	public void testOutputModified() throws Exception
+	{
+		Files.writeString(output, "modified", StandardCharsets.UTF_8);
+
+		assertFalse(GeneratorManifest.read(manifestFile, false).isUpToDate("artifact",
+				GeneratorManifest.hashFiles(input), List.of(output)));
+	}
+
+	@Test
+	public void testOutputDeleted() throws Exception
+	{
+		Files.delete(output);
+
+		assertFalse(GeneratorManifest.read(manifestFile, false).isUpToDate("artifact",
+				GeneratorManifest.hashFiles(input), List.of(output)));
+	}
+
+	@Test
+	public void testHashValues() throws Exception
+	{
+		assertEquals(GeneratorManifest.hashValues("a", "b"), GeneratorManifest.hashValues("a", "b"));
+		assertNotEquals(GeneratorManifest.hashValues("ab"), GeneratorManifest.hashValues("a", "b"));
+	}
+
+	@Test
+	public void testCopyIfChanged() throws Exception
+	{
+		Path target = folder.getRoot().toPath().resolve("target.txt");
+
+		assertTrue(GeneratorManifest.copyIfChanged(input, target));
+		assertFalse(GeneratorManifest.copyIfChanged(input, target));
+
+		Files.writeString(input, "modified", StandardCharsets.UTF_8);
+		assertTrue(GeneratorManifest.copyIfChanged(input, target));
+		assertEquals(-1, Files.mismatch(input, target));
+	}
+}
@@ -0,0 +1,163 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class KeyMaterialStoreTest
+{
+	private static final char[] PASSWORD = "password".toCharArray();
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> keyTypes()
+	{
+		return Arrays.stream(KeyType.values()).map(t -> new Object[] { t }).toList();
+	}
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final KeyType keyType;
+
+	public KeyMaterialStoreTest(KeyType keyType)
+	{
+		this.keyType = keyType;
+	}
+
+	private Supplier<KeyPair> keyPairFactory()
+	{
+		return () ->
+		{
+			try
+			{
+				return keyType.createKeyPair();
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+		};
+	}
+
+	private X509Certificate createCertificate(String commonName, KeyPair keyPair) throws Exception
+	{
+		X500Name subject = new X500Name("CN=" + commonName);
+		Instant now = Instant.now();
+
+		return new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(subject,
+				BigInteger.ONE, Date.from(now), Date.from(now.plus(Duration.ofDays(1))), subject, keyPair.getPublic())
+				.build(new JcaContentSignerBuilder(keyType.getSignatureAlgorithm()).build(keyPair.getPrivate())));
+	}
+
+	private static void awaitSpares(KeyMaterialStore store, int spares) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + Duration.ofMinutes(1).toNanos();
+		while (store.getSpareCount() < spares && System.nanoTime() < deadline)
+			Thread.sleep(10);
+
+		assertTrue(store.getSpareCount() >= spares);
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		Path storeFile = folder.getRoot().toPath().resolve("key-material.p12");
+		KeyPair keyPair = keyType.createKeyPair();
+
+		try (KeyMaterialStore store = KeyMaterialStore.open(storeFile, PASSWORD, keyPairFactory()))
+		{
+			assertFalse(store.get("dic.dsf.test").isPresent());
+			store.put("dic.dsf.test", keyPair, createCertificate("dic.dsf.test", keyPair));
+		}
+
+		try (KeyMaterialStore store = KeyMaterialStore.open(storeFile, PASSWORD, keyPairFactory()))
+		{
+			Optional<KeyPair> stored = store.get("dic.dsf.test");
+
+			assertTrue(stored.isPresent());
+			assertEquals(keyType, KeyType.of(stored.get().getPrivate()));
+			assertEquals(keyType, KeyType.of(stored.get().getPublic()));
+			assertArrayEquals(keyPair.getPrivate().getEncoded(), stored.get().getPrivate().getEncoded());
+			assertArrayEquals(keyPair.getPublic().getEncoded(), stored.get().getPublic().getEncoded());
+		}
+	}
+
+	@Test
+	public void testSpareRoundTrip() throws Exception
+	{
+		Path storeFile = folder.getRoot().toPath().resolve("key-material.p12");
+
+		try (KeyMaterialStore store = KeyMaterialStore.open(storeFile, PASSWORD, keyPairFactory()))
+		{
+			store.preGenerate(1);
+			awaitSpares(store, 1);
+		}
+
+		try (KeyMaterialStore store = KeyMaterialStore.open(storeFile, PASSWORD, keyPairFactory()))
+		{
+			assertTrue(store.getSpareCount() >= 1);
+
+			KeyPair spare = store.takeSpareOrCreate();
+			assertEquals(keyType, KeyType.of(spare.getPrivate()));
+			assertEquals(keyType, KeyType.of(spare.getPublic()));
+		}
+	}
+
+	@Test
+	public void testCloseStopsPreGeneration() throws Exception
+	{
+		Path storeFile = folder.getRoot().toPath().resolve("key-material.p12");
+		KeyPair keyPair = keyType.createKeyPair();
+		Supplier<KeyPair> slowKeyPairFactory = () ->
+		{
+			try
+			{
+				Thread.sleep(10);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			return keyPair;
+		};
+
+		KeyMaterialStore generating = KeyMaterialStore.open(storeFile, PASSWORD, slowKeyPairFactory);
+		generating.preGenerate(100_000);
+		awaitSpares(generating, 1);
+		generating.close();
+
+		int spares = generating.getSpareCount();
+		assertTrue(spares >= 1 && spares < 100_000);
+
+		try (KeyMaterialStore store = KeyMaterialStore.open(storeFile, PASSWORD, keyPairFactory()))
+		{
+			assertEquals(spares, store.getSpareCount());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package dev.dsf.process.tutorial.tools.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dev.dsf.process.tutorial.tools.generator.ThumbprintRewriter.StructuralEditRequiredException;
+
+public class ThumbprintRewriterTest
+{
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private static String organization(String identifier, boolean thumbprintExtension)
+	{
+		return "\t<entry>\n\t\t<resource>\n\t\t\t<Organization xmlns=\"http://hl7.org/fhir\">\n"
+				+ (thumbprintExtension ? "\t\t\t\t<extension url=\"" + ThumbprintRewriter.EXTENSION_THUMBPRINT_URL
+						+ "\">\n\t\t\t\t\t<valueString value=\"old\"/>\n\t\t\t\t</extension>\n" : "")
+				+ "\t\t\t\t<identifier>\n\t\t\t\t\t<system value=\"" + ThumbprintRewriter.ORGANIZATION_IDENTIFIER_SID
+				+ "\"/>\n\t\t\t\t\t<value value=\"" + identifier
+				+ "\"/>\n\t\t\t\t</identifier>\n\t\t\t</Organization>\n\t\t</resource>\n\t</entry>\n";
+	}
+
+	private Path template(String... organizations) throws Exception
+	{
+		return Files.writeString(folder.newFile("bundle.xml").toPath(),
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Bundle xmlns=\"http://hl7.org/fhir\">\n"
+						+ String.join("", organizations) + "</Bundle>",
+				StandardCharsets.UTF_8);
+	}
+
+	private static String rewrite(Path template, boolean prettyPrint, Map<String, String> thumbprints)
+			throws StructuralEditRequiredException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ThumbprintRewriter(prettyPrint).rewrite(template, thumbprints, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testRewrite() throws Exception
+	{
+		Path template = template(organization("dic.dsf.test", true), organization("cos.dsf.test", true));
+
+		String output = rewrite(template, true, Map.of("cos.dsf.test", "new"));
+
+		assertEquals(1, output.split("<valueString value=\"new\"", -1).length - 1);
+		assertTrue(output.indexOf("value=\"old\"") < output.indexOf("dic.dsf.test"));
+		assertTrue(output.indexOf("value=\"new\"") > output.indexOf("dic.dsf.test"));
+	}
+
+	@Test(expected = StructuralEditRequiredException.class)
+	public void testOrganizationWithoutThumbprintExtension() throws Exception
+	{
+		rewrite(template(organization("dic.dsf.test", true), organization("cos.dsf.test", false)), true,
+				Map.of("dic.dsf.test", "new", "cos.dsf.test", "new"));
+	}
+
+	@Test
+	public void testOrganizationWithoutThumbprintExtensionNotRewritten() throws Exception
+	{
+		String output = rewrite(template(organization("dic.dsf.test", true), organization("cos.dsf.test", false)),
+				true, Map.of("dic.dsf.test", "new"));
+
+		assertTrue(output.contains("value=\"new\""));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIdentifierNotInTemplate() throws Exception
+	{
+		rewrite(template(organization("dic.dsf.test", true)), true,
+				Map.of("dic.dsf.test", "new", "hrp.dsf.test", "new"));
+	}
+
+	@Test
+	public void testPrettyPrint() throws Exception
+	{
+		Path template = template(organization("dic.dsf.test", true));
+		String expected = Files.readString(template, StandardCharsets.UTF_8).replace("value=\"old\"",
+				"value=\"new\"");
+
+		String prettyPrinted = rewrite(template, true, Map.of("dic.dsf.test", "new"));
+		String compact = rewrite(template, false, Map.of("dic.dsf.test", "new"));
+
+		assertEquals(normalize(expected), normalize(prettyPrinted));
+		assertTrue(prettyPrinted.contains("\n\t\t\t<Organization"));
+
+		assertFalse(compact.contains("\t"));
+		assertEquals(normalize(expected).replaceAll(">\\s+<", "><"), normalize(compact));
+	}
+
+	// XML declaration and empty element notation depend on the StAX implementation
+	private static String normalize(String xml)
+	{
+		return xml.replaceFirst("^<\\?xml[^>]*\\?>\\s*", "").replaceAll("<(\\w+)([^<>]*)></\\1>", "<$1$2/>")
+				.replaceAll("\"\\s*/>", "\"/>");
+	}
+}
@@ -0,0 +1,69 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.activity.AbstractServiceDelegate;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Targets;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+
+/**
+ * Counts the goodbyeDic responses marked by {@link StoreGoodbyeDicResponse} after the wait for all targets ended,
+ * sets the <code>goodbyeDicResponses</code> variable and logs the organizations without response.
+ */
+public class AggregateGoodbyeDicResponses extends AbstractServiceDelegate
+{
+	private static final Logger logger = LoggerFactory.getLogger(AggregateGoodbyeDicResponses.class);
+
+	public static final String BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_RESPONSES = "goodbyeDicResponses";
+
+	private final DelegateMetrics metrics;
+
+	public AggregateGoodbyeDicResponses(ProcessPluginApi api, DelegateMetrics metrics)
+	{
+		super(api);
+
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(metrics, "metrics");
+	}
+
+	@Override
+	protected void doExecute(DelegateExecution execution, Variables variables)
+	{
+		metrics.record(execution, variables, null, () -> countResponses(execution, variables));
+	}
+
+	private void countResponses(DelegateExecution execution, Variables variables)
+	{
+		Targets targets = variables.getTargets();
+		List<Target> entries = targets == null ? List.of() : targets.getEntries();
+
+		List<Target> missing = entries.stream().filter(t -> !Boolean.TRUE.equals(variables.getBoolean(
+				StoreGoodbyeDicResponse.BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_RECEIVED_PREFIX + t.getCorrelationKey())))
+				.toList();
+
+		if (!missing.isEmpty())
+			logger.warn("No goodbyeDic response from {} of {} target(s) [businessKey: {}]: {}", missing.size(),
+					entries.size(), execution.getBusinessKey(),
+					missing.stream().map(Target::getOrganizationIdentifierValue).distinct().toList());
+		else
+			logger.info("goodbyeDic responses from all {} target(s) [businessKey: {}]", entries.size(),
+					execution.getBusinessKey());
+
+		variables.setInteger(BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_RESPONSES, entries.size() - missing.size());
+	}
+}
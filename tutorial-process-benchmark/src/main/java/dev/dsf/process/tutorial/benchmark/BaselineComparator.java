@@ -0,0 +1,203 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a JMH json result file with a stored baseline. Fails with exit code 1 if the throughput of a benchmark
+ * dropped or the allocation per operation grew by more than the given tolerance. Creates the baseline from the result
+ * if no baseline exists or if an update is requested, a missing baseline skips the comparison.
+ */
+public class BaselineComparator
+{
+	private static final Logger logger = LoggerFactory.getLogger(BaselineComparator.class);
+
+	private static final String GC_ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+
+	/**
+	 * Allocation differences below this absolute value in bytes per operation are ignored, TLAB sampling makes small
+	 * values unstable.
+	 */
+	private static final double ALLOCATION_NOISE_BYTES = 64d;
+
+	private static final class Score
+	{
+		final String mode;
+		final double throughput;
+		final double allocationPerOp;
+
+		Score(String mode, double throughput, double allocationPerOp)
+		{
+			this.mode = mode;
+			this.throughput = throughput;
+			this.allocationPerOp = allocationPerOp;
+		}
+	}
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private Map<String, Score> readScores(Path resultFile)
+	{
+		try
+		{
+			JsonNode results = mapper.readTree(resultFile.toFile());
+			Map<String, Score> scores = new LinkedHashMap<>();
+
+			for (JsonNode result : results)
+			{
+				String mode = result.path("mode").asText();
+				double throughput = result.path("primaryMetric").path("score").asDouble(Double.NaN);
+				double allocationPerOp = Double.NaN;
+
+				Iterator<Entry<String, JsonNode>> secondaryMetrics = result.path("secondaryMetrics").fields();
+				while (secondaryMetrics.hasNext())
+				{
+					Entry<String, JsonNode> metric = secondaryMetrics.next();
+
+					// older JMH versions prefix secondary metric names with a middle dot
+					if (GC_ALLOC_RATE_NORM.equals(metric.getKey().replace("\u00b7", "")))
+						allocationPerOp = metric.getValue().path("score").asDouble(Double.NaN);
+				}
+
+				scores.put(toKey(result), new Score(mode, throughput, allocationPerOp));
+			}
+
+			return scores;
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while reading JMH results from " + resultFile.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private String toKey(JsonNode result)
+	{
+		StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+
+		Map<String, String> params = new TreeMap<>();
+		result.path("params").fields().forEachRemaining(p -> params.put(p.getKey(), p.getValue().asText()));
+		params.forEach((k, v) -> key.append(' ').append(k).append('=').append(v));
+
+		return key.toString();
+	}
+
+	/**
+	 * @return regression messages, empty if no regression found
+	 */
+	public List<String> compare(Path resultFile, Path baselineFile, double tolerance)
+	{
+		Map<String, Score> results = readScores(resultFile);
+		Map<String, Score> baseline = readScores(baselineFile);
+
+		List<String> regressions = new ArrayList<>();
+
+		for (Entry<String, Score> result : results.entrySet())
+		{
+			Score current = result.getValue();
+			Score expected = baseline.get(result.getKey());
+
+			if (expected == null)
+			{
+				logger.warn("No baseline for benchmark {}", result.getKey());
+				continue;
+			}
+
+			if (!expected.mode.equals(current.mode))
+			{
+				logger.warn("Benchmark mode of {} changed from {} to {}, not comparing", result.getKey(),
+						expected.mode, current.mode);
+				continue;
+			}
+
+			if ("thrpt".equals(current.mode) && current.throughput < expected.throughput * (1 - tolerance))
+				regressions.add(String.format("%s: throughput %.1f ops/s, baseline %.1f ops/s", result.getKey(),
+						current.throughput, expected.throughput));
+
+			if (!Double.isNaN(current.allocationPerOp) && !Double.isNaN(expected.allocationPerOp)
+					&& current.allocationPerOp > expected.allocationPerOp * (1 + tolerance) + ALLOCATION_NOISE_BYTES)
+				regressions.add(String.format("%s: allocation %.1f B/op, baseline %.1f B/op", result.getKey(),
+						current.allocationPerOp, expected.allocationPerOp));
+
+			logger.info("{}: {} ops/s ({} baseline), {} B/op ({} baseline)", result.getKey(),
+					String.format("%.1f", current.throughput), String.format("%.1f", expected.throughput),
+					String.format("%.1f", current.allocationPerOp), String.format("%.1f", expected.allocationPerOp));
+		}
+
+		return regressions;
+	}
+
+	public void updateBaseline(Path resultFile, Path baselineFile)
+	{
+		try
+		{
+			Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+			Files.copy(resultFile, baselineFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while writing JMH baseline to " + baselineFile.toString(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @param args
+	 *            result file, baseline file, tolerance (e.g. <code>0.10</code>), update baseline (<code>true</code> or
+	 *            <code>false</code>)
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 4)
+		{
+			logger.error("Usage: {} <result-file> <baseline-file> <tolerance> <update-baseline>",
+					BaselineComparator.class.getName());
+			System.exit(2);
+		}
+
+		Path resultFile = Paths.get(args[0]);
+		Path baselineFile = Paths.get(args[1]);
+		double tolerance = Double.parseDouble(args[2]);
+		boolean updateBaseline = Boolean.parseBoolean(args[3]);
+
+		BaselineComparator comparator = new BaselineComparator();
+
+		if (updateBaseline)
+		{
+			logger.info("Writing JMH baseline to {}", baselineFile.toString());
+			comparator.updateBaseline(resultFile, baselineFile);
+			return;
+		}
+
+		if (!Files.isReadable(baselineFile))
+		{
+			logger.warn("JMH baseline {} not found, skipping comparison and storing result as baseline",
+					baselineFile.toString());
+			comparator.updateBaseline(resultFile, baselineFile);
+			return;
+		}
+
+		List<String> regressions = comparator.compare(resultFile, baselineFile, tolerance);
+		if (!regressions.isEmpty())
+		{
+			regressions.forEach(r -> logger.error("Regression {}", r));
+			System.exit(1);
+		}
+	}
+}
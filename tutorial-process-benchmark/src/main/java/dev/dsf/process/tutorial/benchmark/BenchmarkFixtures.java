@@ -0,0 +1,128 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.CODESYSTEM_TUTORIAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_COS_ORGANIZATION_IDENTIFIER;
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER;
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_HRP_ORGANIZATION_IDENTIFIER;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Endpoint.EndpointStatus;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.bpe.v1.constants.NamingSystems;
+
+public final class BenchmarkFixtures
+{
+	private static final String CODESYSTEM_BENCHMARK = "http://dsf.dev/fhir/CodeSystem/benchmark";
+
+	/**
+	 * Endpoint addresses by organization identifier, same as in the dev-setup bundle
+	 */
+	public static final Map<String, String> ENDPOINT_ADDRESSES = Map.of(TUTORIAL_COS_ORGANIZATION_IDENTIFIER,
+			"https://cos/fhir", TUTORIAL_DIC_ORGANIZATION_IDENTIFIER, "https://dic/fhir",
+			TUTORIAL_HRP_ORGANIZATION_IDENTIFIER, "https://hrp/fhir");
+
+	private BenchmarkFixtures()
+	{
+	}
+
+	/**
+	 * @param tutorialInput
+	 *            value of the <code>tutorial-input</code> parameter
+	 * @param inputCount
+	 *            total number of inputs, unrelated inputs are added before the <code>tutorial-input</code> parameter to
+	 *            simulate large start tasks, values &lt; 3 result in the three default inputs
+	 * @return start task with status <code>inprogress</code> and id
+	 */
+	public static Task createStartTask(String tutorialInput, int inputCount)
+	{
+		Task task = new Task();
+		task.setIdElement(new IdType(ResourceType.Task.name(), UUID.randomUUID().toString(), "1"));
+		task.getMeta().addProfile(PROFILE_TUTORIAL_TASK_DIC_PROCESS);
+		task.setInstantiatesCanonical(PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL);
+		task.setStatus(TaskStatus.INPROGRESS);
+		task.setIntent(TaskIntent.ORDER);
+		task.setAuthoredOn(new Date());
+		task.getRequester().setType(ResourceType.Organization.name()).getIdentifier()
+				.setSystem(NamingSystems.OrganizationIdentifier.SID).setValue(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER);
+		task.getRestriction().addRecipient().setType(ResourceType.Organization.name()).getIdentifier()
+				.setSystem(NamingSystems.OrganizationIdentifier.SID).setValue(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER);
+
+		task.addInput().setValue(new StringType(PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME)).getType().addCoding()
+				.setSystem(CodeSystems.BpmnMessage.URL).setCode(CodeSystems.BpmnMessage.Codes.MESSAGE_NAME);
+		task.addInput().setValue(new StringType(UUID.randomUUID().toString())).getType().addCoding()
+				.setSystem(CodeSystems.BpmnMessage.URL).setCode(CodeSystems.BpmnMessage.Codes.BUSINESS_KEY);
+
+		for (int i = 3; i < inputCount; i++)
+			task.addInput().setValue(new StringType("value-" + i)).getType().addCoding()
+					.setSystem(CODESYSTEM_BENCHMARK).setCode("input-" + i);
+
+		task.addInput().setValue(new StringType(tutorialInput)).getType().addCoding().setSystem(CODESYSTEM_TUTORIAL)
+				.setCode(CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT);
+
+		return task;
+	}
+
+	public static DelegateExecution createExecution(String activityId)
+	{
+		return createExecution(activityId, UUID.randomUUID().toString());
+	}
+
+	public static DelegateExecution createExecution(String activityId, String businessKey)
+	{
+		DelegateExecution execution = mock(DelegateExecution.class, withSettings().stubOnly());
+		when(execution.getCurrentActivityId()).thenReturn(activityId);
+		when(execution.getBusinessKey()).thenReturn(businessKey);
+		when(execution.getProcessInstanceId()).thenReturn(UUID.randomUUID().toString());
+		return execution;
+	}
+
+	public static Organization createOrganization(String organizationIdentifierValue)
+	{
+		Organization organization = new Organization();
+		organization.setIdElement(new IdType(ResourceType.Organization.name(), UUID.randomUUID().toString(), "1"));
+		organization.addIdentifier(NamingSystems.OrganizationIdentifier.withValue(organizationIdentifierValue));
+		organization.setActive(true);
+		organization.addEndpoint(new Reference().setType(ResourceType.Endpoint.name())
+				.setIdentifier(NamingSystems.EndpointIdentifier.withValue(organizationIdentifierValue + "_Endpoint")));
+		return organization;
+	}
+
+	public static Endpoint createEndpoint(String organizationIdentifierValue)
+	{
+		Endpoint endpoint = new Endpoint();
+		endpoint.setIdElement(new IdType(ResourceType.Endpoint.name(), UUID.randomUUID().toString(), "1"));
+		endpoint.addIdentifier(NamingSystems.EndpointIdentifier.withValue(organizationIdentifierValue + "_Endpoint"));
+		endpoint.setStatus(EndpointStatus.ACTIVE);
+		endpoint.setManagingOrganization(new Reference().setType(ResourceType.Organization.name())
+				.setIdentifier(NamingSystems.OrganizationIdentifier.withValue(organizationIdentifierValue)));
+		endpoint.setAddress(ENDPOINT_ADDRESSES.get(organizationIdentifierValue));
+		return endpoint;
+	}
+
+	public static List<String> getOrganizationIdentifierValues()
+	{
+		return ENDPOINT_ADDRESSES.keySet().stream().sorted().toList();
+	}
+}
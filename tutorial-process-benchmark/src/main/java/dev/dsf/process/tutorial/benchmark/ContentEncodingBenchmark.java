@@ -0,0 +1,157 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dsf.process.tutorial.util.ContentEncoding;
+
+/**
+ * CPU cost of encoding and decoding offloaded tutorial-input values. The aux counters <code>inputBytes</code> and
+ * <code>encodedBytes</code> are reported as bytes per second, their ratio is the bandwidth saved by the encoding.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class ContentEncodingBenchmark
+{
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes
+	{
+		public long inputBytes;
+		public long encodedBytes;
+
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			inputBytes = 0;
+			encodedBytes = 0;
+		}
+	}
+
+	@Param({ "identity", "gzip" })
+	private String encoding;
+
+	@Param({ "text", "random" })
+	private String content;
+
+	@Param({ "1024", "1048576", "16777216" })
+	private int size;
+
+	private ContentEncoding contentEncoding;
+
+	private byte[] input;
+	private byte[] encoded;
+
+	private final byte[] buffer = new byte[8192];
+
+	@Setup
+	public void setup() throws Exception
+	{
+		contentEncoding = "identity".equals(encoding) ? null
+				: ContentEncoding.fromCode(encoding)
+						.orElseThrow(() -> new IllegalArgumentException("Unknown encoding '" + encoding + "'"));
+
+		input = ("text".equals(content) ? createText(size) : createRandom(size)).getBytes(StandardCharsets.UTF_8);
+		encoded = readAllBytes(encode());
+	}
+
+	// CSV like lines, as typical for exchanged research data
+	private static String createText(int size)
+	{
+		Random random = new Random(0);
+		StringBuilder b = new StringBuilder(size + 64);
+		while (b.length() < size)
+			b.append("patient-").append(random.nextInt(100_000)).append(";2024-").append(1 + random.nextInt(12))
+					.append('-').append(1 + random.nextInt(28)).append(";ICD-10;C").append(random.nextInt(100))
+					.append('.').append(random.nextInt(10)).append(";").append(random.nextBoolean()).append('\n');
+
+		return b.substring(0, size);
+	}
+
+	// printable ASCII, like base64 encoded or encrypted data
+	private static String createRandom(int size)
+	{
+		Random random = new Random(0);
+		char[] chars = new char[size];
+		for (int i = 0; i < size; i++)
+			chars[i] = (char) ('!' + random.nextInt('~' - '!' + 1));
+
+		return new String(chars);
+	}
+
+	private InputStream encode()
+	{
+		InputStream in = new ByteArrayInputStream(input);
+		return contentEncoding == null ? in : contentEncoding.encode(in);
+	}
+
+	private InputStream decode() throws IOException
+	{
+		InputStream in = new ByteArrayInputStream(encoded);
+		return contentEncoding == null ? in : contentEncoding.decode(in);
+	}
+
+	private static byte[] readAllBytes(InputStream in) throws IOException
+	{
+		try (in)
+		{
+			return in.readAllBytes();
+		}
+	}
+
+	private long drain(InputStream in) throws IOException
+	{
+		try (in)
+		{
+			long count = 0;
+			for (int read; (read = in.read(buffer)) >= 0;)
+				count += read;
+
+			return count;
+		}
+	}
+
+	@Benchmark
+	public long encode(Bytes bytes) throws Exception
+	{
+		long count = drain(encode());
+
+		bytes.inputBytes += input.length;
+		bytes.encodedBytes += count;
+
+		return count;
+	}
+
+	@Benchmark
+	public long decode(Bytes bytes) throws Exception
+	{
+		long count = drain(decode());
+
+		bytes.inputBytes += count;
+		bytes.encodedBytes += encoded.length;
+
+		return count;
+	}
+}
@@ -0,0 +1,191 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.dsf.process.tutorial.benchmark.EmbeddedEngineProcessPluginInstance.Settings;
+import dev.dsf.process.tutorial.benchmark.InMemoryFederation.RunResult;
+import dev.dsf.process.tutorial.util.DelegateTimerSnapshot;
+import dev.dsf.process.tutorial.util.Span;
+
+/**
+ * Runs dicProcess instances end-to-end through an {@link InMemoryFederation} of
+ * {@link EmbeddedEngineProcessPluginInstance}s, once per history level, and reports throughput and latency together
+ * with the engine overhead per process instance, job executor saturation, history rows written and the latencies of
+ * the tutorial delegates, showing which step of dic, cos and hrp is the bottleneck. Compared with the same run of the
+ * {@link InMemoryFederation} without engine, the difference is the cost of the Camunda engine.
+ * <p>
+ * Arguments: <code>--name=value</code> pairs, <code>instances</code> (default 1000), <code>warmup</code> (default
+ * 200), <code>max-in-flight</code> (default 64), <code>task-handler-threads</code> per organization (default 8),
+ * <code>job-executor-threads</code> (default 3), <code>job-executor-queue</code> (default 3, the Camunda defaults),
+ * <code>async-continuations</code> (default <code>false</code>), <code>history</code> comma separated levels (default
+ * <code>none,full</code>), <code>binary-threshold</code> (default 0), <code>cos-targets</code> per dicProcess instance
+ * (default 0, the single target dicProcess), <code>goodbye-dic-timeout</code> (default <code>PT5M</code>),
+ * <code>correlation-index</code> (default <code>true</code>), <code>trace</code> (default <code>false</code>, prints
+ * the mean start offset and duration of each delegate within the end-to-end trace) and <code>tutorial-input</code>
+ * (default <code>send-response</code>, other values let the dicProcess wait for the goodbyeDic timeout).
+ */
+public final class EmbeddedEngineBenchmark
+{
+	private static final Logger logger = LoggerFactory.getLogger(EmbeddedEngineBenchmark.class);
+
+	private static final Set<String> NAMES = Set.of("instances", "warmup", "max-in-flight", "task-handler-threads",
+			"job-executor-threads", "job-executor-queue", "async-continuations", "history", "binary-threshold",
+			"cos-targets", "goodbye-dic-timeout", "correlation-index", "trace", "tutorial-input");
+
+	private EmbeddedEngineBenchmark()
+	{
+	}
+
+	/**
+	 * @param settings
+	 *            not <code>null</code>
+	 * @param taskHandlerThreads
+	 *            &gt; 0, per organization
+	 * @param binaryInputThreshold
+	 *            &gt;= 0
+	 * @param warmup
+	 *            &gt;= 0
+	 * @param count
+	 *            &gt;= 0
+	 * @param maxInFlight
+	 *            &gt; 0
+	 * @param tutorialInput
+	 *            value of the <code>tutorial-input</code> parameter
+	 * @param out
+	 *            not <code>null</code>
+	 * @return engine counters of the measured run
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public static EngineStatistics run(Settings settings, int taskHandlerThreads, int binaryInputThreshold,
+			int warmup, int count, int maxInFlight, String tutorialInput, PrintStream out) throws InterruptedException
+	{
+		List<EmbeddedEngineProcessPluginInstance> engines = new ArrayList<>();
+
+		try (InMemoryFederation federation = new InMemoryFederation((o, server, listener) ->
+		{
+			EmbeddedEngineProcessPluginInstance engine = new EmbeddedEngineProcessPluginInstance(o, server, settings,
+					taskHandlerThreads, binaryInputThreshold, listener);
+			engines.add(engine);
+			return engine;
+		}).start())
+		{
+			if (warmup > 0)
+			{
+				logger.info("Warming up with {} process instance(s), {}", warmup, settings);
+				federation.run(warmup, maxInFlight, tutorialInput, Duration.ofMinutes(1));
+			}
+
+			EngineStatistics before = getStatistics(engines);
+			engines.forEach(EmbeddedEngineProcessPluginInstance::resetDelegateMetrics);
+
+			logger.info("Running {} process instance(s), at most {} in flight, {}", count, maxInFlight, settings);
+			RunResult result = federation.run(count, maxInFlight, tutorialInput, Duration.ofMinutes(5));
+
+			EngineStatistics statistics = getStatistics(engines).minus(before);
+
+			out.printf("%n%s%n", settings);
+			result.print(out);
+			statistics.print(out);
+			printDelegateMetrics(engines, out);
+			printTraces(engines, out);
+
+			return statistics;
+		}
+	}
+
+	private static EngineStatistics getStatistics(List<EmbeddedEngineProcessPluginInstance> engines)
+	{
+		return engines.stream().map(EmbeddedEngineProcessPluginInstance::getStatistics)
+				.reduce(EngineStatistics::plus).orElseThrow();
+	}
+
+	private static void printDelegateMetrics(List<EmbeddedEngineProcessPluginInstance> engines, PrintStream out)
+	{
+		out.println("Delegates by total time [ms]:");
+		engines.stream().flatMap(e -> e.getDelegateMetrics().stream())
+				.sorted(Comparator.comparingDouble(DelegateTimerSnapshot::getTotalMillis).reversed())
+				.forEach(s -> out.printf(
+						"  %-60s %8d calls, %d errors, total %10.1f, p50 %8.2f, p99 %8.2f, max %8.2f%n",
+						s.getProcessId() + "/" + s.getActivityId() + " -> " + s.getOrganization(), s.getCount(),
+						s.getErrors(), s.getTotalMillis(), s.getP50Millis(), s.getP99Millis(), s.getMaxMillis()));
+	}
+
+	private record SpanKey(String processId, String activityId)
+	{
+	}
+
+	private static void printTraces(List<EmbeddedEngineProcessPluginInstance> engines, PrintStream out)
+	{
+		Map<String, List<Span>> spansByTraceId = engines.stream().flatMap(e -> e.getSpans().stream())
+				.collect(Collectors.groupingBy(Span::traceId));
+		if (spansByTraceId.isEmpty())
+			return;
+
+		// offset from the first span of the trace, spans of the warmup are removed with the delegate metrics
+		Map<SpanKey, DoubleSummaryStatistics> offsets = new HashMap<>();
+		Map<SpanKey, DoubleSummaryStatistics> durations = new HashMap<>();
+		DoubleSummaryStatistics traceDurations = new DoubleSummaryStatistics();
+
+		for (List<Span> spans : spansByTraceId.values())
+		{
+			long start = spans.stream().mapToLong(Span::startEpochMicros).min().getAsLong();
+			long end = spans.stream().mapToLong(s -> s.startEpochMicros() + s.durationNanos() / 1_000).max()
+					.getAsLong();
+			traceDurations.accept((end - start) / 1e3);
+
+			for (Span span : spans)
+			{
+				SpanKey key = new SpanKey(span.processId(), span.activityId());
+				offsets.computeIfAbsent(key, k -> new DoubleSummaryStatistics())
+						.accept((span.startEpochMicros() - start) / 1e3);
+				durations.computeIfAbsent(key, k -> new DoubleSummaryStatistics()).accept(span.durationNanos() / 1e6);
+			}
+		}
+
+		out.printf("Traces: %d, mean end-to-end %.2f ms, max %.2f ms%n", traceDurations.getCount(),
+				traceDurations.getAverage(), traceDurations.getMax());
+		out.println("Spans by mean start offset within the trace [ms]:");
+		offsets.entrySet().stream().sorted(Comparator.comparingDouble(e -> e.getValue().getAverage()))
+				.forEach(e -> out.printf("  %-60s %8d spans, offset %10.2f, duration %8.2f%n",
+						e.getKey().processId() + "/" + e.getKey().activityId(), e.getValue().getCount(),
+						e.getValue().getAverage(), durations.get(e.getKey()).getAverage()));
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		Map<String, String> values = InMemoryFederation.parse(NAMES, args);
+		int count = Integer.parseInt(values.getOrDefault("instances", "1000"));
+		int warmup = Integer.parseInt(values.getOrDefault("warmup", "200"));
+		int maxInFlight = Integer.parseInt(values.getOrDefault("max-in-flight", "64"));
+		int taskHandlerThreads = Integer.parseInt(values.getOrDefault("task-handler-threads", "8"));
+		int jobExecutorThreads = Integer.parseInt(values.getOrDefault("job-executor-threads", "3"));
+		int jobExecutorQueue = Integer.parseInt(values.getOrDefault("job-executor-queue", "3"));
+		boolean asyncContinuations = Boolean.parseBoolean(values.getOrDefault("async-continuations", "false"));
+		int binaryThreshold = Integer.parseInt(values.getOrDefault("binary-threshold", "0"));
+		int cosTargets = Integer.parseInt(values.getOrDefault("cos-targets", "0"));
+		Duration goodbyeDicTimeout = Duration.parse(values.getOrDefault("goodbye-dic-timeout", "PT5M"));
+		boolean correlationIndex = Boolean.parseBoolean(values.getOrDefault("correlation-index", "true"));
+		boolean trace = Boolean.parseBoolean(values.getOrDefault("trace", "false"));
+		String tutorialInput = values.getOrDefault("tutorial-input", "send-response");
+
+		for (String historyLevel : values.getOrDefault("history", "none,full").split(","))
+		{
+			Settings settings = new Settings(historyLevel.trim(), jobExecutorThreads, jobExecutorQueue,
+					asyncContinuations, cosTargets, goodbyeDicTimeout, correlationIndex, trace);
+			run(settings, taskHandlerThreads, binaryThreshold, warmup, count, maxInFlight, tutorialInput, System.out);
+		}
+	}
+}
@@ -0,0 +1,738 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_COS_ORGANIZATION_IDENTIFIER;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.camunda.bpm.engine.ArtifactFactory;
+import org.camunda.bpm.engine.MismatchingMessageCorrelationException;
+import org.camunda.bpm.engine.OptimisticLockingException;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.camunda.bpm.engine.impl.DefaultArtifactFactory;
+import org.camunda.bpm.engine.impl.bpmn.parser.AbstractBpmnParseListener;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.cmd.MessageEventReceivedCmd;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.delegate.DefaultDelegateInterceptor;
+import org.camunda.bpm.engine.impl.delegate.DelegateInvocation;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+import org.camunda.bpm.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.camunda.bpm.engine.impl.metrics.Meter;
+import org.camunda.bpm.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.camunda.bpm.engine.impl.pvm.process.ActivityImpl;
+import org.camunda.bpm.engine.impl.util.xml.Element;
+import org.camunda.bpm.engine.management.Metrics;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.camunda.bpm.engine.runtime.MessageCorrelationBuilder;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.bpe.v1.constants.BpmnExecutionVariables;
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Targets;
+import dev.dsf.process.tutorial.message.GoodbyeDicMessage;
+import dev.dsf.process.tutorial.message.HelloCosMessage;
+import dev.dsf.process.tutorial.message.HelloHrpMessage;
+import dev.dsf.process.tutorial.service.CosTask;
+import dev.dsf.process.tutorial.service.DicTask;
+import dev.dsf.process.tutorial.service.HrpTask;
+import dev.dsf.process.tutorial.util.BinaryInputHelper;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.DelegateTimerSnapshot;
+import dev.dsf.process.tutorial.util.InMemorySpanExporter;
+import dev.dsf.process.tutorial.util.Span;
+import dev.dsf.process.tutorial.util.TargetCache;
+import dev.dsf.process.tutorial.util.TaskDispatcher;
+import dev.dsf.process.tutorial.util.Tracer;
+
+/**
+ * One organization of an in-memory DSF federation with an embedded Camunda engine: the tutorial process models from
+ * {@link TutorialProcessModels} are deployed into a standalone engine with an H2 in-memory database, the tutorial
+ * delegates, wired like in the <code>TutorialConfig</code>, are resolved by class name. Tasks created at the
+ * organization's base URL of an {@link InMemoryFhirServer} start processes or are correlated with waiting process
+ * instances, like by the DSF BPE. Received Tasks are set <code>inprogress</code> before and <code>completed</code> or
+ * <code>failed</code> after the process ends.
+ * <p>
+ * With cos targets configured, the dicProcess waits for the goodbyeDic responses of all targets in parallel, see
+ * {@link TutorialProcessModels#loadDicProcessWithMultipleResponses()}. Responses are correlated by business key and
+ * correlation key, optionally using a {@link MessageCorrelationIndex} of the waiting executions.
+ * <p>
+ * Commands and delegate invocations are timed, job executor and history counters are available as
+ * {@link EngineStatistics}. The tutorial delegates record their latencies with a {@link DelegateMetrics} per
+ * organization, if traced also their spans.
+ */
+public class EmbeddedEngineProcessPluginInstance implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(EmbeddedEngineProcessPluginInstance.class);
+
+	private static final int CORRELATION_ATTEMPTS = 50;
+	private static final long CORRELATION_RETRY_MILLIS = 20;
+	private static final long JOB_EXECUTOR_SAMPLE_MILLIS = 10;
+
+	private static final FhirContext fhirContext = FhirContext.forR4();
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Engine settings, history level one of <code>none</code>, <code>activity</code>, <code>audit</code> and
+	 * <code>full</code>.
+	 */
+	public static final class Settings
+	{
+		private final String historyLevel;
+		private final int jobExecutorThreads;
+		private final int jobExecutorQueueSize;
+		private final boolean asyncContinuations;
+		private final int cosTargets;
+		private final Duration goodbyeDicTimeout;
+		private final boolean correlationIndex;
+		private final boolean trace;
+
+		/**
+		 * @param historyLevel
+		 *            not <code>null</code>
+		 * @param jobExecutorThreads
+		 *            &gt; 0
+		 * @param jobExecutorQueueSize
+		 *            &gt; 0, jobs acquired while the queue is full are rejected
+		 * @param asyncContinuations
+		 *            see {@link TutorialProcessModels#load(boolean)}
+		 */
+		public Settings(String historyLevel, int jobExecutorThreads, int jobExecutorQueueSize,
+				boolean asyncContinuations)
+		{
+			this(historyLevel, jobExecutorThreads, jobExecutorQueueSize, asyncContinuations, 0, Duration.ofMinutes(5),
+					true);
+		}
+
+		/**
+		 * @param historyLevel
+		 *            not <code>null</code>
+		 * @param jobExecutorThreads
+		 *            &gt; 0
+		 * @param jobExecutorQueueSize
+		 *            &gt; 0, jobs acquired while the queue is full are rejected
+		 * @param asyncContinuations
+		 *            see {@link TutorialProcessModels#load(boolean)}
+		 * @param cosTargets
+		 *            &gt;= 0, number of helloCos targets per dicProcess instance, all at the cos organization, 0 for
+		 *            the single target dicProcess
+		 * @param goodbyeDicTimeout
+		 *            not <code>null</code>, time to wait for each goodbyeDic response if cos targets &gt; 0
+		 * @param correlationIndex
+		 *            <code>true</code> to deliver goodbyeDic responses with a correlation key using a
+		 *            {@link MessageCorrelationIndex}, <code>false</code> to correlate with the
+		 *            <code>RuntimeService</code>
+		 */
+		public Settings(String historyLevel, int jobExecutorThreads, int jobExecutorQueueSize,
+				boolean asyncContinuations, int cosTargets, Duration goodbyeDicTimeout, boolean correlationIndex)
+		{
+			this(historyLevel, jobExecutorThreads, jobExecutorQueueSize, asyncContinuations, cosTargets,
+					goodbyeDicTimeout, correlationIndex, false);
+		}
+
+		/**
+		 * @param historyLevel
+		 *            not <code>null</code>
+		 * @param jobExecutorThreads
+		 *            &gt; 0
+		 * @param jobExecutorQueueSize
+		 *            &gt; 0, jobs acquired while the queue is full are rejected
+		 * @param asyncContinuations
+		 *            see {@link TutorialProcessModels#load(boolean)}
+		 * @param cosTargets
+		 *            &gt;= 0, number of helloCos targets per dicProcess instance, all at the cos organization, 0 for
+		 *            the single target dicProcess
+		 * @param goodbyeDicTimeout
+		 *            not <code>null</code>, time to wait for each goodbyeDic response if cos targets &gt; 0
+		 * @param correlationIndex
+		 *            see {@link #Settings(String, int, int, boolean, int, Duration, boolean)}
+		 * @param trace
+		 *            <code>true</code> to propagate trace context between the processes and collect the spans of the
+		 *            tutorial delegates with an {@link InMemorySpanExporter}
+		 */
+		public Settings(String historyLevel, int jobExecutorThreads, int jobExecutorQueueSize,
+				boolean asyncContinuations, int cosTargets, Duration goodbyeDicTimeout, boolean correlationIndex,
+				boolean trace)
+		{
+			this.historyLevel = Objects.requireNonNull(historyLevel, "historyLevel");
+			this.jobExecutorThreads = jobExecutorThreads;
+			this.jobExecutorQueueSize = jobExecutorQueueSize;
+			this.asyncContinuations = asyncContinuations;
+			this.cosTargets = cosTargets;
+			this.goodbyeDicTimeout = Objects.requireNonNull(goodbyeDicTimeout, "goodbyeDicTimeout");
+			this.correlationIndex = correlationIndex;
+			this.trace = trace;
+		}
+
+		public String getHistoryLevel()
+		{
+			return historyLevel;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "history " + historyLevel + ", " + jobExecutorThreads + " job executor thread(s), queue "
+					+ jobExecutorQueueSize + ", async continuations " + asyncContinuations
+					+ (cosTargets > 0 ? ", " + cosTargets + " cos target(s), goodbyeDic timeout " + goodbyeDicTimeout
+							+ ", correlation index " + correlationIndex : "")
+					+ (trace ? ", traced" : "");
+		}
+	}
+
+	/**
+	 * Bean {@value TutorialProcessModels#TARGET_CORRELATION_KEYS_BEAN}, provides the correlation keys of the
+	 * <code>targets</code> variable as multi-instance collection.
+	 */
+	public static final class TargetCorrelationKeys
+	{
+		/**
+		 * @param execution
+		 *            not <code>null</code>
+		 * @return correlation keys of the targets, empty if not set
+		 */
+		public List<String> of(DelegateExecution execution)
+		{
+			Targets targets = new EngineVariables(execution, fhirContext, objectMapper).getTargets();
+			return targets == null ? List.of() : targets.getEntries().stream().map(Target::getCorrelationKey).toList();
+		}
+	}
+
+	private final class TimingCommandInterceptor extends CommandInterceptor
+	{
+		private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+		@Override
+		public <T> T execute(Command<T> command)
+		{
+			// nested commands are part of the outer command
+			int[] d = depth.get();
+			if (d[0]++ > 0)
+			{
+				try
+				{
+					return next.execute(command);
+				}
+				finally
+				{
+					d[0]--;
+				}
+			}
+
+			long start = System.nanoTime();
+			try
+			{
+				return next.execute(command);
+			}
+			finally
+			{
+				d[0]--;
+				commandNanos.add(System.nanoTime() - start);
+				commands.increment();
+			}
+		}
+	}
+
+	private final class TimingDelegateInterceptor extends DefaultDelegateInterceptor
+	{
+		@Override
+		public void handleInvocation(DelegateInvocation invocation) throws Exception
+		{
+			long start = System.nanoTime();
+			try
+			{
+				super.handleInvocation(invocation);
+			}
+			finally
+			{
+				delegateNanos.add(System.nanoTime() - start);
+				delegateInvocations.increment();
+			}
+		}
+	}
+
+	private final String organizationIdentifierValue;
+	private final BiConsumer<String, Task> processEndListener;
+
+	private final InMemoryProcessPluginApi api;
+	private final ExecutorService taskHandler;
+	private final TargetCache targetCache;
+	private final TaskDispatcher taskDispatcher;
+	private final InMemorySpanExporter spanExporter;
+	private final DelegateMetrics delegateMetrics;
+
+	private final ProcessEngineConfigurationImpl configuration;
+	private final ProcessEngine processEngine;
+	private final ThreadPoolExecutor jobExecutorThreadPool;
+	private final ScheduledExecutorService jobExecutorSampler;
+	private final MessageCorrelationIndex correlationIndex;
+
+	private final LongAdder commands = new LongAdder();
+	private final LongAdder commandNanos = new LongAdder();
+	private final LongAdder delegateInvocations = new LongAdder();
+	private final LongAdder delegateNanos = new LongAdder();
+	private final LongAdder endedProcessInstances = new LongAdder();
+	private final LongAccumulator jobExecutorPeakQueue = new LongAccumulator(Math::max, 0);
+	private final LongAccumulator jobExecutorPeakActive = new LongAccumulator(Math::max, 0);
+	private final LongAdder jobExecutorBusySamples = new LongAdder();
+	private final LongAdder jobExecutorSamples = new LongAdder();
+
+	/**
+	 * @param organizationIdentifierValue
+	 *            one of {@link BenchmarkFixtures#getOrganizationIdentifierValues()}
+	 * @param fhirServer
+	 *            not <code>null</code>
+	 * @param settings
+	 *            not <code>null</code>
+	 * @param taskHandlerThreads
+	 *            &gt; 0, number of threads starting and correlating processes for created Tasks
+	 * @param binaryInputThreshold
+	 *            &gt;= 0, see {@link BinaryInputHelper}
+	 * @param processEndListener
+	 *            not <code>null</code>, called with business key and start Task after a process instance ended and the
+	 *            transaction is committed
+	 */
+	public EmbeddedEngineProcessPluginInstance(String organizationIdentifierValue, InMemoryFhirServer fhirServer,
+			Settings settings, int taskHandlerThreads, int binaryInputThreshold,
+			BiConsumer<String, Task> processEndListener)
+	{
+		this.organizationIdentifierValue = organizationIdentifierValue;
+		this.processEndListener = Objects.requireNonNull(processEndListener, "processEndListener");
+		Objects.requireNonNull(settings, "settings");
+
+		api = new InMemoryProcessPluginApi(organizationIdentifierValue,
+				execution -> new EngineVariables(execution, fhirContext, objectMapper), fhirServer);
+
+		AtomicInteger threadCount = new AtomicInteger();
+		taskHandler = Executors.newFixedThreadPool(taskHandlerThreads,
+				r -> new Thread(r, organizationIdentifierValue + "-task-handler-" + threadCount.incrementAndGet()));
+
+		// same defaults as the TutorialConfig
+		targetCache = new TargetCache(api, Duration.ofHours(1));
+		taskDispatcher = new TaskDispatcher(4, 100, Duration.ofSeconds(30));
+		BinaryInputHelper binaryInputHelper = new BinaryInputHelper(api, binaryInputThreshold);
+		spanExporter = new InMemorySpanExporter();
+		delegateMetrics = new DelegateMetrics(true, null, new Tracer(settings.trace, spanExporter));
+
+		// only used by the dicProcess for multiple cos targets
+		List<String> cosOrganizationIdentifiers = Collections.nCopies(Math.max(1, settings.cosTargets),
+				TUTORIAL_COS_ORGANIZATION_IDENTIFIER);
+
+		Map<Class<?>, Object> delegates = Map.of(DicTask.class,
+				new TargetingDicTask(api, targetCache, delegateMetrics), HelloCosMessage.class,
+				new ForwardingHelloCosMessage(api, delegateMetrics), CosTask.class,
+				new CosTask(api, targetCache, delegateMetrics), HelloHrpMessage.class,
+				new HelloHrpMessage(api, binaryInputHelper, delegateMetrics), HrpTask.class,
+				new HrpTask(api, targetCache, binaryInputHelper, delegateMetrics), GoodbyeDicMessage.class,
+				new GoodbyeDicMessage(api, taskDispatcher, delegateMetrics), SelectCosTargets.class,
+				new SelectCosTargets(api, targetCache, cosOrganizationIdentifiers, settings.goodbyeDicTimeout,
+						delegateMetrics),
+				StoreGoodbyeDicResponse.class, new StoreGoodbyeDicResponse(api, delegateMetrics),
+				AggregateGoodbyeDicResponses.class, new AggregateGoodbyeDicResponses(api, delegateMetrics));
+
+		correlationIndex = settings.correlationIndex ? new MessageCorrelationIndex() : null;
+
+		initialize(targetCache, taskDispatcher, binaryInputHelper);
+		delegates.values().forEach(d -> initialize((InitializingBean) d));
+
+		DefaultJobExecutor jobExecutor = new DefaultJobExecutor();
+		jobExecutor.setCorePoolSize(settings.jobExecutorThreads);
+		jobExecutor.setMaxPoolSize(settings.jobExecutorThreads);
+		jobExecutor.setQueueSize(settings.jobExecutorQueueSize);
+
+		configuration = new StandaloneInMemProcessEngineConfiguration();
+		configuration.setProcessEngineName("tutorial-" + organizationIdentifierValue);
+		configuration.setJdbcUrl("jdbc:h2:mem:tutorial-" + organizationIdentifierValue + "-" + UUID.randomUUID()
+				+ ";DB_CLOSE_DELAY=-1");
+		configuration.setHistory(settings.historyLevel);
+		configuration.setJobExecutor(jobExecutor);
+		configuration.setJobExecutorActivate(true);
+		configuration.setMetricsEnabled(true);
+		configuration.setDbMetricsReporterActivate(false);
+		configuration.setInitializeTelemetry(false);
+		// the tutorial models do not define a history time to live
+		configuration.setEnforceHistoryTimeToLive(false);
+		configuration.setArtifactFactory(artifactFactory(delegates));
+		configuration.setDelegateInterceptor(new TimingDelegateInterceptor());
+		configuration.setBeans(new HashMap<>(
+				Map.of(TutorialProcessModels.TARGET_CORRELATION_KEYS_BEAN, new TargetCorrelationKeys())));
+
+		// lists are modified by the engine
+		configuration.setCustomPreCommandInterceptorsTxRequired(
+				new ArrayList<>(List.of(new TimingCommandInterceptor())));
+		configuration.setCustomPostBPMNParseListeners(new ArrayList<>(List.of(new AbstractBpmnParseListener()
+		{
+			@Override
+			public void parseProcess(Element processElement, ProcessDefinitionEntity processDefinition)
+			{
+				processDefinition.addBuiltInListener(ExecutionListener.EVENTNAME_END,
+						(ExecutionListener) EmbeddedEngineProcessPluginInstance.this::onProcessEnd);
+			}
+
+			@Override
+			public void parseIntermediateMessageCatchEventDefinition(Element messageEventDefinition,
+					ActivityImpl activity)
+			{
+				if (correlationIndex == null)
+					return;
+
+				activity.addBuiltInListener(ExecutionListener.EVENTNAME_START,
+						(ExecutionListener) EmbeddedEngineProcessPluginInstance.this::onMessageCatchStart);
+				activity.addBuiltInListener(ExecutionListener.EVENTNAME_END,
+						(ExecutionListener) EmbeddedEngineProcessPluginInstance.this::onMessageCatchEnd);
+			}
+		})));
+
+		processEngine = configuration.buildProcessEngine();
+		jobExecutorThreadPool = jobExecutor.getThreadPoolExecutor();
+
+		try
+		{
+			DeploymentBuilder deployment = processEngine.getRepositoryService().createDeployment()
+					.name("tutorial-process");
+			List<BpmnModelInstance> models = TutorialProcessModels.load(settings.asyncContinuations,
+					settings.cosTargets > 0);
+			for (int i = 0; i < models.size(); i++)
+				deployment.addModelInstance("process-" + i + ".bpmn", models.get(i));
+			deployment.deploy();
+		}
+		catch (RuntimeException e)
+		{
+			processEngine.close();
+			taskHandler.shutdown();
+			throw e;
+		}
+
+		jobExecutorSampler = Executors.newSingleThreadScheduledExecutor(r ->
+		{
+			Thread thread = new Thread(r, organizationIdentifierValue + "-job-executor-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		jobExecutorSampler.scheduleAtFixedRate(this::sampleJobExecutor, JOB_EXECUTOR_SAMPLE_MILLIS,
+				JOB_EXECUTOR_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+		fhirServer.setTaskCreatedListener(BenchmarkFixtures.ENDPOINT_ADDRESSES.get(organizationIdentifierValue),
+				task -> taskHandler.execute(() -> onTaskCreated(task)));
+	}
+
+	private static ArtifactFactory artifactFactory(Map<Class<?>, Object> delegates)
+	{
+		ArtifactFactory defaultFactory = new DefaultArtifactFactory();
+		return new ArtifactFactory()
+		{
+			@Override
+			public <T> T getArtifact(Class<T> clazz)
+			{
+				Object delegate = delegates.get(clazz);
+				return delegate != null ? clazz.cast(delegate) : defaultFactory.getArtifact(clazz);
+			}
+		};
+	}
+
+	private void initialize(InitializingBean... beans)
+	{
+		try
+		{
+			for (InitializingBean bean : beans)
+				bean.afterPropertiesSet();
+		}
+		catch (Exception e)
+		{
+			logger.error("Error while initializing process plugin instance " + organizationIdentifierValue, e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	public String getOrganizationIdentifierValue()
+	{
+		return organizationIdentifierValue;
+	}
+
+	public ProcessEngine getProcessEngine()
+	{
+		return processEngine;
+	}
+
+	/**
+	 * @return current counters, history rows are counted with one query per table
+	 */
+	public EngineStatistics getStatistics()
+	{
+		Map<String, Long> tableCount = processEngine.getManagementService().getTableCount();
+		long historyRows = tableCount.entrySet().stream().filter(e -> e.getKey().startsWith("ACT_HI_"))
+				.mapToLong(Map.Entry::getValue).sum();
+		long byteArrayRows = tableCount.getOrDefault("ACT_GE_BYTEARRAY", 0L);
+
+		return new EngineStatistics(commands.sum(), commandNanos.sum(), delegateInvocations.sum(),
+				delegateNanos.sum(), endedProcessInstances.sum(), meter(Metrics.JOB_SUCCESSFUL),
+				meter(Metrics.JOB_FAILED), meter(Metrics.JOB_EXECUTION_REJECTED),
+				meter(Metrics.JOB_ACQUISITION_ATTEMPT), jobExecutorPeakQueue.get(), jobExecutorPeakActive.get(),
+				jobExecutorBusySamples.sum(), jobExecutorSamples.sum(), historyRows, byteArrayRows);
+	}
+
+	/**
+	 * @return latencies of the delegates and message sends by process, activity and target organization, ordered by
+	 *         total time descending
+	 */
+	public List<DelegateTimerSnapshot> getDelegateMetrics()
+	{
+		return delegateMetrics.getTimers();
+	}
+
+	/**
+	 * @return spans of the delegates and message sends in export order, empty if not traced
+	 */
+	public List<Span> getSpans()
+	{
+		return spanExporter.getSpans();
+	}
+
+	/**
+	 * Removes the recorded delegate latencies and spans, e.g. after a warmup.
+	 */
+	public void resetDelegateMetrics()
+	{
+		delegateMetrics.reset();
+		spanExporter.clear();
+	}
+
+	private long meter(String name)
+	{
+		Meter meter = configuration.getMetricsRegistry().getDbMeterByName(name);
+		return meter == null ? 0 : meter.get();
+	}
+
+	private void sampleJobExecutor()
+	{
+		int active = jobExecutorThreadPool.getActiveCount();
+		jobExecutorPeakQueue.accumulate(jobExecutorThreadPool.getQueue().size());
+		jobExecutorPeakActive.accumulate(active);
+		jobExecutorSamples.increment();
+
+		if (active >= jobExecutorThreadPool.getMaximumPoolSize())
+			jobExecutorBusySamples.increment();
+	}
+
+	private void onTaskCreated(Task task)
+	{
+		String messageName = api.getTaskHelper()
+				.getFirstInputParameterStringValue(task, CodeSystems.BpmnMessage.messageName()).orElse(null);
+		String businessKey = api.getTaskHelper()
+				.getFirstInputParameterStringValue(task, CodeSystems.BpmnMessage.businessKey())
+				.orElseGet(() -> UUID.randomUUID().toString());
+
+		if (PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME.equals(messageName))
+			correlate(task, messageName, businessKey, api.getTaskHelper()
+					.getFirstInputParameterStringValue(task, CodeSystems.BpmnMessage.correlationKey()).orElse(null));
+		else
+			startProcess(task, messageName, businessKey);
+	}
+
+	private void startProcess(Task task, String messageName, String businessKey)
+	{
+		updateStatus(task, TaskStatus.INPROGRESS);
+
+		try
+		{
+			processEngine.getRuntimeService().createMessageCorrelation(messageName)
+					.processInstanceBusinessKey(businessKey)
+					.setVariable(EngineVariables.START_TASK, EngineVariables.toValue(fhirContext, task))
+					.correlateStartMessage();
+		}
+		catch (Exception e)
+		{
+			logger.warn("Process for message {} [businessKey: {}] at organization {} failed: {} - {}", messageName,
+					businessKey, organizationIdentifierValue, e.getClass().getName(), e.getMessage());
+			logger.debug("Process failed", e);
+
+			if (TaskStatus.INPROGRESS.equals(task.getStatus()))
+				updateStatus(task, TaskStatus.FAILED);
+
+			processEndListener.accept(businessKey, task);
+		}
+	}
+
+	private void correlate(Task task, String messageName, String businessKey, String correlationKey)
+	{
+		// the sending process instance may not have committed the wait state yet, parallel responses for the same
+		// process instance conflict when completing their multi-instance subprocesses
+		for (int attempt = 1; attempt <= CORRELATION_ATTEMPTS; attempt++)
+		{
+			String executionId = correlationIndex == null ? null : correlationIndex.get(businessKey, correlationKey);
+
+			try
+			{
+				if (executionId != null)
+					deliver(task, messageName, executionId);
+				else
+					correlateWithRuntimeService(task, messageName, businessKey, correlationKey);
+
+				updateStatus(task, TaskStatus.COMPLETED);
+				return;
+			}
+			catch (MismatchingMessageCorrelationException | OptimisticLockingException e)
+			{
+				if (attempt == CORRELATION_ATTEMPTS)
+					break;
+
+				try
+				{
+					Thread.sleep(CORRELATION_RETRY_MILLIS);
+				}
+				catch (InterruptedException i)
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			catch (Exception e)
+			{
+				// execution no longer waiting, e.g. timed out, retried without index
+				if (executionId != null)
+				{
+					correlationIndex.remove(businessKey, correlationKey, executionId);
+					continue;
+				}
+
+				logger.warn("Error while correlating message {} [businessKey: {}, correlationKey: {}]: {} - {}",
+						messageName, businessKey, correlationKey, e.getClass().getName(), e.getMessage());
+				break;
+			}
+		}
+
+		logger.warn("No process instance waiting for message {} [businessKey: {}, correlationKey: {}] at organization "
+				+ "{}", messageName, businessKey, correlationKey, organizationIdentifierValue);
+		updateStatus(task, TaskStatus.FAILED);
+	}
+
+	private void correlateWithRuntimeService(Task task, String messageName, String businessKey,
+			String correlationKey)
+	{
+		MessageCorrelationBuilder correlation = processEngine.getRuntimeService().createMessageCorrelation(messageName)
+				.processInstanceBusinessKey(businessKey)
+				.setVariableLocal(EngineVariables.LATEST_TASK, EngineVariables.toValue(fhirContext, task));
+
+		if (correlationKey != null)
+			correlation.localVariableEquals(BpmnExecutionVariables.CORRELATION_KEY, correlationKey);
+
+		correlation.correlate();
+	}
+
+	private void deliver(Task task, String messageName, String executionId)
+	{
+		configuration.getCommandExecutorTxRequired().execute(new MessageEventReceivedCmd(messageName, executionId,
+				null, Map.of(EngineVariables.LATEST_TASK, EngineVariables.toValue(fhirContext, task))));
+	}
+
+	private void onMessageCatchStart(DelegateExecution execution)
+	{
+		String correlationKey = (String) execution.getVariableLocal(BpmnExecutionVariables.CORRELATION_KEY);
+		if (correlationKey == null)
+			return;
+
+		String businessKey = execution.getProcessBusinessKey();
+		String executionId = execution.getId();
+
+		// subscriptions are visible to other threads after commit
+		Context.getCommandContext().getTransactionContext().addTransactionListener(TransactionState.COMMITTED,
+				commandContext -> correlationIndex.put(businessKey, correlationKey, executionId));
+	}
+
+	private void onMessageCatchEnd(DelegateExecution execution)
+	{
+		String correlationKey = (String) execution.getVariableLocal(BpmnExecutionVariables.CORRELATION_KEY);
+		String businessKey = execution.getProcessBusinessKey();
+		String executionId = execution.getId();
+
+		Context.getCommandContext().getTransactionContext().addTransactionListener(TransactionState.COMMITTED,
+				commandContext -> correlationIndex.remove(businessKey, correlationKey, executionId));
+	}
+
+	private void onProcessEnd(DelegateExecution execution)
+	{
+		EngineVariables variables = new EngineVariables(execution, fhirContext, objectMapper);
+		Task startTask = variables.getStartTask();
+		String businessKey = execution.getProcessBusinessKey();
+
+		// delegates set the start Task failed on errors and delete the process instance
+		if (TaskStatus.INPROGRESS.equals(startTask.getStatus()))
+			updateStatus(startTask, execution.isCanceled() ? TaskStatus.FAILED : TaskStatus.COMPLETED);
+		else if (execution.isCanceled())
+			startTask.setStatus(TaskStatus.FAILED);
+
+		endedProcessInstances.increment();
+
+		Context.getCommandContext().getTransactionContext().addTransactionListener(TransactionState.COMMITTED,
+				commandContext -> processEndListener.accept(businessKey, startTask));
+	}
+
+	private void updateStatus(Task task, TaskStatus status)
+	{
+		task.setStatus(status);
+
+		try
+		{
+			api.getFhirWebserviceClientProvider().getLocalWebserviceClient().withMinimalReturn().update(task);
+		}
+		catch (Exception e)
+		{
+			logger.warn("Error while updating Task {} to status {}: {} - {}", task.getIdElement().getIdPart(),
+					status.toCode(), e.getClass().getName(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		taskHandler.shutdown();
+		jobExecutorSampler.shutdownNow();
+
+		try
+		{
+			if (!taskHandler.awaitTermination(5, TimeUnit.SECONDS))
+				taskHandler.shutdownNow();
+
+			processEngine.close();
+			taskDispatcher.destroy();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (Exception e)
+		{
+			logger.warn("Error while stopping process engine: {} - {}", e.getClass().getName(), e.getMessage());
+		}
+	}
+}
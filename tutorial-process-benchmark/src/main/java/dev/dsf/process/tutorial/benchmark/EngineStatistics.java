@@ -0,0 +1,122 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.io.PrintStream;
+
+/**
+ * Counters of one or more {@link EmbeddedEngineProcessPluginInstance}s. Counters only grow, the difference of two
+ * snapshots covers the run between them, peak values are the larger of both.
+ */
+public class EngineStatistics
+{
+	private final long commands;
+	private final long commandNanos;
+	private final long delegateInvocations;
+	private final long delegateNanos;
+	private final long processInstances;
+	private final long jobsSuccessful;
+	private final long jobsFailed;
+	private final long jobsRejected;
+	private final long jobAcquisitions;
+	private final long jobExecutorPeakQueue;
+	private final long jobExecutorPeakActive;
+	private final long jobExecutorBusySamples;
+	private final long jobExecutorSamples;
+	private final long historyRows;
+	private final long byteArrayRows;
+
+	EngineStatistics(long commands, long commandNanos, long delegateInvocations, long delegateNanos,
+			long processInstances, long jobsSuccessful, long jobsFailed, long jobsRejected, long jobAcquisitions,
+			long jobExecutorPeakQueue, long jobExecutorPeakActive, long jobExecutorBusySamples,
+			long jobExecutorSamples, long historyRows, long byteArrayRows)
+	{
+		this.commands = commands;
+		this.commandNanos = commandNanos;
+		this.delegateInvocations = delegateInvocations;
+		this.delegateNanos = delegateNanos;
+		this.processInstances = processInstances;
+		this.jobsSuccessful = jobsSuccessful;
+		this.jobsFailed = jobsFailed;
+		this.jobsRejected = jobsRejected;
+		this.jobAcquisitions = jobAcquisitions;
+		this.jobExecutorPeakQueue = jobExecutorPeakQueue;
+		this.jobExecutorPeakActive = jobExecutorPeakActive;
+		this.jobExecutorBusySamples = jobExecutorBusySamples;
+		this.jobExecutorSamples = jobExecutorSamples;
+		this.historyRows = historyRows;
+		this.byteArrayRows = byteArrayRows;
+	}
+
+	public EngineStatistics plus(EngineStatistics o)
+	{
+		return new EngineStatistics(commands + o.commands, commandNanos + o.commandNanos,
+				delegateInvocations + o.delegateInvocations, delegateNanos + o.delegateNanos,
+				processInstances + o.processInstances, jobsSuccessful + o.jobsSuccessful, jobsFailed + o.jobsFailed,
+				jobsRejected + o.jobsRejected, jobAcquisitions + o.jobAcquisitions,
+				Math.max(jobExecutorPeakQueue, o.jobExecutorPeakQueue),
+				Math.max(jobExecutorPeakActive, o.jobExecutorPeakActive),
+				jobExecutorBusySamples + o.jobExecutorBusySamples, jobExecutorSamples + o.jobExecutorSamples,
+				historyRows + o.historyRows, byteArrayRows + o.byteArrayRows);
+	}
+
+	public EngineStatistics minus(EngineStatistics o)
+	{
+		return new EngineStatistics(commands - o.commands, commandNanos - o.commandNanos,
+				delegateInvocations - o.delegateInvocations, delegateNanos - o.delegateNanos,
+				processInstances - o.processInstances, jobsSuccessful - o.jobsSuccessful, jobsFailed - o.jobsFailed,
+				jobsRejected - o.jobsRejected, jobAcquisitions - o.jobAcquisitions,
+				Math.max(jobExecutorPeakQueue, o.jobExecutorPeakQueue),
+				Math.max(jobExecutorPeakActive, o.jobExecutorPeakActive),
+				jobExecutorBusySamples - o.jobExecutorBusySamples, jobExecutorSamples - o.jobExecutorSamples,
+				historyRows - o.historyRows, byteArrayRows - o.byteArrayRows);
+	}
+
+	public long getProcessInstances()
+	{
+		return processInstances;
+	}
+
+	/**
+	 * @return wall-clock time spent in engine commands minus time spent in delegates and listeners, per process
+	 *         instance, includes waiting for locks and CPU
+	 */
+	public double getEngineOverheadMillis()
+	{
+		return processInstances == 0 ? Double.NaN : (commandNanos - delegateNanos) / 1e6 / processInstances;
+	}
+
+	public double getDelegateMillis()
+	{
+		return processInstances == 0 ? Double.NaN : delegateNanos / 1e6 / processInstances;
+	}
+
+	public double getHistoryRows()
+	{
+		return processInstances == 0 ? Double.NaN : (double) historyRows / processInstances;
+	}
+
+	/**
+	 * @return fraction of samples with all job executor threads active, 0 - 1
+	 */
+	public double getJobExecutorSaturation()
+	{
+		return jobExecutorSamples == 0 ? 0 : (double) jobExecutorBusySamples / jobExecutorSamples;
+	}
+
+	public void print(PrintStream out)
+	{
+		out.printf("Engine: %d process instances, %.1f commands and %.1f delegate invocations per instance%n",
+				processInstances, perInstance(commands), perInstance(delegateInvocations));
+		out.printf("Engine time per process instance [ms]: overhead %.3f, delegates %.3f%n", getEngineOverheadMillis(),
+				getDelegateMillis());
+		out.printf("Job executor: %d successful, %d failed, %d rejected, %d acquisitions, peak queue %d, "
+				+ "peak active %d, saturated %.1f%% of samples%n", jobsSuccessful, jobsFailed, jobsRejected,
+				jobAcquisitions, jobExecutorPeakQueue, jobExecutorPeakActive, getJobExecutorSaturation() * 100);
+		out.printf("History: %.1f ACT_HI_* rows and %.1f ACT_GE_BYTEARRAY rows per process instance%n",
+				getHistoryRows(), perInstance(byteArrayRows));
+	}
+
+	private double perInstance(long value)
+	{
+		return processInstances == 0 ? Double.NaN : (double) value / processInstances;
+	}
+}
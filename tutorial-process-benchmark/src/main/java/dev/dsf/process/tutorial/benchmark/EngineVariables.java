@@ -0,0 +1,298 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.bpe.v1.constants.BpmnExecutionVariables;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Targets;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.benchmark.InMemoryVariables.InMemoryTarget;
+import dev.dsf.process.tutorial.benchmark.InMemoryVariables.InMemoryTargets;
+
+/**
+ * {@link Variables} stored as Camunda process variables of a {@link DelegateExecution}. Like the DSF BPE, FHIR
+ * resources are stored as serialized JSON and targets as JSON, both as byte array variables. Deserialized Tasks are
+ * cached per instance, use one instance per delegate invocation.
+ */
+public class EngineVariables implements Variables
+{
+	private static final Logger logger = LoggerFactory.getLogger(EngineVariables.class);
+
+	public static final String START_TASK = "startTask";
+	public static final String LATEST_TASK = "latestTask";
+
+	private static final String ORGANIZATION_IDENTIFIER_VALUE = "organizationIdentifierValue";
+	private static final String ENDPOINT_IDENTIFIER_VALUE = "endpointIdentifierValue";
+	private static final String ENDPOINT_URL = "endpointUrl";
+	private static final String CORRELATION_KEY = "correlationKey";
+
+	private static final TypeReference<Map<String, String>> TARGET_TYPE = new TypeReference<>()
+	{
+	};
+	private static final TypeReference<List<Map<String, String>>> TARGETS_TYPE = new TypeReference<>()
+	{
+	};
+
+	private final DelegateExecution execution;
+	private final FhirContext fhirContext;
+	private final ObjectMapper objectMapper;
+
+	private Task startTask;
+	private Task latestTask;
+
+	/**
+	 * @param execution
+	 *            not <code>null</code>
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param objectMapper
+	 *            not <code>null</code>
+	 */
+	public EngineVariables(DelegateExecution execution, FhirContext fhirContext, ObjectMapper objectMapper)
+	{
+		this.execution = Objects.requireNonNull(execution, "execution");
+		this.fhirContext = Objects.requireNonNull(fhirContext, "fhirContext");
+		this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper");
+	}
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param resource
+	 *            may be <code>null</code>
+	 * @return byte array value with the JSON serialization of the given resource
+	 */
+	public static TypedValue toValue(FhirContext fhirContext, Resource resource)
+	{
+		return org.camunda.bpm.engine.variable.Variables.byteArrayValue(resource == null ? null
+				: fhirContext.newJsonParser().encodeResourceToString(resource).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private <R extends Resource> R toResource(Object value)
+	{
+		if (value == null)
+			return null;
+
+		@SuppressWarnings("unchecked")
+		R resource = (R) fhirContext.newJsonParser().parseResource(new String((byte[]) value, StandardCharsets.UTF_8));
+		return resource;
+	}
+
+	private TypedValue toValue(Object value)
+	{
+		try
+		{
+			return org.camunda.bpm.engine.variable.Variables
+					.byteArrayValue(value == null ? null : objectMapper.writeValueAsBytes(value));
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while serializing variable value", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private <T> T fromValue(Object value, TypeReference<T> type)
+	{
+		if (value == null)
+			return null;
+
+		try
+		{
+			return objectMapper.readValue((byte[]) value, type);
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while deserializing variable value", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static Map<String, String> toMap(Target target)
+	{
+		return Map.of(ORGANIZATION_IDENTIFIER_VALUE, target.getOrganizationIdentifierValue(),
+				ENDPOINT_IDENTIFIER_VALUE, target.getEndpointIdentifierValue(), ENDPOINT_URL, target.getEndpointUrl(),
+				CORRELATION_KEY, target.getCorrelationKey() == null ? "" : target.getCorrelationKey());
+	}
+
+	private static Target fromMap(Map<String, String> values)
+	{
+		String correlationKey = values.get(CORRELATION_KEY);
+		return new InMemoryTarget(values.get(ORGANIZATION_IDENTIFIER_VALUE), values.get(ENDPOINT_IDENTIFIER_VALUE),
+				values.get(ENDPOINT_URL), correlationKey == null || correlationKey.isEmpty() ? null : correlationKey);
+	}
+
+	@Override
+	public void setAlternativeBusinessKey(String alternativeBusinessKey)
+	{
+		execution.setVariable(BpmnExecutionVariables.ALTERNATIVE_BUSINESS_KEY, alternativeBusinessKey);
+	}
+
+	@Override
+	public Target createTarget(String organizationIdentifierValue, String endpointIdentifierValue,
+			String endpointUrl, String correlationKey)
+	{
+		return new InMemoryTarget(organizationIdentifierValue, endpointIdentifierValue, endpointUrl, correlationKey);
+	}
+
+	@Override
+	public void setTarget(Target target) throws IllegalArgumentException
+	{
+		execution.setVariable(BpmnExecutionVariables.TARGET, toValue(target == null ? null : toMap(target)));
+	}
+
+	@Override
+	public Target getTarget()
+	{
+		Map<String, String> values = fromValue(execution.getVariable(BpmnExecutionVariables.TARGET), TARGET_TYPE);
+		return values == null ? null : fromMap(values);
+	}
+
+	@Override
+	public Targets createTargets(List<? extends Target> targets)
+	{
+		return new InMemoryTargets(targets);
+	}
+
+	@Override
+	public void setTargets(Targets targets)
+	{
+		execution.setVariable(BpmnExecutionVariables.TARGETS, toValue(
+				targets == null ? null : targets.getEntries().stream().map(EngineVariables::toMap).toList()));
+	}
+
+	@Override
+	public Targets getTargets()
+	{
+		List<Map<String, String>> values = fromValue(execution.getVariable(BpmnExecutionVariables.TARGETS),
+				TARGETS_TYPE);
+		return values == null ? null : new InMemoryTargets(values.stream().map(EngineVariables::fromMap).toList());
+	}
+
+	@Override
+	public void setResourceList(String variableName, List<? extends Resource> resources)
+	{
+		Bundle bundle = null;
+		if (resources != null)
+		{
+			bundle = new Bundle();
+			for (Resource resource : resources)
+				bundle.addEntry().setResource(resource);
+		}
+
+		execution.setVariable(variableName, toValue(fhirContext, bundle));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <R extends Resource> List<R> getResourceList(String variableName)
+	{
+		Bundle bundle = toResource(execution.getVariable(variableName));
+		return bundle == null ? null
+				: bundle.getEntry().stream().map(BundleEntryComponent::getResource).map(r -> (R) r).toList();
+	}
+
+	@Override
+	public void setResource(String variableName, Resource resource)
+	{
+		execution.setVariable(variableName, toValue(fhirContext, resource));
+	}
+
+	@Override
+	public <R extends Resource> R getResource(String variableName)
+	{
+		return toResource(execution.getVariable(variableName));
+	}
+
+	@Override
+	public Task getStartTask()
+	{
+		if (startTask == null)
+			startTask = toResource(execution.getVariable(START_TASK));
+
+		return startTask;
+	}
+
+	@Override
+	public Task getLatestTask()
+	{
+		if (latestTask == null)
+			latestTask = toResource(execution.getVariable(LATEST_TASK));
+
+		return latestTask == null ? getStartTask() : latestTask;
+	}
+
+	@Override
+	public List<Task> getTasks()
+	{
+		List<Task> tasks = new ArrayList<>(2);
+		Stream.of(getStartTask(), getLatestTask()).filter(Objects::nonNull).filter(t -> !tasks.contains(t))
+				.forEach(tasks::add);
+
+		return tasks;
+	}
+
+	@Override
+	public List<Task> getCurrentTasks()
+	{
+		return getTasks();
+	}
+
+	@Override
+	public void updateTask(Task task)
+	{
+		if (task == null)
+			return;
+
+		Task start = getStartTask();
+		if (start == null || task == start
+				|| Objects.equals(task.getIdElement().getIdPart(), start.getIdElement().getIdPart()))
+		{
+			startTask = task;
+			execution.setVariable(START_TASK, toValue(fhirContext, task));
+		}
+		else
+		{
+			latestTask = task;
+			execution.setVariable(LATEST_TASK, toValue(fhirContext, task));
+		}
+	}
+
+	@Override
+	public QuestionnaireResponse getLatestReceivedQuestionnaireResponse()
+	{
+		return null;
+	}
+
+	@Override
+	public void setVariable(String variableName, TypedValue value)
+	{
+		execution.setVariable(variableName, value);
+	}
+
+	@Override
+	public Object getVariable(String variableName)
+	{
+		return execution.getVariable(variableName);
+	}
+}
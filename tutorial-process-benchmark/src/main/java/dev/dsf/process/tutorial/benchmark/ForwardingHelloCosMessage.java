@@ -0,0 +1,44 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.CODESYSTEM_TUTORIAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.message.HelloCosMessage;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.InputParameterIndex;
+import dev.dsf.process.tutorial.util.Tracer;
+
+/**
+ * Forwards the <code>tutorial-input</code> parameter of the start Task like the exercise 6 solution, the
+ * {@link HelloCosMessage} of the tutorial does not. Also adds the <code>traceparent</code> input if tracing is enabled,
+ * the Tasks are not validated against the task-hello-cos profile in the benchmarks.
+ */
+class ForwardingHelloCosMessage extends HelloCosMessage
+{
+	ForwardingHelloCosMessage(ProcessPluginApi api, DelegateMetrics metrics)
+	{
+		super(api, metrics);
+	}
+
+	@Override
+	protected Stream<ParameterComponent> getAdditionalInputParameters(DelegateExecution execution,
+			Variables variables)
+	{
+		return InputParameterIndex.of(variables.getStartTask())
+				.getFirstInputParameter(CODESYSTEM_TUTORIAL, CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT).stream();
+	}
+
+	@Override
+	protected Optional<ParameterComponent> getTraceparentInput()
+	{
+		return Tracer.getTraceparentInput();
+	}
+}
@@ -0,0 +1,87 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_COS_ORGANIZATION_IDENTIFIER;
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_HRP_ORGANIZATION_IDENTIFIER;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.message.HelloHrpMessage;
+import dev.dsf.process.tutorial.util.BinaryInputHelper;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class HelloHrpMessageBenchmark
+{
+	private static final class BenchmarkHelloHrpMessage extends HelloHrpMessage
+	{
+		BenchmarkHelloHrpMessage(ProcessPluginApi api, BinaryInputHelper binaryInputHelper)
+		{
+			super(api, binaryInputHelper, DelegateMetrics.disabled());
+		}
+
+		List<ParameterComponent> additionalInputParameters(DelegateExecution execution, Variables variables)
+		{
+			return getAdditionalInputParameters(execution, variables).toList();
+		}
+	}
+
+	@Param({ "3", "100" })
+	private int inputCount;
+
+	@Param({ "16", "65536" })
+	private int tutorialInputLength;
+
+	private InMemoryVariables variables;
+	private DelegateExecution execution;
+
+	private BenchmarkHelloHrpMessage helloHrpMessage;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		variables = new InMemoryVariables(
+				BenchmarkFixtures.createStartTask("x".repeat(tutorialInputLength), inputCount));
+		execution = BenchmarkFixtures.createExecution("benchmark");
+
+		InMemoryProcessPluginApi api = new InMemoryProcessPluginApi(TUTORIAL_COS_ORGANIZATION_IDENTIFIER,
+				e -> variables);
+		variables.setTarget(new InMemoryVariables.InMemoryTarget(TUTORIAL_HRP_ORGANIZATION_IDENTIFIER,
+				TUTORIAL_HRP_ORGANIZATION_IDENTIFIER + "_Endpoint",
+				BenchmarkFixtures.ENDPOINT_ADDRESSES.get(TUTORIAL_HRP_ORGANIZATION_IDENTIFIER), null));
+
+		// threshold 0, forwarding only, offloading needs a FHIR server
+		BinaryInputHelper binaryInputHelper = new BinaryInputHelper(api, 0);
+		binaryInputHelper.afterPropertiesSet();
+
+		helloHrpMessage = new BenchmarkHelloHrpMessage(api, binaryInputHelper);
+		helloHrpMessage.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public List<ParameterComponent> getAdditionalInputParameters()
+	{
+		return helloHrpMessage.additionalInputParameters(execution, variables);
+	}
+}
@@ -0,0 +1,64 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Identifier;
+
+import dev.dsf.bpe.v1.service.EndpointProvider;
+
+/**
+ * {@link EndpointProvider} for a fixed list of {@link Endpoint}s, parent organizations are not supported.
+ */
+public class InMemoryEndpointProvider implements EndpointProvider
+{
+	private final Endpoint localEndpoint;
+	private final List<Endpoint> endpoints;
+
+	public InMemoryEndpointProvider(Endpoint localEndpoint, List<Endpoint> endpoints)
+	{
+		this.localEndpoint = Objects.requireNonNull(localEndpoint, "localEndpoint");
+		this.endpoints = List.copyOf(endpoints);
+	}
+
+	@Override
+	public String getLocalEndpointAddress()
+	{
+		return localEndpoint.getAddress();
+	}
+
+	@Override
+	public Optional<Endpoint> getLocalEndpoint()
+	{
+		return Optional.of(localEndpoint);
+	}
+
+	@Override
+	public Optional<Endpoint> getEndpoint(Identifier endpointIdentifier)
+	{
+		if (endpointIdentifier == null)
+			return Optional.empty();
+
+		return endpoints.stream()
+				.filter(e -> e.getIdentifier().stream()
+						.anyMatch(i -> Objects.equals(endpointIdentifier.getSystem(), i.getSystem())
+								&& Objects.equals(endpointIdentifier.getValue(), i.getValue())))
+				.findFirst();
+	}
+
+	@Override
+	public Optional<Endpoint> getEndpoint(Identifier parentOrganizationIdentifier,
+			Identifier memberOrganizationIdentifier, Coding memberOrganizationRole)
+	{
+		return Optional.empty();
+	}
+
+	@Override
+	public List<Endpoint> getEndpoints(Identifier parentOrganizationIdentifier, Coding memberOrganizationRole)
+	{
+		return List.of();
+	}
+}
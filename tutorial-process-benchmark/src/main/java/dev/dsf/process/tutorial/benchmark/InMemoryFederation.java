@@ -0,0 +1,393 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+
+/**
+ * The dic, cos and hrp organizations of the tutorial in one JVM, each an {@link InMemoryProcessPluginInstance} against
+ * a shared {@link InMemoryFhirServer}. Runs dicProcess instances end-to-end over HTTP with the DSF FHIR client and
+ * reports throughput and latency, without the containers of the <code>dev-setup</code>.
+ * <p>
+ * Arguments: <code>--name=value</code> pairs, <code>instances</code> (default 1000), <code>warmup</code> (default
+ * 200), <code>max-in-flight</code> (default 64), <code>engine-threads</code> per organization (default 8),
+ * <code>binary-threshold</code> (default 0), <code>tutorial-input</code> (default <code>send-response</code>) and
+ * <code>serve</code> (default <code>false</code>). With <code>--serve=true</code> the federation keeps running
+ * after the measured run, e.g. as target of the load generator with
+ * <code>--base-url=http://127.0.0.1:port/dic/fhir</code>. The load generator's <code>--mock=true</code> runs
+ * against a federation started in its own JVM.
+ */
+public class InMemoryFederation implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(InMemoryFederation.class);
+
+	private static final Set<String> NAMES = Set.of("instances", "warmup", "max-in-flight", "engine-threads",
+			"binary-threshold", "tutorial-input", "serve");
+
+	public static final class RunResult
+	{
+		private final int instances;
+		private final int completed;
+		private final int failed;
+		private final long elapsedNanos;
+		private final long[] sortedLatencyNanos;
+
+		private RunResult(int instances, int completed, int failed, long elapsedNanos, long[] latencyNanos)
+		{
+			this.instances = instances;
+			this.completed = completed;
+			this.failed = failed;
+			this.elapsedNanos = elapsedNanos;
+			this.sortedLatencyNanos = latencyNanos.clone();
+
+			Arrays.sort(sortedLatencyNanos);
+		}
+
+		public int getCompleted()
+		{
+			return completed;
+		}
+
+		public int getFailed()
+		{
+			return failed;
+		}
+
+		/**
+		 * @return completed and failed process instances per second
+		 */
+		public double getThroughput()
+		{
+			return (completed + failed) / (elapsedNanos / 1e9);
+		}
+
+		/**
+		 * @param percentile
+		 *            0 - 100
+		 * @return end-to-end latency in milliseconds
+		 */
+		public double getLatencyMillis(double percentile)
+		{
+			if (sortedLatencyNanos.length == 0)
+				return Double.NaN;
+
+			int index = (int) Math.ceil(percentile / 100 * sortedLatencyNanos.length) - 1;
+			return sortedLatencyNanos[Math.max(0, Math.min(index, sortedLatencyNanos.length - 1))] / 1e6;
+		}
+
+		public void print(PrintStream out)
+		{
+			out.printf("Process instances: %d started, %d completed, %d failed, %d timed out%n", instances, completed,
+					failed, instances - completed - failed);
+			out.printf("Duration: %.2f s, throughput: %.1f instances/s%n", elapsedNanos / 1e9, getThroughput());
+			out.printf("End-to-end latency [ms]: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f%n", getLatencyMillis(50),
+					getLatencyMillis(90), getLatencyMillis(99), getLatencyMillis(100));
+		}
+	}
+
+	private static final class Run
+	{
+		final Semaphore inFlight;
+		final CountDownLatch ended;
+		final AtomicLongArray latencyNanos;
+		final AtomicInteger endedCount = new AtomicInteger();
+		final AtomicInteger completed = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+
+		Run(int count, int maxInFlight)
+		{
+			inFlight = new Semaphore(maxInFlight);
+			ended = new CountDownLatch(count);
+			latencyNanos = new AtomicLongArray(count);
+		}
+
+		void end(long latency, boolean success)
+		{
+			latencyNanos.set(endedCount.getAndIncrement(), latency);
+			(success ? completed : failed).incrementAndGet();
+
+			inFlight.release();
+			ended.countDown();
+		}
+	}
+
+	private static final class Pending
+	{
+		final Run run;
+		final long startNanos;
+
+		Pending(Run run, long startNanos)
+		{
+			this.run = run;
+			this.startNanos = startNanos;
+		}
+	}
+
+	private final FhirContext fhirContext = FhirContext.forR4();
+	private final InMemoryFhirServer fhirServer;
+	private final List<AutoCloseable> instances;
+
+	private final Map<String, Pending> pendingByBusinessKey = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the process plugin instance of one organization.
+	 */
+	@FunctionalInterface
+	public interface InstanceFactory
+	{
+		/**
+		 * @param organizationIdentifierValue
+		 *            one of {@link BenchmarkFixtures#getOrganizationIdentifierValues()}
+		 * @param fhirServer
+		 *            not <code>null</code>
+		 * @param processEndListener
+		 *            not <code>null</code>, to be called with business key and start Task after a process ended
+		 * @return instance closed with the federation
+		 */
+		AutoCloseable create(String organizationIdentifierValue, InMemoryFhirServer fhirServer,
+				BiConsumer<String, Task> processEndListener);
+	}
+
+	/**
+	 * @param engineThreads
+	 *            &gt; 0, per organization
+	 * @param binaryInputThreshold
+	 *            &gt;= 0
+	 */
+	public InMemoryFederation(int engineThreads, int binaryInputThreshold)
+	{
+		this((o, server, listener) -> new InMemoryProcessPluginInstance(o, server, engineThreads,
+				binaryInputThreshold, listener));
+	}
+
+	/**
+	 * @param instanceFactory
+	 *            not <code>null</code>
+	 */
+	public InMemoryFederation(InstanceFactory instanceFactory)
+	{
+		int serverThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		fhirServer = new InMemoryFhirServer(fhirContext, BenchmarkFixtures.ENDPOINT_ADDRESSES.values(), serverThreads);
+
+		instances = BenchmarkFixtures.getOrganizationIdentifierValues().stream()
+				.map(o -> instanceFactory.create(o, fhirServer, this::onProcessEnd)).toList();
+	}
+
+	public InMemoryFederation start()
+	{
+		fhirServer.start();
+		return this;
+	}
+
+	/**
+	 * @param organizationIdentifierValue
+	 *            one of {@link BenchmarkFixtures#getOrganizationIdentifierValues()}
+	 * @return base URL of the organization's FHIR server
+	 */
+	public String getBaseUrl(String organizationIdentifierValue)
+	{
+		return fhirServer.getBaseUrl(BenchmarkFixtures.ENDPOINT_ADDRESSES.get(organizationIdentifierValue));
+	}
+
+	private void onProcessEnd(String businessKey, Task startTask)
+	{
+		// cosProcess and hrpProcess instances share the business key
+		if (!PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL.equals(startTask.getInstantiatesCanonical()))
+			return;
+
+		// only dicProcess instances started by run(...) are pending
+		Pending pending = pendingByBusinessKey.remove(businessKey);
+		if (pending != null)
+			pending.run.end(System.nanoTime() - pending.startNanos,
+					TaskStatus.COMPLETED.equals(startTask.getStatus()));
+	}
+
+	/**
+	 * Starts dicProcess instances by creating start Tasks at the dic FHIR server, at most <i>maxInFlight</i> at a time.
+	 * Latency is measured from the start Task create request until the start Task is set completed or failed.
+	 *
+	 * @param count
+	 *            &gt;= 0
+	 * @param maxInFlight
+	 *            &gt; 0
+	 * @param tutorialInput
+	 *            value of the <code>tutorial-input</code> parameter
+	 * @param timeout
+	 *            not <code>null</code>, for all instances to end
+	 * @return throughput and end-to-end latency of the ended instances
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public RunResult run(int count, int maxInFlight, String tutorialInput, Duration timeout)
+			throws InterruptedException
+	{
+		FhirWebserviceClient client = new InMemoryFhirWebserviceClientProvider(fhirServer,
+				BenchmarkFixtures.ENDPOINT_ADDRESSES.get(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER), fhirContext,
+				new ObjectMapper()).getLocalWebserviceClient();
+		InMemoryTaskHelper taskHelper = new InMemoryTaskHelper(client.getBaseUrl());
+
+		Run run = new Run(count, maxInFlight);
+		ExecutorService senders = Executors.newFixedThreadPool(Math.min(maxInFlight, 16));
+
+		long start = System.nanoTime();
+		try
+		{
+			for (int i = 0; i < count; i++)
+			{
+				if (!run.inFlight.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS))
+				{
+					logger.warn("No process instance ended within {}, {} of {} started", timeout, i, count);
+					break;
+				}
+
+				senders.execute(() -> startProcess(client, taskHelper, tutorialInput, run));
+			}
+
+			if (!run.ended.await(timeout.toMillis(), TimeUnit.MILLISECONDS))
+				logger.warn("{} process instance(s) not ended within {}", run.ended.getCount(), timeout);
+		}
+		finally
+		{
+			senders.shutdownNow();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		int ended = run.endedCount.get();
+		long[] latencies = new long[ended];
+		for (int i = 0; i < ended; i++)
+			latencies[i] = run.latencyNanos.get(i);
+
+		return new RunResult(count, run.completed.get(), run.failed.get(), elapsed, latencies);
+	}
+
+	private void startProcess(FhirWebserviceClient client, InMemoryTaskHelper taskHelper, String tutorialInput,
+			Run run)
+	{
+		Task task = BenchmarkFixtures.createStartTask(tutorialInput, 3);
+		task.setIdElement(null);
+		task.setStatus(TaskStatus.REQUESTED);
+
+		String businessKey = taskHelper.getFirstInputParameterStringValue(task, CodeSystems.BpmnMessage.businessKey())
+				.get();
+		pendingByBusinessKey.put(businessKey, new Pending(run, System.nanoTime()));
+
+		try
+		{
+			client.withMinimalReturn().create(task);
+		}
+		catch (Exception e)
+		{
+			logger.warn("Error while starting dicProcess: {} - {}", e.getClass().getName(), e.getMessage());
+
+			Pending pending = pendingByBusinessKey.remove(businessKey);
+			if (pending != null)
+				run.end(System.nanoTime() - pending.startNanos, false);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		for (AutoCloseable instance : instances)
+		{
+			try
+			{
+				instance.close();
+			}
+			catch (Exception e)
+			{
+				logger.warn("Error while closing process plugin instance: {} - {}", e.getClass().getName(),
+						e.getMessage());
+			}
+		}
+
+		fhirServer.close();
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		Map<String, String> values = parse(NAMES, args);
+		int count = Integer.parseInt(values.getOrDefault("instances", "1000"));
+		int warmup = Integer.parseInt(values.getOrDefault("warmup", "200"));
+		int maxInFlight = Integer.parseInt(values.getOrDefault("max-in-flight", "64"));
+		int engineThreads = Integer.parseInt(values.getOrDefault("engine-threads", "8"));
+		int binaryThreshold = Integer.parseInt(values.getOrDefault("binary-threshold", "0"));
+		String tutorialInput = values.getOrDefault("tutorial-input", "send-response");
+		boolean serve = Boolean.parseBoolean(values.getOrDefault("serve", "false"));
+
+		if (!"send-response".equals(tutorialInput))
+			logger.warn("dicProcess instances only end if the tutorial-input is 'send-response'");
+
+		try (InMemoryFederation federation = new InMemoryFederation(engineThreads, binaryThreshold).start())
+		{
+			if (warmup > 0)
+			{
+				logger.info("Warming up with {} process instance(s)", warmup);
+				federation.run(warmup, maxInFlight, tutorialInput, Duration.ofMinutes(1));
+			}
+
+			logger.info("Running {} process instance(s), at most {} in flight", count, maxInFlight);
+			federation.run(count, maxInFlight, tutorialInput, Duration.ofMinutes(5)).print(System.out);
+
+			if (serve)
+			{
+				System.out.printf("Serving, dic base URL %s, stop with Ctrl+C%n",
+						federation.getBaseUrl(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER));
+				Thread.currentThread().join();
+			}
+		}
+	}
+
+	/**
+	 * @param names
+	 *            not <code>null</code>, allowed argument names
+	 * @param args
+	 *            <code>--name=value</code> pairs
+	 * @return values by name
+	 */
+	static Map<String, String> parse(Set<String> names, String... args)
+	{
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args)
+		{
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0)
+				throw new IllegalArgumentException("Argument '" + arg + "' not in --name=value format");
+
+			String name = arg.substring(2, separator);
+			if (!names.contains(name))
+				throw new IllegalArgumentException("Unknown argument '" + name + "', expected one of " + names);
+
+			values.put(name, arg.substring(separator + 1));
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,481 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.Bundle.HTTPVerb;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.OperationOutcome.IssueSeverity;
+import org.hl7.fhir.r4.model.OperationOutcome.IssueType;
+import org.hl7.fhir.r4.model.Property;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.hl7.fhir.r4.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import ca.uhn.fhir.context.FhirContext;
+
+/**
+ * Stand-in for the FHIR servers of a DSF federation, one base URL per endpoint address on a single embedded HTTP
+ * server. Resources are kept in memory, the latest version only. Supports the interactions used by the tutorial
+ * processes and the DSF BPE: create, update and read of any resource type, conditional create with an
+ * <code>identifier</code> criteria, batch and transaction Bundles with POST and PUT entries, and Task searches by
+ * <code>_id</code> and <code>status</code>. JSON only, except for create and read of {@link Binary} resources as raw
+ * data. No validation, no authorization.
+ * <p>
+ * Created Tasks are handed to the listener of the receiving server, replacing the websocket subscription of the DSF
+ * BPE.
+ */
+public class InMemoryFhirServer implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(InMemoryFhirServer.class);
+
+	private static final String MEDIA_TYPE = "application/fhir+json";
+
+	private final class Base
+	{
+		final String path;
+		final Map<String, Resource> resourcesByTypeAndId = new ConcurrentHashMap<>();
+		volatile Consumer<Task> taskCreatedListener = t ->
+		{
+		};
+
+		Base(String path)
+		{
+			this.path = path;
+		}
+
+		String getUrl()
+		{
+			return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+		}
+	}
+
+	private static final class Response
+	{
+		final int status;
+		final Resource resource;
+		final String location;
+		final boolean raw;
+
+		Response(int status, Resource resource, String location)
+		{
+			this(status, resource, location, false);
+		}
+
+		Response(int status, Resource resource, String location, boolean raw)
+		{
+			this.status = status;
+			this.resource = resource;
+			this.location = location;
+			this.raw = raw;
+		}
+	}
+
+	private final FhirContext fhirContext;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	private final Map<String, Base> basesByEndpointAddress;
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param endpointAddresses
+	 *            not <code>null</code>, e.g. <code>https://dic/fhir</code>, served at
+	 *            <code>http://127.0.0.1:port/dic/fhir</code>
+	 * @param threads
+	 *            &gt; 0
+	 */
+	public InMemoryFhirServer(FhirContext fhirContext, Collection<String> endpointAddresses, int threads)
+	{
+		this.fhirContext = Objects.requireNonNull(fhirContext, "fhirContext");
+
+		try
+		{
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while creating in-memory FHIR server", e);
+			throw new RuntimeException(e);
+		}
+
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+
+		basesByEndpointAddress = endpointAddresses.stream().collect(Collectors.toUnmodifiableMap(a -> a, a ->
+		{
+			URI uri = URI.create(a);
+			return new Base("/" + uri.getHost() + uri.getPath());
+		}));
+		basesByEndpointAddress.values().forEach(b -> server.createContext(b.path, e -> handle(b, e)));
+	}
+
+	public InMemoryFhirServer start()
+	{
+		server.start();
+		logger.info("In-memory FHIR server started, base URLs {}",
+				basesByEndpointAddress.values().stream().map(Base::getUrl).sorted().toList());
+		return this;
+	}
+
+	/**
+	 * @param endpointAddress
+	 *            not <code>null</code>
+	 * @return base URL of the given endpoint address on this server, the given address if not served by this server
+	 */
+	public String getBaseUrl(String endpointAddress)
+	{
+		Base base = basesByEndpointAddress.get(endpointAddress);
+		return base == null ? endpointAddress : base.getUrl();
+	}
+
+	/**
+	 * @param endpointAddress
+	 *            not <code>null</code>, one of the addresses given to the constructor
+	 * @param listener
+	 *            not <code>null</code>, called with a copy of each created Task on a server thread, must not block
+	 */
+	public void setTaskCreatedListener(String endpointAddress, Consumer<Task> listener)
+	{
+		getBase(endpointAddress).taskCreatedListener = Objects.requireNonNull(listener, "listener");
+	}
+
+	/**
+	 * @param endpointAddress
+	 *            not <code>null</code>, one of the addresses given to the constructor
+	 * @return number of stored resources of the given type
+	 */
+	public long getResourceCount(String endpointAddress, ResourceType type)
+	{
+		String prefix = type.name() + "/";
+		return getBase(endpointAddress).resourcesByTypeAndId.keySet().stream().filter(k -> k.startsWith(prefix))
+				.count();
+	}
+
+	private Base getBase(String endpointAddress)
+	{
+		Base base = basesByEndpointAddress.get(endpointAddress);
+		if (base == null)
+			throw new IllegalArgumentException("Endpoint address " + endpointAddress + " not served");
+
+		return base;
+	}
+
+	@Override
+	public void close()
+	{
+		server.stop(0);
+		executor.shutdownNow();
+
+		try
+		{
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void handle(Base base, HttpExchange exchange) throws IOException
+	{
+		try (exchange)
+		{
+			byte[] requestBody = exchange.getRequestBody().readAllBytes();
+			String path = exchange.getRequestURI().getPath().substring(base.path.length());
+			List<String> segments = Arrays.stream(path.split("/")).filter(s -> !s.isEmpty()).toList();
+
+			Response response;
+			try
+			{
+				response = handle(base, exchange, segments, requestBody);
+			}
+			catch (RuntimeException e)
+			{
+				logger.warn("Error while handling {} {}: {} - {}", exchange.getRequestMethod(),
+						exchange.getRequestURI(), e.getClass().getName(), e.getMessage());
+				response = error(400, IssueType.PROCESSING, e.getMessage());
+			}
+
+			if (response.location != null)
+				exchange.getResponseHeaders().add("Location", base.getUrl() + "/" + response.location);
+
+			// batch responses are returned with minimal return too, the preference applies to the entries
+			String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+			boolean minimal = prefer != null && prefer.contains("return=minimal") && response.status < 300
+					&& !(response.resource instanceof Bundle);
+
+			if (response.resource == null || minimal)
+				exchange.sendResponseHeaders(response.status, -1);
+			else if (response.raw)
+			{
+				Binary binary = (Binary) response.resource;
+				exchange.getResponseHeaders().add("Content-Type", binary.getContentType());
+				exchange.sendResponseHeaders(response.status, binary.getData().length);
+				try (OutputStream out = exchange.getResponseBody())
+				{
+					out.write(binary.getData());
+				}
+			}
+			else
+			{
+				byte[] body = fhirContext.newJsonParser().encodeResourceToString(response.resource)
+						.getBytes(StandardCharsets.UTF_8);
+
+				exchange.getResponseHeaders().add("Content-Type", MEDIA_TYPE);
+				exchange.sendResponseHeaders(response.status, body.length);
+				try (OutputStream out = exchange.getResponseBody())
+				{
+					out.write(body);
+				}
+			}
+		}
+	}
+
+	private Response handle(Base base, HttpExchange exchange, List<String> segments, byte[] requestBody)
+	{
+		String method = exchange.getRequestMethod();
+		URI uri = exchange.getRequestURI();
+		boolean binary = segments.size() >= 1 && ResourceType.Binary.name().equals(segments.get(0));
+
+		if ("POST".equals(method) && binary && segments.size() == 1
+				&& !isFhirMediaType(exchange.getRequestHeaders().getFirst("Content-Type")))
+			return create(base, ResourceType.Binary.name(),
+					new Binary().setContentType(exchange.getRequestHeaders().getFirst("Content-Type"))
+							.setSecurityContext(securityContext(exchange)).setData(requestBody));
+
+		else if ("GET".equals(method) && binary && !isFhirMediaType(exchange.getRequestHeaders().getFirst("Accept"))
+				&& (segments.size() == 2 || (segments.size() == 4 && "_history".equals(segments.get(2)))))
+		{
+			Response response = read(base, segments.get(0), segments.get(1),
+					segments.size() == 4 ? segments.get(3) : null);
+			return response.status == 200 ? new Response(200, response.resource, null, true) : response;
+		}
+
+		else if ("POST".equals(method) && segments.isEmpty())
+			return batch(base, parse(requestBody, Bundle.class));
+
+		else if ("POST".equals(method) && segments.size() == 1)
+			return create(base, segments.get(0), parse(requestBody, Resource.class),
+					exchange.getRequestHeaders().getFirst("If-None-Exist"));
+
+		else if ("PUT".equals(method) && segments.size() == 2)
+			return update(base, segments.get(0), segments.get(1), parse(requestBody, Resource.class));
+
+		else if ("GET".equals(method) && segments.size() == 1)
+			return search(base, segments.get(0), uri);
+
+		else if ("GET".equals(method) && (segments.size() == 2
+				|| (segments.size() == 4 && "_history".equals(segments.get(2)))))
+			return read(base, segments.get(0), segments.get(1), segments.size() == 4 ? segments.get(3) : null);
+
+		else
+			return error(405, IssueType.NOTSUPPORTED, method + " " + uri.getPath() + " not supported");
+	}
+
+	private static boolean isFhirMediaType(String mediaType)
+	{
+		return mediaType == null || mediaType.contains("fhir") || mediaType.contains("*/*");
+	}
+
+	private static Reference securityContext(HttpExchange exchange)
+	{
+		String reference = exchange.getRequestHeaders().getFirst("X-Security-Context");
+		return reference == null ? null : new Reference(reference);
+	}
+
+	private <R extends Resource> R parse(byte[] body, Class<R> type)
+	{
+		return type.cast(fhirContext.newJsonParser().parseResource(new String(body, StandardCharsets.UTF_8)));
+	}
+
+	private Response create(Base base, String type, Resource resource)
+	{
+		checkType(type, resource);
+
+		String id = UUID.randomUUID().toString();
+		Resource stored = store(base, type, id, resource, "1");
+
+		if (stored instanceof Task task)
+			base.taskCreatedListener.accept(task.copy());
+
+		return new Response(201, stored, type + "/" + id + "/_history/1");
+	}
+
+	private Response create(Base base, String type, Resource resource, String ifNoneExist)
+	{
+		if (ifNoneExist == null || ifNoneExist.isBlank())
+			return create(base, type, resource);
+
+		String[] criteria = ifNoneExist.split("=", 2);
+		if (criteria.length != 2 || !"identifier".equals(criteria[0]) || !criteria[1].contains("|"))
+			throw new IllegalArgumentException("If-None-Exist " + ifNoneExist + " not supported");
+
+		String[] identifier = URLDecoder.decode(criteria[1], StandardCharsets.UTF_8).split("\\|", 2);
+
+		// search and create atomic per base
+		synchronized (base)
+		{
+			Resource existing = base.resourcesByTypeAndId.values().stream()
+					.filter(r -> type.equals(r.getResourceType().name()))
+					.filter(r -> hasIdentifier(r, identifier[0], identifier[1])).findFirst().orElse(null);
+
+			if (existing != null)
+				return new Response(200, existing, existing.getIdElement().toUnqualified().getValue());
+			else
+				return create(base, type, resource);
+		}
+	}
+
+	private static boolean hasIdentifier(Resource resource, String system, String value)
+	{
+		Property identifiers = resource.getNamedProperty("identifier");
+		return identifiers != null && identifiers.getValues().stream().filter(i -> i instanceof Identifier)
+				.map(i -> (Identifier) i).anyMatch(i -> system.equals(i.getSystem()) && value.equals(i.getValue()));
+	}
+
+	private Response update(Base base, String type, String id, Resource resource)
+	{
+		checkType(type, resource);
+
+		Resource existing = base.resourcesByTypeAndId.get(type + "/" + id);
+		String version = existing == null ? "1"
+				: String.valueOf(Long.parseLong(existing.getIdElement().getVersionIdPart()) + 1);
+		Resource stored = store(base, type, id, resource, version);
+
+		return new Response(existing == null ? 201 : 200, stored, type + "/" + id + "/_history/" + version);
+	}
+
+	private Resource store(Base base, String type, String id, Resource resource, String version)
+	{
+		resource.setIdElement(new IdType(type, id, version));
+		resource.getMeta().setVersionId(version).setLastUpdated(new Date());
+		base.resourcesByTypeAndId.put(type + "/" + id, resource);
+
+		return resource;
+	}
+
+	private void checkType(String type, Resource resource)
+	{
+		if (!type.equals(resource.getResourceType().name()))
+			throw new IllegalArgumentException(
+					"Resource type " + resource.getResourceType().name() + " does not match path " + type);
+	}
+
+	private Response read(Base base, String type, String id, String version)
+	{
+		Resource resource = base.resourcesByTypeAndId.get(type + "/" + id);
+
+		if (resource == null || (version != null && !version.equals(resource.getIdElement().getVersionIdPart())))
+			return error(404, IssueType.NOTFOUND, type + "/" + id + (version == null ? "" : "/_history/" + version)
+					+ " not found");
+		else
+			return new Response(200, resource, null);
+	}
+
+	private Response search(Base base, String type, URI uri)
+	{
+		if (!ResourceType.Task.name().equals(type))
+			return error(405, IssueType.NOTSUPPORTED, "Search for " + type + " not supported");
+
+		Map<String, Set<String>> parameters = Arrays
+				.stream(uri.getRawQuery() == null ? new String[0] : uri.getRawQuery().split("&"))
+				.map(p -> p.split("=", 2)).filter(p -> p.length == 2)
+				.collect(Collectors.toMap(p -> URLDecoder.decode(p[0], StandardCharsets.UTF_8),
+						p -> Set.of(URLDecoder.decode(p[1], StandardCharsets.UTF_8).split(",")), (a, b) -> a));
+
+		Stream<Resource> tasks = parameters.containsKey("_id")
+				? parameters.get("_id").stream().map(id -> base.resourcesByTypeAndId.get(type + "/" + id))
+						.filter(Objects::nonNull)
+				: base.resourcesByTypeAndId.values().stream().filter(r -> r instanceof Task);
+
+		Set<String> status = parameters.get("status");
+		if (status != null)
+			tasks = tasks.filter(t -> ((Task) t).hasStatus() && status.contains(((Task) t).getStatus().toCode()));
+
+		Bundle bundle = new Bundle().setType(BundleType.SEARCHSET);
+		tasks.forEach(t -> bundle.addEntry().setFullUrl(base.getUrl() + "/" + t.getIdElement().toVersionless())
+				.setResource(t).getSearch().setMode(Bundle.SearchEntryMode.MATCH));
+		bundle.setTotal(bundle.getEntry().size());
+
+		return new Response(200, bundle, null);
+	}
+
+	private Response batch(Base base, Bundle bundle)
+	{
+		Bundle responseBundle = new Bundle().setType(
+				BundleType.TRANSACTION.equals(bundle.getType()) ? BundleType.TRANSACTIONRESPONSE
+						: BundleType.BATCHRESPONSE);
+
+		for (BundleEntryComponent entry : bundle.getEntry())
+		{
+			HTTPVerb method = entry.getRequest().getMethod();
+			List<String> segments = Arrays.stream(entry.getRequest().getUrl().split("/")).filter(s -> !s.isEmpty())
+					.toList();
+
+			Response response;
+			try
+			{
+				if (HTTPVerb.POST.equals(method) && segments.size() == 1)
+					response = create(base, segments.get(0), entry.getResource(), entry.getRequest().getIfNoneExist());
+				else if (HTTPVerb.PUT.equals(method) && segments.size() == 2)
+					response = update(base, segments.get(0), segments.get(1), entry.getResource());
+				else
+					response = error(405, IssueType.NOTSUPPORTED,
+							method + " " + entry.getRequest().getUrl() + " not supported");
+			}
+			catch (RuntimeException e)
+			{
+				response = error(400, IssueType.PROCESSING, e.getMessage());
+			}
+
+			BundleEntryComponent responseEntry = responseBundle.addEntry();
+			responseEntry.getResponse().setStatus(response.status + (response.status == 201 ? " Created"
+					: response.status == 200 ? " OK" : "")).setLocation(response.location);
+			if (response.status >= 300)
+				responseEntry.getResponse().setOutcome(response.resource);
+		}
+
+		return new Response(200, responseBundle, null);
+	}
+
+	private Response error(int status, IssueType type, String message)
+	{
+		OperationOutcome outcome = new OperationOutcome();
+		outcome.addIssue().setSeverity(IssueSeverity.ERROR).setCode(type).setDiagnostics(message);
+
+		return new Response(status, outcome, null);
+	}
+}
@@ -0,0 +1,89 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hl7.fhir.r4.model.Resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.bpe.v1.service.FhirWebserviceClientProvider;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import dev.dsf.fhir.client.FhirWebserviceClientJersey;
+import dev.dsf.fhir.service.ReferenceCleaner;
+
+/**
+ * {@link FhirWebserviceClientProvider} with the DSF Jersey client, endpoint addresses are redirected to the base URLs
+ * of an {@link InMemoryFhirServer}. Plain HTTP, no client certificates. Clients are cached by base URL.
+ */
+public class InMemoryFhirWebserviceClientProvider implements FhirWebserviceClientProvider
+{
+	private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+	private static final int READ_TIMEOUT_MILLIS = 30_000;
+	private static final String USER_AGENT = "DSF/tutorial-process-benchmark";
+
+	private static final ReferenceCleaner NO_OP_REFERENCE_CLEANER = new ReferenceCleaner()
+	{
+		@Override
+		public <R extends Resource> R cleanLiteralReferences(R resource)
+		{
+			return resource;
+		}
+
+		@Override
+		public <R extends Resource> R cleanReferenceResourcesIfBundle(R resource)
+		{
+			return resource;
+		}
+	};
+
+	private final InMemoryFhirServer server;
+	private final String localEndpointAddress;
+	private final FhirContext fhirContext;
+	private final ObjectMapper objectMapper;
+
+	private final Map<String, FhirWebserviceClient> clientsByBaseUrl = new ConcurrentHashMap<>();
+
+	/**
+	 * @param server
+	 *            not <code>null</code>
+	 * @param localEndpointAddress
+	 *            not <code>null</code>, endpoint address of the local organization
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param objectMapper
+	 *            not <code>null</code>
+	 */
+	public InMemoryFhirWebserviceClientProvider(InMemoryFhirServer server, String localEndpointAddress,
+			FhirContext fhirContext, ObjectMapper objectMapper)
+	{
+		this.server = Objects.requireNonNull(server, "server");
+		this.localEndpointAddress = Objects.requireNonNull(localEndpointAddress, "localEndpointAddress");
+		this.fhirContext = Objects.requireNonNull(fhirContext, "fhirContext");
+		this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper");
+	}
+
+	@Override
+	public FhirWebserviceClient getLocalWebserviceClient()
+	{
+		return getWebserviceClient(localEndpointAddress);
+	}
+
+	/**
+	 * @param webserviceUrl
+	 *            endpoint address or base URL on the {@link InMemoryFhirServer}
+	 */
+	@Override
+	public FhirWebserviceClient getWebserviceClient(String webserviceUrl)
+	{
+		return clientsByBaseUrl.computeIfAbsent(server.getBaseUrl(webserviceUrl), this::createClient);
+	}
+
+	private FhirWebserviceClient createClient(String baseUrl)
+	{
+		return new FhirWebserviceClientJersey(baseUrl, null, null, null, objectMapper, null, null, null,
+				CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS, false, USER_AGENT, fhirContext, NO_OP_REFERENCE_CLEANER);
+	}
+}
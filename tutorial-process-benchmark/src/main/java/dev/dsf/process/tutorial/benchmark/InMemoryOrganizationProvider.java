@@ -0,0 +1,62 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Organization;
+
+import dev.dsf.bpe.v1.service.OrganizationProvider;
+
+/**
+ * {@link OrganizationProvider} for a fixed list of {@link Organization}s, member roles are not supported.
+ */
+public class InMemoryOrganizationProvider implements OrganizationProvider
+{
+	private final Organization localOrganization;
+	private final List<Organization> organizations;
+
+	public InMemoryOrganizationProvider(Organization localOrganization, List<Organization> organizations)
+	{
+		this.localOrganization = localOrganization;
+		this.organizations = List.copyOf(organizations);
+	}
+
+	@Override
+	public Optional<Organization> getLocalOrganization()
+	{
+		return Optional.ofNullable(localOrganization);
+	}
+
+	@Override
+	public Optional<Organization> getOrganization(Identifier organizationIdentifier)
+	{
+		return getOrganizations(organizationIdentifier).stream().findFirst();
+	}
+
+	@Override
+	public List<Organization> getOrganizations(Identifier organizationIdentifier)
+	{
+		if (organizationIdentifier == null)
+			return List.of();
+
+		return organizations.stream().filter(o -> o.getIdentifier().stream()
+				.anyMatch(i -> Objects.equals(organizationIdentifier.getSystem(), i.getSystem())
+						&& Objects.equals(organizationIdentifier.getValue(), i.getValue())))
+				.toList();
+	}
+
+	@Override
+	public List<Organization> getOrganizations(Identifier parentOrganizationIdentifier, Coding memberOrganizationRole)
+	{
+		return List.of();
+	}
+
+	@Override
+	public List<Organization> getRemoteOrganizations()
+	{
+		return organizations.stream().filter(o -> o != localOrganization).toList();
+	}
+}
@@ -0,0 +1,178 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Organization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.config.ProxyConfig;
+import dev.dsf.bpe.v1.constants.NamingSystems;
+import dev.dsf.bpe.v1.service.EndpointProvider;
+import dev.dsf.bpe.v1.service.FhirWebserviceClientProvider;
+import dev.dsf.bpe.v1.service.MailService;
+import dev.dsf.bpe.v1.service.OrganizationProvider;
+import dev.dsf.bpe.v1.service.QuestionnaireResponseHelper;
+import dev.dsf.bpe.v1.service.TaskHelper;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.fhir.authorization.process.ProcessAuthorizationHelper;
+import dev.dsf.fhir.authorization.read.ReadAccessHelper;
+
+/**
+ * {@link ProcessPluginApi} without a running DSF BPE server, similar to the one build by the
+ * <code>TestProcessPluginGenerator</code> of the tutorial-process tests. Services not used by the tutorial delegates
+ * are stub-only mocks, the {@link TaskHelper}, {@link OrganizationProvider}, {@link EndpointProvider} and the
+ * {@link Variables} work on in-memory data. FHIR webservice clients connect to an {@link InMemoryFhirServer} if given.
+ */
+public class InMemoryProcessPluginApi implements ProcessPluginApi
+{
+	private static final FhirContext fhirContext = FhirContext.forR4();
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final ProxyConfig proxyConfig = stub(ProxyConfig.class);
+	private final MailService mailService = stub(MailService.class);
+	private final ProcessAuthorizationHelper processAuthorizationHelper = stub(ProcessAuthorizationHelper.class);
+	private final QuestionnaireResponseHelper questionnaireResponseHelper = stub(QuestionnaireResponseHelper.class);
+	private final ReadAccessHelper readAccessHelper = stub(ReadAccessHelper.class);
+
+	private final FhirWebserviceClientProvider fhirWebserviceClientProvider;
+	private final EndpointProvider endpointProvider;
+	private final OrganizationProvider organizationProvider;
+	private final TaskHelper taskHelper;
+	private final Function<DelegateExecution, ? extends Variables> variablesByExecution;
+
+	/**
+	 * @param localOrganizationIdentifierValue
+	 *            one of {@link BenchmarkFixtures#getOrganizationIdentifierValues()}
+	 * @param variablesByExecution
+	 *            not <code>null</code>
+	 */
+	public InMemoryProcessPluginApi(String localOrganizationIdentifierValue,
+			Function<DelegateExecution, ? extends Variables> variablesByExecution)
+	{
+		this(localOrganizationIdentifierValue, variablesByExecution, null);
+	}
+
+	/**
+	 * @param localOrganizationIdentifierValue
+	 *            one of {@link BenchmarkFixtures#getOrganizationIdentifierValues()}
+	 * @param variablesByExecution
+	 *            not <code>null</code>
+	 * @param fhirServer
+	 *            may be <code>null</code>, the {@link FhirWebserviceClientProvider} is a stub-only mock if
+	 *            <code>null</code>
+	 */
+	public InMemoryProcessPluginApi(String localOrganizationIdentifierValue,
+			Function<DelegateExecution, ? extends Variables> variablesByExecution, InMemoryFhirServer fhirServer)
+	{
+		List<Organization> organizations = BenchmarkFixtures.getOrganizationIdentifierValues().stream()
+				.map(BenchmarkFixtures::createOrganization).toList();
+		List<Endpoint> endpoints = BenchmarkFixtures.getOrganizationIdentifierValues().stream()
+				.map(BenchmarkFixtures::createEndpoint).toList();
+
+		Organization localOrganization = organizations.stream()
+				.filter(o -> NamingSystems.OrganizationIdentifier.findFirst(o).map(Identifier::getValue)
+						.filter(localOrganizationIdentifierValue::equals).isPresent())
+				.findFirst().orElseThrow(() -> new IllegalArgumentException(
+						"Unknown organization identifier '" + localOrganizationIdentifierValue + "'"));
+		Endpoint localEndpoint = endpoints.stream()
+				.filter(e -> e.getAddress()
+						.equals(BenchmarkFixtures.ENDPOINT_ADDRESSES.get(localOrganizationIdentifierValue)))
+				.findFirst().get();
+
+		this.organizationProvider = new InMemoryOrganizationProvider(localOrganization, organizations);
+		this.endpointProvider = new InMemoryEndpointProvider(localEndpoint, endpoints);
+		this.taskHelper = new InMemoryTaskHelper(localEndpoint.getAddress());
+		this.fhirWebserviceClientProvider = fhirServer == null ? stub(FhirWebserviceClientProvider.class)
+				: new InMemoryFhirWebserviceClientProvider(fhirServer, localEndpoint.getAddress(), fhirContext,
+						objectMapper);
+		this.variablesByExecution = Objects.requireNonNull(variablesByExecution, "variablesByExecution");
+	}
+
+	private static <T> T stub(Class<T> type)
+	{
+		return mock(type, withSettings().stubOnly());
+	}
+
+	@Override
+	public ProxyConfig getProxyConfig()
+	{
+		return proxyConfig;
+	}
+
+	@Override
+	public EndpointProvider getEndpointProvider()
+	{
+		return endpointProvider;
+	}
+
+	@Override
+	public FhirContext getFhirContext()
+	{
+		return fhirContext;
+	}
+
+	@Override
+	public FhirWebserviceClientProvider getFhirWebserviceClientProvider()
+	{
+		return fhirWebserviceClientProvider;
+	}
+
+	@Override
+	public MailService getMailService()
+	{
+		return mailService;
+	}
+
+	@Override
+	public ObjectMapper getObjectMapper()
+	{
+		return objectMapper;
+	}
+
+	@Override
+	public OrganizationProvider getOrganizationProvider()
+	{
+		return organizationProvider;
+	}
+
+	@Override
+	public ProcessAuthorizationHelper getProcessAuthorizationHelper()
+	{
+		return processAuthorizationHelper;
+	}
+
+	@Override
+	public QuestionnaireResponseHelper getQuestionnaireResponseHelper()
+	{
+		return questionnaireResponseHelper;
+	}
+
+	@Override
+	public ReadAccessHelper getReadAccessHelper()
+	{
+		return readAccessHelper;
+	}
+
+	@Override
+	public TaskHelper getTaskHelper()
+	{
+		return taskHelper;
+	}
+
+	@Override
+	public Variables getVariables(DelegateExecution execution)
+	{
+		return variablesByExecution.apply(execution);
+	}
+}
@@ -0,0 +1,312 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_GOODBYE_DIC;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_COS_AND_LATEST_VERSION;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_COS_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_COS_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_HRP_AND_LATEST_VERSION;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_HRP_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_HRP_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.RESOURCE_VERSION;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.Expression;
+import org.camunda.bpm.engine.impl.bpmn.parser.FieldDeclaration;
+import org.camunda.bpm.engine.impl.el.FixedValue;
+import org.camunda.bpm.engine.impl.util.ClassDelegateUtil;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import dev.dsf.bpe.v1.activity.AbstractTaskMessageSend;
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.process.tutorial.message.GoodbyeDicMessage;
+import dev.dsf.process.tutorial.message.HelloCosMessage;
+import dev.dsf.process.tutorial.message.HelloHrpMessage;
+import dev.dsf.process.tutorial.service.CosTask;
+import dev.dsf.process.tutorial.service.DicTask;
+import dev.dsf.process.tutorial.service.HrpTask;
+import dev.dsf.process.tutorial.util.BinaryInputHelper;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.DelegateTimerSnapshot;
+import dev.dsf.process.tutorial.util.TargetCache;
+import dev.dsf.process.tutorial.util.TaskDispatcher;
+
+/**
+ * One organization of an in-memory DSF federation: the tutorial delegates, wired like in the
+ * <code>TutorialConfig</code>, executed on Tasks created at the organization's base URL of an
+ * {@link InMemoryFhirServer} instead of by the Camunda engine of a DSF BPE.
+ * <p>
+ * The process models of the tutorial are exercise skeletons, the flow executed here is the one of the exercise 6
+ * solution. dicProcess: DicTask, HelloCosMessage forwarding the <code>tutorial-input</code> and waiting for the
+ * goodbyeDic message. cosProcess: CosTask and HelloHrpMessage. hrpProcess: HrpTask and GoodbyeDicMessage if the
+ * <code>tutorial-input</code> is <code>send-response</code>. Like the DSF BPE, received Tasks are set
+ * <code>inprogress</code> before and <code>completed</code> or <code>failed</code> after the process ends.
+ */
+public class InMemoryProcessPluginInstance implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(InMemoryProcessPluginInstance.class);
+
+	private final String organizationIdentifierValue;
+	private final BiConsumer<String, Task> processEndListener;
+
+	private final Map<DelegateExecution, InMemoryVariables> variablesByExecution = new ConcurrentHashMap<>();
+	private final Map<String, Task> waitingStartTasksByBusinessKey = new ConcurrentHashMap<>();
+
+	private final InMemoryProcessPluginApi api;
+	private final ExecutorService engine;
+
+	private final TargetCache targetCache;
+	private final TaskDispatcher taskDispatcher;
+	private final DelegateMetrics delegateMetrics;
+
+	private final DicTask dicTask;
+	private final HelloCosMessage helloCosMessage;
+	private final CosTask cosTask;
+	private final HelloHrpMessage helloHrpMessage;
+	private final HrpTask hrpTask;
+	private final GoodbyeDicMessage goodbyeDicMessage;
+
+	/**
+	 * @param organizationIdentifierValue
+	 *            one of {@link BenchmarkFixtures#getOrganizationIdentifierValues()}
+	 * @param fhirServer
+	 *            not <code>null</code>
+	 * @param engineThreads
+	 *            &gt; 0, number of threads executing delegates, stand-in for the job executor of the DSF BPE
+	 * @param binaryInputThreshold
+	 *            &gt;= 0, see {@link BinaryInputHelper}
+	 * @param processEndListener
+	 *            not <code>null</code>, called with business key and start Task after a process ended, on an engine
+	 *            thread
+	 */
+	public InMemoryProcessPluginInstance(String organizationIdentifierValue, InMemoryFhirServer fhirServer,
+			int engineThreads, int binaryInputThreshold, BiConsumer<String, Task> processEndListener)
+	{
+		this.organizationIdentifierValue = organizationIdentifierValue;
+		this.processEndListener = Objects.requireNonNull(processEndListener, "processEndListener");
+
+		api = new InMemoryProcessPluginApi(organizationIdentifierValue, variablesByExecution::get, fhirServer);
+
+		AtomicInteger threadCount = new AtomicInteger();
+		engine = Executors.newFixedThreadPool(engineThreads,
+				r -> new Thread(r, organizationIdentifierValue + "-engine-" + threadCount.incrementAndGet()));
+
+		// same defaults as the TutorialConfig
+		targetCache = new TargetCache(api, Duration.ofHours(1));
+		taskDispatcher = new TaskDispatcher(4, 100, Duration.ofSeconds(30));
+		BinaryInputHelper binaryInputHelper = new BinaryInputHelper(api, binaryInputThreshold);
+		delegateMetrics = new DelegateMetrics(true, null);
+
+		dicTask = new TargetingDicTask(api, targetCache, delegateMetrics);
+		helloCosMessage = new ForwardingHelloCosMessage(api, delegateMetrics);
+		cosTask = new CosTask(api, targetCache, delegateMetrics);
+		helloHrpMessage = new HelloHrpMessage(api, binaryInputHelper, delegateMetrics);
+		hrpTask = new HrpTask(api, targetCache, binaryInputHelper, delegateMetrics);
+		goodbyeDicMessage = new GoodbyeDicMessage(api, taskDispatcher, delegateMetrics);
+
+		// camunda:field values of the message events, injected like the engine does for the deployed models
+		setFields(helloCosMessage, PROFILE_TUTORIAL_TASK_HELLO_COS_INSTANTIATES_CANONICAL,
+				PROFILE_TUTORIAL_TASK_HELLO_COS_MESSAGE_NAME, PROFILE_TUTORIAL_TASK_HELLO_COS_AND_LATEST_VERSION);
+		setFields(helloHrpMessage, PROFILE_TUTORIAL_TASK_HELLO_HRP_INSTANTIATES_CANONICAL,
+				PROFILE_TUTORIAL_TASK_HELLO_HRP_MESSAGE_NAME, PROFILE_TUTORIAL_TASK_HELLO_HRP_AND_LATEST_VERSION);
+		setFields(goodbyeDicMessage, PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL,
+				PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME,
+				PROFILE_TUTORIAL_TASK_GOODBYE_DIC + "|" + RESOURCE_VERSION);
+
+		initialize(targetCache, taskDispatcher, binaryInputHelper, dicTask, helloCosMessage, cosTask, helloHrpMessage,
+				hrpTask, goodbyeDicMessage);
+
+		fhirServer.setTaskCreatedListener(BenchmarkFixtures.ENDPOINT_ADDRESSES.get(organizationIdentifierValue),
+				task -> engine.execute(() -> onTaskCreated(task)));
+	}
+
+	private static void setFields(AbstractTaskMessageSend message, String instantiatesCanonical, String messageName,
+			String profile)
+	{
+		ClassDelegateUtil.applyFieldDeclaration(List.of(field("instantiatesCanonical", instantiatesCanonical),
+				field("messageName", messageName), field("profile", profile)), message);
+	}
+
+	private static FieldDeclaration field(String name, String value)
+	{
+		return new FieldDeclaration(name, Expression.class.getName(), new FixedValue(value));
+	}
+
+	private void initialize(InitializingBean... beans)
+	{
+		try
+		{
+			for (InitializingBean bean : beans)
+				bean.afterPropertiesSet();
+		}
+		catch (Exception e)
+		{
+			logger.error("Error while initializing process plugin instance " + organizationIdentifierValue, e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	public String getOrganizationIdentifierValue()
+	{
+		return organizationIdentifierValue;
+	}
+
+	/**
+	 * @return latencies of the delegates and message sends, ordered by total time descending
+	 */
+	public List<DelegateTimerSnapshot> getDelegateMetrics()
+	{
+		return delegateMetrics.getTimers();
+	}
+
+	/**
+	 * @return number of dicProcess instances waiting for the goodbyeDic message
+	 */
+	public int getWaitingCount()
+	{
+		return waitingStartTasksByBusinessKey.size();
+	}
+
+	private void onTaskCreated(Task task)
+	{
+		String messageName = api.getTaskHelper()
+				.getFirstInputParameterStringValue(task, CodeSystems.BpmnMessage.messageName()).orElse(null);
+		String businessKey = api.getTaskHelper()
+				.getFirstInputParameterStringValue(task, CodeSystems.BpmnMessage.businessKey())
+				.orElseGet(() -> UUID.randomUUID().toString());
+
+		if (PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME.equals(messageName))
+			correlateGoodbyeDic(task, businessKey);
+		else
+			startProcess(task, messageName, businessKey);
+	}
+
+	private void startProcess(Task task, String messageName, String businessKey)
+	{
+		updateStatus(task, TaskStatus.INPROGRESS);
+
+		InMemoryVariables variables = new InMemoryVariables(task);
+		DelegateExecution execution = BenchmarkFixtures.createExecution(messageName, businessKey);
+		variablesByExecution.put(execution, variables);
+
+		try
+		{
+			if (PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME.equals(messageName))
+			{
+				// registered before sending, the goodbyeDic message may arrive before HelloCosMessage returns
+				waitingStartTasksByBusinessKey.put(businessKey, task);
+
+				dicTask.execute(execution);
+				helloCosMessage.execute(execution);
+			}
+			else if (PROFILE_TUTORIAL_TASK_HELLO_COS_MESSAGE_NAME.equals(messageName))
+			{
+				cosTask.execute(execution);
+				helloHrpMessage.execute(execution);
+				endProcess(task, businessKey, TaskStatus.COMPLETED);
+			}
+			else if (PROFILE_TUTORIAL_TASK_HELLO_HRP_MESSAGE_NAME.equals(messageName))
+			{
+				hrpTask.execute(execution);
+				if (Boolean.TRUE.equals(variables.getBoolean("sendResponse")))
+					goodbyeDicMessage.execute(execution);
+				endProcess(task, businessKey, TaskStatus.COMPLETED);
+			}
+			else
+				throw new IllegalStateException("No process for message " + messageName + " at organization "
+						+ organizationIdentifierValue);
+		}
+		catch (Exception e)
+		{
+			logger.warn("Process for message {} [businessKey: {}] at organization {} failed: {} - {}", messageName,
+					businessKey, organizationIdentifierValue, e.getClass().getName(), e.getMessage());
+			logger.debug("Process failed", e);
+
+			waitingStartTasksByBusinessKey.remove(businessKey);
+			endProcess(task, businessKey, TaskStatus.FAILED);
+		}
+		finally
+		{
+			variablesByExecution.remove(execution);
+		}
+	}
+
+	private void correlateGoodbyeDic(Task task, String businessKey)
+	{
+		Task startTask = waitingStartTasksByBusinessKey.remove(businessKey);
+		if (startTask == null)
+		{
+			logger.warn("No dicProcess waiting for message {} [businessKey: {}]",
+					PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME, businessKey);
+			updateStatus(task, TaskStatus.FAILED);
+			return;
+		}
+
+		updateStatus(task, TaskStatus.COMPLETED);
+		endProcess(startTask, businessKey, TaskStatus.COMPLETED);
+	}
+
+	private void endProcess(Task startTask, String businessKey, TaskStatus status)
+	{
+		// delegates set the start Task failed on errors
+		if (TaskStatus.INPROGRESS.equals(startTask.getStatus()))
+			updateStatus(startTask, status);
+
+		processEndListener.accept(businessKey, startTask);
+	}
+
+	private void updateStatus(Task task, TaskStatus status)
+	{
+		task.setStatus(status);
+
+		try
+		{
+			api.getFhirWebserviceClientProvider().getLocalWebserviceClient().withMinimalReturn().update(task);
+		}
+		catch (Exception e)
+		{
+			logger.warn("Error while updating Task {} to status {}: {} - {}", task.getIdElement().getIdPart(),
+					status.toCode(), e.getClass().getName(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		engine.shutdown();
+
+		try
+		{
+			if (!engine.awaitTermination(5, TimeUnit.SECONDS))
+				engine.shutdownNow();
+
+			taskDispatcher.destroy();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (Exception e)
+		{
+			logger.warn("Error while stopping task dispatcher: {} - {}", e.getClass().getName(), e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.hl7.fhir.r4.model.Task.TaskOutputComponent;
+import org.hl7.fhir.r4.model.Type;
+
+import dev.dsf.bpe.v1.service.TaskHelper;
+
+/**
+ * {@link TaskHelper} working on the given {@link Task} only, behaves like the helper provided by the DSF BPE server
+ * without needing a running server.
+ */
+public class InMemoryTaskHelper implements TaskHelper
+{
+	private final String localEndpointAddress;
+
+	public InMemoryTaskHelper(String localEndpointAddress)
+	{
+		this.localEndpointAddress = Objects.requireNonNull(localEndpointAddress, "localEndpointAddress");
+	}
+
+	@Override
+	public String getLocalVersionlessAbsoluteUrl(Task task)
+	{
+		return task == null ? null
+				: task.getIdElement().toVersionless().withServerBase(localEndpointAddress, "Task").getValue();
+	}
+
+	@Override
+	public Stream<String> getInputParameterStringValues(Task task, Coding coding)
+	{
+		return getInputParameterValues(task, coding, StringType.class).map(StringType::getValue);
+	}
+
+	@Override
+	public Stream<String> getInputParameterStringValues(Task task, String system, String code)
+	{
+		return getInputParameterValues(task, system, code, StringType.class).map(StringType::getValue);
+	}
+
+	@Override
+	public <T extends Type> Stream<T> getInputParameterValues(Task task, Coding coding, Class<T> expectedType)
+	{
+		return getInputParameters(task, coding, expectedType).map(ParameterComponent::getValue)
+				.map(expectedType::cast);
+	}
+
+	@Override
+	public <T extends Type> Stream<T> getInputParameterValues(Task task, String system, String code,
+			Class<T> expectedType)
+	{
+		return getInputParameters(task, system, code, expectedType).map(ParameterComponent::getValue)
+				.map(expectedType::cast);
+	}
+
+	@Override
+	public Stream<ParameterComponent> getInputParametersWithExtension(Task task, Coding coding,
+			Class<? extends Type> expectedType, String extensionUrl)
+	{
+		return getInputParameters(task, coding, expectedType).filter(p -> p.hasExtension(extensionUrl));
+	}
+
+	@Override
+	public Stream<ParameterComponent> getInputParametersWithExtension(Task task, String system, String code,
+			Class<? extends Type> expectedType, String extensionUrl)
+	{
+		return getInputParameters(task, system, code, expectedType).filter(p -> p.hasExtension(extensionUrl));
+	}
+
+	@Override
+	public Stream<ParameterComponent> getInputParameters(Task task, Coding coding, Class<? extends Type> expectedType)
+	{
+		return getInputParameters(task, coding.getSystem(), coding.getCode(), expectedType);
+	}
+
+	@Override
+	public Stream<ParameterComponent> getInputParameters(Task task, String system, String code,
+			Class<? extends Type> expectedType)
+	{
+		if (task == null)
+			return Stream.empty();
+
+		return task.getInput().stream().filter(p -> expectedType.isInstance(p.getValue()))
+				.filter(p -> p.getType().getCoding().stream()
+						.anyMatch(c -> Objects.equals(system, c.getSystem()) && Objects.equals(code, c.getCode())));
+	}
+
+	@Override
+	public ParameterComponent createInput(Type value, Coding coding)
+	{
+		return new ParameterComponent(new CodeableConcept(coding), value);
+	}
+
+	@Override
+	public ParameterComponent createInput(Type value, String system, String code)
+	{
+		return createInput(value, new Coding(system, code, null));
+	}
+
+	@Override
+	public TaskOutputComponent createOutput(Type value, Coding coding)
+	{
+		return new TaskOutputComponent(new CodeableConcept(coding), value);
+	}
+
+	@Override
+	public TaskOutputComponent createOutput(Type value, String system, String code)
+	{
+		return createOutput(value, new Coding(system, code, null));
+	}
+}
@@ -0,0 +1,238 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.hl7.fhir.r4.model.QuestionnaireResponse;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.Task;
+
+import dev.dsf.bpe.v1.constants.BpmnExecutionVariables;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Targets;
+import dev.dsf.bpe.v1.variables.Variables;
+
+/**
+ * {@link Variables} backed by a {@link HashMap}, the start {@link Task} is fixed. Not thread safe, use one instance per
+ * benchmark thread.
+ */
+public class InMemoryVariables implements Variables
+{
+	public static final class InMemoryTarget implements Target
+	{
+		private final String organizationIdentifierValue;
+		private final String endpointIdentifierValue;
+		private final String endpointUrl;
+		private final String correlationKey;
+
+		public InMemoryTarget(String organizationIdentifierValue, String endpointIdentifierValue, String endpointUrl,
+				String correlationKey)
+		{
+			this.organizationIdentifierValue = organizationIdentifierValue;
+			this.endpointIdentifierValue = endpointIdentifierValue;
+			this.endpointUrl = endpointUrl;
+			this.correlationKey = correlationKey;
+		}
+
+		@Override
+		public String getOrganizationIdentifierValue()
+		{
+			return organizationIdentifierValue;
+		}
+
+		@Override
+		public String getEndpointIdentifierValue()
+		{
+			return endpointIdentifierValue;
+		}
+
+		@Override
+		public String getEndpointUrl()
+		{
+			return endpointUrl;
+		}
+
+		@Override
+		public String getCorrelationKey()
+		{
+			return correlationKey;
+		}
+	}
+
+	public static final class InMemoryTargets implements Targets
+	{
+		private final List<Target> entries;
+
+		public InMemoryTargets(List<? extends Target> entries)
+		{
+			this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+		}
+
+		@Override
+		public List<Target> getEntries()
+		{
+			return entries;
+		}
+
+		@Override
+		public Targets removeByEndpointIdentifierValue(Target target)
+		{
+			return removeByEndpointIdentifierValue(target == null ? null : target.getEndpointIdentifierValue());
+		}
+
+		@Override
+		public Targets removeByEndpointIdentifierValue(String endpointIdentifierValue)
+		{
+			return removeAllByEndpointIdentifierValue(Collections.singleton(endpointIdentifierValue));
+		}
+
+		@Override
+		public Targets removeAllByEndpointIdentifierValue(Collection<String> endpointIdentifierValues)
+		{
+			return new InMemoryTargets(
+					entries.stream().filter(t -> !endpointIdentifierValues.contains(t.getEndpointIdentifierValue()))
+							.toList());
+		}
+
+		@Override
+		public boolean isEmpty()
+		{
+			return entries.isEmpty();
+		}
+	}
+
+	private final Map<String, Object> variables = new HashMap<>();
+	private final Task startTask;
+
+	public InMemoryVariables(Task startTask)
+	{
+		this.startTask = Objects.requireNonNull(startTask, "startTask");
+	}
+
+	public void clear()
+	{
+		variables.clear();
+	}
+
+	@Override
+	public void setAlternativeBusinessKey(String alternativeBusinessKey)
+	{
+		variables.put(BpmnExecutionVariables.ALTERNATIVE_BUSINESS_KEY, alternativeBusinessKey);
+	}
+
+	@Override
+	public Target createTarget(String organizationIdentifierValue, String endpointIdentifierValue,
+			String endpointUrl, String correlationKey)
+	{
+		return new InMemoryTarget(organizationIdentifierValue, endpointIdentifierValue, endpointUrl, correlationKey);
+	}
+
+	@Override
+	public void setTarget(Target target) throws IllegalArgumentException
+	{
+		variables.put(BpmnExecutionVariables.TARGET, target);
+	}
+
+	@Override
+	public Target getTarget()
+	{
+		return (Target) variables.get(BpmnExecutionVariables.TARGET);
+	}
+
+	@Override
+	public Targets createTargets(List<? extends Target> targets)
+	{
+		return new InMemoryTargets(targets);
+	}
+
+	@Override
+	public void setTargets(Targets targets)
+	{
+		variables.put(BpmnExecutionVariables.TARGETS, targets);
+	}
+
+	@Override
+	public Targets getTargets()
+	{
+		return (Targets) variables.get(BpmnExecutionVariables.TARGETS);
+	}
+
+	@Override
+	public void setResourceList(String variableName, List<? extends Resource> resources)
+	{
+		variables.put(variableName, resources);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <R extends Resource> List<R> getResourceList(String variableName)
+	{
+		return (List<R>) variables.get(variableName);
+	}
+
+	@Override
+	public void setResource(String variableName, Resource resource)
+	{
+		variables.put(variableName, resource);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <R extends Resource> R getResource(String variableName)
+	{
+		return (R) variables.get(variableName);
+	}
+
+	@Override
+	public Task getStartTask()
+	{
+		return startTask;
+	}
+
+	@Override
+	public Task getLatestTask()
+	{
+		return startTask;
+	}
+
+	@Override
+	public List<Task> getTasks()
+	{
+		return List.of(startTask);
+	}
+
+	@Override
+	public List<Task> getCurrentTasks()
+	{
+		return List.of(startTask);
+	}
+
+	@Override
+	public void updateTask(Task task)
+	{
+	}
+
+	@Override
+	public QuestionnaireResponse getLatestReceivedQuestionnaireResponse()
+	{
+		return null;
+	}
+
+	@Override
+	public void setVariable(String variableName, TypedValue value)
+	{
+		variables.put(variableName, value == null ? null : value.getValue());
+	}
+
+	@Override
+	public Object getVariable(String variableName)
+	{
+		return variables.get(variableName);
+	}
+}
@@ -0,0 +1,74 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ids of executions waiting for a message, by business key and correlation key. Correlating by business key and a
+ * <code>correlationKey</code> local variable with the Camunda <code>RuntimeService</code> queries all executions with
+ * the business key and compares their local variables, with one subprocess per target the cost of each response grows
+ * with the number of targets. With the index a response is delivered to the waiting execution directly.
+ * <p>
+ * Entries are only hints: an execution may have ended after the lookup, callers fall back to correlating with the
+ * <code>RuntimeService</code>.
+ */
+class MessageCorrelationIndex
+{
+	private record Key(String businessKey, String correlationKey)
+	{
+	}
+
+	private final ConcurrentMap<Key, String> executionIds = new ConcurrentHashMap<>();
+
+	/**
+	 * @param businessKey
+	 *            not <code>null</code>
+	 * @param correlationKey
+	 *            not <code>null</code>
+	 * @param executionId
+	 *            not <code>null</code>
+	 */
+	void put(String businessKey, String correlationKey, String executionId)
+	{
+		executionIds.put(new Key(Objects.requireNonNull(businessKey, "businessKey"),
+				Objects.requireNonNull(correlationKey, "correlationKey")),
+				Objects.requireNonNull(executionId, "executionId"));
+	}
+
+	/**
+	 * @param businessKey
+	 *            may be <code>null</code>
+	 * @param correlationKey
+	 *            may be <code>null</code>
+	 * @return id of the waiting execution, <code>null</code> if not indexed
+	 */
+	String get(String businessKey, String correlationKey)
+	{
+		if (businessKey == null || correlationKey == null)
+			return null;
+
+		return executionIds.get(new Key(businessKey, correlationKey));
+	}
+
+	/**
+	 * Removes the entry only if still mapped to the given execution.
+	 *
+	 * @param businessKey
+	 *            may be <code>null</code>
+	 * @param correlationKey
+	 *            may be <code>null</code>
+	 * @param executionId
+	 *            may be <code>null</code>
+	 */
+	void remove(String businessKey, String correlationKey, String executionId)
+	{
+		if (businessKey != null && correlationKey != null && executionId != null)
+			executionIds.remove(new Key(businessKey, correlationKey), executionId);
+	}
+
+	int size()
+	{
+		return executionIds.size();
+	}
+}
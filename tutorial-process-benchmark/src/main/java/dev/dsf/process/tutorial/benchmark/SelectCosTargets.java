@@ -0,0 +1,86 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.activity.AbstractServiceDelegate;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.TargetCache;
+
+/**
+ * Sets one target with a new correlation key per configured cos organization as <code>targets</code> variable, the
+ * helloCos message is sent to all targets, a multi-instance subprocess over the targets waits for the goodbyeDic
+ * responses. The same organization may be configured more than once, each entry is a separate target.
+ * <p>
+ * Also sets the <code>goodbyeDicTimeout</code> variable, used as ISO-8601 duration of the timer ending the wait for a
+ * missing response.
+ * <p>
+ * Only used by the dicProcess with multiple cos targets assembled in {@link TutorialProcessModels}, the deployed
+ * dicProcess sends helloCos to a single target.
+ */
+public class SelectCosTargets extends AbstractServiceDelegate
+{
+	private static final Logger logger = LoggerFactory.getLogger(SelectCosTargets.class);
+
+	public static final String BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_TIMEOUT = "goodbyeDicTimeout";
+
+	private final TargetCache targetCache;
+	private final List<String> cosOrganizationIdentifiers;
+	private final Duration responseTimeout;
+	private final DelegateMetrics metrics;
+
+	public SelectCosTargets(ProcessPluginApi api, TargetCache targetCache, List<String> cosOrganizationIdentifiers,
+			Duration responseTimeout, DelegateMetrics metrics)
+	{
+		super(api);
+
+		this.targetCache = targetCache;
+		this.cosOrganizationIdentifiers = cosOrganizationIdentifiers;
+		this.responseTimeout = responseTimeout;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(targetCache, "targetCache");
+		Objects.requireNonNull(cosOrganizationIdentifiers, "cosOrganizationIdentifiers");
+		Objects.requireNonNull(responseTimeout, "responseTimeout");
+		Objects.requireNonNull(metrics, "metrics");
+
+		if (cosOrganizationIdentifiers.isEmpty())
+			throw new IllegalArgumentException("cosOrganizationIdentifiers empty");
+		if (responseTimeout.isNegative() || responseTimeout.isZero())
+			throw new IllegalArgumentException("responseTimeout not positive");
+	}
+
+	@Override
+	protected void doExecute(DelegateExecution execution, Variables variables)
+	{
+		metrics.record(execution, variables, null, () -> setTargets(variables));
+	}
+
+	private void setTargets(Variables variables)
+	{
+		List<Target> targets = cosOrganizationIdentifiers.stream()
+				.map(identifier -> targetCache.getTarget(variables, identifier, UUID.randomUUID().toString()))
+				.toList();
+
+		logger.debug("Sending helloCos to {} target(s), waiting at most {} for goodbyeDic responses", targets.size(),
+				responseTimeout);
+
+		variables.setTargets(variables.createTargets(targets));
+		variables.setString(BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_TIMEOUT, responseTimeout.toString());
+	}
+}
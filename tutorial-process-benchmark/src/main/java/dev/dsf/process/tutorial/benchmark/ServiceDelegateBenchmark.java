@@ -0,0 +1,95 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.dsf.process.tutorial.service.CosTask;
+import dev.dsf.process.tutorial.service.DicTask;
+import dev.dsf.process.tutorial.service.HrpTask;
+import dev.dsf.process.tutorial.util.BinaryInputHelper;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.TargetCache;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class ServiceDelegateBenchmark
+{
+	@Param({ "send-response", "no-response" })
+	private String tutorialInput;
+
+	@Param({ "3", "100" })
+	private int inputCount;
+
+	private InMemoryVariables variables;
+	private DelegateExecution execution;
+
+	private DicTask dicTask;
+	private CosTask cosTask;
+	private HrpTask hrpTask;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		variables = new InMemoryVariables(BenchmarkFixtures.createStartTask(tutorialInput, inputCount));
+		execution = BenchmarkFixtures.createExecution("benchmark");
+
+		InMemoryProcessPluginApi api = new InMemoryProcessPluginApi(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER,
+				e -> variables);
+
+		TargetCache targetCache = new TargetCache(api, Duration.ofHours(1));
+		targetCache.afterPropertiesSet();
+
+		BinaryInputHelper binaryInputHelper = new BinaryInputHelper(api, 0);
+		binaryInputHelper.afterPropertiesSet();
+
+		// enabled like in the TutorialConfig, the recording is part of the measured time
+		DelegateMetrics metrics = new DelegateMetrics(true, null);
+
+		dicTask = new DicTask(api);
+		dicTask.afterPropertiesSet();
+		cosTask = new CosTask(api, targetCache, metrics);
+		cosTask.afterPropertiesSet();
+		hrpTask = new HrpTask(api, targetCache, binaryInputHelper, metrics);
+		hrpTask.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public Object dicTaskExecute() throws Exception
+	{
+		dicTask.execute(execution);
+		return variables;
+	}
+
+	@Benchmark
+	public Object cosTaskExecute() throws Exception
+	{
+		cosTask.execute(execution);
+		return variables.getTarget();
+	}
+
+	@Benchmark
+	public Object hrpTaskExecute() throws Exception
+	{
+		hrpTask.execute(execution);
+		return variables.getVariable("sendResponse");
+	}
+}
@@ -0,0 +1,54 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import java.util.Objects;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.activity.AbstractServiceDelegate;
+import dev.dsf.bpe.v1.constants.BpmnExecutionVariables;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+
+/**
+ * Marks the goodbyeDic response of one multi-instance subprocess as received. The variable name contains the
+ * subprocess' correlation key, parallel instances do not update the same variable.
+ *
+ * @see AggregateGoodbyeDicResponses
+ */
+public class StoreGoodbyeDicResponse extends AbstractServiceDelegate
+{
+	public static final String BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_RECEIVED_PREFIX = "goodbyeDicReceived_";
+
+	private final DelegateMetrics metrics;
+
+	public StoreGoodbyeDicResponse(ProcessPluginApi api, DelegateMetrics metrics)
+	{
+		super(api);
+
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(metrics, "metrics");
+	}
+
+	@Override
+	protected void doExecute(DelegateExecution execution, Variables variables)
+	{
+		metrics.record(execution, variables, null, () -> setReceived(execution, variables));
+	}
+
+	private void setReceived(DelegateExecution execution, Variables variables)
+	{
+		String correlationKey = (String) execution.getVariable(BpmnExecutionVariables.CORRELATION_KEY);
+		if (correlationKey == null)
+			throw new IllegalStateException("No correlation key, not executed within a multi-instance subprocess");
+
+		variables.setBoolean(BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_RECEIVED_PREFIX + correlationKey, true);
+	}
+}
@@ -0,0 +1,51 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_COS_ORGANIZATION_IDENTIFIER;
+
+import java.util.Objects;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.service.DicTask;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.TargetCache;
+
+/**
+ * Sets the cos organization as target for the helloCos message like the exercise 6 solution, the {@link DicTask} of
+ * the tutorial does not.
+ */
+class TargetingDicTask extends DicTask
+{
+	private final TargetCache targetCache;
+	private final DelegateMetrics metrics;
+
+	TargetingDicTask(ProcessPluginApi api, TargetCache targetCache, DelegateMetrics metrics)
+	{
+		super(api);
+
+		this.targetCache = targetCache;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(targetCache, "targetCache");
+		Objects.requireNonNull(metrics, "metrics");
+	}
+
+	@Override
+	protected void doExecute(DelegateExecution execution, Variables variables)
+	{
+		metrics.record(execution, variables, null, () ->
+		{
+			super.doExecute(execution, variables);
+
+			variables.setTarget(targetCache.getTarget(variables, TUTORIAL_COS_ORGANIZATION_IDENTIFIER));
+		});
+	}
+}
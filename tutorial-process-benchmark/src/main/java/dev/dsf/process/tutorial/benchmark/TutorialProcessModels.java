@@ -0,0 +1,456 @@
+package dev.dsf.process.tutorial.benchmark;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROCESS_NAME_FULL_COS;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROCESS_NAME_FULL_DIC;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROCESS_NAME_FULL_HRP;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_COS_AND_LATEST_VERSION;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_COS_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_COS_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_HRP_AND_LATEST_VERSION;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_HRP_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_HELLO_HRP_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.RESOURCE_VERSION;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.BoundaryEvent;
+import org.camunda.bpm.model.bpmn.instance.EndEvent;
+import org.camunda.bpm.model.bpmn.instance.ExtensionElements;
+import org.camunda.bpm.model.bpmn.instance.FlowNode;
+import org.camunda.bpm.model.bpmn.instance.IntermediateCatchEvent;
+import org.camunda.bpm.model.bpmn.instance.IntermediateThrowEvent;
+import org.camunda.bpm.model.bpmn.instance.Message;
+import org.camunda.bpm.model.bpmn.instance.MessageEventDefinition;
+import org.camunda.bpm.model.bpmn.instance.MultiInstanceLoopCharacteristics;
+import org.camunda.bpm.model.bpmn.instance.Process;
+import org.camunda.bpm.model.bpmn.instance.SequenceFlow;
+import org.camunda.bpm.model.bpmn.instance.ServiceTask;
+import org.camunda.bpm.model.bpmn.instance.StartEvent;
+import org.camunda.bpm.model.bpmn.instance.SubProcess;
+import org.camunda.bpm.model.bpmn.instance.Task;
+import org.camunda.bpm.model.bpmn.instance.ThrowEvent;
+import org.camunda.bpm.model.bpmn.instance.TimeDuration;
+import org.camunda.bpm.model.bpmn.instance.TimerEventDefinition;
+import org.camunda.bpm.model.bpmn.instance.bpmndi.BpmnDiagram;
+import org.camunda.bpm.model.bpmn.instance.camunda.CamundaField;
+import org.camunda.bpm.model.bpmn.instance.camunda.CamundaInputOutput;
+import org.camunda.bpm.model.bpmn.instance.camunda.CamundaInputParameter;
+import org.camunda.bpm.model.xml.instance.ModelElementInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.dsf.bpe.v1.constants.BpmnExecutionVariables;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.message.HelloCosMessage;
+import dev.dsf.process.tutorial.message.HelloHrpMessage;
+import dev.dsf.process.tutorial.service.CosTask;
+import dev.dsf.process.tutorial.service.DicTask;
+import dev.dsf.process.tutorial.service.HrpTask;
+
+/**
+ * Loads the process models of the tutorial-process for deployment into a Camunda engine outside of the DSF BPE.
+ * Placeholders <code>#{version}</code> are replaced like the DSF BPE does on deployment.
+ * <p>
+ * The models are exercise skeletons, parts without an implementation are completed like the exercise 6 solution,
+ * solved parts are deployed unchanged: missing process ids, delegate classes and messages of start events, the
+ * <code>Cos Task</code> as service task, the helloCos intermediate throw event followed by the goodbyeDic intermediate
+ * catch event in the dicProcess and the helloHrp message end event in the cosProcess. Diagram interchange elements are
+ * removed.
+ * <p>
+ * {@link #loadDicProcessWithMultipleResponses()} extends the dicProcess to send helloCos to multiple cos targets and to
+ * wait for their goodbyeDic responses in parallel, with a timeout for missing responses.
+ */
+public final class TutorialProcessModels
+{
+	private static final Logger logger = LoggerFactory.getLogger(TutorialProcessModels.class);
+
+	public static final String DIC_PROCESS_FILE = "bpe/dic-process.bpmn";
+	public static final String COS_PROCESS_FILE = "bpe/cos-process.bpmn";
+	public static final String HRP_PROCESS_FILE = "bpe/hrp-process.bpmn";
+
+	/**
+	 * Name of the bean providing the correlation keys of the <code>targets</code> variable, see
+	 * {@link #loadDicProcessWithMultipleResponses()}
+	 */
+	public static final String TARGET_CORRELATION_KEYS_BEAN = "targetCorrelationKeys";
+
+	private static final Map<String, Class<?>> SERVICE_TASK_CLASSES = Map.of("DicTask", DicTask.class, "CosTask",
+			CosTask.class, "HrpTask", HrpTask.class);
+
+	private TutorialProcessModels()
+	{
+	}
+
+	/**
+	 * @param asyncContinuations
+	 *            <code>true</code> to mark service tasks and throwing message events
+	 *            <code>camunda:asyncBefore</code>, executed by the job executor
+	 * @return completed dicProcess, cosProcess and hrpProcess models
+	 */
+	public static List<BpmnModelInstance> load(boolean asyncContinuations)
+	{
+		return load(asyncContinuations, false);
+	}
+
+	/**
+	 * @param asyncContinuations
+	 *            <code>true</code> to mark service tasks and throwing message events
+	 *            <code>camunda:asyncBefore</code>, executed by the job executor
+	 * @param multipleResponses
+	 *            <code>true</code> for the dicProcess of {@link #loadDicProcessWithMultipleResponses()}
+	 * @return completed dicProcess, cosProcess and hrpProcess models
+	 */
+	public static List<BpmnModelInstance> load(boolean asyncContinuations, boolean multipleResponses)
+	{
+		List<BpmnModelInstance> models = List.of(
+				multipleResponses ? loadDicProcessWithMultipleResponses() : loadDicProcess(), loadCosProcess(),
+				loadHrpProcess());
+
+		if (asyncContinuations)
+			models.forEach(TutorialProcessModels::setAsyncBefore);
+
+		return models;
+	}
+
+	public static BpmnModelInstance loadDicProcess()
+	{
+		BpmnModelInstance model = read(DIC_PROCESS_FILE);
+		Process process = getProcess(model, PROCESS_NAME_FULL_DIC);
+		completeStartEvent(model, process, PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME);
+		completeServiceTasks(model, process);
+
+		if (!isSending(process, HelloCosMessage.class))
+		{
+			FlowNode dicTask = model.getModelElementById("DicTask");
+			SequenceFlow toEnd = dicTask.getOutgoing().iterator().next();
+			FlowNode end = toEnd.getTarget();
+			removeFlow(process, toEnd);
+
+			IntermediateThrowEvent helloCos = model.newInstance(IntermediateThrowEvent.class);
+			helloCos.setId("sendHelloCos");
+			process.addChildElement(helloCos);
+			helloCos.addChildElement(createMessageEventDefinition(model,
+					getOrCreateMessage(model, PROFILE_TUTORIAL_TASK_HELLO_COS_MESSAGE_NAME), HelloCosMessage.class,
+					PROFILE_TUTORIAL_TASK_HELLO_COS_INSTANTIATES_CANONICAL,
+					PROFILE_TUTORIAL_TASK_HELLO_COS_MESSAGE_NAME, PROFILE_TUTORIAL_TASK_HELLO_COS_AND_LATEST_VERSION));
+
+			IntermediateCatchEvent goodbyeDic = model.newInstance(IntermediateCatchEvent.class);
+			goodbyeDic.setId("receiveGoodbyeDic");
+			process.addChildElement(goodbyeDic);
+			MessageEventDefinition goodbyeDicDefinition = model.newInstance(MessageEventDefinition.class);
+			goodbyeDicDefinition.setMessage(getOrCreateMessage(model, PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME));
+			goodbyeDic.addChildElement(goodbyeDicDefinition);
+
+			addFlow(model, process, dicTask, helloCos);
+			addFlow(model, process, helloCos, goodbyeDic);
+			addFlow(model, process, goodbyeDic, end);
+		}
+
+		return model;
+	}
+
+	/**
+	 * Completed dicProcess with {@link SelectCosTargets} instead of the <code>Dic Task</code> and the goodbyeDic
+	 * intermediate catch event replaced by a parallel multi-instance subprocess, one instance per target of the batch
+	 * sent helloCos message. Each instance waits for the goodbyeDic response with its correlation key, received
+	 * responses are marked by {@link StoreGoodbyeDicResponse}. An interrupting timer on the multi-instance body ends
+	 * the wait for missing responses after <code>goodbyeDicTimeout</code>, one timer job per process instance instead
+	 * of one per target. {@link AggregateGoodbyeDicResponses} counts the responses after all instances ended or the
+	 * timer fired.
+	 * <p>
+	 * The DSF BPE stores the <code>targets</code> variable as object, a DSF process model iterates over
+	 * <code>${targets.entries}</code> with <code>target</code> as element variable. Here targets are stored as JSON,
+	 * the collection is the list of correlation keys provided by the {@link #TARGET_CORRELATION_KEYS_BEAN}. The
+	 * correlation key is mapped to a local variable of the goodbyeDic catch event, the execution waiting for the
+	 * message. An event-based gateway per instance would wait in a child execution without the local variable.
+	 *
+	 * @return completed dicProcess model for multiple cos targets
+	 */
+	public static BpmnModelInstance loadDicProcessWithMultipleResponses()
+	{
+		BpmnModelInstance model = loadDicProcess();
+		Process process = getProcess(model, PROCESS_NAME_FULL_DIC);
+
+		ServiceTask dicTask = model.getModelElementById("DicTask");
+		dicTask.setCamundaClass(SelectCosTargets.class.getName());
+
+		IntermediateCatchEvent receive = process.getChildElementsByType(IntermediateCatchEvent.class).stream()
+				.filter(e -> e.getEventDefinitions().stream().filter(MessageEventDefinition.class::isInstance)
+						.map(MessageEventDefinition.class::cast).anyMatch(d -> d.getMessage() != null
+								&& PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME.equals(d.getMessage().getName())))
+				.findFirst().orElseThrow(() -> new IllegalStateException(
+						DIC_PROCESS_FILE + " has no goodbyeDic intermediate catch event"));
+
+		SequenceFlow toReceive = receive.getIncoming().iterator().next();
+		SequenceFlow fromReceive = receive.getOutgoing().iterator().next();
+		FlowNode beforeReceive = toReceive.getSource();
+		FlowNode afterReceive = fromReceive.getTarget();
+		removeFlow(process, toReceive);
+		removeFlow(process, fromReceive);
+		process.removeChildElement(receive);
+
+		SubProcess subProcess = model.newInstance(SubProcess.class);
+		subProcess.setId("waitForGoodbyeDic");
+		process.addChildElement(subProcess);
+
+		MultiInstanceLoopCharacteristics loop = model.newInstance(MultiInstanceLoopCharacteristics.class);
+		loop.setSequential(false);
+		loop.setCamundaCollection("${" + TARGET_CORRELATION_KEYS_BEAN + ".of(execution)}");
+		loop.setCamundaElementVariable(BpmnExecutionVariables.CORRELATION_KEY);
+		subProcess.setLoopCharacteristics(loop);
+
+		StartEvent start = add(model, subProcess, StartEvent.class, "startWaitForGoodbyeDic");
+
+		// the catch event waits in its own scope execution, the correlation key is mapped to a local variable of it
+		IntermediateCatchEvent goodbyeDic = add(model, subProcess, IntermediateCatchEvent.class, "receiveGoodbyeDic");
+		ExtensionElements extensionElements = model.newInstance(ExtensionElements.class);
+		goodbyeDic.setExtensionElements(extensionElements);
+		CamundaInputOutput inputOutput = extensionElements.addExtensionElement(CamundaInputOutput.class);
+		CamundaInputParameter correlationKey = model.newInstance(CamundaInputParameter.class);
+		correlationKey.setCamundaName(BpmnExecutionVariables.CORRELATION_KEY);
+		correlationKey.setTextContent("${" + BpmnExecutionVariables.CORRELATION_KEY + "}");
+		inputOutput.addChildElement(correlationKey);
+
+		MessageEventDefinition goodbyeDicDefinition = model.newInstance(MessageEventDefinition.class);
+		goodbyeDicDefinition.setMessage(getOrCreateMessage(model, PROFILE_TUTORIAL_TASK_GOODBYE_DIC_MESSAGE_NAME));
+		goodbyeDic.addChildElement(goodbyeDicDefinition);
+
+		ServiceTask store = add(model, subProcess, ServiceTask.class, "storeGoodbyeDicResponse");
+		store.setCamundaClass(StoreGoodbyeDicResponse.class.getName());
+		EndEvent received = add(model, subProcess, EndEvent.class, "goodbyeDicReceived");
+
+		addFlow(model, subProcess, start, goodbyeDic);
+		addFlow(model, subProcess, goodbyeDic, store);
+		addFlow(model, subProcess, store, received);
+
+		// one timer for all instances, attached to the multi-instance body
+		BoundaryEvent timeout = add(model, process, BoundaryEvent.class, "goodbyeDicTimeout");
+		timeout.setAttachedTo(subProcess);
+		timeout.setCancelActivity(true);
+		TimerEventDefinition timer = model.newInstance(TimerEventDefinition.class);
+		TimeDuration duration = model.newInstance(TimeDuration.class);
+		duration.setTextContent("${" + SelectCosTargets.BPMN_EXECUTION_VARIABLE_GOODBYE_DIC_TIMEOUT + "}");
+		timer.setTimeDuration(duration);
+		timeout.addChildElement(timer);
+
+		ServiceTask aggregate = add(model, process, ServiceTask.class, "aggregateGoodbyeDicResponses");
+		aggregate.setCamundaClass(AggregateGoodbyeDicResponses.class.getName());
+
+		addFlow(model, process, beforeReceive, subProcess);
+		addFlow(model, process, subProcess, aggregate);
+		addFlow(model, process, timeout, aggregate);
+		addFlow(model, process, aggregate, afterReceive);
+
+		return model;
+	}
+
+	public static BpmnModelInstance loadCosProcess()
+	{
+		BpmnModelInstance model = read(COS_PROCESS_FILE);
+		Process process = getProcess(model, PROCESS_NAME_FULL_COS);
+		completeStartEvent(model, process, PROFILE_TUTORIAL_TASK_HELLO_COS_MESSAGE_NAME);
+		completeServiceTasks(model, process);
+
+		if (!isSending(process, HelloHrpMessage.class))
+		{
+			EndEvent end = process.getChildElementsByType(EndEvent.class).stream()
+					.filter(e -> e.getEventDefinitions().isEmpty()).findFirst()
+					.orElseThrow(() -> new IllegalStateException(COS_PROCESS_FILE + " has no plain end event"));
+
+			end.addChildElement(createMessageEventDefinition(model,
+					getOrCreateMessage(model, PROFILE_TUTORIAL_TASK_HELLO_HRP_MESSAGE_NAME), HelloHrpMessage.class,
+					PROFILE_TUTORIAL_TASK_HELLO_HRP_INSTANTIATES_CANONICAL,
+					PROFILE_TUTORIAL_TASK_HELLO_HRP_MESSAGE_NAME, PROFILE_TUTORIAL_TASK_HELLO_HRP_AND_LATEST_VERSION));
+		}
+
+		return model;
+	}
+
+	public static BpmnModelInstance loadHrpProcess()
+	{
+		BpmnModelInstance model = read(HRP_PROCESS_FILE);
+		Process process = getProcess(model, PROCESS_NAME_FULL_HRP);
+		completeStartEvent(model, process, PROFILE_TUTORIAL_TASK_HELLO_HRP_MESSAGE_NAME);
+		completeServiceTasks(model, process);
+
+		return model;
+	}
+
+	private static BpmnModelInstance read(String file)
+	{
+		try (InputStream in = TutorialProcessModels.class.getClassLoader().getResourceAsStream(file))
+		{
+			if (in == null)
+				throw new IllegalStateException("Process model " + file + " not found on classpath");
+
+			String xml = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("#{version}", RESOURCE_VERSION);
+			BpmnModelInstance model = Bpmn
+					.readModelFromStream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+			for (BpmnDiagram diagram : new ArrayList<>(model.getDefinitions().getBpmDiagrams()))
+				model.getDefinitions().removeChildElement(diagram);
+
+			return model;
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while reading process model " + file, e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static Process getProcess(BpmnModelInstance model, String processId)
+	{
+		Collection<Process> processes = model.getModelElementsByType(Process.class);
+		if (processes.size() != 1)
+			throw new IllegalStateException("Expected one process, found " + processes.size());
+
+		Process process = processes.iterator().next();
+		if (!processId.equals(process.getId()))
+		{
+			logger.debug("Setting id of process '{}' to '{}'", process.getId(), processId);
+			process.setId(processId);
+		}
+		if (process.getCamundaVersionTag() == null)
+			process.setCamundaVersionTag(RESOURCE_VERSION);
+
+		return process;
+	}
+
+	private static void completeStartEvent(BpmnModelInstance model, Process process, String messageName)
+	{
+		process.getChildElementsByType(StartEvent.class).stream().flatMap(s -> s.getEventDefinitions().stream())
+				.filter(MessageEventDefinition.class::isInstance).map(MessageEventDefinition.class::cast)
+				.filter(d -> d.getMessage() == null)
+				.forEach(d -> d.setMessage(getOrCreateMessage(model, messageName)));
+	}
+
+	private static void completeServiceTasks(BpmnModelInstance model, Process process)
+	{
+		// plain tasks of the skeleton, e.g. the Cos Task, replaced by service tasks with the same id and flows
+		for (Task task : new ArrayList<>(process.getChildElementsByType(Task.class)))
+		{
+			if (!task.getElementType().getTypeName().equals("task") || !SERVICE_TASK_CLASSES.containsKey(task.getId()))
+				continue;
+
+			String id = task.getId();
+			task.setId(id + "_skeleton");
+
+			ServiceTask serviceTask = model.newInstance(ServiceTask.class);
+			serviceTask.setId(id);
+			serviceTask.setName(task.getName());
+			process.addChildElement(serviceTask);
+
+			for (SequenceFlow flow : new ArrayList<>(task.getIncoming()))
+			{
+				flow.setTarget(serviceTask);
+				serviceTask.getIncoming().add(flow);
+			}
+			for (SequenceFlow flow : new ArrayList<>(task.getOutgoing()))
+			{
+				flow.setSource(serviceTask);
+				serviceTask.getOutgoing().add(flow);
+			}
+
+			process.removeChildElement(task);
+		}
+
+		for (ServiceTask serviceTask : process.getChildElementsByType(ServiceTask.class))
+		{
+			Class<?> delegate = SERVICE_TASK_CLASSES.get(serviceTask.getId());
+			if (delegate != null && serviceTask.getCamundaClass() == null
+					&& serviceTask.getCamundaDelegateExpression() == null && serviceTask.getCamundaExpression() == null)
+				serviceTask.setCamundaClass(delegate.getName());
+		}
+	}
+
+	private static boolean isSending(Process process, Class<?> messageDelegate)
+	{
+		return process.getChildElementsByType(ThrowEvent.class).stream().flatMap(e -> e.getEventDefinitions().stream())
+				.filter(MessageEventDefinition.class::isInstance).map(MessageEventDefinition.class::cast)
+				.anyMatch(d -> messageDelegate.getName().equals(d.getCamundaClass()));
+	}
+
+	private static Message getOrCreateMessage(BpmnModelInstance model, String name)
+	{
+		return model.getModelElementsByType(Message.class).stream().filter(m -> name.equals(m.getName())).findFirst()
+				.orElseGet(() ->
+				{
+					Message message = model.newInstance(Message.class);
+					message.setId("Message_" + name);
+					message.setName(name);
+					model.getDefinitions().addChildElement(message);
+					return message;
+				});
+	}
+
+	private static MessageEventDefinition createMessageEventDefinition(BpmnModelInstance model, Message message,
+			Class<?> delegate, String instantiatesCanonical, String messageName, String profile)
+	{
+		MessageEventDefinition definition = model.newInstance(MessageEventDefinition.class);
+		definition.setMessage(message);
+		definition.setCamundaClass(delegate.getName());
+
+		ExtensionElements extensionElements = model.newInstance(ExtensionElements.class);
+		definition.setExtensionElements(extensionElements);
+		addField(extensionElements, "instantiatesCanonical", instantiatesCanonical);
+		addField(extensionElements, "messageName", messageName);
+		addField(extensionElements, "profile", profile);
+
+		return definition;
+	}
+
+	private static void addField(ExtensionElements extensionElements, String name, String value)
+	{
+		CamundaField field = extensionElements.addExtensionElement(CamundaField.class);
+		field.setCamundaName(name);
+		field.setCamundaStringValue(value);
+	}
+
+	private static void removeFlow(ModelElementInstance scope, SequenceFlow flow)
+	{
+		flow.getSource().getOutgoing().remove(flow);
+		flow.getTarget().getIncoming().remove(flow);
+		scope.removeChildElement(flow);
+	}
+
+	private static <T extends FlowNode> T add(BpmnModelInstance model, ModelElementInstance scope, Class<T> type,
+			String id)
+	{
+		T node = model.newInstance(type);
+		node.setId(id);
+		scope.addChildElement(node);
+		return node;
+	}
+
+	private static void addFlow(BpmnModelInstance model, ModelElementInstance scope, FlowNode source,
+			FlowNode target)
+	{
+		SequenceFlow flow = model.newInstance(SequenceFlow.class);
+		flow.setId("Flow_" + source.getId() + "_" + target.getId());
+		scope.addChildElement(flow);
+		flow.setSource(source);
+		flow.setTarget(target);
+		source.getOutgoing().add(flow);
+		target.getIncoming().add(flow);
+	}
+
+	private static void setAsyncBefore(BpmnModelInstance model)
+	{
+		model.getModelElementsByType(ServiceTask.class).forEach(t -> t.setCamundaAsyncBefore(true));
+		model.getModelElementsByType(ThrowEvent.class).stream()
+				.filter(e -> e.getEventDefinitions().stream().anyMatch(MessageEventDefinition.class::isInstance))
+				.forEach(e -> e.setCamundaAsyncBefore(true));
+	}
+}
@@ -0,0 +1,37 @@
+package dev.dsf.process.tutorial.load;
+
+import java.util.Random;
+
+/**
+ * Open model arrival process, intervals do not depend on response times of previous requests.
+ */
+public interface ArrivalProcess
+{
+	/**
+	 * @return nanoseconds until the next arrival
+	 */
+	long nextIntervalNanos();
+
+	/**
+	 * @param ratePerSecond
+	 *            &gt; 0
+	 */
+	static ArrivalProcess constant(double ratePerSecond)
+	{
+		long interval = Math.max(1, Math.round(1_000_000_000d / ratePerSecond));
+		return () -> interval;
+	}
+
+	/**
+	 * @param ratePerSecond
+	 *            &gt; 0
+	 * @param random
+	 *            not <code>null</code>, only used by the calling thread
+	 * @return exponentially distributed intervals with mean <code>1 / ratePerSecond</code>
+	 */
+	static ArrivalProcess poisson(double ratePerSecond, Random random)
+	{
+		double meanNanos = 1_000_000_000d / ratePerSecond;
+		return () -> Math.max(1, Math.round(-Math.log(1d - random.nextDouble()) * meanNanos));
+	}
+}
@@ -0,0 +1,136 @@
+package dev.dsf.process.tutorial.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks started process instances by the id of their start Task and records the latency once the BPE marks the start
+ * Task completed, i.e. once the dicProcess ended. This includes the cos and hrp processes only if the dicProcess waits
+ * for their goodbyeDic response. Latencies are measured from the intended start time, not from the time the Task was
+ * actually sent, to avoid coordinated omission.
+ */
+public class CompletionTracker
+{
+	private static final Logger logger = LoggerFactory.getLogger(CompletionTracker.class);
+
+	private static final int IDS_PER_SEARCH = 50;
+
+	private final FhirLoadClient client;
+	private final Recorder endToEndMicros;
+	private final long completionTimeoutNanos;
+
+	private final Map<String, Long> intendedStartNanosByTaskId = new ConcurrentHashMap<>();
+	private final AtomicBoolean pollRunning = new AtomicBoolean();
+
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+
+	/**
+	 * @param client
+	 *            not <code>null</code>
+	 * @param endToEndMicros
+	 *            not <code>null</code>
+	 * @param completionTimeoutNanos
+	 *            &gt; 0
+	 */
+	public CompletionTracker(FhirLoadClient client, Recorder endToEndMicros, long completionTimeoutNanos)
+	{
+		this.client = client;
+		this.endToEndMicros = endToEndMicros;
+		this.completionTimeoutNanos = completionTimeoutNanos;
+	}
+
+	public void track(String taskId, long intendedStartNanos)
+	{
+		intendedStartNanosByTaskId.put(taskId, intendedStartNanos);
+	}
+
+	public int getPending()
+	{
+		return intendedStartNanosByTaskId.size();
+	}
+
+	public long getCompleted()
+	{
+		return completed.sum();
+	}
+
+	public long getFailed()
+	{
+		return failed.sum();
+	}
+
+	public long getTimedOut()
+	{
+		return timedOut.sum();
+	}
+
+	/**
+	 * Searches the status of all pending Tasks, skipped if the previous poll is still running.
+	 */
+	public void poll()
+	{
+		if (!pollRunning.compareAndSet(false, true))
+			return;
+
+		long now = System.nanoTime();
+		List<String> ids = new ArrayList<>();
+		intendedStartNanosByTaskId.forEach((id, start) ->
+		{
+			if (now - start > completionTimeoutNanos)
+			{
+				if (intendedStartNanosByTaskId.remove(id) != null)
+					timedOut.increment();
+			}
+			else
+				ids.add(id);
+		});
+
+		List<CompletableFuture<Void>> searches = new ArrayList<>();
+		for (int i = 0; i < ids.size(); i += IDS_PER_SEARCH)
+		{
+			List<String> chunk = ids.subList(i, Math.min(i + IDS_PER_SEARCH, ids.size()));
+			searches.add(client.readTaskStatus(chunk).thenAccept(this::handleStatus).exceptionally(e ->
+			{
+				logger.warn("Error while searching Task status: {}", e.getMessage());
+				return null;
+			}));
+		}
+
+		CompletableFuture.allOf(searches.toArray(CompletableFuture[]::new))
+				.whenComplete((v, e) -> pollRunning.set(false));
+	}
+
+	private void handleStatus(Map<String, String> statusById)
+	{
+		long now = System.nanoTime();
+
+		statusById.forEach((id, status) ->
+		{
+			if ("completed".equals(status))
+			{
+				Long start = intendedStartNanosByTaskId.remove(id);
+				if (start != null)
+				{
+					endToEndMicros.recordValue((now - start) / 1_000);
+					completed.increment();
+				}
+			}
+			else if ("failed".equals(status))
+			{
+				if (intendedStartNanosByTaskId.remove(id) != null)
+					failed.increment();
+			}
+		});
+	}
+}
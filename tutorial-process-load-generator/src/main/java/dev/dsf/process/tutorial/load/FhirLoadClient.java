@@ -0,0 +1,184 @@
+package dev.dsf.process.tutorial.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+
+/**
+ * Asynchronous FHIR client for the load generator, creates Tasks and reads the status of many Tasks with one search
+ * request. Based on the JDK {@link HttpClient}, requests do not block the calling thread.
+ */
+public class FhirLoadClient
+{
+	private static final Logger logger = LoggerFactory.getLogger(FhirLoadClient.class);
+
+	private static final String MEDIA_TYPE = "application/fhir+json";
+
+	private final FhirContext fhirContext;
+	private final String baseUrl;
+	private final HttpClient httpClient;
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param baseUrl
+	 *            not <code>null</code>, without trailing slash
+	 * @param sslContext
+	 *            may be <code>null</code> for plain http or the JVM default
+	 * @param executor
+	 *            not <code>null</code>, executes response handlers
+	 */
+	public FhirLoadClient(FhirContext fhirContext, String baseUrl, SSLContext sslContext, Executor executor)
+	{
+		this.fhirContext = fhirContext;
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+
+		HttpClient.Builder builder = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(10))
+				.version(baseUrl.startsWith("https") ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
+		if (sslContext != null)
+			builder.sslContext(sslContext);
+
+		httpClient = builder.build();
+	}
+
+	/**
+	 * @param keyStore
+	 *            PKCS#12 file with client certificate and private key, may be <code>null</code>
+	 * @param keyStorePassword
+	 *            not <code>null</code> if keyStore not <code>null</code>
+	 * @param trustStore
+	 *            PEM file with trusted CA certificates, may be <code>null</code>
+	 * @return <code>null</code> if keyStore and trustStore are <code>null</code>
+	 */
+	public static SSLContext createSslContext(Path keyStore, char[] keyStorePassword, Path trustStore)
+	{
+		if (keyStore == null && trustStore == null)
+			return null;
+
+		try
+		{
+			KeyManagerFactory kmf = null;
+			if (keyStore != null)
+			{
+				KeyStore store = KeyStore.getInstance("PKCS12");
+				try (InputStream in = Files.newInputStream(keyStore))
+				{
+					store.load(in, keyStorePassword);
+				}
+
+				kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+				kmf.init(store, keyStorePassword);
+			}
+
+			TrustManagerFactory tmf = null;
+			if (trustStore != null)
+			{
+				KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
+				store.load(null, null);
+
+				try (InputStream in = Files.newInputStream(trustStore))
+				{
+					int i = 0;
+					for (Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(in))
+						store.setCertificateEntry("ca-" + i++, certificate);
+				}
+
+				tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+				tmf.init(store);
+			}
+
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(kmf == null ? null : kmf.getKeyManagers(), tmf == null ? null : tmf.getTrustManagers(),
+					null);
+			return sslContext;
+		}
+		catch (IOException | GeneralSecurityException e)
+		{
+			logger.error("Error while creating SSL context", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	public String getBaseUrl()
+	{
+		return baseUrl;
+	}
+
+	/**
+	 * @param body
+	 *            not <code>null</code>, JSON encoded Task
+	 * @return id part of the created Task
+	 */
+	public CompletableFuture<String> createTask(byte[] body)
+	{
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/Task"))
+				.header("Content-Type", MEDIA_TYPE).header("Accept", MEDIA_TYPE).header("Prefer", "return=minimal")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(response ->
+		{
+			if (response.statusCode() != 201)
+				throw new IllegalStateException("Task create returned status " + response.statusCode());
+
+			return response.headers().firstValue("Location").map(l -> new IdType(l).getIdPart())
+					.orElseThrow(() -> new IllegalStateException("Task create response without Location header"));
+		});
+	}
+
+	/**
+	 * @param ids
+	 *            not <code>null</code>, Task id parts
+	 * @return Task status codes by id part, Tasks not found are missing from the result
+	 */
+	public CompletableFuture<Map<String, String>> readTaskStatus(Collection<String> ids)
+	{
+		URI uri = URI.create(baseUrl + "/Task?_id=" + String.join(",", ids) + "&_elements=status&_count="
+				+ ids.size());
+		HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", MEDIA_TYPE).GET().build();
+
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response ->
+		{
+			if (response.statusCode() != 200)
+				throw new IllegalStateException("Task search returned status " + response.statusCode());
+
+			Bundle bundle = fhirContext.newJsonParser().parseResource(Bundle.class, response.body());
+
+			Map<String, String> statusById = new HashMap<>();
+			for (BundleEntryComponent entry : bundle.getEntry())
+			{
+				if (entry.getResource() instanceof Task t && t.hasStatus())
+					statusById.put(t.getIdElement().getIdPart(), t.getStatus().toCode());
+			}
+
+			return statusById;
+		});
+	}
+}
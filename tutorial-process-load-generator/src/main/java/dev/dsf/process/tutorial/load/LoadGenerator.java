@@ -0,0 +1,162 @@
+package dev.dsf.process.tutorial.load;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.net.ssl.SSLContext;
+
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.process.tutorial.benchmark.InMemoryFederation;
+
+/**
+ * Starts dicProcess instances by posting <code>task-start-dic-process</code> Tasks to the DIC FHIR server at a target
+ * rate. Arrivals follow an open model, a slow server does not reduce the send rate. Latency is measured from the
+ * intended start until the BPE marks the start Task completed, i.e. until the dicProcess ended. The dicProcess of the
+ * exercises ends after its DicTask, the latency covers the cos and hrp processes only if the deployed dicProcess waits
+ * for the goodbyeDic message, as in the solution of exercise 6 and above.
+ * <p>
+ * Arguments: <code>--name=value</code> pairs, see {@link LoadGeneratorConfig}. Use <code>--mock=true</code> to run
+ * against an in-process {@link InMemoryFederation} of the benchmark module, its dicProcess sends helloCos, the
+ * cosProcess helloHrp and the hrpProcess goodbyeDic, the dicProcess ends after receiving the goodbyeDic message.
+ */
+public class LoadGenerator
+{
+	private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+	private final LoadGeneratorConfig config;
+	private final FhirContext fhirContext;
+
+	public LoadGenerator(LoadGeneratorConfig config, FhirContext fhirContext)
+	{
+		this.config = config;
+		this.fhirContext = fhirContext;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		LoadGeneratorConfig config = LoadGeneratorConfig.fromArgs(args);
+		LoadResult result = new LoadGenerator(config, FhirContext.forR4()).run();
+
+		result.print(System.out);
+
+		if (config.getHistogram() != null)
+		{
+			result.writeEndToEndHistogram(config.getHistogram());
+			logger.info("End-to-end latency distribution written to {}", config.getHistogram().toString());
+		}
+	}
+
+	public LoadResult run() throws InterruptedException
+	{
+		int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+		try (InMemoryFederation mock = config.isMock() ? new InMemoryFederation(threads, 0).start() : null)
+		{
+			String baseUrl = mock != null ? mock.getBaseUrl(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER)
+					: config.getBaseUrl();
+			SSLContext sslContext = mock != null ? null
+					: FhirLoadClient.createSslContext(config.getKeyStore(), config.getKeyStorePassword(),
+							config.getTrustStore());
+
+			ExecutorService httpExecutor = Executors.newFixedThreadPool(threads);
+			ScheduledExecutorService pollExecutor = Executors.newSingleThreadScheduledExecutor();
+			try
+			{
+				return run(new FhirLoadClient(fhirContext, baseUrl, sslContext, httpExecutor), pollExecutor);
+			}
+			finally
+			{
+				pollExecutor.shutdownNow();
+				httpExecutor.shutdownNow();
+			}
+		}
+	}
+
+	private LoadResult run(FhirLoadClient client, ScheduledExecutorService pollExecutor) throws InterruptedException
+	{
+		byte[] body = new StartTaskFactory(fhirContext, config.getTutorialInput()).createBody();
+
+		Recorder createLatency = new Recorder(3);
+		Recorder endToEndLatency = new Recorder(3);
+		CompletionTracker tracker = new CompletionTracker(client, endToEndLatency,
+				config.getCompletionTimeout().toNanos());
+
+		long pollIntervalNanos = config.getPollInterval().toNanos();
+		pollExecutor.scheduleWithFixedDelay(tracker::poll, pollIntervalNanos, pollIntervalNanos, TimeUnit.NANOSECONDS);
+
+		ArrivalProcess arrivals = switch (config.getArrival())
+		{
+			case CONSTANT -> ArrivalProcess.constant(config.getRate());
+			case POISSON -> ArrivalProcess.poisson(config.getRate(), new Random(config.getSeed()));
+		};
+
+		AtomicInteger creating = new AtomicInteger();
+		LongAdder createErrors = new LongAdder();
+		long started = 0, dropped = 0;
+
+		logger.info("Starting dicProcess instances at {}/s ({} arrivals) for {} against {}", config.getRate(),
+				config.getArrival(), config.getDuration(), client.getBaseUrl());
+
+		final long start = System.nanoTime();
+		final long end = start + config.getDuration().toNanos();
+
+		for (long intended = start + arrivals.nextIntervalNanos(); intended < end; intended += arrivals
+				.nextIntervalNanos())
+		{
+			long wait;
+			while ((wait = intended - System.nanoTime()) > 0)
+				LockSupport.parkNanos(wait);
+
+			if (creating.get() + tracker.getPending() >= config.getMaxInFlight())
+			{
+				dropped++;
+				continue;
+			}
+
+			started++;
+			creating.incrementAndGet();
+
+			final long intendedStart = intended;
+			client.createTask(body).whenComplete((taskId, error) ->
+			{
+				if (error != null)
+				{
+					createErrors.increment();
+					logger.debug("Error while creating start Task: {}", error.getMessage());
+				}
+				else
+				{
+					createLatency.recordValue((System.nanoTime() - intendedStart) / 1_000);
+					tracker.track(taskId, intendedStart);
+				}
+
+				creating.decrementAndGet();
+			});
+		}
+
+		Duration loadDuration = Duration.ofNanos(System.nanoTime() - start);
+		logger.info("{} instance(s) started, {} dropped, waiting for completion", started, dropped);
+
+		long drainEnd = System.nanoTime() + config.getCompletionTimeout().toNanos();
+		while ((creating.get() > 0 || tracker.getPending() > 0) && System.nanoTime() < drainEnd)
+			Thread.sleep(config.getPollInterval().toMillis() + 1);
+
+		return new LoadResult(config.getRate(), loadDuration, started, dropped, createErrors.sum(),
+				tracker.getCompleted(), tracker.getFailed(), tracker.getTimedOut() + tracker.getPending(),
+				createLatency.getIntervalHistogram(), endToEndLatency.getIntervalHistogram());
+	}
+}
@@ -0,0 +1,188 @@
+package dev.dsf.process.tutorial.load;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of a {@link LoadGenerator} run, parsed from <code>--name=value</code> arguments.
+ */
+public final class LoadGeneratorConfig
+{
+	public enum Arrival
+	{
+		CONSTANT, POISSON
+	}
+
+	private static final Set<String> NAMES = Set.of("base-url", "rate", "arrival", "duration", "max-in-flight",
+			"completion-timeout", "poll-interval", "key-store", "key-store-password", "trust-store", "mock",
+			"histogram", "tutorial-input", "seed");
+
+	private final String baseUrl;
+	private final double rate;
+	private final Arrival arrival;
+	private final Duration duration;
+	private final int maxInFlight;
+	private final Duration completionTimeout;
+	private final Duration pollInterval;
+	private final Path keyStore;
+	private final char[] keyStorePassword;
+	private final Path trustStore;
+	private final boolean mock;
+	private final Path histogram;
+	private final String tutorialInput;
+	private final long seed;
+
+	private LoadGeneratorConfig(Map<String, String> values)
+	{
+		baseUrl = values.getOrDefault("base-url", "https://dic/fhir");
+		rate = Double.parseDouble(values.getOrDefault("rate", "10"));
+		arrival = Arrival.valueOf(values.getOrDefault("arrival", Arrival.POISSON.name()));
+		duration = Duration.parse(values.getOrDefault("duration", "PT60S"));
+		maxInFlight = Integer.parseInt(values.getOrDefault("max-in-flight", "1000"));
+		completionTimeout = Duration.parse(values.getOrDefault("completion-timeout", "PT5M"));
+		pollInterval = Duration.parse(values.getOrDefault("poll-interval", "PT0.1S"));
+		keyStore = path(values.get("key-store"));
+		keyStorePassword = values.getOrDefault("key-store-password", "password").toCharArray();
+		trustStore = path(values.get("trust-store"));
+		mock = Boolean.parseBoolean(values.getOrDefault("mock", "false"));
+		histogram = path(values.get("histogram"));
+		// dicProcess instances of the in-process federation only end after the goodbyeDic response
+		tutorialInput = blankToNull(values.getOrDefault("tutorial-input", mock ? "send-response" : null));
+		seed = Long.parseLong(values.getOrDefault("seed", String.valueOf(System.nanoTime())));
+
+		if (rate <= 0)
+			throw new IllegalArgumentException("rate <= 0");
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("max-in-flight < 1");
+		if (duration.isNegative() || duration.isZero())
+			throw new IllegalArgumentException("duration not positive");
+		if (pollInterval.isNegative() || pollInterval.isZero())
+			throw new IllegalArgumentException("poll-interval not positive");
+	}
+
+	private static String blankToNull(String value)
+	{
+		return value == null || value.isBlank() ? null : value;
+	}
+
+	private static Path path(String value)
+	{
+		return blankToNull(value) == null ? null : Paths.get(value);
+	}
+
+	/**
+	 * @param args
+	 *            <code>--name=value</code> pairs, unknown names are rejected
+	 */
+	public static LoadGeneratorConfig fromArgs(String... args)
+	{
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args)
+		{
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0)
+				throw new IllegalArgumentException("Argument '" + arg + "' not in --name=value format");
+
+			String name = arg.substring(2, separator);
+			if (!NAMES.contains(name))
+				throw new IllegalArgumentException("Unknown argument '" + name + "', expected one of " + NAMES);
+
+			values.put(name, arg.substring(separator + 1));
+		}
+
+		return new LoadGeneratorConfig(values);
+	}
+
+	public String getBaseUrl()
+	{
+		return baseUrl;
+	}
+
+	/**
+	 * @return target arrival rate in process starts per second
+	 */
+	public double getRate()
+	{
+		return rate;
+	}
+
+	public Arrival getArrival()
+	{
+		return arrival;
+	}
+
+	public Duration getDuration()
+	{
+		return duration;
+	}
+
+	public int getMaxInFlight()
+	{
+		return maxInFlight;
+	}
+
+	public Duration getCompletionTimeout()
+	{
+		return completionTimeout;
+	}
+
+	public Duration getPollInterval()
+	{
+		return pollInterval;
+	}
+
+	/**
+	 * @return PKCS#12 client certificate, <code>null</code> if not configured
+	 */
+	public Path getKeyStore()
+	{
+		return keyStore;
+	}
+
+	public char[] getKeyStorePassword()
+	{
+		return keyStorePassword;
+	}
+
+	/**
+	 * @return PEM encoded CA certificates, <code>null</code> to use the JVM default trust store
+	 */
+	public Path getTrustStore()
+	{
+		return trustStore;
+	}
+
+	/**
+	 * @return <code>true</code> to run against an in-process federation instead of the configured base URL
+	 */
+	public boolean isMock()
+	{
+		return mock;
+	}
+
+	/**
+	 * @return HdrHistogram percentile output file, <code>null</code> if not configured
+	 */
+	public Path getHistogram()
+	{
+		return histogram;
+	}
+
+	/**
+	 * @return value of the optional tutorial-input parameter, <code>null</code> if not configured,
+	 *         <code>send-response</code> by default if {@link #isMock()}
+	 */
+	public String getTutorialInput()
+	{
+		return tutorialInput;
+	}
+
+	public long getSeed()
+	{
+		return seed;
+	}
+}
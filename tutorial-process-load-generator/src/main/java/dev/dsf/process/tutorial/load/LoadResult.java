@@ -0,0 +1,143 @@
+package dev.dsf.process.tutorial.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Counters and latency histograms of a {@link LoadGenerator} run, histogram values in microseconds.
+ */
+public class LoadResult
+{
+	private static final double MICROS_PER_MILLI = 1_000d;
+
+	private final double targetRate;
+	private final Duration duration;
+	private final long started;
+	private final long dropped;
+	private final long createErrors;
+	private final long completed;
+	private final long failed;
+	private final long timedOut;
+	private final Histogram createLatency;
+	private final Histogram endToEndLatency;
+
+	public LoadResult(double targetRate, Duration duration, long started, long dropped, long createErrors,
+			long completed, long failed, long timedOut, Histogram createLatency, Histogram endToEndLatency)
+	{
+		this.targetRate = targetRate;
+		this.duration = duration;
+		this.started = started;
+		this.dropped = dropped;
+		this.createErrors = createErrors;
+		this.completed = completed;
+		this.failed = failed;
+		this.timedOut = timedOut;
+		this.createLatency = createLatency;
+		this.endToEndLatency = endToEndLatency;
+	}
+
+	/**
+	 * @return Task creates sent, including creates that failed
+	 */
+	public long getStarted()
+	{
+		return started;
+	}
+
+	/**
+	 * @return arrivals not sent because the maximum number of process instances was in flight
+	 */
+	public long getDropped()
+	{
+		return dropped;
+	}
+
+	public long getCreateErrors()
+	{
+		return createErrors;
+	}
+
+	public long getCompleted()
+	{
+		return completed;
+	}
+
+	public long getFailed()
+	{
+		return failed;
+	}
+
+	public long getTimedOut()
+	{
+		return timedOut;
+	}
+
+	/**
+	 * @return completed process instances per second of load duration
+	 */
+	public double getThroughput()
+	{
+		return duration.isZero() ? 0 : completed / (duration.toNanos() / 1_000_000_000d);
+	}
+
+	public Histogram getCreateLatency()
+	{
+		return createLatency;
+	}
+
+	/**
+	 * @return latency from the intended start until the start Task was marked completed, see {@link CompletionTracker}
+	 */
+	public Histogram getEndToEndLatency()
+	{
+		return endToEndLatency;
+	}
+
+	public void print(PrintStream out)
+	{
+		out.printf("target rate: %.2f/s, duration: %s, achieved throughput: %.2f/s%n", targetRate, duration,
+				getThroughput());
+		out.printf("started: %d, dropped: %d, create errors: %d, completed: %d, failed: %d, timed out: %d%n", started,
+				dropped, createErrors, completed, failed, timedOut);
+		printLatency(out, "create", createLatency);
+		printLatency(out, "end-to-end", endToEndLatency);
+	}
+
+	private void printLatency(PrintStream out, String name, Histogram histogram)
+	{
+		if (histogram.getTotalCount() == 0)
+		{
+			out.printf("%s latency: no values%n", name);
+			return;
+		}
+
+		out.printf("%s latency [ms]: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f (n=%d)%n", name,
+				histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+				histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+				histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+				histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI, histogram.getMaxValue() / MICROS_PER_MILLI,
+				histogram.getTotalCount());
+	}
+
+	/**
+	 * Writes the end-to-end percentile distribution in milliseconds, readable by the HdrHistogram plotter.
+	 */
+	public void writeEndToEndHistogram(Path file) throws IOException
+	{
+		if (file.getParent() != null)
+			Files.createDirectories(file.getParent());
+
+		try (OutputStream out = Files.newOutputStream(file);
+				PrintStream printStream = new PrintStream(out, false, StandardCharsets.UTF_8))
+		{
+			endToEndLatency.outputPercentileDistribution(printStream, MICROS_PER_MILLI);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package dev.dsf.process.tutorial.load;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.CODESYSTEM_TUTORIAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_AND_LATEST_VERSION;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL;
+import static dev.dsf.process.tutorial.ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME;
+import static dev.dsf.process.tutorial.ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.hl7.fhir.r4.model.ResourceType;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+
+import ca.uhn.fhir.context.FhirContext;
+
+/**
+ * Creates <code>task-start-dic-process</code> Tasks requested by and addressed to the DIC organization.
+ */
+public class StartTaskFactory
+{
+	private static final String ORGANIZATION_IDENTIFIER_SID = "http://dsf.dev/sid/organization-identifier";
+	private static final String BPMN_MESSAGE_URL = "http://dsf.dev/fhir/CodeSystem/bpmn-message";
+
+	private final FhirContext fhirContext;
+	private final String tutorialInput;
+
+	/**
+	 * @param fhirContext
+	 *            not <code>null</code>
+	 * @param tutorialInput
+	 *            may be <code>null</code>, no tutorial-input parameter if <code>null</code>
+	 */
+	public StartTaskFactory(FhirContext fhirContext, String tutorialInput)
+	{
+		this.fhirContext = fhirContext;
+		this.tutorialInput = tutorialInput;
+	}
+
+	public Task createTask()
+	{
+		Task task = new Task();
+		task.getMeta().addProfile(PROFILE_TUTORIAL_TASK_DIC_PROCESS_AND_LATEST_VERSION);
+		task.setInstantiatesCanonical(PROFILE_TUTORIAL_TASK_DIC_PROCESS_INSTANTIATES_CANONICAL);
+		task.setStatus(TaskStatus.REQUESTED);
+		task.setIntent(TaskIntent.ORDER);
+		task.setAuthoredOn(new Date());
+		task.getRequester().setType(ResourceType.Organization.name()).getIdentifier()
+				.setSystem(ORGANIZATION_IDENTIFIER_SID).setValue(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER);
+		task.getRestriction().addRecipient().setType(ResourceType.Organization.name()).getIdentifier()
+				.setSystem(ORGANIZATION_IDENTIFIER_SID).setValue(TUTORIAL_DIC_ORGANIZATION_IDENTIFIER);
+
+		task.addInput().setValue(new StringType(PROFILE_TUTORIAL_TASK_DIC_PROCESS_MESSAGE_NAME)).getType().addCoding()
+				.setSystem(BPMN_MESSAGE_URL).setCode("message-name");
+
+		if (tutorialInput != null)
+			task.addInput().setValue(new StringType(tutorialInput)).getType().addCoding()
+					.setSystem(CODESYSTEM_TUTORIAL).setCode(CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT);
+
+		return task;
+	}
+
+	/**
+	 * Start Tasks do not contain per instance values except authoredOn, the body is serialized once per run and
+	 * posted for every process start.
+	 *
+	 * @return JSON encoded Task
+	 */
+	public byte[] createBody()
+	{
+		return fhirContext.newJsonParser().encodeResourceToString(createTask()).getBytes(StandardCharsets.UTF_8);
+	}
+}
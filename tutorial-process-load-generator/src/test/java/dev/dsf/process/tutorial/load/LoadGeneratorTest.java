@@ -0,0 +1,45 @@
+package dev.dsf.process.tutorial.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+
+public class LoadGeneratorTest
+{
+	@Test
+	public void testPoissonArrivalMeanInterval() throws Exception
+	{
+		ArrivalProcess arrivals = ArrivalProcess.poisson(100, new Random(42));
+
+		long sum = 0;
+		for (int i = 0; i < 100_000; i++)
+			sum += arrivals.nextIntervalNanos();
+
+		assertEquals(10_000_000d, sum / 100_000d, 200_000d);
+	}
+
+	@Test
+	public void testRunAgainstInMemoryFederation() throws Exception
+	{
+		LoadGeneratorConfig config = LoadGeneratorConfig.fromArgs("--mock=true", "--rate=50", "--arrival=CONSTANT",
+				"--duration=PT1S", "--poll-interval=PT0.02S", "--completion-timeout=PT60S");
+
+		LoadResult result = new LoadGenerator(config, FhirContext.forR4()).run();
+
+		// arrivals at 20 ms intervals before the end of the run, independent of the time the creates take
+		assertEquals(49, result.getStarted() + result.getDropped());
+		assertEquals(0, result.getDropped());
+		assertEquals(0, result.getCreateErrors());
+
+		// dicProcess instances end after the goodbyeDic message of the hrpProcess
+		assertEquals(result.getStarted(), result.getCompleted());
+		assertEquals(0, result.getFailed());
+		assertEquals(result.getStarted(), result.getEndToEndLatency().getTotalCount());
+		assertTrue(result.getEndToEndLatency().getMinValue() > 0);
+	}
+}
@@ -52,4 +52,14 @@ public interface ConstantsTutorial
 	String CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT = "tutorial-input";
 
 	String TUTORIAL_HRP_ORGANIZATION_IDENTIFIER = "hrp.dsf.test";
+
+	// The TRACE constants are only needed if trace propagation is enabled
+	String CODESYSTEM_TUTORIAL_TRACE = "http://dsf.dev/fhir/CodeSystem/tutorial-trace";
+	String CODESYSTEM_TUTORIAL_TRACE_VALUE_TRACEPARENT = "traceparent";
+
+	String BPMN_EXECUTION_VARIABLE_TRACE_ID = "traceId";
+
+	// The CONTENT_ENCODING constants are only needed if offloaded inputs are compressed
+	String CODESYSTEM_TUTORIAL_CONTENT_ENCODING = "http://dsf.dev/fhir/CodeSystem/tutorial-content-encoding";
+	String CODESYSTEM_TUTORIAL_CONTENT_ENCODING_VALUE_GZIP = "gzip";
 }
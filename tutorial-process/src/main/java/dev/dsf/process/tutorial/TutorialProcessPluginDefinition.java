@@ -1,17 +1,38 @@
 package dev.dsf.process.tutorial;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import dev.dsf.bpe.v1.ProcessPluginDefinition;
+import dev.dsf.process.tutorial.spring.config.MetricsConfig;
+import dev.dsf.process.tutorial.spring.config.TracingConfig;
 import dev.dsf.process.tutorial.spring.config.TutorialConfig;
 
 public class TutorialProcessPluginDefinition implements ProcessPluginDefinition
 {
+	private static final Logger logger = LoggerFactory.getLogger(TutorialProcessPluginDefinition.class);
+
 	public static final String VERSION = "1.0.0.1";
 	public static final LocalDate RELEASE_DATE = LocalDate.of(2022, 8, 21);
 
+	// CodeSystem url to CodeSystem and ValueSet, only needed if trace propagation is enabled or offloaded inputs are
+	// compressed
+	private static final Map<String, List<String>> OPTIONAL_TERMINOLOGY = Map.of(
+			ConstantsTutorial.CODESYSTEM_TUTORIAL_TRACE,
+			List.of("fhir/CodeSystem/tutorial-trace.xml", "fhir/ValueSet/tutorial-trace.xml"),
+			ConstantsTutorial.CODESYSTEM_TUTORIAL_CONTENT_ENCODING,
+			List.of("fhir/CodeSystem/tutorial-content-encoding.xml", "fhir/ValueSet/tutorial-content-encoding.xml"));
+
 	@Override
 	public String getName()
 	{
@@ -44,12 +65,50 @@ public class TutorialProcessPluginDefinition implements ProcessPluginDefinition
 		String aDicProcess = "fhir/ActivityDefinition/dic-process.xml";
 		String sTaskDicProcess = "fhir/StructureDefinition/task-start-dic-process.xml";
 
-		return Map.of(ConstantsTutorial.PROCESS_NAME_FULL_DIC, List.of(aDicProcess, sTaskDicProcess));
+		return withOptionalTerminology(
+				Map.of(ConstantsTutorial.PROCESS_NAME_FULL_DIC, List.of(aDicProcess, sTaskDicProcess)));
+	}
+
+	/**
+	 * Adds the CodeSystem and ValueSet of the optional trace and content-encoding inputs to every process with a
+	 * StructureDefinition referencing them.
+	 */
+	private static Map<String, List<String>> withOptionalTerminology(Map<String, List<String>> resourcesByProcessId)
+	{
+		return resourcesByProcessId.entrySet().stream()
+				.collect(Collectors.toMap(Entry::getKey, e -> withOptionalTerminology(e.getValue())));
+	}
+
+	private static List<String> withOptionalTerminology(List<String> resources)
+	{
+		String profiles = resources.stream().filter(r -> r.startsWith("fhir/StructureDefinition/"))
+				.map(TutorialProcessPluginDefinition::read).collect(Collectors.joining());
+
+		return Stream.concat(resources.stream(),
+				OPTIONAL_TERMINOLOGY.entrySet().stream().filter(e -> profiles.contains(e.getKey()))
+						.flatMap(e -> e.getValue().stream()))
+				.distinct().toList();
+	}
+
+	private static String read(String resource)
+	{
+		try (InputStream in = TutorialProcessPluginDefinition.class.getClassLoader().getResourceAsStream(resource))
+		{
+			if (in == null)
+				throw new IOException("Resource " + resource + " not found");
+
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while reading " + resource, e);
+			throw new RuntimeException(e);
+		}
 	}
 
 	@Override
 	public List<Class<?>> getSpringConfigurations()
 	{
-		return List.of(TutorialConfig.class);
+		return List.of(TutorialConfig.class, TracingConfig.class, MetricsConfig.class);
 	}
 }
@@ -0,0 +1,268 @@
+package dev.dsf.process.tutorial.message;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.model.bpmn.instance.EndEvent;
+import org.camunda.bpm.model.bpmn.instance.FlowElement;
+import org.camunda.bpm.model.bpmn.instance.IntermediateThrowEvent;
+import org.camunda.bpm.model.bpmn.instance.SendTask;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.Bundle.HTTPVerb;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.activity.AbstractTaskMessageSend;
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Targets;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+
+/**
+ * Sends one {@link Task} per entry of the {@link Targets} process variable. All Tasks for the same endpoint are posted
+ * as a single batch {@link Bundle}, reducing the number of HTTP requests from the number of targets to the number of
+ * distinct endpoints. Falls back to the single {@link Target} behavior of {@link AbstractTaskMessageSend} if no
+ * {@link Targets} are set.
+ * <p>
+ * Targets whose Task could not be created are removed from the {@link Targets} variable and an error output is added to
+ * the in-progress Tasks of the process, as {@link #handleSendTaskError} does for a single {@link Target}. If no Task
+ * could be created at all, the error is handled by {@link #handleIntermediateThrowEventError},
+ * {@link #handleEndEventError} or {@link #handleSendTaskError} depending on the BPMN element, like
+ * {@link AbstractTaskMessageSend} handles a failed send.
+ * <p>
+ * Sends are recorded by the {@link DelegateMetrics}, tagged with the target organization if all targets belong to
+ * the same organization. All Tasks get the <code>traceparent</code> input returned by {@link #getTraceparentInput()}.
+ */
+public abstract class AbstractTaskBatchMessageSend extends AbstractTutorialMessageSend
+{
+	private static final Logger logger = LoggerFactory.getLogger(AbstractTaskBatchMessageSend.class);
+
+	public AbstractTaskBatchMessageSend(ProcessPluginApi api)
+	{
+		this(api, DelegateMetrics.disabled());
+	}
+
+	public AbstractTaskBatchMessageSend(ProcessPluginApi api, DelegateMetrics metrics)
+	{
+		super(api, metrics);
+	}
+
+	@Override
+	protected String getRecipientOrganizationIdentifierValue(Variables variables)
+	{
+		Targets targets = variables.getTargets();
+		if (targets == null || targets.isEmpty())
+			return super.getRecipientOrganizationIdentifierValue(variables);
+
+		List<String> organizations = targets.getEntries().stream().map(Target::getOrganizationIdentifierValue)
+				.distinct().toList();
+		return organizations.size() == 1 ? organizations.get(0) : null;
+	}
+
+	@Override
+	protected void send(DelegateExecution execution, Variables variables) throws Exception
+	{
+		Targets targets = variables.getTargets();
+		if (targets == null || targets.isEmpty())
+		{
+			super.send(execution, variables);
+			return;
+		}
+
+		String instantiatesCanonical = getInstantiatesCanonical(execution, variables);
+		String messageName = getMessageName(execution, variables);
+		String profile = getProfile(execution, variables);
+		String businessKey = execution.getBusinessKey();
+
+		Objects.requireNonNull(instantiatesCanonical, "instantiatesCanonical");
+		Objects.requireNonNull(messageName, "messageName");
+		Objects.requireNonNull(profile, "profile");
+		Objects.requireNonNull(businessKey, "businessKey");
+
+		List<ParameterComponent> additionalInputParameters = getAdditionalInputParameters(execution, variables)
+				.toList();
+
+		Map<String, List<Target>> targetsByEndpointUrl = new LinkedHashMap<>();
+		targets.getEntries().forEach(
+				t -> targetsByEndpointUrl.computeIfAbsent(t.getEndpointUrl(), k -> new ArrayList<>()).add(t));
+
+		Map<Target, String> errorsByTarget = new LinkedHashMap<>();
+		Exception lastError = null;
+
+		for (Map.Entry<String, List<Target>> entry : targetsByEndpointUrl.entrySet())
+		{
+			Bundle batch = createBatch(entry.getValue(), instantiatesCanonical, messageName, businessKey, profile,
+					additionalInputParameters);
+
+			try
+			{
+				logger.info("Sending {} task(s) {} [endpoint: {}, businessKey: {}, message: {}] as batch ...",
+						batch.getEntry().size(), instantiatesCanonical, entry.getKey(), businessKey, messageName);
+
+				Bundle response = doSendBatch(entry.getKey(), batch);
+				errorsByTarget.putAll(getFailedTargets(entry.getValue(), response));
+			}
+			catch (Exception e)
+			{
+				logger.warn("Error while sending batch to endpoint {}: {} - {}", entry.getKey(),
+						e.getClass().getName(), e.getMessage());
+				logger.debug("Error while sending batch", e);
+
+				entry.getValue().forEach(t -> errorsByTarget.put(t, e.getClass().getName() + " - " + e.getMessage()));
+				lastError = e;
+			}
+		}
+
+		if (errorsByTarget.isEmpty())
+			return;
+
+		List<Target> remaining = targets.getEntries().stream().filter(t -> !errorsByTarget.containsKey(t)).toList();
+		variables.setTargets(variables.createTargets(remaining));
+
+		if (remaining.isEmpty())
+		{
+			Exception error = lastError != null ? lastError
+					: new IllegalStateException("No task could be sent, all batch entries failed");
+			handleError(execution, variables, error, "Task " + instantiatesCanonical + " send failed [businessKey: "
+					+ businessKey + ", message: " + messageName + "] to all targets, last reason: "
+					+ error.getClass().getName() + " - " + error.getMessage());
+		}
+		else
+		{
+			for (Map.Entry<Target, String> error : errorsByTarget.entrySet())
+			{
+				Target target = error.getKey();
+				String correlationKey = target.getCorrelationKey() == null ? ""
+						: ", correlationKey: " + target.getCorrelationKey();
+
+				addErrorIfInProgress(variables, "Task " + instantiatesCanonical + " send failed [recipient: "
+						+ target.getOrganizationIdentifierValue() + ", endpoint: " + target.getEndpointIdentifierValue()
+						+ ", businessKey: " + businessKey + correlationKey + ", message: " + messageName + ", error: "
+						+ error.getValue() + "]");
+			}
+
+			logger.warn("Target organization(s) {} removed from target list, Task {} not sent",
+					errorsByTarget.keySet().stream().map(Target::getOrganizationIdentifierValue).toList(),
+					instantiatesCanonical);
+		}
+	}
+
+	// same handler selection as AbstractTaskMessageSend for a failed single target send
+	private void handleError(DelegateExecution execution, Variables variables, Exception error, String errorMessage)
+	{
+		FlowElement element = execution.getBpmnModelElementInstance();
+
+		if (element instanceof IntermediateThrowEvent)
+			handleIntermediateThrowEventError(execution, variables, error, errorMessage);
+		else if (element instanceof EndEvent)
+			handleEndEventError(execution, variables, error, errorMessage);
+		else if (element instanceof SendTask)
+			handleSendTaskError(execution, variables, error, errorMessage);
+		else
+			logger.warn("Error handling for {} not implemented", element == null ? null : element.getClass().getName());
+	}
+
+	private void addErrorIfInProgress(Variables variables, String errorMessage)
+	{
+		for (Task task : variables.getTasks())
+		{
+			if (TaskStatus.INPROGRESS.equals(task.getStatus()))
+			{
+				addErrorMessage(task, errorMessage);
+				variables.updateTask(task);
+			}
+		}
+	}
+
+	private Bundle createBatch(List<Target> targets, String instantiatesCanonical, String messageName,
+			String businessKey, String profile, List<ParameterComponent> additionalInputParameters)
+	{
+		Bundle batch = new Bundle().setType(BundleType.BATCH);
+
+		for (Target target : targets)
+		{
+			Task task = createTask(target, instantiatesCanonical, messageName, businessKey, profile,
+					additionalInputParameters);
+
+			batch.addEntry().setFullUrl("urn:uuid:" + UUID.randomUUID().toString()).setResource(task).getRequest()
+					.setMethod(HTTPVerb.POST).setUrl(ResourceType.Task.name());
+		}
+
+		return batch;
+	}
+
+	/**
+	 * Creates the same {@link Task} as {@link AbstractTaskMessageSend} does for a single {@link Target}. Each Task gets
+	 * copies of the additional input parameters.
+	 */
+	protected Task createTask(Target target, String instantiatesCanonical, String messageName, String businessKey,
+			String profile, List<ParameterComponent> additionalInputParameters)
+	{
+		Task task = new Task();
+		task.setMeta(new Meta().addProfile(profile));
+		task.setStatus(TaskStatus.REQUESTED);
+		task.setIntent(TaskIntent.ORDER);
+		task.setAuthoredOn(new Date());
+		task.setRequester(getRequester());
+		task.getRestriction().addRecipient(getRecipient(target));
+		task.setInstantiatesCanonical(instantiatesCanonical);
+
+		task.addInput(new ParameterComponent(new CodeableConcept(CodeSystems.BpmnMessage.messageName()),
+				new StringType(messageName)));
+		task.addInput(new ParameterComponent(new CodeableConcept(CodeSystems.BpmnMessage.businessKey()),
+				new StringType(businessKey)));
+
+		if (target.getCorrelationKey() != null)
+			task.addInput(new ParameterComponent(new CodeableConcept(CodeSystems.BpmnMessage.correlationKey()),
+					new StringType(target.getCorrelationKey())));
+
+		additionalInputParameters.stream().map(ParameterComponent::copy).forEach(task::addInput);
+		getTraceparentInput().ifPresent(task::addInput);
+
+		return task;
+	}
+
+	protected Bundle doSendBatch(String endpointUrl, Bundle batch)
+	{
+		return api.getFhirWebserviceClientProvider().getWebserviceClient(endpointUrl).withMinimalReturn()
+				.postBundle(batch);
+	}
+
+	private Map<Target, String> getFailedTargets(List<Target> targets, Bundle response)
+	{
+		Map<Target, String> failed = new LinkedHashMap<>();
+
+		for (int i = 0; i < targets.size(); i++)
+		{
+			BundleEntryComponent entry = i < response.getEntry().size() ? response.getEntry().get(i) : null;
+			String status = entry != null && entry.hasResponse() ? entry.getResponse().getStatus() : null;
+
+			if (status == null || !status.startsWith("2"))
+			{
+				logger.warn("Task for organization {} [endpoint: {}] not created, response status: {}",
+						targets.get(i).getOrganizationIdentifierValue(), targets.get(i).getEndpointUrl(), status);
+				failed.put(targets.get(i), "response status " + status);
+			}
+		}
+
+		return failed;
+	}
+}
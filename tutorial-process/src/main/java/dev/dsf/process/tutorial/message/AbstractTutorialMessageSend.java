@@ -0,0 +1,94 @@
+package dev.dsf.process.tutorial.message;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.activity.AbstractTaskMessageSend;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.Tracer;
+
+/**
+ * Base class of the message send activities of the tutorial processes. Every send is recorded by the
+ * {@link DelegateMetrics}. If tracing is enabled, the sent Tasks get the <code>traceparent</code> input of the span
+ * traced by the {@link DelegateMetrics}.
+ */
+public abstract class AbstractTutorialMessageSend extends AbstractTaskMessageSend
+{
+	private final DelegateMetrics metrics;
+
+	public AbstractTutorialMessageSend(ProcessPluginApi api, DelegateMetrics metrics)
+	{
+		super(api);
+
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(metrics, "metrics");
+	}
+
+	@Override
+	protected final void doExecute(DelegateExecution execution, Variables variables) throws Exception
+	{
+		metrics.record(execution, variables, getRecipientOrganizationIdentifierValue(variables),
+				() -> send(execution, variables));
+	}
+
+	/**
+	 * @param variables
+	 *            not <code>null</code>
+	 * @return organization identifier the send is tagged with by the {@link DelegateMetrics}, the organization of the
+	 *         {@link Target} process variable by default, <code>null</code> if not set
+	 */
+	protected String getRecipientOrganizationIdentifierValue(Variables variables)
+	{
+		Target target = variables.getTarget();
+		return target == null ? null : target.getOrganizationIdentifierValue();
+	}
+
+	/**
+	 * Sends the Task(s), recorded by the {@link DelegateMetrics}. Sends a single Task to the {@link Target} process
+	 * variable by default.
+	 *
+	 * @param execution
+	 *            not <code>null</code>
+	 * @param variables
+	 *            not <code>null</code>
+	 * @throws Exception
+	 *             if the send failed
+	 */
+	protected void send(DelegateExecution execution, Variables variables) throws Exception
+	{
+		super.doExecute(execution, variables);
+	}
+
+	@Override
+	protected void sendTask(DelegateExecution execution, Variables variables, Target target,
+			String instantiatesCanonical, String messageName, String businessKey, String profile,
+			Stream<ParameterComponent> additionalInputParameters)
+	{
+		super.sendTask(execution, variables, target, instantiatesCanonical, messageName, businessKey, profile,
+				Stream.concat(additionalInputParameters, getTraceparentInput().stream()));
+	}
+
+	/**
+	 * @return <code>traceparent</code> input for the sent {@link Task}s, empty if tracing is disabled or no span is
+	 *         traced
+	 */
+	protected Optional<ParameterComponent> getTraceparentInput()
+	{
+		return Tracer.getTraceparentInput();
+	}
+}
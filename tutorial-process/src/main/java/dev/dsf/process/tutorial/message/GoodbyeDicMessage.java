@@ -1,13 +1,154 @@
 package dev.dsf.process.tutorial.message;
 
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import dev.dsf.bpe.v1.ProcessPluginApi;
-import dev.dsf.bpe.v1.activity.AbstractTaskMessageSend;
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.InputParameterIndex;
+import dev.dsf.process.tutorial.util.TaskDispatcher;
 
 // Only needed for exercise 6 and above
-public class GoodbyeDicMessage extends AbstractTaskMessageSend
+public class GoodbyeDicMessage extends AbstractTutorialMessageSend
 {
-	public GoodbyeDicMessage(ProcessPluginApi api)
+	private static final Logger logger = LoggerFactory.getLogger(GoodbyeDicMessage.class);
+
+	/**
+	 * Identifier system of goodbyeDic Tasks, used for the conditional create
+	 */
+	public static final String MESSAGE_IDENTIFIER_SYSTEM = "http://dsf.dev/sid/tutorial-message-identifier";
+
+	private final ThreadLocal<Task> startTask = new ThreadLocal<>();
+
+	private final TaskDispatcher dispatcher;
+
+	public GoodbyeDicMessage(ProcessPluginApi api, TaskDispatcher dispatcher, DelegateMetrics metrics)
+	{
+		super(api, metrics);
+
+		this.dispatcher = dispatcher;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(dispatcher, "dispatcher");
+	}
+
+	/**
+	 * Keeps the start Task of the hrpProcess for {@link #handleDispatchError(Task, String, RuntimeException)}, the
+	 * send is recorded by the {@link DelegateMetrics} only until the Task is handed to the {@link TaskDispatcher}.
+	 */
+	@Override
+	protected void sendTask(DelegateExecution execution, Variables variables, Target target,
+			String instantiatesCanonical, String messageName, String businessKey, String profile,
+			Stream<Task.ParameterComponent> additionalInputParameters)
+	{
+		startTask.set(variables.getStartTask());
+		try
+		{
+			super.sendTask(execution, variables, target, instantiatesCanonical, messageName, businessKey, profile,
+					additionalInputParameters);
+		}
+		finally
+		{
+			startTask.remove();
+		}
+	}
+
+	/**
+	 * Hands the Task to the {@link TaskDispatcher}. The Task gets an identifier built from the business key and
+	 * correlation key and is created conditionally on this identifier, so a retry after a lost response does not create
+	 * a second Task. If sent asynchronously, returns the conditional reference
+	 * <code>Task?identifier=system|value</code> of the Task to be created, sends failing after all attempts are passed
+	 * to {@link #handleDispatchError(Task, String, RuntimeException)}. If the dispatch queue is full, the
+	 * {@link java.util.concurrent.RejectedExecutionException} fails the activity like any other send error. Without
+	 * dispatch threads, the Task is sent on the engine thread.
+	 */
+	@Override
+	protected IdType doSend(FhirWebserviceClient client, Task task)
+	{
+		Identifier identifier = task.addIdentifier().setSystem(MESSAGE_IDENTIFIER_SYSTEM)
+				.setValue(getMessageIdentifierValue(task));
+		String ifNoneExist = "identifier=" + identifier.getSystem() + "|" + identifier.getValue();
+
+		Task startTask = this.startTask.get();
+		String description = "Task " + task.getInstantiatesCanonical() + " [identifier: " + identifier.getValue()
+				+ ", endpoint: " + client.getBaseUrl() + "]";
+
+		CompletableFuture<IdType> sent = dispatcher.dispatch(description,
+				() -> client.withMinimalReturn().createConditionaly(task, ifNoneExist),
+				e -> handleDispatchError(startTask, description, e));
+
+		return sent.getNow(new IdType(ResourceType.Task.name() + "?" + ifNoneExist));
+	}
+
+	/**
+	 * Called once for each goodbyeDic Task that could not be sent after all attempts of the {@link TaskDispatcher} or
+	 * was still queued when the dispatcher shut down. The hrpProcess has already ended, its start Task is marked
+	 * <code>failed</code> with an error output. The dicProcess waiting for the message runs into its timeout.
+	 *
+	 * @param startTask
+	 *            may be <code>null</code>, start Task of the hrpProcess
+	 * @param description
+	 *            not <code>null</code>
+	 * @param error
+	 *            not <code>null</code>, error of the last attempt
+	 */
+	protected void handleDispatchError(Task startTask, String description, RuntimeException error)
+	{
+		logger.error("Message lost, {} not sent after all attempts: {} - {}", description, error.getClass().getName(),
+				error.getMessage());
+
+		if (startTask == null || !startTask.hasIdElement())
+			return;
+
+		String startTaskId = startTask.getIdElement().getIdPart();
+		try
+		{
+			FhirWebserviceClient client = api.getFhirWebserviceClientProvider().getLocalWebserviceClient();
+			Task current = client.read(Task.class, startTaskId);
+
+			current.setStatus(TaskStatus.FAILED);
+			addErrorMessage(current, "Message " + description + " not sent: " + error.getMessage());
+			client.withMinimalReturn().update(current);
+		}
+		catch (RuntimeException e)
+		{
+			logger.error("Unable to mark start Task {} failed: {} - {}", startTaskId, e.getClass().getName(),
+					e.getMessage());
+		}
+	}
+
+	private static String getMessageIdentifierValue(Task task)
+	{
+		String businessKey = getInputValue(task, CodeSystems.BpmnMessage.Codes.BUSINESS_KEY);
+		String correlationKey = getInputValue(task, CodeSystems.BpmnMessage.Codes.CORRELATION_KEY);
+
+		// no '|', the value is used in the If-None-Exist token search
+		return getInputValue(task, CodeSystems.BpmnMessage.Codes.MESSAGE_NAME) + "/" + businessKey
+				+ (correlationKey == null ? "" : "/" + correlationKey);
+	}
+
+	private static String getInputValue(Task task, String code)
 	{
-		super(api);
+		return InputParameterIndex.of(task).getFirstInputParameterStringValue(CodeSystems.BpmnMessage.URL, code)
+				.orElse(null);
 	}
 }
@@ -1,13 +1,29 @@
 package dev.dsf.process.tutorial.message;
 
+import java.util.Optional;
+
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+
 import dev.dsf.bpe.v1.ProcessPluginApi;
-import dev.dsf.bpe.v1.activity.AbstractTaskMessageSend;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
 
-// Only needed for exercise 4 and above
-public class HelloCosMessage extends AbstractTaskMessageSend
+// Only needed for exercise 4 and above, sends batched to all targets if the targets variable is set
+public class HelloCosMessage extends AbstractTaskBatchMessageSend
 {
 	public HelloCosMessage(ProcessPluginApi api)
 	{
 		super(api);
 	}
+
+	public HelloCosMessage(ProcessPluginApi api, DelegateMetrics metrics)
+	{
+		super(api, metrics);
+	}
+
+	@Override
+	protected Optional<ParameterComponent> getTraceparentInput()
+	{
+		// the task-hello-cos profile edited in the exercises has no traceparent slice, cosProcess starts a new trace
+		return Optional.empty();
+	}
 }
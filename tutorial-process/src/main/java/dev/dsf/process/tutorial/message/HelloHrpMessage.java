@@ -1,33 +1,49 @@
 package dev.dsf.process.tutorial.message;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 import org.camunda.bpm.engine.delegate.DelegateExecution;
-import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.Task;
 
 import dev.dsf.bpe.v1.ProcessPluginApi;
-import dev.dsf.bpe.v1.activity.AbstractTaskMessageSend;
 import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.util.BinaryInputHelper;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.InputParameterIndex;
 
 // Only needed for exercise 6 and above
-public class HelloHrpMessage extends AbstractTaskMessageSend
+public class HelloHrpMessage extends AbstractTutorialMessageSend
 {
-	public HelloHrpMessage(ProcessPluginApi api)
+	private final BinaryInputHelper binaryInputHelper;
+
+	public HelloHrpMessage(ProcessPluginApi api, BinaryInputHelper binaryInputHelper, DelegateMetrics metrics)
 	{
-		super(api);
+		super(api, metrics);
+
+		this.binaryInputHelper = binaryInputHelper;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(binaryInputHelper, "binaryInputHelper");
 	}
 
 	@Override
 	protected Stream<Task.ParameterComponent> getAdditionalInputParameters(DelegateExecution execution,
 			Variables variables)
 	{
-		Optional<Task.ParameterComponent> tutorialInputParameter = api.getTaskHelper().getFirstInputParameter(
-				variables.getStartTask(), "http://dsf.dev/fhir/CodeSystem/tutorial", "tutorial-input",
-				StringType.class);
+		// forwarding the received input component, the value is not copied unless offloaded to a Binary
+		Optional<Task.ParameterComponent> tutorialInputParameter = InputParameterIndex.of(variables.getStartTask())
+				.getFirstInputParameter(ConstantsTutorial.CODESYSTEM_TUTORIAL,
+						ConstantsTutorial.CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT);
 
-		return tutorialInputParameter.map(i -> api.getTaskHelper().createInput(i.getValue(),
-				"http://dsf.dev/fhir/CodeSystem/tutorial", "tutorial-input")).stream();
+		return tutorialInputParameter.stream()
+				.flatMap(i -> binaryInputHelper.forward(i, variables.getTarget().getOrganizationIdentifierValue()));
 	}
 }
@@ -1,23 +1,57 @@
 package dev.dsf.process.tutorial.service;
 
+import java.util.Objects;
+
 import org.camunda.bpm.engine.delegate.DelegateExecution;
 
 import dev.dsf.bpe.v1.ProcessPluginApi;
 import dev.dsf.bpe.v1.activity.AbstractServiceDelegate;
+import dev.dsf.bpe.v1.constants.CodeSystems;
 import dev.dsf.bpe.v1.variables.Target;
 import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.InputParameterIndex;
+import dev.dsf.process.tutorial.util.TargetCache;
 
 public class CosTask extends AbstractServiceDelegate
 {
-	public CosTask(ProcessPluginApi api)
+	private final TargetCache targetCache;
+	private final DelegateMetrics metrics;
+
+	public CosTask(ProcessPluginApi api, TargetCache targetCache, DelegateMetrics metrics)
 	{
 		super(api);
+
+		this.targetCache = targetCache;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(targetCache, "targetCache");
+		Objects.requireNonNull(metrics, "metrics");
 	}
 
 	@Override
 	protected void doExecute(DelegateExecution execution, Variables variables)
 	{
-		Target target = variables.createTarget("hrp.dsf.test", "hrp.dsf.test_Endpoint", "https://hrp/fhir");
+		metrics.record(execution, variables, null, () -> setHrpTarget(variables));
+	}
+
+	private void setHrpTarget(Variables variables)
+	{
+		// forwarded to the hrp organization and returned with the goodbyeDic message
+		String correlationKey = InputParameterIndex.of(variables.getStartTask())
+				.getFirstInputParameterStringValue(CodeSystems.BpmnMessage.URL,
+						CodeSystems.BpmnMessage.Codes.CORRELATION_KEY)
+				.orElse(null);
+
+		Target target = targetCache.getTarget(variables, ConstantsTutorial.TUTORIAL_HRP_ORGANIZATION_IDENTIFIER,
+				correlationKey);
 		variables.setTarget(target);
 	}
 }
@@ -1,6 +1,6 @@
 package dev.dsf.process.tutorial.service;
 
-import java.util.Optional;
+import java.util.Objects;
 
 import org.camunda.bpm.engine.delegate.DelegateExecution;
 import org.slf4j.Logger;
@@ -8,34 +8,76 @@ import org.slf4j.LoggerFactory;
 
 import dev.dsf.bpe.v1.ProcessPluginApi;
 import dev.dsf.bpe.v1.activity.AbstractServiceDelegate;
+import dev.dsf.bpe.v1.constants.CodeSystems;
 import dev.dsf.bpe.v1.variables.Target;
 import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.util.BinaryInputHelper;
+import dev.dsf.process.tutorial.util.ContentEncoding;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.InputParameterIndex;
+import dev.dsf.process.tutorial.util.TargetCache;
 
 public class HrpTask extends AbstractServiceDelegate
 {
 	private static final Logger logger = LoggerFactory.getLogger(HrpTask.class);
 
-	public HrpTask(ProcessPluginApi api)
+	private final TargetCache targetCache;
+	private final BinaryInputHelper binaryInputHelper;
+	private final DelegateMetrics metrics;
+
+	public HrpTask(ProcessPluginApi api, TargetCache targetCache, BinaryInputHelper binaryInputHelper,
+			DelegateMetrics metrics)
 	{
 		super(api);
+
+		this.targetCache = targetCache;
+		this.binaryInputHelper = binaryInputHelper;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		super.afterPropertiesSet();
+
+		Objects.requireNonNull(targetCache, "targetCache");
+		Objects.requireNonNull(binaryInputHelper, "binaryInputHelper");
+		Objects.requireNonNull(metrics, "metrics");
 	}
 
 	@Override
 	protected void doExecute(DelegateExecution execution, Variables variables)
 	{
-		Optional<String> tutorialInputParameter = api.getTaskHelper().getFirstInputParameterStringValue(
-				variables.getStartTask(), "http://dsf.dev/fhir/CodeSystem/tutorial", "tutorial-input");
-		boolean sendResponse = tutorialInputParameter.map("send-response"::equals).orElse(false);
+		metrics.record(execution, variables, null, () -> setDicTargetIfResponseRequested(variables));
+	}
+
+	private void setDicTargetIfResponseRequested(Variables variables)
+	{
+		InputParameterIndex inputParameters = InputParameterIndex.of(variables.getStartTask());
+		// a tutorial-input stored as Binary is only read and decoded as far as needed for the comparison
+		boolean sendResponse = binaryInputHelper.valueEquals(
+				inputParameters.getFirstInputParameter(ConstantsTutorial.CODESYSTEM_TUTORIAL,
+						ConstantsTutorial.CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT).orElse(null),
+				ContentEncoding.of(inputParameters, ConstantsTutorial.CODESYSTEM_TUTORIAL_VALUE_TUTORIAL_INPUT)
+						.orElse(null),
+				"send-response");
 		variables.setBoolean("sendResponse", sendResponse);
 
 		if (sendResponse)
 		{
-			Target target = variables.createTarget("dic.dsf.test", "dic.dsf.test_Endpoint", "https://dic/fhir");
+			// correlation key of the helloCos message, if sent to multiple cos organizations
+			String correlationKey = inputParameters.getFirstInputParameterStringValue(CodeSystems.BpmnMessage.URL,
+					CodeSystems.BpmnMessage.Codes.CORRELATION_KEY).orElse(null);
+
+			Target target = targetCache.getTarget(variables, ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER,
+					correlationKey);
 			variables.setTarget(target);
 		}
 		else
 		{
-			logger.info("Not sending response to organization with identifier 'dic.dsf.test'");
+			logger.info("Not sending response to organization with identifier '{}'",
+					ConstantsTutorial.TUTORIAL_DIC_ORGANIZATION_IDENTIFIER);
 		}
 	}
 }
@@ -0,0 +1,43 @@
+package dev.dsf.process.tutorial.spring.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import dev.dsf.bpe.v1.documentation.ProcessDocumentation;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.TutorialProcessPluginDefinition;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.Tracer;
+
+/**
+ * Metrics of the tutorial service delegates and message sends, kept apart from the {@link TutorialConfig} edited in
+ * the exercises.
+ */
+@Configuration
+public class MetricsConfig
+{
+	@Autowired
+	private Tracer tracer;
+
+	@ProcessDocumentation(processNames = { ConstantsTutorial.PROCESS_NAME_FULL_DIC,
+			ConstantsTutorial.PROCESS_NAME_FULL_COS,
+			ConstantsTutorial.PROCESS_NAME_FULL_HRP }, description = "Set to false to disable latency, error and in-flight metrics of the tutorial service delegates and message sends")
+	@Value("${dev.dsf.process.tutorial.metrics.enabled:true}")
+	private boolean metricsEnabled;
+
+	@ProcessDocumentation(processNames = { ConstantsTutorial.PROCESS_NAME_FULL_DIC,
+			ConstantsTutorial.PROCESS_NAME_FULL_COS,
+			ConstantsTutorial.PROCESS_NAME_FULL_HRP }, description = "Set to false to not register the metrics with the platform MBean server, object name 'dev.dsf.process.tutorial:type=DelegateMetrics,version=<plugin version>'")
+	@Value("${dev.dsf.process.tutorial.metrics.jmx:true}")
+	private boolean metricsJmx;
+
+	@Bean
+	public DelegateMetrics delegateMetrics()
+	{
+		return new DelegateMetrics(metricsEnabled, metricsJmx
+				? "dev.dsf.process.tutorial:type=DelegateMetrics,version=" + TutorialProcessPluginDefinition.VERSION
+				: null, tracer);
+	}
+}
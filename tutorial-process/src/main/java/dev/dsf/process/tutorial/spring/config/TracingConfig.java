@@ -0,0 +1,43 @@
+package dev.dsf.process.tutorial.spring.config;
+
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import dev.dsf.bpe.v1.documentation.ProcessDocumentation;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.util.FileSpanExporter;
+import dev.dsf.process.tutorial.util.Tracer;
+
+/**
+ * Tracing of the tutorial processes, kept apart from the {@link TutorialConfig} edited in the exercises.
+ */
+@Configuration
+public class TracingConfig
+{
+	@ProcessDocumentation(processNames = { ConstantsTutorial.PROCESS_NAME_FULL_DIC,
+			ConstantsTutorial.PROCESS_NAME_FULL_COS,
+			ConstantsTutorial.PROCESS_NAME_FULL_HRP }, description = "Set to true to propagate a W3C traceparent as Task input between the tutorial processes and to write a span for each service delegate and message send, must be enabled for all organizations; helloCos Tasks are sent without traceparent, the task-hello-cos profile has no traceparent input slice and the cos process starts a new trace", recommendation = "Only enable to analyze end-to-end latencies")
+	@Value("${dev.dsf.process.tutorial.trace.enabled:false}")
+	private boolean traceEnabled;
+
+	@ProcessDocumentation(processNames = { ConstantsTutorial.PROCESS_NAME_FULL_DIC,
+			ConstantsTutorial.PROCESS_NAME_FULL_COS,
+			ConstantsTutorial.PROCESS_NAME_FULL_HRP }, description = "File the spans are appended to as JSON lines if tracing is enabled", example = "/opt/bpe/log/tutorial-spans.jsonl")
+	@Value("${dev.dsf.process.tutorial.trace.file:log/tutorial-spans.jsonl}")
+	private String traceFile;
+
+	@Bean
+	public FileSpanExporter fileSpanExporter()
+	{
+		return new FileSpanExporter(Paths.get(traceFile));
+	}
+
+	@Bean
+	public Tracer tracer()
+	{
+		return new Tracer(traceEnabled, fileSpanExporter());
+	}
+}
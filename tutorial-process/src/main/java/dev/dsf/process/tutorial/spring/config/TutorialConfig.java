@@ -1,9 +1,27 @@
 package dev.dsf.process.tutorial.spring.config;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
 
 import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.documentation.ProcessDocumentation;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.message.GoodbyeDicMessage;
+import dev.dsf.process.tutorial.message.HelloHrpMessage;
+import dev.dsf.process.tutorial.service.CosTask;
+import dev.dsf.process.tutorial.service.HrpTask;
+import dev.dsf.process.tutorial.util.BinaryInputCleanup;
+import dev.dsf.process.tutorial.util.BinaryInputHelper;
+import dev.dsf.process.tutorial.util.ContentEncoding;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.TargetCache;
+import dev.dsf.process.tutorial.util.TaskDispatcher;
 
 @Configuration
 public class TutorialConfig
@@ -11,4 +29,102 @@ public class TutorialConfig
 	@Autowired
 	private ProcessPluginApi api;
 
+	@Autowired
+	private DelegateMetrics delegateMetrics;
+
+	@ProcessDocumentation(processNames = { ConstantsTutorial.PROCESS_NAME_FULL_COS,
+			ConstantsTutorial.PROCESS_NAME_FULL_HRP }, description = "Time-to-live of resolved message targets (organization endpoints) as ISO-8601 duration, use PT0S to disable caching", example = "PT15M", recommendation = "Only change if endpoint addresses of other organizations change frequently")
+	@Value("${dev.dsf.process.tutorial.target.cache.ttl:PT1H}")
+	private String targetCacheTimeToLive;
+
+	@ProcessDocumentation(processNames = ConstantsTutorial.PROCESS_NAME_FULL_HRP, description = "Number of threads sending goodbyeDic messages asynchronously, use 0 to send on the engine thread without retries", recommendation = "Increase if many hrpProcess instances wait for slow DIC endpoints")
+	@Value("${dev.dsf.process.tutorial.dispatch.threads:4}")
+	private int dispatchThreads;
+
+	@ProcessDocumentation(processNames = ConstantsTutorial.PROCESS_NAME_FULL_HRP, description = "Maximum number of goodbyeDic messages waiting for a dispatch thread, the hrpProcess fails if the queue is full", recommendation = "Increase together with the number of threads if hrpProcess instances fail with a full dispatch queue")
+	@Value("${dev.dsf.process.tutorial.dispatch.queue.capacity:100}")
+	private int dispatchQueueCapacity;
+
+	@ProcessDocumentation(processNames = ConstantsTutorial.PROCESS_NAME_FULL_HRP, description = "Number of attempts to send a goodbyeDic message if dispatch threads are used, failed sends are retried except for HTTP 4xx responses, the start Task of the hrpProcess is marked failed if the last attempt fails", example = "5")
+	@Value("${dev.dsf.process.tutorial.dispatch.attempts:3}")
+	private int dispatchAttempts;
+
+	@ProcessDocumentation(processNames = ConstantsTutorial.PROCESS_NAME_FULL_HRP, description = "Delay before the first retry of a failed goodbyeDic send as ISO-8601 duration, doubled for each further retry", example = "PT10S")
+	@Value("${dev.dsf.process.tutorial.dispatch.retry.delay:PT5S}")
+	private String dispatchRetryDelay;
+
+	@ProcessDocumentation(processNames = { ConstantsTutorial.PROCESS_NAME_FULL_COS,
+			ConstantsTutorial.PROCESS_NAME_FULL_HRP }, description = "Size in bytes above which the tutorial-input is sent to the hrpProcess as reference to a Binary resource instead of inline, use 0 to always send inline", example = "1048576")
+	@Value("${dev.dsf.process.tutorial.input.binary.threshold:0}")
+	private int binaryInputThreshold;
+
+	@ProcessDocumentation(processNames = ConstantsTutorial.PROCESS_NAME_FULL_COS, description = "Content encoding of the tutorial-input if sent as reference to a Binary resource, use gzip to compress or leave empty to store uncompressed, requires a content-encoding input slice in the task-hello-hrp profile", example = "gzip", recommendation = "Only enable for large, compressible inputs, compression costs CPU time on the cos and hrp side")
+	@Value("${dev.dsf.process.tutorial.input.binary.encoding:}")
+	private String binaryInputEncoding;
+
+	@ProcessDocumentation(processNames = ConstantsTutorial.PROCESS_NAME_FULL_COS, description = "Time to keep tutorial-input Binary resources and their DocumentReference security context as ISO-8601 duration, the hrp organization has to read the Binary within this time, PT0S to keep Binary resources forever", example = "P7D", recommendation = "Longer than the time the hrp organization needs to start the hrpProcess")
+	@Value("${dev.dsf.process.tutorial.input.binary.retention:P1D}")
+	private String binaryInputRetention;
+
+	@ProcessDocumentation(processNames = ConstantsTutorial.PROCESS_NAME_FULL_COS, description = "Delay between searches for tutorial-input Binary resources older than the retention as ISO-8601 duration, PT0S to disable the cleanup", example = "PT15M")
+	@Value("${dev.dsf.process.tutorial.input.binary.cleanup.interval:PT1H}")
+	private String binaryInputCleanupInterval;
+
+	@Bean
+	public TargetCache targetCache()
+	{
+		return new TargetCache(api, Duration.parse(targetCacheTimeToLive));
+	}
+
+	@Bean
+	public BinaryInputHelper binaryInputHelper()
+	{
+		return new BinaryInputHelper(api, binaryInputThreshold,
+				binaryInputEncoding.isBlank() ? null : ContentEncoding.fromCode(binaryInputEncoding.trim())
+						.orElseThrow(() -> new IllegalArgumentException(
+								"Unknown binary input encoding '" + binaryInputEncoding + "'")));
+	}
+
+	@Bean
+	public BinaryInputCleanup binaryInputCleanup()
+	{
+		// nothing offloaded without threshold
+		return new BinaryInputCleanup(api, Duration.parse(binaryInputRetention),
+				binaryInputThreshold > 0 ? Duration.parse(binaryInputCleanupInterval) : Duration.ZERO);
+	}
+
+	@Bean
+	public TaskDispatcher taskDispatcher()
+	{
+		return new TaskDispatcher(dispatchThreads, dispatchQueueCapacity, dispatchAttempts,
+				Duration.parse(dispatchRetryDelay), Duration.ofSeconds(30));
+	}
+
+	@Bean
+	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+	public CosTask cosTask()
+	{
+		return new CosTask(api, targetCache(), delegateMetrics);
+	}
+
+	@Bean
+	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+	public HrpTask hrpTask()
+	{
+		return new HrpTask(api, targetCache(), binaryInputHelper(), delegateMetrics);
+	}
+
+	@Bean
+	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+	public HelloHrpMessage helloHrpMessage()
+	{
+		return new HelloHrpMessage(api, binaryInputHelper(), delegateMetrics);
+	}
+
+	@Bean
+	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+	public GoodbyeDicMessage goodbyeDicMessage()
+	{
+		return new GoodbyeDicMessage(api, taskDispatcher(), delegateMetrics);
+	}
 }
@@ -0,0 +1,223 @@
+package dev.dsf.process.tutorial.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
+import org.hl7.fhir.r4.model.DocumentReference;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response.Status;
+
+/**
+ * Deletes {@link Binary} resources offloaded by the {@link BinaryInputHelper} together with their
+ * {@link DocumentReference} security context once the retention period expired. The receiving organization reads the
+ * {@link Binary} from the sending organization's FHIR server and can not delete it, so the sender deletes it after a
+ * retention period long enough for the receiver to download the content.
+ * <p>
+ * Resources are deleted and then permanently deleted, if the permanent delete is not allowed for the local
+ * organization, the resources remain in the history of the FHIR server. With a zero retention or interval no cleanup
+ * is scheduled, {@link #cleanup()} may still be called directly.
+ */
+public class BinaryInputCleanup implements InitializingBean, DisposableBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(BinaryInputCleanup.class);
+
+	private static final int PAGE_SIZE = 100;
+
+	private final ProcessPluginApi api;
+	private final Duration retention;
+	private final Duration interval;
+	private final Clock clock;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * @param api
+	 *            not <code>null</code>
+	 * @param retention
+	 *            not <code>null</code>, minimum age of deleted resources
+	 * @param interval
+	 *            not <code>null</code>, delay between cleanup runs, <code>0</code> to not schedule cleanup runs
+	 */
+	public BinaryInputCleanup(ProcessPluginApi api, Duration retention, Duration interval)
+	{
+		this(api, retention, interval, Clock.systemUTC());
+	}
+
+	public BinaryInputCleanup(ProcessPluginApi api, Duration retention, Duration interval, Clock clock)
+	{
+		this.api = api;
+		this.retention = retention;
+		this.interval = interval;
+		this.clock = clock;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(api, "api");
+		Objects.requireNonNull(retention, "retention");
+		Objects.requireNonNull(interval, "interval");
+		Objects.requireNonNull(clock, "clock");
+
+		if (retention.isNegative())
+			throw new IllegalArgumentException("retention negative");
+		if (interval.isNegative())
+			throw new IllegalArgumentException("interval negative");
+
+		if (retention.isZero() || interval.isZero())
+		{
+			logger.info("Cleanup of offloaded input Binaries disabled");
+			return;
+		}
+
+		executor = Executors.newSingleThreadScheduledExecutor(r ->
+		{
+			Thread thread = new Thread(r, "tutorial-binary-input-cleanup");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::cleanupAndLogErrors, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() throws Exception
+	{
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	private void cleanupAndLogErrors()
+	{
+		try
+		{
+			cleanup();
+		}
+		catch (Exception e)
+		{
+			logger.warn("Error while deleting offloaded input Binaries: {} - {}", e.getClass().getName(),
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Deletes all offloaded input {@link Binary} resources and security contexts last updated before the retention
+	 * period.
+	 *
+	 * @return number of deleted {@link Binary} resources
+	 */
+	public int cleanup()
+	{
+		FhirWebserviceClient client = api.getFhirWebserviceClientProvider().getLocalWebserviceClient();
+		String lastUpdated = "lt" + DateTimeFormatter.ISO_INSTANT.format(clock.instant().minus(retention));
+
+		int deleted = 0;
+		while (true)
+		{
+			Bundle bundle = client.search(DocumentReference.class,
+					Map.of("identifier", List.of(BinaryInputHelper.SECURITY_CONTEXT_IDENTIFIER_SYSTEM + "|"),
+							"_lastUpdated", List.of(lastUpdated), "_count", List.of(String.valueOf(PAGE_SIZE))));
+
+			List<DocumentReference> securityContexts = bundle.getEntry().stream()
+					.filter(BundleEntryComponent::hasResource).map(BundleEntryComponent::getResource)
+					.filter(r -> r instanceof DocumentReference).map(r -> (DocumentReference) r).toList();
+
+			// security contexts failing to delete are found again, stop if no progress is made
+			int deletedSecurityContexts = 0;
+			for (DocumentReference securityContext : securityContexts)
+			{
+				try
+				{
+					if (delete(client, securityContext))
+						deleted++;
+					deletedSecurityContexts++;
+				}
+				catch (RuntimeException e)
+				{
+					logger.warn("Error while deleting offloaded input {}: {} - {}",
+							securityContext.getIdElement().toUnqualifiedVersionless().getValue(),
+							e.getClass().getName(), e.getMessage());
+				}
+			}
+
+			if (securityContexts.size() < PAGE_SIZE || deletedSecurityContexts == 0)
+				break;
+		}
+
+		if (deleted > 0)
+			logger.info("{} offloaded input Binar{} older than {} deleted", deleted, deleted == 1 ? "y" : "ies",
+					retention);
+
+		return deleted;
+	}
+
+	// Binary first, the security context is needed to find the Binary again if its delete fails
+	private boolean delete(FhirWebserviceClient client, DocumentReference securityContext)
+	{
+		boolean binaryDeleted = false;
+		if (securityContext.getContentFirstRep().getAttachment().hasUrl())
+		{
+			IdType binaryId = new IdType(securityContext.getContentFirstRep().getAttachment().getUrl());
+			if (ResourceType.Binary.name().equals(binaryId.getResourceType()))
+				binaryDeleted = delete(client, Binary.class, binaryId.getIdPart());
+		}
+
+		delete(client, DocumentReference.class, securityContext.getIdElement().getIdPart());
+
+		return binaryDeleted;
+	}
+
+	private boolean delete(FhirWebserviceClient client, Class<? extends Resource> type, String id)
+	{
+		try
+		{
+			client.delete(type, id);
+		}
+		catch (WebApplicationException e)
+		{
+			if (!isGone(e))
+				throw e;
+
+			logger.debug("{}/{} already deleted", type.getSimpleName(), id);
+			return false;
+		}
+
+		try
+		{
+			client.deletePermanently(type, id);
+		}
+		catch (RuntimeException e)
+		{
+			logger.warn("Unable to permanently delete {}/{}: {} - {}", type.getSimpleName(), id,
+					e.getClass().getName(), e.getMessage());
+		}
+
+		return true;
+	}
+
+	private static boolean isGone(WebApplicationException e)
+	{
+		int status = e.getResponse() == null ? 0 : e.getResponse().getStatus();
+		return status == Status.NOT_FOUND.getStatusCode() || status == Status.GONE.getStatusCode();
+	}
+}
@@ -0,0 +1,306 @@
+package dev.dsf.process.tutorial.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.DocumentReference;
+import org.hl7.fhir.r4.model.Enumerations.DocumentReferenceStatus;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Moves string input parameters larger than a configurable threshold into {@link Binary} resources on the local FHIR
+ * server and resolves such {@link Binary} references back into strings. A threshold of <code>0</code> disables the
+ * offloading.
+ * <p>
+ * {@link Binary} content is transferred as raw data stream, not as base64 encoded resource. Uploads encode the string
+ * while it is sent, downloads are only started when the value is accessed. Read access to the {@link Binary} is
+ * granted by a {@link DocumentReference} with read access tags, referenced as security context.
+ * <p>
+ * If configured with a {@link ContentEncoding}, offloaded values are encoded while uploaded and a second input declares
+ * the encoding to the receiver. Inline values are never encoded.
+ * <p>
+ * The security context is identified by {@value #SECURITY_CONTEXT_IDENTIFIER_SYSTEM} and references the {@link Binary}
+ * as attachment, both are deleted by the {@link BinaryInputCleanup} after the retention period.
+ */
+public class BinaryInputHelper implements InitializingBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(BinaryInputHelper.class);
+
+	public static final String CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+	public static final String SECURITY_CONTEXT_IDENTIFIER_SYSTEM = "http://dsf.dev/sid/tutorial-binary-input";
+
+	private static final MediaType MEDIA_TYPE = MediaType.valueOf(CONTENT_TYPE);
+
+	private final ProcessPluginApi api;
+	private final int threshold;
+	private final ContentEncoding encoding;
+
+	/**
+	 * @param api
+	 *            not <code>null</code>
+	 * @param threshold
+	 *            size in bytes above which string values are offloaded, <code>0</code> to disable
+	 */
+	public BinaryInputHelper(ProcessPluginApi api, int threshold)
+	{
+		this(api, threshold, null);
+	}
+
+	/**
+	 * @param api
+	 *            not <code>null</code>
+	 * @param threshold
+	 *            size in bytes above which string values are offloaded, <code>0</code> to disable
+	 * @param encoding
+	 *            encoding of offloaded values, <code>null</code> to store values unencoded
+	 */
+	public BinaryInputHelper(ProcessPluginApi api, int threshold, ContentEncoding encoding)
+	{
+		this.api = api;
+		this.threshold = threshold;
+		this.encoding = encoding;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(api, "api");
+
+		if (threshold < 0)
+			throw new IllegalArgumentException("threshold < 0");
+	}
+
+	/**
+	 * @param input
+	 *            not <code>null</code>
+	 * @return <code>true</code> if the input has a string value with more than threshold bytes (UTF-8)
+	 */
+	public boolean exceedsThreshold(ParameterComponent input)
+	{
+		if (threshold == 0 || !(input.getValue() instanceof StringType))
+			return false;
+
+		String value = ((StringType) input.getValue()).getValue();
+		if (value == null)
+			return false;
+
+		// UTF-8 needs at least one and at most three bytes per char, only encode if in between
+		if (value.length() > threshold)
+			return true;
+		else if ((long) value.length() * 3 <= threshold)
+			return false;
+		else
+			return value.getBytes(StandardCharsets.UTF_8).length > threshold;
+	}
+
+	/**
+	 * Forwards the given input as is if it does not exceed the threshold, otherwise stores the string value as
+	 * {@link Binary} readable by the given organization and returns a new input referencing the {@link Binary},
+	 * followed by an input declaring the {@link ContentEncoding} if configured.
+	 *
+	 * @param input
+	 *            not <code>null</code>, returned as is if not exceeding the threshold
+	 * @param recipientOrganizationIdentifierValue
+	 *            not <code>null</code>, organization allowed to read the {@link Binary}
+	 * @return input with the same type coding, followed by the content encoding input if the value was encoded
+	 */
+	public Stream<ParameterComponent> forward(ParameterComponent input, String recipientOrganizationIdentifierValue)
+	{
+		if (!exceedsThreshold(input))
+			return Stream.of(input);
+
+		String value = ((StringType) input.getValue()).getValue();
+		FhirWebserviceClient client = api.getFhirWebserviceClientProvider().getLocalWebserviceClient();
+
+		DocumentReference securityContext = new DocumentReference().setStatus(DocumentReferenceStatus.CURRENT);
+		securityContext.addIdentifier().setSystem(SECURITY_CONTEXT_IDENTIFIER_SYSTEM)
+				.setValue(UUID.randomUUID().toString());
+		securityContext.addContent().getAttachment().setContentType(CONTENT_TYPE);
+		api.getReadAccessHelper().addLocal(securityContext);
+		api.getReadAccessHelper().addOrganization(securityContext, recipientOrganizationIdentifierValue);
+
+		IdType securityContextId = client.withMinimalReturn().create(securityContext);
+
+		IdType id;
+		try (InputStream in = encoding == null ? new CharSequenceInputStream(value, StandardCharsets.UTF_8)
+				: encoding.encode(new CharSequenceInputStream(value, StandardCharsets.UTF_8)))
+		{
+			id = client.withMinimalReturn().createBinary(in,
+					encoding == null ? MEDIA_TYPE : MediaType.valueOf(encoding.getContentType()),
+					securityContextId.toUnqualifiedVersionless().getValue());
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while uploading input as Binary", e);
+			throw new RuntimeException(e);
+		}
+
+		String url = new IdType(client.getBaseUrl(), ResourceType.Binary.name(), id.getIdPart(), id.getVersionIdPart())
+				.getValue();
+
+		// links the Binary for the cleanup, the security context is found by identifier and last updated
+		securityContext.setIdElement(new IdType(ResourceType.DocumentReference.name(), securityContextId.getIdPart(),
+				securityContextId.getVersionIdPart()));
+		securityContext.getContentFirstRep().getAttachment()
+				.setUrl(new IdType(ResourceType.Binary.name(), id.getIdPart()).getValue());
+		client.withMinimalReturn().update(securityContext);
+
+		logger.debug("Input with {} chars stored as {}, encoding {}", value.length(), url,
+				encoding == null ? "none" : encoding.getCode());
+
+		ParameterComponent forwarded = new ParameterComponent(input.getType(), new Reference(url));
+		if (encoding == null)
+			return Stream.of(forwarded);
+		else
+			return Stream.of(forwarded, encoding.toInput(input.getType().getCodingFirstRep().getCode()));
+	}
+
+	/**
+	 * @param input
+	 *            may be <code>null</code>
+	 * @return string value of the input or content of the referenced {@link Binary}, empty if the input is
+	 *         <code>null</code> or has neither a string value nor a {@link Binary} reference
+	 */
+	public Optional<String> getStringValue(ParameterComponent input)
+	{
+		return getStringValue(input, null);
+	}
+
+	/**
+	 * @param input
+	 *            may be <code>null</code>
+	 * @param encoding
+	 *            encoding of the referenced {@link Binary} content, <code>null</code> if not encoded
+	 * @return string value of the input or decoded content of the referenced {@link Binary}, empty if the input is
+	 *         <code>null</code> or has neither a string value nor a {@link Binary} reference
+	 */
+	public Optional<String> getStringValue(ParameterComponent input, ContentEncoding encoding)
+	{
+		if (input == null)
+			return Optional.empty();
+
+		else if (input.getValue() instanceof StringType s)
+			return Optional.ofNullable(s.getValue());
+
+		Optional<IdType> binaryId = getBinaryId(input);
+		if (binaryId.isEmpty())
+			return Optional.empty();
+
+		try (InputStream in = readBinary(binaryId.get(), encoding))
+		{
+			return Optional.of(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while reading Binary " + binaryId.get().getValue(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Compares the string value of the input or the content of the referenced {@link Binary} with the expected value.
+	 * At most the length of the expected value plus one byte is read from the {@link Binary}.
+	 *
+	 * @param input
+	 *            may be <code>null</code>
+	 * @param expected
+	 *            not <code>null</code>
+	 * @return <code>true</code> if the input has the expected string value or references a {@link Binary} with the
+	 *         expected value as content
+	 */
+	public boolean valueEquals(ParameterComponent input, String expected)
+	{
+		return valueEquals(input, null, expected);
+	}
+
+	/**
+	 * Compares the string value of the input or the decoded content of the referenced {@link Binary} with the expected
+	 * value. At most the length of the expected value plus one byte is decoded from the {@link Binary}.
+	 *
+	 * @param input
+	 *            may be <code>null</code>
+	 * @param encoding
+	 *            encoding of the referenced {@link Binary} content, <code>null</code> if not encoded
+	 * @param expected
+	 *            not <code>null</code>
+	 * @return <code>true</code> if the input has the expected string value or references a {@link Binary} with the
+	 *         expected value as content
+	 */
+	public boolean valueEquals(ParameterComponent input, ContentEncoding encoding, String expected)
+	{
+		Objects.requireNonNull(expected, "expected");
+
+		if (input == null)
+			return false;
+
+		else if (input.getValue() instanceof StringType s)
+			return expected.equals(s.getValue());
+
+		Optional<IdType> binaryId = getBinaryId(input);
+		if (binaryId.isEmpty())
+			return false;
+
+		byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+		try (InputStream in = readBinary(binaryId.get(), encoding))
+		{
+			return Arrays.equals(expectedBytes, in.readNBytes(expectedBytes.length + 1));
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while reading Binary " + binaryId.get().getValue(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Optional<IdType> getBinaryId(ParameterComponent input)
+	{
+		if (input.getValue() instanceof Reference r && r.hasReference()
+				&& ResourceType.Binary.name().equals(r.getReferenceElement().getResourceType()))
+			return Optional.of(new IdType(r.getReference()));
+		else
+			return Optional.empty();
+	}
+
+	private InputStream readBinary(IdType id, ContentEncoding encoding) throws IOException
+	{
+		FhirWebserviceClient client = id.hasBaseUrl()
+				? api.getFhirWebserviceClientProvider().getWebserviceClient(id.getBaseUrl())
+				: api.getFhirWebserviceClientProvider().getLocalWebserviceClient();
+
+		MediaType mediaType = encoding == null ? MEDIA_TYPE : MediaType.valueOf(encoding.getContentType());
+		InputStream in = id.hasVersionIdPart() ? client.readBinary(id.getIdPart(), id.getVersionIdPart(), mediaType)
+				: client.readBinary(id.getIdPart(), mediaType);
+
+		if (encoding == null)
+			return in;
+
+		try
+		{
+			return encoding.decode(in);
+		}
+		catch (IOException e)
+		{
+			in.close();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package dev.dsf.process.tutorial.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Objects;
+
+/**
+ * Encodes a {@link CharSequence} while it is read, at most one buffer of encoded bytes is held in memory. Malformed
+ * input is replaced with the replacement bytes of the charset, as by {@link String#getBytes(Charset)}.
+ */
+class CharSequenceInputStream extends InputStream
+{
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final CharBuffer chars;
+	private final CharsetEncoder encoder;
+	private final ByteBuffer bytes;
+
+	private boolean encoded;
+	private boolean flushed;
+
+	/**
+	 * @param value
+	 *            not <code>null</code>
+	 * @param charset
+	 *            not <code>null</code>
+	 */
+	CharSequenceInputStream(CharSequence value, Charset charset)
+	{
+		this(value, charset, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param value
+	 *            not <code>null</code>
+	 * @param charset
+	 *            not <code>null</code>
+	 * @param bufferSize
+	 *            &gt;= 16, size of the encoded bytes buffer
+	 */
+	CharSequenceInputStream(CharSequence value, Charset charset, int bufferSize)
+	{
+		chars = CharBuffer.wrap(Objects.requireNonNull(value, "value"));
+		encoder = Objects.requireNonNull(charset, "charset").newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		if (bufferSize < 16)
+			throw new IllegalArgumentException("bufferSize < 16");
+
+		bytes = ByteBuffer.allocate(bufferSize);
+		bytes.flip();
+	}
+
+	private boolean fill() throws IOException
+	{
+		if (bytes.hasRemaining())
+			return true;
+		else if (flushed)
+			return false;
+
+		bytes.clear();
+
+		if (!encoded)
+		{
+			CoderResult result = encoder.encode(chars, bytes, true);
+			if (result.isError())
+				throwError(result);
+
+			// underflow: all chars encoded, overflow: buffer full
+			encoded = result.isUnderflow();
+		}
+
+		if (encoded)
+			flushed = encoder.flush(bytes).isUnderflow();
+
+		bytes.flip();
+		return bytes.hasRemaining();
+	}
+
+	private static void throwError(CoderResult result) throws IOException
+	{
+		try
+		{
+			result.throwException();
+		}
+		catch (CharacterCodingException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		return fill() ? bytes.get() & 0xff : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		Objects.checkFromIndexSize(off, len, b.length);
+		if (len == 0)
+			return 0;
+
+		int read = 0;
+		while (read < len && fill())
+		{
+			int n = Math.min(len - read, bytes.remaining());
+			bytes.get(b, off + read, n);
+			read += n;
+		}
+
+		return read == 0 ? -1 : read;
+	}
+
+	@Override
+	public int available()
+	{
+		return bytes.remaining();
+	}
+}
@@ -0,0 +1,115 @@
+package dev.dsf.process.tutorial.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+
+import dev.dsf.process.tutorial.ConstantsTutorial;
+
+/**
+ * Content encodings of {@link org.hl7.fhir.r4.model.Binary} stored input values, declared by codes of the CodeSystem
+ * {@value ConstantsTutorial#CODESYSTEM_TUTORIAL_CONTENT_ENCODING}. The encoding of an input is declared by an input of
+ * type <code>tutorial-content-encoding|&lt;encoding&gt;</code> with the code of the encoded input as string value.
+ */
+public enum ContentEncoding
+{
+	GZIP(ConstantsTutorial.CODESYSTEM_TUTORIAL_CONTENT_ENCODING_VALUE_GZIP, "application/gzip")
+	{
+		@Override
+		public InputStream encode(InputStream in)
+		{
+			// speed over ratio, values are compressed on the engine thread while sent
+			return new GzipCompressingInputStream(in, Deflater.BEST_SPEED);
+		}
+
+		@Override
+		public InputStream decode(InputStream in) throws IOException
+		{
+			return new GZIPInputStream(in, 8192);
+		}
+	};
+
+	private final String code;
+	private final String contentType;
+
+	ContentEncoding(String code, String contentType)
+	{
+		this.code = code;
+		this.contentType = contentType;
+	}
+
+	public String getCode()
+	{
+		return code;
+	}
+
+	/**
+	 * @return content type of {@link org.hl7.fhir.r4.model.Binary} resources with encoded content
+	 */
+	public String getContentType()
+	{
+		return contentType;
+	}
+
+	/**
+	 * @param in
+	 *            not <code>null</code>, closed when the returned stream is closed
+	 * @return stream of the encoded bytes, encoded while read
+	 */
+	public abstract InputStream encode(InputStream in);
+
+	/**
+	 * @param in
+	 *            not <code>null</code>, closed when the returned stream is closed
+	 * @return stream of the decoded bytes, decoded while read
+	 * @throws IOException
+	 *             if the stream does not start with the header of the encoding
+	 */
+	public abstract InputStream decode(InputStream in) throws IOException;
+
+	/**
+	 * @param code
+	 *            may be <code>null</code>
+	 * @return empty if <code>null</code>, blank or not a known code
+	 */
+	public static Optional<ContentEncoding> fromCode(String code)
+	{
+		return Arrays.stream(values()).filter(e -> e.code.equals(code)).findFirst();
+	}
+
+	/**
+	 * @param encodedInputCode
+	 *            not <code>null</code>, code of the encoded input, e.g. <code>tutorial-input</code>
+	 * @return input declaring this encoding for the input with the given code
+	 */
+	public ParameterComponent toInput(String encodedInputCode)
+	{
+		return new ParameterComponent(
+				new CodeableConcept(new Coding(ConstantsTutorial.CODESYSTEM_TUTORIAL_CONTENT_ENCODING, code, null)),
+				new StringType(encodedInputCode));
+	}
+
+	/**
+	 * @param inputs
+	 *            not <code>null</code>
+	 * @param encodedInputCode
+	 *            not <code>null</code>, code of the encoded input, e.g. <code>tutorial-input</code>
+	 * @return encoding declared for the input with the given code, empty if not encoded
+	 */
+	public static Optional<ContentEncoding> of(InputParameterIndex inputs, String encodedInputCode)
+	{
+		return Arrays.stream(values())
+				.filter(e -> inputs
+						.getInputParameters(ConstantsTutorial.CODESYSTEM_TUTORIAL_CONTENT_ENCODING, e.code).stream()
+						.anyMatch(i -> i.getValue() instanceof StringType s && encodedInputCode.equals(s.getValue())))
+				.findFirst();
+	}
+}
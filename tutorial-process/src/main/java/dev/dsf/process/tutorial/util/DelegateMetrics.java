@@ -0,0 +1,287 @@
+package dev.dsf.process.tutorial.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import dev.dsf.bpe.v1.variables.Variables;
+
+/**
+ * Latency, error and in-flight metrics of service delegates and message sends, one timer per process, activity and
+ * target organization. Latencies are counted in a histogram with 16 logarithmic buckets per power of two, percentiles
+ * are accurate to about 6%. Recording only updates atomic counters of the timer, timers are created on first use.
+ * <p>
+ * If an object name is given, the metrics are registered as {@link DelegateMetricsMXBean} with the platform MBean
+ * server. Disabled metrics only execute the recorded actions. Recorded actions are traced by the {@link Tracer}, also
+ * if the metrics are disabled.
+ */
+public class DelegateMetrics implements DelegateMetricsMXBean, InitializingBean, DisposableBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(DelegateMetrics.class);
+
+	private static final String NONE = "-";
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 45; // 2^46 ns ~ 19.5 h
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private static final DelegateMetrics DISABLED = new DelegateMetrics(false, null);
+
+	@FunctionalInterface
+	public interface Action<E extends Exception>
+	{
+		void execute() throws E;
+	}
+
+	private record Key(String processId, String activityId, String organization)
+	{
+	}
+
+	private static final class Timer
+	{
+		final long createdNanos = System.nanoTime();
+		final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		final LongAdder count = new LongAdder();
+		final LongAdder errors = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+		final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+		final AtomicInteger inFlight = new AtomicInteger();
+
+		void record(long nanos, boolean error)
+		{
+			buckets.incrementAndGet(bucket(nanos));
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+			count.increment();
+
+			if (error)
+				errors.increment();
+		}
+
+		DelegateTimerSnapshot snapshot(Key key)
+		{
+			long[] counts = new long[BUCKETS];
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++)
+				total += counts[i] = buckets.get(i);
+
+			long c = count.sum();
+			long max = maxNanos.get();
+			double seconds = (System.nanoTime() - createdNanos) / 1e9;
+
+			return new DelegateTimerSnapshot(key.processId(), key.activityId(), key.organization(), c, errors.sum(),
+					inFlight.get(), seconds > 0 ? c / seconds : 0, millis(totalNanos.sum()),
+					c > 0 ? millis(totalNanos.sum()) / c : 0, millis(percentile(counts, total, 0.5, max)),
+					millis(percentile(counts, total, 0.95, max)), millis(percentile(counts, total, 0.99, max)),
+					millis(max));
+		}
+	}
+
+	private final boolean enabled;
+	private final String objectName;
+	private final Tracer tracer;
+
+	private final ConcurrentMap<Key, Timer> timers = new ConcurrentHashMap<>();
+
+	private ObjectName registeredName;
+
+	/**
+	 * @param enabled
+	 *            <code>false</code> to only execute the recorded actions
+	 * @param objectName
+	 *            may be <code>null</code>, JMX object name of the {@link DelegateMetricsMXBean}, not registered if
+	 *            <code>null</code>
+	 */
+	public DelegateMetrics(boolean enabled, String objectName)
+	{
+		this(enabled, objectName, Tracer.disabled());
+	}
+
+	/**
+	 * @param enabled
+	 *            <code>false</code> to only execute and trace the recorded actions
+	 * @param objectName
+	 *            may be <code>null</code>, JMX object name of the {@link DelegateMetricsMXBean}, not registered if
+	 *            <code>null</code>
+	 * @param tracer
+	 *            not <code>null</code>
+	 */
+	public DelegateMetrics(boolean enabled, String objectName, Tracer tracer)
+	{
+		this.enabled = enabled;
+		this.objectName = objectName;
+		this.tracer = tracer;
+	}
+
+	/**
+	 * @return shared instance without recording, for delegates created without metrics
+	 */
+	public static DelegateMetrics disabled()
+	{
+		return DISABLED;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(tracer, "tracer");
+
+		if (!enabled || objectName == null)
+			return;
+
+		try
+		{
+			ObjectName name = new ObjectName(objectName);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			registeredName = name;
+		}
+		catch (JMException e)
+		{
+			// e.g. a second instance of the plugin with the same object name
+			logger.warn("Unable to register delegate metrics as {}: {} - {}", objectName, e.getClass().getName(),
+					e.getMessage());
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception
+	{
+		if (registeredName == null)
+			return;
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(registeredName))
+			server.unregisterMBean(registeredName);
+
+		registeredName = null;
+	}
+
+	/**
+	 * Executes the action and records its latency, errors thrown by the action are counted and rethrown.
+	 *
+	 * @param execution
+	 *            not <code>null</code>, process definition key and current activity id are used as tags
+	 * @param variables
+	 *            not <code>null</code> if tracing is enabled, see {@link Tracer#trace}
+	 * @param organizationIdentifierValue
+	 *            may be <code>null</code>, identifier of the target organization
+	 * @param action
+	 *            not <code>null</code>
+	 * @throws E
+	 *             thrown by the action
+	 */
+	public <E extends Exception> void record(DelegateExecution execution, Variables variables,
+			String organizationIdentifierValue, Action<E> action) throws E
+	{
+		if (!enabled)
+		{
+			tracer.trace(execution, variables, organizationIdentifierValue, action);
+			return;
+		}
+
+		Timer timer = timers.computeIfAbsent(new Key(processId(execution.getProcessDefinitionId()),
+				orNone(execution.getCurrentActivityId()), orNone(organizationIdentifierValue)), k -> new Timer());
+
+		timer.inFlight.incrementAndGet();
+		long start = System.nanoTime();
+		boolean error = true;
+		try
+		{
+			tracer.trace(execution, variables, organizationIdentifierValue, action);
+			error = false;
+		}
+		finally
+		{
+			timer.record(System.nanoTime() - start, error);
+			timer.inFlight.decrementAndGet();
+		}
+	}
+
+	@Override
+	public List<DelegateTimerSnapshot> getTimers()
+	{
+		return timers.entrySet().stream().map(e -> e.getValue().snapshot(e.getKey()))
+				.sorted(Comparator.comparingDouble(DelegateTimerSnapshot::getTotalMillis).reversed()).toList();
+	}
+
+	@Override
+	public void reset()
+	{
+		timers.clear();
+	}
+
+	static String processId(String processDefinitionId)
+	{
+		// <key>:<version>:<id>
+		if (processDefinitionId == null)
+			return NONE;
+
+		int colon = processDefinitionId.indexOf(':');
+		return colon < 0 ? processDefinitionId : processDefinitionId.substring(0, colon);
+	}
+
+	static String orNone(String value)
+	{
+		return value == null || value.isBlank() ? NONE : value;
+	}
+
+	static int bucket(long nanos)
+	{
+		if (nanos < SUB_BUCKETS)
+			return (int) Math.max(0, nanos);
+
+		int exponent = Math.min(63 - Long.numberOfLeadingZeros(nanos), MAX_EXPONENT);
+		int subBucket = (int) (Math.min(nanos >>> (exponent - SUB_BUCKET_BITS), 2 * SUB_BUCKETS - 1)) - SUB_BUCKETS;
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBound(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		return ((long) (bucket % SUB_BUCKETS + SUB_BUCKETS + 1) << shift) - 1;
+	}
+
+	private static long percentile(long[] counts, long total, double quantile, long max)
+	{
+		if (total == 0)
+			return 0;
+
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(upperBound(i), max);
+		}
+
+		return max;
+	}
+
+	private static double millis(long nanos)
+	{
+		return nanos / 1e6;
+	}
+}
@@ -0,0 +1,19 @@
+package dev.dsf.process.tutorial.util;
+
+import java.util.List;
+
+/**
+ * JMX view of the {@link DelegateMetrics}, e.g. for JConsole or a JMX exporter.
+ */
+public interface DelegateMetricsMXBean
+{
+	/**
+	 * @return one entry per process, activity and target organization, ordered by total time descending
+	 */
+	List<DelegateTimerSnapshot> getTimers();
+
+	/**
+	 * Removes all recorded values, executions in flight while resetting are not counted.
+	 */
+	void reset();
+}
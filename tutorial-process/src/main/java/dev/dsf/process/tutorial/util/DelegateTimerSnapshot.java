@@ -0,0 +1,129 @@
+package dev.dsf.process.tutorial.util;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Values of one {@link DelegateMetrics} timer at the time of the snapshot, latencies in milliseconds.
+ */
+public class DelegateTimerSnapshot
+{
+	private final String processId;
+	private final String activityId;
+	private final String organization;
+	private final long count;
+	private final long errors;
+	private final int inFlight;
+	private final double throughputPerSecond;
+	private final double totalMillis;
+	private final double meanMillis;
+	private final double p50Millis;
+	private final double p95Millis;
+	private final double p99Millis;
+	private final double maxMillis;
+
+	@ConstructorProperties({ "processId", "activityId", "organization", "count", "errors", "inFlight",
+			"throughputPerSecond", "totalMillis", "meanMillis", "p50Millis", "p95Millis", "p99Millis", "maxMillis" })
+	public DelegateTimerSnapshot(String processId, String activityId, String organization, long count, long errors,
+			int inFlight, double throughputPerSecond, double totalMillis, double meanMillis, double p50Millis,
+			double p95Millis, double p99Millis, double maxMillis)
+	{
+		this.processId = processId;
+		this.activityId = activityId;
+		this.organization = organization;
+		this.count = count;
+		this.errors = errors;
+		this.inFlight = inFlight;
+		this.throughputPerSecond = throughputPerSecond;
+		this.totalMillis = totalMillis;
+		this.meanMillis = meanMillis;
+		this.p50Millis = p50Millis;
+		this.p95Millis = p95Millis;
+		this.p99Millis = p99Millis;
+		this.maxMillis = maxMillis;
+	}
+
+	/**
+	 * @return process definition key, e.g. <code>dsfdev_dicProcess</code>
+	 */
+	public String getProcessId()
+	{
+		return processId;
+	}
+
+	public String getActivityId()
+	{
+		return activityId;
+	}
+
+	/**
+	 * @return identifier of the target organization, <code>-</code> if the activity has no single target
+	 */
+	public String getOrganization()
+	{
+		return organization;
+	}
+
+	/**
+	 * @return number of completed executions, including executions with errors
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	public long getErrors()
+	{
+		return errors;
+	}
+
+	public int getInFlight()
+	{
+		return inFlight;
+	}
+
+	/**
+	 * @return completed executions per second since the first execution after creation or reset
+	 */
+	public double getThroughputPerSecond()
+	{
+		return throughputPerSecond;
+	}
+
+	public double getTotalMillis()
+	{
+		return totalMillis;
+	}
+
+	public double getMeanMillis()
+	{
+		return meanMillis;
+	}
+
+	public double getP50Millis()
+	{
+		return p50Millis;
+	}
+
+	public double getP95Millis()
+	{
+		return p95Millis;
+	}
+
+	public double getP99Millis()
+	{
+		return p99Millis;
+	}
+
+	public double getMaxMillis()
+	{
+		return maxMillis;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s/%s -> %s: %d (%d errors, %d in flight, %.1f/s), mean %.2f ms, p50 %.2f ms, "
+				+ "p95 %.2f ms, p99 %.2f ms, max %.2f ms", processId, activityId, organization, count, errors,
+				inFlight, throughputPerSecond, meanMillis, p50Millis, p95Millis, p99Millis, maxMillis);
+	}
+}
@@ -0,0 +1,253 @@
+package dev.dsf.process.tutorial.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.MetadataResource;
+import org.hl7.fhir.r4.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.StrictErrorHandler;
+import dev.dsf.bpe.v1.ProcessPluginDefinition;
+
+/**
+ * Index of the FHIR resources of a {@link ProcessPluginDefinition}. Created at build time by parsing every resource
+ * once and stored as {@value #INDEX_FILE} inside the plugin jar. Reading the index does not parse any resource,
+ * resources are parsed on first access via {@link #getResource(Entry)} and kept afterwards.
+ */
+public final class FhirResourceIndex
+{
+	private static final Logger logger = LoggerFactory.getLogger(FhirResourceIndex.class);
+
+	public static final String INDEX_FILE = "fhir/resource-index.tsv";
+
+	private static final String SEPARATOR = "\t";
+
+	public static final class Entry
+	{
+		private final String processId;
+		private final String path;
+		private final String resourceType;
+		private final String url;
+		private final String version;
+
+		private Entry(String processId, String path, String resourceType, String url, String version)
+		{
+			this.processId = processId;
+			this.path = path;
+			this.resourceType = resourceType;
+			this.url = url;
+			this.version = version;
+		}
+
+		public String getProcessId()
+		{
+			return processId;
+		}
+
+		public String getPath()
+		{
+			return path;
+		}
+
+		public String getResourceType()
+		{
+			return resourceType;
+		}
+
+		/**
+		 * @return canonical url, empty string for non metadata resources
+		 */
+		public String getUrl()
+		{
+			return url;
+		}
+
+		/**
+		 * @return business version with placeholders replaced, empty string for non metadata resources
+		 */
+		public String getVersion()
+		{
+			return version;
+		}
+
+		private String toLine()
+		{
+			return String.join(SEPARATOR, processId, path, resourceType, url, version);
+		}
+
+		private static Entry fromLine(String line)
+		{
+			String[] values = line.split(SEPARATOR, -1);
+			if (values.length != 5)
+				throw new IllegalArgumentException("Index line with " + values.length + " values, 5 expected");
+
+			return new Entry(values[0], values[1], values[2], values[3], values[4]);
+		}
+	}
+
+	private final List<Entry> entries;
+	private final FhirContext fhirContext;
+	private final ClassLoader classLoader;
+	private final String resourceVersion;
+	private final String resourceReleaseDate;
+
+	private final ConcurrentMap<String, Resource> resourcesByPath = new ConcurrentHashMap<>();
+
+	private FhirResourceIndex(List<Entry> entries, FhirContext fhirContext, ClassLoader classLoader,
+			String resourceVersion, String resourceReleaseDate)
+	{
+		this.entries = Collections.unmodifiableList(entries);
+		this.fhirContext = fhirContext;
+		this.classLoader = classLoader;
+		this.resourceVersion = resourceVersion;
+		this.resourceReleaseDate = resourceReleaseDate;
+	}
+
+	/**
+	 * Parses all resources of the given definition with a strict parser and checks that each file exists and matches
+	 * the resource type of its folder. The returned index keeps all parsed resources.
+	 *
+	 * @throws IllegalStateException
+	 *             if a resource is missing or invalid
+	 */
+	public static FhirResourceIndex create(ProcessPluginDefinition definition, FhirContext fhirContext,
+			ClassLoader classLoader)
+	{
+		List<Entry> entries = new ArrayList<>();
+		FhirResourceIndex index = new FhirResourceIndex(entries, fhirContext, classLoader,
+				definition.getResourceVersion(),
+				definition.getResourceReleaseDate().format(DateTimeFormatter.ISO_LOCAL_DATE));
+
+		definition.getFhirResourcesByProcessId().entrySet().stream().sorted(Map.Entry.comparingByKey())
+				.forEach(e -> e.getValue().forEach(path ->
+				{
+					Resource resource = index.parse(path, true);
+
+					String folder = path.substring(0, Math.max(path.lastIndexOf('/'), 0));
+					if (!folder.endsWith(resource.getResourceType().name()))
+						throw new IllegalStateException("Resource " + path + " of type "
+								+ resource.getResourceType().name() + " not in folder of same type");
+
+					String url = resource instanceof MetadataResource m && m.hasUrl() ? m.getUrl() : "";
+					String version = resource instanceof MetadataResource m && m.hasVersion() ? m.getVersion() : "";
+
+					entries.add(new Entry(e.getKey(), path, resource.getResourceType().name(), url, version));
+					index.resourcesByPath.put(path, resource);
+				}));
+
+		return index;
+	}
+
+	/**
+	 * Reads {@value #INDEX_FILE} from the given class loader, falls back to {@link #create} if the index is not
+	 * available.
+	 */
+	public static FhirResourceIndex read(ProcessPluginDefinition definition, FhirContext fhirContext,
+			ClassLoader classLoader)
+	{
+		try (InputStream in = classLoader.getResourceAsStream(INDEX_FILE))
+		{
+			if (in == null)
+			{
+				logger.debug("{} not found, parsing all resources", INDEX_FILE);
+				return create(definition, fhirContext, classLoader);
+			}
+
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+			List<Entry> entries = reader.lines().filter(l -> !l.isBlank() && !l.startsWith("#")).map(Entry::fromLine)
+					.collect(Collectors.toList());
+
+			return new FhirResourceIndex(entries, fhirContext, classLoader, definition.getResourceVersion(),
+					definition.getResourceReleaseDate().format(DateTimeFormatter.ISO_LOCAL_DATE));
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while reading " + INDEX_FILE, e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	public void write(Writer writer) throws IOException
+	{
+		writer.write("# processId\tpath\tresourceType\turl\tversion\n");
+		for (Entry entry : entries)
+		{
+			writer.write(entry.toLine());
+			writer.write('\n');
+		}
+	}
+
+	public List<Entry> getEntries()
+	{
+		return entries;
+	}
+
+	public List<Entry> getEntries(String processId)
+	{
+		return entries.stream().filter(e -> e.getProcessId().equals(processId)).toList();
+	}
+
+	public Optional<Entry> findByUrl(String url)
+	{
+		return entries.stream().filter(e -> e.getUrl().equals(url)).findFirst();
+	}
+
+	/**
+	 * @param entry
+	 *            not <code>null</code>
+	 * @return parsed resource with version and date placeholders replaced, shared instance, must not be modified
+	 */
+	public Resource getResource(Entry entry)
+	{
+		Objects.requireNonNull(entry, "entry");
+
+		return resourcesByPath.computeIfAbsent(entry.getPath(), path -> parse(path, false));
+	}
+
+	private Resource parse(String path, boolean strict)
+	{
+		try (InputStream in = classLoader.getResourceAsStream(path))
+		{
+			if (in == null)
+				throw new IllegalStateException("Resource " + path + " not found");
+
+			String content = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+					.replace("#{version}", resourceVersion).replace("#{date}", resourceReleaseDate);
+
+			IParser parser = path.endsWith(".json") ? fhirContext.newJsonParser() : fhirContext.newXmlParser();
+			if (strict)
+				parser.setParserErrorHandler(new StrictErrorHandler());
+
+			IBaseResource resource = parser.parseResource(content);
+
+			if (!(resource instanceof Resource))
+				throw new IllegalStateException("Resource " + path + " not a FHIR R4 resource");
+
+			return (Resource) resource;
+		}
+		catch (IOException e)
+		{
+			logger.error("Error while reading " + path, e);
+			throw new RuntimeException(e);
+		}
+	}
+}
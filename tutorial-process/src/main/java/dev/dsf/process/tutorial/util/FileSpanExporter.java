@@ -0,0 +1,143 @@
+package dev.dsf.process.tutorial.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Appends exported spans as JSON lines to a local file. Spans written since the last flush are flushed once per flush
+ * interval by a scheduled task and when the exporter is destroyed, write errors are logged and the span is dropped.
+ */
+public class FileSpanExporter implements SpanExporter, InitializingBean, DisposableBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+
+	private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+	private final Path file;
+	private final Duration flushInterval;
+
+	private BufferedWriter writer;
+	private boolean unflushed;
+	private ScheduledExecutorService executor;
+
+	public FileSpanExporter(Path file)
+	{
+		this(file, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public FileSpanExporter(Path file, Duration flushInterval)
+	{
+		this.file = file;
+		this.flushInterval = flushInterval;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(file, "file");
+		Objects.requireNonNull(flushInterval, "flushInterval");
+
+		if (flushInterval.isNegative() || flushInterval.isZero())
+			throw new IllegalArgumentException("flushInterval not positive");
+
+		executor = Executors.newSingleThreadScheduledExecutor(r ->
+		{
+			Thread thread = new Thread(r, "tutorial-span-export-flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public synchronized void export(Span span)
+	{
+		try
+		{
+			if (writer == null)
+				writer = open();
+
+			writer.write(span.toJson());
+			writer.newLine();
+			unflushed = true;
+		}
+		catch (IOException e)
+		{
+			logger.warn("Unable to write span to {}: {} - {}", file, e.getClass().getName(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Flushes the spans written since the last flush, called once per flush interval.
+	 */
+	public synchronized void flush()
+	{
+		if (writer == null || !unflushed)
+			return;
+
+		try
+		{
+			writer.flush();
+			unflushed = false;
+		}
+		catch (IOException e)
+		{
+			logger.warn("Unable to flush spans to {}: {} - {}", file, e.getClass().getName(), e.getMessage());
+		}
+	}
+
+	private BufferedWriter open() throws IOException
+	{
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null)
+			Files.createDirectories(parent);
+
+		return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+	}
+
+	@Override
+	public void destroy() throws Exception
+	{
+		if (executor != null)
+			executor.shutdownNow();
+
+		close();
+	}
+
+	private synchronized void close()
+	{
+		if (writer == null)
+			return;
+
+		try
+		{
+			writer.close();
+		}
+		catch (IOException e)
+		{
+			logger.error("Unable to close span file {}: {} - {}", file, e.getClass().getName(), e.getMessage());
+			throw new RuntimeException(e);
+		}
+		finally
+		{
+			writer = null;
+			unflushed = false;
+		}
+	}
+}
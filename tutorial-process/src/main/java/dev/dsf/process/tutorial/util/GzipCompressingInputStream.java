@@ -0,0 +1,123 @@
+package dev.dsf.process.tutorial.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the source stream into the gzip format (RFC 1952) while it is read, the counterpart of
+ * {@link java.util.zip.GZIPInputStream}. At most one buffer of source and one buffer of compressed bytes are held in
+ * memory.
+ */
+class GzipCompressingInputStream extends InputStream
+{
+	private static final int BUFFER_SIZE = 8192;
+
+	// magic number, deflate, no flags, no modification time, no extra flags, unknown OS
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private final InputStream source;
+	private final Deflater deflater;
+	private final CRC32 crc = new CRC32();
+
+	private final byte[] sourceBuffer = new byte[BUFFER_SIZE];
+	private byte[] buffer = HEADER;
+	private int position;
+	private int limit = HEADER.length;
+
+	private boolean trailerWritten;
+
+	/**
+	 * @param source
+	 *            not <code>null</code>, closed when this stream is closed
+	 * @param level
+	 *            deflate level 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+	 */
+	GzipCompressingInputStream(InputStream source, int level)
+	{
+		this.source = Objects.requireNonNull(source, "source");
+		this.deflater = new Deflater(level, true);
+	}
+
+	private boolean fill() throws IOException
+	{
+		while (position >= limit)
+		{
+			if (trailerWritten)
+				return false;
+
+			if (buffer == HEADER)
+				buffer = new byte[BUFFER_SIZE];
+
+			position = 0;
+			limit = 0;
+
+			if (deflater.needsInput() && !deflater.finished())
+			{
+				int read = source.read(sourceBuffer);
+				if (read < 0)
+					deflater.finish();
+				else if (read > 0)
+				{
+					crc.update(sourceBuffer, 0, read);
+					deflater.setInput(sourceBuffer, 0, read);
+				}
+			}
+
+			if (!deflater.finished())
+				limit = deflater.deflate(buffer);
+			else
+				writeTrailer();
+		}
+
+		return true;
+	}
+
+	private void writeTrailer()
+	{
+		int value = (int) crc.getValue();
+		int size = (int) deflater.getBytesRead(); // modulo 2^32
+
+		for (int i = 0; i < 4; i++)
+			buffer[i] = (byte) (value >>> (8 * i));
+		for (int i = 0; i < 4; i++)
+			buffer[4 + i] = (byte) (size >>> (8 * i));
+
+		limit = 8;
+		trailerWritten = true;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		return fill() ? buffer[position++] & 0xff : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		Objects.checkFromIndexSize(off, len, b.length);
+		if (len == 0)
+			return 0;
+
+		int read = 0;
+		while (read < len && fill())
+		{
+			int n = Math.min(len - read, limit - position);
+			System.arraycopy(buffer, position, b, off + read, n);
+			position += n;
+			read += n;
+		}
+
+		return read == 0 ? -1 : read;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		deflater.end();
+		source.close();
+	}
+}
@@ -0,0 +1,33 @@
+package dev.dsf.process.tutorial.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects exported spans in memory, e.g. to analyze the traces of a test or benchmark run.
+ */
+public class InMemorySpanExporter implements SpanExporter
+{
+	private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+
+	@Override
+	public void export(Span span)
+	{
+		spans.add(span);
+	}
+
+	/**
+	 * @return spans in export order
+	 */
+	public List<Span> getSpans()
+	{
+		return new ArrayList<>(spans);
+	}
+
+	public void clear()
+	{
+		spans.clear();
+	}
+}
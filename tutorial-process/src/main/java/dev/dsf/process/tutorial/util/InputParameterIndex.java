@@ -0,0 +1,101 @@
+package dev.dsf.process.tutorial.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.hl7.fhir.r4.model.Type;
+
+/**
+ * Index of the {@link Task} input parameters by coding system and code, lookups do not iterate the input list. The
+ * index is built on the first lookup and kept as user data of the {@link Task} object, all lookups on the same object
+ * during an execution share it. Inputs added or removed after the index was built cause a rebuild, changes to the
+ * codings of existing inputs are not detected.
+ */
+public final class InputParameterIndex
+{
+	private static final String USER_DATA_KEY = InputParameterIndex.class.getName();
+
+	/**
+	 * @param task
+	 *            not <code>null</code>
+	 * @return index of the current inputs of the given task, built once per {@link Task} object
+	 */
+	public static InputParameterIndex of(Task task)
+	{
+		Objects.requireNonNull(task, "task");
+
+		List<ParameterComponent> inputs = task.getInput();
+		if (task.getUserData(USER_DATA_KEY) instanceof InputParameterIndex index && index.isIndexOf(inputs))
+			return index;
+
+		InputParameterIndex index = new InputParameterIndex(inputs);
+		task.setUserData(USER_DATA_KEY, index);
+		return index;
+	}
+
+	private static String key(String system, String code)
+	{
+		return system + "|" + code;
+	}
+
+	private final Map<String, List<ParameterComponent>> inputsBySystemAndCode = new HashMap<>();
+	private final List<ParameterComponent> inputs;
+	private final int size;
+
+	private InputParameterIndex(List<ParameterComponent> inputs)
+	{
+		this.inputs = inputs;
+		size = inputs.size();
+
+		for (ParameterComponent input : inputs)
+		{
+			for (Coding coding : input.getType().getCoding())
+			{
+				inputsBySystemAndCode
+						.computeIfAbsent(key(coding.getSystem(), coding.getCode()), k -> new ArrayList<>(1)).add(input);
+			}
+		}
+	}
+
+	private boolean isIndexOf(List<ParameterComponent> inputs)
+	{
+		return this.inputs == inputs && size == inputs.size();
+	}
+
+	/**
+	 * @return inputs in Task order, empty if no input with the given system and code exists
+	 */
+	public List<ParameterComponent> getInputParameters(String system, String code)
+	{
+		return Collections.unmodifiableList(inputsBySystemAndCode.getOrDefault(key(system, code), List.of()));
+	}
+
+	public Optional<ParameterComponent> getFirstInputParameter(String system, String code)
+	{
+		List<ParameterComponent> inputs = inputsBySystemAndCode.get(key(system, code));
+		return inputs == null ? Optional.empty() : Optional.of(inputs.get(0));
+	}
+
+	/**
+	 * @return value of the first input with the given system and code and the expected value type
+	 */
+	public <T extends Type> Optional<T> getFirstInputParameterValue(String system, String code, Class<T> expectedType)
+	{
+		return inputsBySystemAndCode.getOrDefault(key(system, code), List.of()).stream()
+				.map(ParameterComponent::getValue).filter(expectedType::isInstance).map(expectedType::cast).findFirst();
+	}
+
+	public Optional<String> getFirstInputParameterStringValue(String system, String code)
+	{
+		return getFirstInputParameterValue(system, code, StringType.class).map(StringType::getValue);
+	}
+}
@@ -0,0 +1,57 @@
+package dev.dsf.process.tutorial.util;
+
+/**
+ * One traced execution of a service delegate or message send.
+ *
+ * @param traceId
+ *            not <code>null</code>
+ * @param spanId
+ *            not <code>null</code>
+ * @param parentSpanId
+ *            <code>null</code> for the spans of a process instance started without trace context
+ * @param processId
+ *            process definition key
+ * @param activityId
+ *            not <code>null</code>
+ * @param organization
+ *            identifier of the target organization, <code>-</code> if the activity has no single target
+ * @param startEpochMicros
+ *            start time in microseconds since the epoch
+ * @param durationNanos
+ *            &gt;= 0
+ * @param error
+ *            <code>true</code> if the execution threw an exception
+ */
+public record Span(String traceId, String spanId, String parentSpanId, String processId, String activityId,
+		String organization, long startEpochMicros, long durationNanos, boolean error)
+{
+	/**
+	 * @return span as single line JSON object
+	 */
+	public String toJson()
+	{
+		return "{\"traceId\":" + quote(traceId) + ",\"spanId\":" + quote(spanId) + ",\"parentSpanId\":"
+				+ quote(parentSpanId) + ",\"processId\":" + quote(processId) + ",\"activityId\":" + quote(activityId)
+				+ ",\"organization\":" + quote(organization) + ",\"startEpochMicros\":" + startEpochMicros
+				+ ",\"durationNanos\":" + durationNanos + ",\"error\":" + error + "}";
+	}
+
+	private static String quote(String value)
+	{
+		if (value == null)
+			return "null";
+
+		StringBuilder b = new StringBuilder(value.length() + 2).append('"');
+		for (char c : value.toCharArray())
+		{
+			if (c == '"' || c == '\\')
+				b.append('\\').append(c);
+			else if (c < 0x20)
+				b.append(String.format("\\u%04x", (int) c));
+			else
+				b.append(c);
+		}
+
+		return b.append('"').toString();
+	}
+}
@@ -0,0 +1,10 @@
+package dev.dsf.process.tutorial.util;
+
+/**
+ * Receives the spans of completed {@link Tracer} executions, called on the engine thread and must not block.
+ */
+@FunctionalInterface
+public interface SpanExporter
+{
+	void export(Span span);
+}
@@ -0,0 +1,185 @@
+package dev.dsf.process.tutorial.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Endpoint.EndpointStatus;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.constants.NamingSystems;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Variables;
+
+/**
+ * Resolves organization identifiers to message {@link Target}s using the {@link Organization} and its active
+ * {@link Endpoint}. Resolved targets are immutable and shared between process instances until the time-to-live
+ * expires. Targets are resolved without holding a lock, the first target stored for an organization is used.
+ */
+public class TargetCache implements InitializingBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(TargetCache.class);
+
+	private static final class CachedTarget
+	{
+		final Target target;
+		final Instant expires;
+
+		CachedTarget(Target target, Instant expires)
+		{
+			this.target = target;
+			this.expires = expires;
+		}
+
+		boolean isValid(Instant now)
+		{
+			return now.isBefore(expires);
+		}
+	}
+
+	private final ConcurrentMap<String, CachedTarget> targetsByOrganizationIdentifier = new ConcurrentHashMap<>();
+
+	private final ProcessPluginApi api;
+	private final Duration timeToLive;
+	private final Clock clock;
+
+	public TargetCache(ProcessPluginApi api, Duration timeToLive)
+	{
+		this(api, timeToLive, Clock.systemUTC());
+	}
+
+	public TargetCache(ProcessPluginApi api, Duration timeToLive, Clock clock)
+	{
+		this.api = api;
+		this.timeToLive = timeToLive;
+		this.clock = clock;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(api, "api");
+		Objects.requireNonNull(timeToLive, "timeToLive");
+		Objects.requireNonNull(clock, "clock");
+
+		if (timeToLive.isNegative())
+			throw new IllegalArgumentException("timeToLive negative");
+	}
+
+	/**
+	 * @param variables
+	 *            not <code>null</code>, used to create the target if not cached
+	 * @param organizationIdentifierValue
+	 *            not <code>null</code>
+	 * @return cached or newly resolved target without correlation key
+	 * @throws IllegalStateException
+	 *             if the organization or an active endpoint of the organization could not be found
+	 */
+	public Target getTarget(Variables variables, String organizationIdentifierValue)
+	{
+		Objects.requireNonNull(variables, "variables");
+		Objects.requireNonNull(organizationIdentifierValue, "organizationIdentifierValue");
+
+		Instant now = clock.instant();
+
+		CachedTarget cached = targetsByOrganizationIdentifier.get(organizationIdentifierValue);
+		if (cached != null && cached.isValid(now))
+			return cached.target;
+
+		// resolved outside of the map, concurrent lookups may resolve the target more than once
+		CachedTarget resolved = new CachedTarget(resolve(variables, organizationIdentifierValue), now.plus(timeToLive));
+
+		// keeps a target stored by a concurrent lookup in the meantime
+		return targetsByOrganizationIdentifier.merge(organizationIdentifierValue, resolved,
+				(current, r) -> current.isValid(now) ? current : r).target;
+	}
+
+	/**
+	 * @param variables
+	 *            not <code>null</code>, used to create the target
+	 * @param organizationIdentifierValue
+	 *            not <code>null</code>
+	 * @param correlationKey
+	 *            may be <code>null</code>
+	 * @return cached or newly resolved target with the given correlation key, e.g. to send one message per target to
+	 *         the same organization or to reply to a message received with a correlation key
+	 * @throws IllegalStateException
+	 *             if the organization or an active endpoint of the organization could not be found
+	 * @see #getTarget(Variables, String)
+	 */
+	public Target getTarget(Variables variables, String organizationIdentifierValue, String correlationKey)
+	{
+		Target target = getTarget(variables, organizationIdentifierValue);
+		if (correlationKey == null)
+			return target;
+
+		return variables.createTarget(target.getOrganizationIdentifierValue(), target.getEndpointIdentifierValue(),
+				target.getEndpointUrl(), correlationKey);
+	}
+
+	/**
+	 * Removes all cached targets, the next {@link #getTarget(Variables, String)} call resolves the target again.
+	 */
+	public void invalidate()
+	{
+		targetsByOrganizationIdentifier.clear();
+	}
+
+	/**
+	 * @param organizationIdentifierValue
+	 *            may be <code>null</code>
+	 */
+	public void invalidate(String organizationIdentifierValue)
+	{
+		if (organizationIdentifierValue != null)
+			targetsByOrganizationIdentifier.remove(organizationIdentifierValue);
+	}
+
+	private Target resolve(Variables variables, String organizationIdentifierValue)
+	{
+		logger.debug("Resolving target for organization with identifier '{}'", organizationIdentifierValue);
+
+		Organization organization = api.getOrganizationProvider().getOrganization(organizationIdentifierValue)
+				.orElseThrow(() -> new IllegalStateException(
+						"Organization with identifier '" + organizationIdentifierValue + "' not found"));
+
+		Endpoint endpoint = organization.getEndpoint().stream().map(this::getEndpoint).flatMap(Optional::stream)
+				.filter(e -> EndpointStatus.ACTIVE.equals(e.getStatus())).filter(Endpoint::hasAddress).findFirst()
+				.orElseThrow(() -> new IllegalStateException(
+						"No active endpoint for organization with identifier '" + organizationIdentifierValue
+								+ "' found"));
+
+		String endpointIdentifierValue = NamingSystems.EndpointIdentifier.findFirst(endpoint)
+				.map(Identifier::getValue)
+				.orElseThrow(() -> new IllegalStateException("Endpoint of organization with identifier '"
+						+ organizationIdentifierValue + "' has no endpoint identifier"));
+
+		return variables.createTarget(organizationIdentifierValue, endpointIdentifierValue, endpoint.getAddress());
+	}
+
+	private Optional<Endpoint> getEndpoint(Reference reference)
+	{
+		if (reference.hasIdentifier())
+			return api.getEndpointProvider().getEndpoint(reference.getIdentifier());
+
+		else if (reference.hasReferenceElement()
+				&& ResourceType.Endpoint.name().equals(reference.getReferenceElement().getResourceType()))
+			return Optional.ofNullable(api.getFhirWebserviceClientProvider().getLocalWebserviceClient()
+					.read(Endpoint.class, reference.getReferenceElement().getIdPart()));
+
+		else
+			return Optional.empty();
+	}
+}
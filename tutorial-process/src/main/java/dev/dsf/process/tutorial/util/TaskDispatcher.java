@@ -0,0 +1,300 @@
+package dev.dsf.process.tutorial.util;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.hl7.fhir.r4.model.IdType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import jakarta.ws.rs.WebApplicationException;
+
+/**
+ * Sends Tasks on a dedicated thread pool with a bounded queue, so that engine threads do not block while a remote
+ * FHIR server answers. If the queue is full or the dispatcher is shut down, {@link #dispatch} throws a
+ * {@link RejectedExecutionException} to the caller instead of sending on the calling thread, failing the activity.
+ * With zero threads all sends are executed once on the calling thread.
+ * <p>
+ * Failed sends are retried on the dispatch thread, except for HTTP 4xx responses. With threads, failures are never
+ * thrown to the caller: after the last attempt they are passed to the failure handler. Sends still queued when the
+ * dispatcher is destroyed after the shutdown timeout are passed to the failure handler as well, so no Task is dropped
+ * without notice. With zero threads, failures are thrown to the caller.
+ */
+public class TaskDispatcher implements InitializingBean, DisposableBean
+{
+	private static final Logger logger = LoggerFactory.getLogger(TaskDispatcher.class);
+
+	private final class Dispatch implements Runnable
+	{
+		final String description;
+		final Supplier<IdType> send;
+		final CompletableFuture<IdType> future = new CompletableFuture<>();
+
+		Dispatch(String description, Supplier<IdType> send)
+		{
+			this.description = description;
+			this.send = send;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				future.complete(sendWithRetry(description, send));
+			}
+			catch (RuntimeException e)
+			{
+				future.completeExceptionally(e);
+			}
+		}
+	}
+
+	private final int threads;
+	private final int queueCapacity;
+	private final int maxAttempts;
+	private final Duration retryDelay;
+	private final Duration shutdownTimeout;
+
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	private ThreadPoolExecutor executor;
+
+	public TaskDispatcher(int threads, int queueCapacity, Duration shutdownTimeout)
+	{
+		this(threads, queueCapacity, 1, Duration.ZERO, shutdownTimeout);
+	}
+
+	/**
+	 * @param threads
+	 *            &gt;= 0, <code>0</code> to send on the calling thread without retries
+	 * @param queueCapacity
+	 *            &gt; 0 if threads &gt; 0
+	 * @param maxAttempts
+	 *            &gt; 0, <code>1</code> to not retry, sends without threads are not retried
+	 * @param retryDelay
+	 *            not <code>null</code>, delay before the second attempt, doubled for each further attempt
+	 * @param shutdownTimeout
+	 *            not <code>null</code>
+	 */
+	public TaskDispatcher(int threads, int queueCapacity, int maxAttempts, Duration retryDelay,
+			Duration shutdownTimeout)
+	{
+		this.threads = threads;
+		this.queueCapacity = queueCapacity;
+		this.maxAttempts = maxAttempts;
+		this.retryDelay = retryDelay;
+		this.shutdownTimeout = shutdownTimeout;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(retryDelay, "retryDelay");
+		Objects.requireNonNull(shutdownTimeout, "shutdownTimeout");
+
+		if (maxAttempts < 1)
+			throw new IllegalArgumentException("maxAttempts < 1");
+		if (retryDelay.isNegative())
+			throw new IllegalArgumentException("retryDelay < 0");
+		if (threads < 0)
+			throw new IllegalArgumentException("threads < 0");
+		if (threads > 0 && queueCapacity < 1)
+			throw new IllegalArgumentException("queueCapacity < 1");
+
+		if (threads > 0)
+		{
+			AtomicInteger threadCount = new AtomicInteger();
+			executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(queueCapacity), r ->
+					{
+						// not daemon, queued Tasks are sent or reported on destroy
+						return new Thread(r, "tutorial-task-dispatcher-" + threadCount.incrementAndGet());
+					}, new ThreadPoolExecutor.AbortPolicy());
+			executor.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception
+	{
+		if (executor == null)
+			return;
+
+		executor.shutdown();
+
+		if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS))
+		{
+			List<Runnable> queued = executor.shutdownNow();
+			logger.warn("{} Task(s) not sent within {} after shutdown", queued.size(), shutdownTimeout);
+
+			queued.stream().filter(r -> r instanceof Dispatch).map(r -> (Dispatch) r)
+					.forEach(d -> d.future.completeExceptionally(new IllegalStateException(
+							"Dispatcher shut down before " + d.description + " was sent")));
+		}
+	}
+
+	/**
+	 * @param description
+	 *            used for log messages, e.g. business key and recipient
+	 * @param send
+	 *            not <code>null</code>, called on a dispatch thread, must be safe to retry
+	 * @param failureHandler
+	 *            not <code>null</code>, called once with the error of the last attempt if all attempts failed or the
+	 *            dispatcher was destroyed before the send, only if the dispatcher has threads
+	 * @return future completed with the id of the created Task, or exceptionally if all attempts failed
+	 * @throws RejectedExecutionException
+	 *             if the dispatcher has threads and its queue is full or it is shut down
+	 * @throws RuntimeException
+	 *             if the dispatcher has no threads and the send failed
+	 */
+	public CompletableFuture<IdType> dispatch(String description, Supplier<IdType> send,
+			Consumer<RuntimeException> failureHandler)
+	{
+		Objects.requireNonNull(send, "send");
+		Objects.requireNonNull(failureHandler, "failureHandler");
+
+		if (executor == null)
+		{
+			try
+			{
+				IdType id = send.get();
+				log(description, id, null);
+				return CompletableFuture.completedFuture(id);
+			}
+			catch (RuntimeException e)
+			{
+				failed.incrementAndGet();
+				log(description, null, e);
+				throw e;
+			}
+		}
+
+		Dispatch dispatch = new Dispatch(description, send);
+		try
+		{
+			executor.execute(dispatch);
+		}
+		catch (RejectedExecutionException e)
+		{
+			rejected.incrementAndGet();
+			logger.warn("Dispatch queue full or shut down, not sending {}", description);
+			throw e;
+		}
+
+		return dispatch.future.whenComplete((id, error) ->
+		{
+			RuntimeException cause = unwrap(error);
+			log(description, id, cause);
+
+			if (cause != null)
+			{
+				failed.incrementAndGet();
+				failureHandler.accept(cause);
+			}
+		});
+	}
+
+	private IdType sendWithRetry(String description, Supplier<IdType> send)
+	{
+		for (int attempt = 1;; attempt++)
+		{
+			try
+			{
+				return send.get();
+			}
+			catch (RuntimeException e)
+			{
+				if (attempt >= maxAttempts || isClientError(e))
+					throw e;
+
+				Duration delay = retryDelay.multipliedBy(1L << Math.min(attempt - 1, 16));
+				logger.warn("Error while sending {}, attempt {} of {}, retrying in {}: {} - {}", description, attempt,
+						maxAttempts, delay, e.getClass().getName(), e.getMessage());
+
+				sleep(delay, e);
+			}
+		}
+	}
+
+	private static boolean isClientError(RuntimeException e)
+	{
+		return e instanceof WebApplicationException w && w.getResponse() != null
+				&& w.getResponse().getStatus() >= 400 && w.getResponse().getStatus() < 500;
+	}
+
+	private static void sleep(Duration delay, RuntimeException error)
+	{
+		try
+		{
+			Thread.sleep(delay.toMillis());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			error.addSuppressed(e);
+			throw error;
+		}
+	}
+
+	private static RuntimeException unwrap(Throwable error)
+	{
+		if (error instanceof CompletionException && error.getCause() != null)
+			error = error.getCause();
+
+		if (error == null || error instanceof RuntimeException)
+			return (RuntimeException) error;
+		else
+			return new RuntimeException(error);
+	}
+
+	private void log(String description, IdType id, RuntimeException error)
+	{
+		if (error != null)
+		{
+			logger.warn("Error while sending {}: {} - {}", description, error.getClass().getName(),
+					error.getMessage());
+			logger.debug("Error while sending " + description, error);
+		}
+		else
+			logger.info("Sent {} [task: {}]", description, id == null ? null : id.toVersionless().getValue());
+	}
+
+	/**
+	 * @return number of sends failed after all attempts
+	 */
+	public long getFailedCount()
+	{
+		return failed.get();
+	}
+
+	/**
+	 * @return number of sends rejected because the queue was full or the dispatcher shut down
+	 */
+	public long getRejectedCount()
+	{
+		return rejected.get();
+	}
+
+	/**
+	 * @return number of sends waiting in the queue
+	 */
+	public int getQueueSize()
+	{
+		return executor == null ? 0 : executor.getQueue().size();
+	}
+}
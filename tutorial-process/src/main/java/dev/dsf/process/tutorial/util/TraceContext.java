@@ -0,0 +1,112 @@
+package dev.dsf.process.tutorial.util;
+
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Trace and span id of a W3C trace context <code>traceparent</code>, version <code>00</code>, e.g.
+ * <code>00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01</code>. Trace flags are not propagated, all spans are
+ * sampled.
+ */
+public final class TraceContext
+{
+	private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+	private static final String INVALID_TRACE_ID = "0".repeat(32);
+	private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+	private final String traceId;
+	private final String spanId;
+
+	private TraceContext(String traceId, String spanId)
+	{
+		this.traceId = traceId;
+		this.spanId = spanId;
+	}
+
+	/**
+	 * @param traceId
+	 *            not <code>null</code>, 32 lowercase hex characters
+	 * @return context with the given trace id and a new span id
+	 */
+	public static TraceContext newSpan(String traceId)
+	{
+		return new TraceContext(Objects.requireNonNull(traceId, "traceId"), newId(8));
+	}
+
+	/**
+	 * @return new random trace id, 32 lowercase hex characters
+	 */
+	public static String newTraceId()
+	{
+		return newId(16);
+	}
+
+	private static String newId(int bytes)
+	{
+		byte[] id = new byte[bytes];
+		do
+			ThreadLocalRandom.current().nextBytes(id);
+		while (isZero(id));
+
+		return HexFormat.of().formatHex(id);
+	}
+
+	private static boolean isZero(byte[] id)
+	{
+		for (byte b : id)
+			if (b != 0)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * @param traceparent
+	 *            may be <code>null</code>
+	 * @return empty if <code>null</code>, not version <code>00</code> or with all zero trace or span id
+	 */
+	public static Optional<TraceContext> parse(String traceparent)
+	{
+		if (traceparent == null)
+			return Optional.empty();
+
+		var matcher = TRACEPARENT.matcher(traceparent.trim());
+		if (!matcher.matches() || INVALID_TRACE_ID.equals(matcher.group(1))
+				|| INVALID_SPAN_ID.equals(matcher.group(2)))
+			return Optional.empty();
+
+		return Optional.of(new TraceContext(matcher.group(1), matcher.group(2)));
+	}
+
+	public String getTraceId()
+	{
+		return traceId;
+	}
+
+	public String getSpanId()
+	{
+		return spanId;
+	}
+
+	/**
+	 * @return context with the same trace id and a new span id
+	 */
+	public TraceContext child()
+	{
+		return newSpan(traceId);
+	}
+
+	public String toTraceparent()
+	{
+		return "00-" + traceId + "-" + spanId + "-01";
+	}
+
+	@Override
+	public String toString()
+	{
+		return toTraceparent();
+	}
+}
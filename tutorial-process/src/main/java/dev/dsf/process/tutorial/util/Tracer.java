@@ -0,0 +1,163 @@
+package dev.dsf.process.tutorial.util;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.springframework.beans.factory.InitializingBean;
+
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.util.DelegateMetrics.Action;
+
+/**
+ * Creates a {@link Span} for each traced delegate execution and exports it when the execution completes.
+ * <p>
+ * The parent of a span is taken from the <code>traceparent</code> input of the latest received {@link Task}. Process
+ * instances started without <code>traceparent</code> input start a new trace, its id is stored in the process variable
+ * {@value ConstantsTutorial#BPMN_EXECUTION_VARIABLE_TRACE_ID} and shared by all spans of the instance. While an action
+ * is traced, message sends add the span as <code>traceparent</code> input to the Tasks they create, see
+ * {@link #getTraceparentInput()}.
+ */
+public class Tracer implements InitializingBean
+{
+	private static final Tracer DISABLED = new Tracer(false, span ->
+	{
+	});
+
+	private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+
+	private final boolean enabled;
+	private final SpanExporter exporter;
+
+	/**
+	 * @param enabled
+	 *            <code>false</code> to only execute the traced actions
+	 * @param exporter
+	 *            not <code>null</code>
+	 */
+	public Tracer(boolean enabled, SpanExporter exporter)
+	{
+		this.enabled = enabled;
+		this.exporter = exporter;
+	}
+
+	/**
+	 * @return shared instance without tracing
+	 */
+	public static Tracer disabled()
+	{
+		return DISABLED;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception
+	{
+		Objects.requireNonNull(exporter, "exporter");
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * @return <code>traceparent</code> input of the span traced on the calling thread, empty if no span is active
+	 */
+	public static Optional<ParameterComponent> getTraceparentInput()
+	{
+		return Optional.ofNullable(CURRENT.get())
+				.map(context -> new ParameterComponent(
+						new CodeableConcept(new Coding(ConstantsTutorial.CODESYSTEM_TUTORIAL_TRACE,
+								ConstantsTutorial.CODESYSTEM_TUTORIAL_TRACE_VALUE_TRACEPARENT, null)),
+						new StringType(context.toTraceparent())));
+	}
+
+	/**
+	 * Executes the action as new span, exported after the action completed. Errors thrown by the action are rethrown.
+	 *
+	 * @param execution
+	 *            not <code>null</code>, process definition key and current activity id are exported with the span
+	 * @param variables
+	 *            not <code>null</code> if enabled
+	 * @param organizationIdentifierValue
+	 *            may be <code>null</code>, identifier of the target organization
+	 * @param action
+	 *            not <code>null</code>
+	 * @throws E
+	 *             thrown by the action
+	 */
+	public <E extends Exception> void trace(DelegateExecution execution, Variables variables,
+			String organizationIdentifierValue, Action<E> action) throws E
+	{
+		if (!enabled)
+		{
+			action.execute();
+			return;
+		}
+
+		Optional<TraceContext> parent = getParent(variables);
+		TraceContext span = parent.map(TraceContext::child)
+				.orElseGet(() -> TraceContext.newSpan(getOrCreateTraceId(variables)));
+
+		TraceContext previous = CURRENT.get();
+
+		Instant start = Instant.now();
+		long startNanos = System.nanoTime();
+		boolean error = true;
+		try
+		{
+			CURRENT.set(span);
+			action.execute();
+			error = false;
+		}
+		finally
+		{
+			long durationNanos = System.nanoTime() - startNanos;
+
+			// engine threads are pooled, the span must not stay set after the action
+			if (previous == null)
+				CURRENT.remove();
+			else
+				CURRENT.set(previous);
+
+			exporter.export(new Span(span.getTraceId(), span.getSpanId(),
+					parent.map(TraceContext::getSpanId).orElse(null),
+					DelegateMetrics.processId(execution.getProcessDefinitionId()),
+					DelegateMetrics.orNone(execution.getCurrentActivityId()),
+					DelegateMetrics.orNone(organizationIdentifierValue),
+					ChronoUnit.MICROS.between(Instant.EPOCH, start), durationNanos, error));
+		}
+	}
+
+	private Optional<TraceContext> getParent(Variables variables)
+	{
+		Task task = variables.getLatestTask();
+		if (task == null)
+			return Optional.empty();
+
+		return InputParameterIndex.of(task)
+				.getFirstInputParameterStringValue(ConstantsTutorial.CODESYSTEM_TUTORIAL_TRACE,
+						ConstantsTutorial.CODESYSTEM_TUTORIAL_TRACE_VALUE_TRACEPARENT)
+				.flatMap(TraceContext::parse);
+	}
+
+	private String getOrCreateTraceId(Variables variables)
+	{
+		String traceId = variables.getString(ConstantsTutorial.BPMN_EXECUTION_VARIABLE_TRACE_ID);
+		if (traceId == null)
+		{
+			traceId = TraceContext.newTraceId();
+			variables.setString(ConstantsTutorial.BPMN_EXECUTION_VARIABLE_TRACE_ID, traceId);
+		}
+
+		return traceId;
+	}
+}
@@ -0,0 +1,45 @@
+package dev.dsf.process.tutorial;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.process.tutorial.util.FhirResourceIndex;
+
+/**
+ * Build step executed after test-compile, parses all FHIR resources of the {@link TutorialProcessPluginDefinition}
+ * and writes the {@link FhirResourceIndex} to the given classes directory. Fails the build if a resource is invalid.
+ */
+public class FhirResourceIndexGenerator
+{
+	private static final Logger logger = LoggerFactory.getLogger(FhirResourceIndexGenerator.class);
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 1)
+		{
+			logger.error("Usage: {} <classes-directory>", FhirResourceIndexGenerator.class.getName());
+			System.exit(2);
+		}
+
+		FhirResourceIndex index = FhirResourceIndex.create(new TutorialProcessPluginDefinition(), FhirContext.forR4(),
+				FhirResourceIndexGenerator.class.getClassLoader());
+
+		Path indexFile = Paths.get(args[0]).resolve(FhirResourceIndex.INDEX_FILE);
+		Files.createDirectories(indexFile.getParent());
+
+		try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8))
+		{
+			index.write(writer);
+		}
+
+		logger.info("{} resource(s) written to {}", index.getEntries().size(), indexFile.toString());
+	}
+}
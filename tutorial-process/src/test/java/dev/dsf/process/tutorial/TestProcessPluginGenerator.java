@@ -24,12 +24,13 @@ import dev.dsf.bpe.v1.service.TaskHelper;
 import dev.dsf.bpe.variables.ObjectMapperFactory;
 import dev.dsf.fhir.authorization.process.ProcessAuthorizationHelper;
 import dev.dsf.fhir.authorization.read.ReadAccessHelper;
+import dev.dsf.process.tutorial.validation.ValidationSupportCache;
 
 public class TestProcessPluginGenerator
 {
 	private static ProxyConfig proxyConfig = mock(ProxyConfig.class);
 	private static EndpointProvider endpointProvider = mock(EndpointProvider.class);
-	private static FhirContext fhirContext = FhirContext.forR4();
+	private static FhirContext fhirContext = ValidationSupportCache.getFhirContext();
 	private static FhirWebserviceClientProvider fhirWebserviceClientProvider = mock(FhirWebserviceClientProvider.class);
 	private static MailService mailService = mock(MailService.class);
 	private static ObjectMapper objectMapper = ObjectMapperFactory.createObjectMapper(fhirContext);
@@ -23,15 +23,16 @@ import ca.uhn.fhir.validation.ValidationResult;
 import dev.dsf.fhir.authorization.process.ProcessAuthorizationHelper;
 import dev.dsf.fhir.authorization.process.ProcessAuthorizationHelperImpl;
 import dev.dsf.fhir.validation.ResourceValidator;
-import dev.dsf.fhir.validation.ResourceValidatorImpl;
 import dev.dsf.fhir.validation.ValidationSupportRule;
+import dev.dsf.process.tutorial.validation.ValidationSupportCache;
 
 public class ActivityDefinitionProfileTest
 {
 	private static final Logger logger = LoggerFactory.getLogger(ActivityDefinitionProfileTest.class);
 
 	@ClassRule
-	public static final ValidationSupportRule validationRule = new ValidationSupportRule(VERSION, RELEASE_DATE,
+	public static final ValidationSupportRule validationRule = ValidationSupportCache.getRule(VERSION,
+			RELEASE_DATE,
 			Arrays.asList("dsf-activity-definition-1.0.0.xml", "dsf-extension-process-authorization-1.0.0.xml",
 					"dsf-extension-process-authorization-parent-organization-role-1.0.0.xml",
 					"dsf-extension-process-authorization-parent-organization-role-practitioner-1.0.0.xml",
@@ -51,8 +52,7 @@ public class ActivityDefinitionProfileTest
 			Arrays.asList("dsf-process-authorization-recipient-1.0.0.xml",
 					"dsf-process-authorization-requester-1.0.0.xml", "dsf-read-access-tag-1.0.0.xml"));
 
-	private final ResourceValidator resourceValidator = new ResourceValidatorImpl(validationRule.getFhirContext(),
-			validationRule.getValidationSupport());
+	private final ResourceValidator resourceValidator = ValidationSupportCache.getResourceValidator(validationRule);
 
 	private final ProcessAuthorizationHelper processAuthorizationHelper = new ProcessAuthorizationHelperImpl();
 
@@ -29,21 +29,20 @@ import ca.uhn.fhir.validation.ValidationResult;
 import dev.dsf.bpe.v1.constants.CodeSystems;
 import dev.dsf.bpe.v1.constants.NamingSystems;
 import dev.dsf.fhir.validation.ResourceValidator;
-import dev.dsf.fhir.validation.ResourceValidatorImpl;
 import dev.dsf.fhir.validation.ValidationSupportRule;
+import dev.dsf.process.tutorial.validation.ValidationSupportCache;
 
 public class TaskProfileTest
 {
 	private static final Logger logger = LoggerFactory.getLogger(TaskProfileTest.class);
 
 	@ClassRule
-	public static final ValidationSupportRule validationRule = new ValidationSupportRule(RESOURCE_VERSION, RELEASE_DATE,
-			Arrays.asList("dsf-task-base-1.0.0.xml", "task-start-dic-process.xml", "task-hello-cos.xml"),
+	public static final ValidationSupportRule validationRule = ValidationSupportCache.getRule(RESOURCE_VERSION,
+			RELEASE_DATE, Arrays.asList("dsf-task-base-1.0.0.xml", "task-start-dic-process.xml", "task-hello-cos.xml"),
 			Arrays.asList("dsf-read-access-tag-1.0.0.xml", "dsf-bpmn-message-1.0.0.xml", "tutorial.xml"),
 			Arrays.asList("dsf-read-access-tag-1.0.0.xml", "dsf-bpmn-message-1.0.0.xml", "tutorial.xml"));
 
-	private ResourceValidator resourceValidator = new ResourceValidatorImpl(validationRule.getFhirContext(),
-			validationRule.getValidationSupport());
+	private ResourceValidator resourceValidator = ValidationSupportCache.getResourceValidator(validationRule);
 
 	@Test
 	public void testTaskStartDicProcessValid()
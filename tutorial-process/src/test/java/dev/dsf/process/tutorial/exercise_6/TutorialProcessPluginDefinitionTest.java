@@ -36,6 +36,7 @@ import org.camunda.bpm.model.bpmn.instance.TimerEventDefinition;
 import org.camunda.bpm.model.bpmn.instance.camunda.CamundaField;
 import org.hl7.fhir.r4.model.ActivityDefinition;
 import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.MetadataResource;
 import org.hl7.fhir.r4.model.Resource;
 import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.StructureDefinition;
@@ -295,7 +296,16 @@ public class TutorialProcessPluginDefinitionTest
 	public void testGetResourceProviderHrp() throws Exception
 	{
 		assertNotNull(hrpFhirResources);
-		assertEquals(4, hrpFhirResources.size());
+
+		// added by TutorialProcessPluginDefinition, referenced by the task-hello-hrp profile
+		List<String> optionalTerminologyUrls = List.of("http://dsf.dev/fhir/CodeSystem/tutorial-trace",
+				"http://dsf.dev/fhir/ValueSet/tutorial-trace",
+				"http://dsf.dev/fhir/CodeSystem/tutorial-content-encoding",
+				"http://dsf.dev/fhir/ValueSet/tutorial-content-encoding");
+		assertEquals(4, hrpFhirResources.stream().filter(
+				r -> !(r instanceof MetadataResource m && optionalTerminologyUrls.contains(m.getUrl()))).count());
+		assertTrue(optionalTerminologyUrls.stream().allMatch(url -> hrpFhirResources.stream()
+				.anyMatch(r -> r instanceof MetadataResource m && url.equals(m.getUrl()))));
 
 		long aCount = hrpFhirResources.stream().filter(r -> r instanceof ActivityDefinition)
 				.map(r -> (ActivityDefinition) r).filter(a -> "http://dsf.dev/bpe/Process/hrpProcess".equals(a.getUrl())
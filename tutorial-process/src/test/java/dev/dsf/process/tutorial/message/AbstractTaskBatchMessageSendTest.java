@@ -0,0 +1,254 @@
+package dev.dsf.process.tutorial.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.model.bpmn.instance.EndEvent;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Bundle.BundleType;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.constants.NamingSystems;
+import dev.dsf.bpe.v1.service.FhirWebserviceClientProvider;
+import dev.dsf.bpe.v1.service.OrganizationProvider;
+import dev.dsf.bpe.v1.service.TaskHelper;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Targets;
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import dev.dsf.fhir.client.PreferReturnMinimalWithRetry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AbstractTaskBatchMessageSendTest
+{
+	@Mock
+	private ProcessPluginApi api;
+
+	@Mock
+	private OrganizationProvider organizationProvider;
+
+	@Mock
+	private FhirWebserviceClientProvider clientProvider;
+
+	@Mock
+	private FhirWebserviceClient sharedClient;
+
+	@Mock
+	private FhirWebserviceClient otherClient;
+
+	@Mock
+	private PreferReturnMinimalWithRetry sharedMinimal;
+
+	@Mock
+	private PreferReturnMinimalWithRetry otherMinimal;
+
+	@Mock
+	private DelegateExecution execution;
+
+	@Mock
+	private Variables variables;
+
+	@Mock
+	private Targets targets;
+
+	@Mock
+	private Targets remainingTargets;
+
+	@Mock
+	private FhirWebserviceClient localClient;
+
+	@Mock
+	private PreferReturnMinimalWithRetry localMinimal;
+
+	@Mock
+	private TaskHelper taskHelper;
+
+	@Mock
+	private EndEvent endEvent;
+
+	private static class TestBatchMessageSend extends AbstractTaskBatchMessageSend
+	{
+		TestBatchMessageSend(ProcessPluginApi api)
+		{
+			super(api);
+		}
+
+		@Override
+		protected String getInstantiatesCanonical(DelegateExecution execution, Variables variables)
+		{
+			return "http://dsf.dev/bpe/Process/test|1.0";
+		}
+
+		@Override
+		protected String getMessageName(DelegateExecution execution, Variables variables)
+		{
+			return "test";
+		}
+
+		@Override
+		protected String getProfile(DelegateExecution execution, Variables variables)
+		{
+			return "http://dsf.dev/fhir/StructureDefinition/task-test|1.0";
+		}
+
+		@Override
+		protected Stream<ParameterComponent> getAdditionalInputParameters(DelegateExecution execution,
+				Variables variables)
+		{
+			return Stream.of(new ParameterComponent(new CodeableConcept(new Coding("http://test", "test", null)),
+					new StringType("test")));
+		}
+	}
+
+	private final Task startTask = new Task().setStatus(TaskStatus.INPROGRESS);
+
+	private final Target target1 = mockTarget("Org_1", "Shared_Endpoint", "https://shared/fhir");
+	private final Target target2 = mockTarget("Org_2", "Shared_Endpoint", "https://shared/fhir");
+	private final Target target3 = mockTarget("Org_3", "Other_Endpoint", "https://other/fhir");
+
+	private static Target mockTarget(String organization, String endpoint, String url)
+	{
+		return new Target()
+		{
+			@Override
+			public String getOrganizationIdentifierValue()
+			{
+				return organization;
+			}
+
+			@Override
+			public String getEndpointIdentifierValue()
+			{
+				return endpoint;
+			}
+
+			@Override
+			public String getEndpointUrl()
+			{
+				return url;
+			}
+
+			@Override
+			public String getCorrelationKey()
+			{
+				return organization + "-correlation-key";
+			}
+		};
+	}
+
+	private static Bundle response(String... status)
+	{
+		Bundle response = new Bundle().setType(BundleType.BATCHRESPONSE);
+		Stream.of(status).forEach(s -> response.addEntry().getResponse().setStatus(s));
+		return response;
+	}
+
+	@Before
+	public void before()
+	{
+		when(api.getOrganizationProvider()).thenReturn(organizationProvider);
+		when(organizationProvider.getLocalOrganizationIdentifier())
+				.thenReturn(Optional.of(NamingSystems.OrganizationIdentifier.withValue("Local_Org")));
+		when(api.getFhirWebserviceClientProvider()).thenReturn(clientProvider);
+		when(clientProvider.getWebserviceClient("https://shared/fhir")).thenReturn(sharedClient);
+		when(clientProvider.getWebserviceClient("https://other/fhir")).thenReturn(otherClient);
+		when(sharedClient.withMinimalReturn()).thenReturn(sharedMinimal);
+		when(otherClient.withMinimalReturn()).thenReturn(otherMinimal);
+
+		when(execution.getBusinessKey()).thenReturn("business-key");
+		when(variables.getTargets()).thenReturn(targets);
+		when(targets.getEntries()).thenReturn(List.of(target1, target2, target3));
+	}
+
+	@Test
+	public void testOneBatchPerEndpoint() throws Exception
+	{
+		when(sharedMinimal.postBundle(any())).thenReturn(response("201 Created", "201 Created"));
+		when(otherMinimal.postBundle(any())).thenReturn(response("201 Created"));
+
+		new TestBatchMessageSend(api).doExecute(execution, variables);
+
+		ArgumentCaptor<Bundle> sharedBatch = ArgumentCaptor.forClass(Bundle.class);
+		verify(sharedMinimal, times(1)).postBundle(sharedBatch.capture());
+		verify(otherMinimal, times(1)).postBundle(any());
+
+		assertEquals(BundleType.BATCH, sharedBatch.getValue().getType());
+		assertEquals(2, sharedBatch.getValue().getEntry().size());
+
+		Task task = (Task) sharedBatch.getValue().getEntry().get(1).getResource();
+		assertEquals("Org_2", task.getRestriction().getRecipientFirstRep().getIdentifier().getValue());
+		assertEquals("Local_Org", task.getRequester().getIdentifier().getValue());
+		assertTrue(task.getInput().stream().anyMatch(
+				i -> "Org_2-correlation-key".equals(i.getValue().primitiveValue())));
+
+		// additional inputs copied per Task
+		Task other = (Task) sharedBatch.getValue().getEntry().get(0).getResource();
+		assertEquals("test", task.getInput().get(3).getValue().primitiveValue());
+		assertNotSame(task.getInput().get(3), other.getInput().get(3));
+
+		verify(variables, never()).setTargets(any());
+	}
+
+	@Test
+	public void testFailedEntriesRemovedFromTargets() throws Exception
+	{
+		when(sharedMinimal.postBundle(any())).thenReturn(response("201 Created", "403 Forbidden"));
+		when(otherMinimal.postBundle(any())).thenReturn(response("201 Created"));
+		when(variables.createTargets(List.of(target1, target3))).thenReturn(remainingTargets);
+		when(variables.getTasks()).thenReturn(List.of(startTask));
+
+		new TestBatchMessageSend(api).doExecute(execution, variables);
+
+		verify(variables).setTargets(remainingTargets);
+
+		// skipped organization reported on the start Task
+		assertEquals(TaskStatus.INPROGRESS, startTask.getStatus());
+		assertEquals(1, startTask.getOutput().size());
+		assertTrue(startTask.getOutputFirstRep().getValue().primitiveValue().contains("recipient: Org_2"));
+		verify(variables).updateTask(startTask);
+	}
+
+	@Test
+	public void testAllBatchesFailed() throws Exception
+	{
+		when(sharedMinimal.postBundle(any())).thenThrow(new RuntimeException("test"));
+		when(otherMinimal.postBundle(any())).thenReturn(response("500 Internal Server Error"));
+		when(variables.createTargets(List.of())).thenReturn(remainingTargets);
+		when(variables.getTasks()).thenReturn(List.of(startTask));
+		when(execution.getBpmnModelElementInstance()).thenReturn(endEvent);
+		when(api.getTaskHelper()).thenReturn(taskHelper);
+		when(clientProvider.getLocalWebserviceClient()).thenReturn(localClient);
+		when(localClient.withMinimalReturn()).thenReturn(localMinimal);
+
+		// handled like a failed single target send from an end event, not thrown
+		new TestBatchMessageSend(api).doExecute(execution, variables);
+
+		verify(variables).setTargets(remainingTargets);
+		verify(localMinimal).update(startTask);
+		assertEquals(TaskStatus.FAILED, startTask.getStatus());
+		assertTrue(startTask.getOutputFirstRep().getValue().primitiveValue().contains("to all targets"));
+	}
+}
@@ -0,0 +1,117 @@
+package dev.dsf.process.tutorial.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.bpe.v1.service.FhirWebserviceClientProvider;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import dev.dsf.fhir.client.PreferReturnMinimalWithRetry;
+import dev.dsf.process.tutorial.util.DelegateMetrics;
+import dev.dsf.process.tutorial.util.TaskDispatcher;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GoodbyeDicMessageTest
+{
+	@Mock
+	private ProcessPluginApi api;
+
+	@Mock
+	private FhirWebserviceClientProvider clientProvider;
+
+	@Mock
+	private FhirWebserviceClient client;
+
+	@Mock
+	private PreferReturnMinimalWithRetry minimal;
+
+	@Mock
+	private DelegateMetrics metrics;
+
+	private TaskDispatcher dispatcher;
+
+	@Before
+	public void before() throws Exception
+	{
+		dispatcher = new TaskDispatcher(0, 0, Duration.ofSeconds(1));
+		dispatcher.afterPropertiesSet();
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		dispatcher.destroy();
+	}
+
+	private static Task createGoodbyeDicTask(String correlationKey)
+	{
+		Task task = new Task().setInstantiatesCanonical("http://dsf.dev/bpe/Process/dicProcess|1.0");
+		task.addInput().setValue(new StringType("goodbyeDic")).getType()
+				.addCoding(CodeSystems.BpmnMessage.messageName());
+		task.addInput().setValue(new StringType("business-key")).getType()
+				.addCoding(CodeSystems.BpmnMessage.businessKey());
+		if (correlationKey != null)
+			task.addInput().setValue(new StringType(correlationKey)).getType()
+					.addCoding(CodeSystems.BpmnMessage.correlationKey());
+
+		return task;
+	}
+
+	@Test
+	public void testDoSendCreatesConditionally() throws Exception
+	{
+		when(client.withMinimalReturn()).thenReturn(minimal);
+		when(minimal.createConditionaly(any(Task.class), any(String.class)))
+				.thenReturn(new IdType("https://dic/fhir", "Task", "1", "1"));
+
+		Task task = createGoodbyeDicTask("correlation-key");
+		IdType id = new GoodbyeDicMessage(api, dispatcher, metrics).doSend(client, task);
+
+		assertEquals("Task/1", id.toUnqualifiedVersionless().getValue());
+		assertEquals(GoodbyeDicMessage.MESSAGE_IDENTIFIER_SYSTEM, task.getIdentifierFirstRep().getSystem());
+		assertEquals("goodbyeDic/business-key/correlation-key", task.getIdentifierFirstRep().getValue());
+		verify(minimal).createConditionaly(task, "identifier=" + GoodbyeDicMessage.MESSAGE_IDENTIFIER_SYSTEM
+				+ "|goodbyeDic/business-key/correlation-key");
+	}
+
+	@Test
+	public void testHandleDispatchErrorMarksStartTaskFailed() throws Exception
+	{
+		when(api.getFhirWebserviceClientProvider()).thenReturn(clientProvider);
+		when(clientProvider.getLocalWebserviceClient()).thenReturn(client);
+		when(client.withMinimalReturn()).thenReturn(minimal);
+		when(client.read(Task.class, "start")).thenReturn(new Task().setStatus(TaskStatus.COMPLETED));
+
+		Task startTask = new Task();
+		startTask.setIdElement(new IdType("Task", "start", "2"));
+
+		new GoodbyeDicMessage(api, dispatcher, metrics).handleDispatchError(startTask, "goodbyeDic",
+				new IllegalStateException("test"));
+
+		ArgumentCaptor<Task> updated = ArgumentCaptor.forClass(Task.class);
+		verify(minimal).update(updated.capture());
+		assertEquals(TaskStatus.FAILED, updated.getValue().getStatus());
+		assertEquals(1, updated.getValue().getOutput().size());
+		assertTrue(updated.getValue().getOutputFirstRep().getValue().primitiveValue().contains("test"));
+		verify(client).read(eq(Task.class), eq("start"));
+	}
+}
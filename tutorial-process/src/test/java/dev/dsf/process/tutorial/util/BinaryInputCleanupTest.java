@@ -0,0 +1,138 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.DocumentReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.service.FhirWebserviceClientProvider;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import jakarta.ws.rs.WebApplicationException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BinaryInputCleanupTest
+{
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-01T12:00:00Z"), ZoneOffset.UTC);
+
+	@Mock
+	private ProcessPluginApi api;
+
+	@Mock
+	private FhirWebserviceClientProvider clientProvider;
+
+	@Mock
+	private FhirWebserviceClient localClient;
+
+	private BinaryInputCleanup createCleanup() throws Exception
+	{
+		when(api.getFhirWebserviceClientProvider()).thenReturn(clientProvider);
+		when(clientProvider.getLocalWebserviceClient()).thenReturn(localClient);
+
+		BinaryInputCleanup cleanup = new BinaryInputCleanup(api, Duration.ofDays(1), Duration.ZERO, CLOCK);
+		cleanup.afterPropertiesSet();
+		return cleanup;
+	}
+
+	private static DocumentReference securityContext(String id, String binaryUrl)
+	{
+		DocumentReference securityContext = new DocumentReference();
+		securityContext.setId(id);
+		securityContext.addContent().getAttachment().setUrl(binaryUrl);
+		return securityContext;
+	}
+
+	private static Bundle bundle(DocumentReference... securityContexts)
+	{
+		Bundle bundle = new Bundle();
+		for (DocumentReference securityContext : securityContexts)
+			bundle.addEntry().setResource(securityContext);
+		return bundle;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCleanup() throws Exception
+	{
+		BinaryInputCleanup cleanup = createCleanup();
+
+		ArgumentCaptor<Map<String, List<String>>> parameters = ArgumentCaptor.forClass(Map.class);
+		when(localClient.search(eq(DocumentReference.class), parameters.capture()))
+				.thenReturn(bundle(securityContext("3", "Binary/1"), securityContext("4", null)));
+
+		assertEquals(1, cleanup.cleanup());
+
+		assertEquals(List.of(BinaryInputHelper.SECURITY_CONTEXT_IDENTIFIER_SYSTEM + "|"),
+				parameters.getValue().get("identifier"));
+		assertEquals(List.of("lt2024-02-29T12:00:00Z"), parameters.getValue().get("_lastUpdated"));
+
+		verify(localClient).delete(Binary.class, "1");
+		verify(localClient).deletePermanently(Binary.class, "1");
+		verify(localClient).delete(DocumentReference.class, "3");
+		verify(localClient).deletePermanently(DocumentReference.class, "3");
+		verify(localClient).delete(DocumentReference.class, "4");
+		verify(localClient).deletePermanently(DocumentReference.class, "4");
+	}
+
+	@Test
+	public void testCleanupBinaryAlreadyDeleted() throws Exception
+	{
+		BinaryInputCleanup cleanup = createCleanup();
+
+		when(localClient.search(eq(DocumentReference.class), any()))
+				.thenReturn(bundle(securityContext("3", "Binary/1")));
+		doThrow(new WebApplicationException(410)).when(localClient).delete(Binary.class, "1");
+
+		assertEquals(0, cleanup.cleanup());
+
+		verify(localClient, never()).deletePermanently(Binary.class, "1");
+		verify(localClient).delete(DocumentReference.class, "3");
+	}
+
+	@Test
+	public void testCleanupKeepsSecurityContextIfBinaryDeleteFails() throws Exception
+	{
+		BinaryInputCleanup cleanup = createCleanup();
+
+		when(localClient.search(eq(DocumentReference.class), any()))
+				.thenReturn(bundle(securityContext("3", "Binary/1")));
+		doThrow(new WebApplicationException(500)).when(localClient).delete(Binary.class, "1");
+
+		assertEquals(0, cleanup.cleanup());
+
+		verify(localClient, never()).delete(DocumentReference.class, "3");
+	}
+
+	@Test
+	public void testCleanupPermanentDeleteForbidden() throws Exception
+	{
+		BinaryInputCleanup cleanup = createCleanup();
+
+		when(localClient.search(eq(DocumentReference.class), any()))
+				.thenReturn(bundle(securityContext("3", "Binary/1")));
+		doThrow(new WebApplicationException(403)).when(localClient).deletePermanently(Binary.class, "1");
+
+		assertEquals(1, cleanup.cleanup());
+
+		verify(localClient).delete(DocumentReference.class, "3");
+	}
+}
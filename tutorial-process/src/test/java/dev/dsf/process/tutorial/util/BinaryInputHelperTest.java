@@ -0,0 +1,252 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.DocumentReference;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.service.FhirWebserviceClientProvider;
+import dev.dsf.fhir.authorization.read.ReadAccessHelper;
+import dev.dsf.fhir.client.FhirWebserviceClient;
+import dev.dsf.fhir.client.PreferReturnMinimalWithRetry;
+import jakarta.ws.rs.core.MediaType;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BinaryInputHelperTest
+{
+	@Mock
+	private ProcessPluginApi api;
+
+	@Mock
+	private ReadAccessHelper readAccessHelper;
+
+	@Mock
+	private FhirWebserviceClientProvider clientProvider;
+
+	@Mock
+	private FhirWebserviceClient localClient;
+
+	@Mock
+	private FhirWebserviceClient remoteClient;
+
+	@Mock
+	private PreferReturnMinimalWithRetry minimalClient;
+
+	private static ParameterComponent input(String value)
+	{
+		return new ParameterComponent(
+				new CodeableConcept(new Coding("http://dsf.dev/fhir/CodeSystem/tutorial", "tutorial-input", null)),
+				new StringType(value));
+	}
+
+	private BinaryInputHelper createHelper(int threshold) throws Exception
+	{
+		return createHelper(threshold, null);
+	}
+
+	private BinaryInputHelper createHelper(int threshold, ContentEncoding encoding) throws Exception
+	{
+		BinaryInputHelper helper = new BinaryInputHelper(api, threshold, encoding);
+		helper.afterPropertiesSet();
+		return helper;
+	}
+
+	@Test
+	public void testExceedsThreshold() throws Exception
+	{
+		BinaryInputHelper helper = createHelper(4);
+
+		assertFalse(helper.exceedsThreshold(input("1234")));
+		assertTrue(helper.exceedsThreshold(input("12345")));
+		assertTrue(helper.exceedsThreshold(input("äää")));
+		assertFalse(createHelper(0).exceedsThreshold(input("12345")));
+	}
+
+	@Test
+	public void testForwardBelowThreshold() throws Exception
+	{
+		ParameterComponent input = input("send-response");
+
+		assertEquals(List.of(input), createHelper(1024).forward(input, "hrp.dsf.test").toList());
+		assertEquals(List.of(input), createHelper(1024, ContentEncoding.GZIP).forward(input, "hrp.dsf.test").toList());
+	}
+
+	private void mockLocalClient()
+	{
+		when(api.getReadAccessHelper()).thenReturn(readAccessHelper);
+		when(api.getFhirWebserviceClientProvider()).thenReturn(clientProvider);
+		when(clientProvider.getLocalWebserviceClient()).thenReturn(localClient);
+		when(localClient.getBaseUrl()).thenReturn("https://cos/fhir");
+		when(localClient.withMinimalReturn()).thenReturn(minimalClient);
+		when(minimalClient.create(any())).thenReturn(new IdType("https://cos/fhir", "DocumentReference", "3", "1"));
+	}
+
+	@Test
+	public void testForwardAboveThreshold() throws Exception
+	{
+		mockLocalClient();
+
+		AtomicReference<String> uploaded = new AtomicReference<>();
+		when(minimalClient.createBinary(any(), any(), eq("DocumentReference/3"))).thenAnswer(i ->
+		{
+			uploaded.set(new String(i.<InputStream> getArgument(0).readAllBytes(), StandardCharsets.UTF_8));
+			return new IdType("https://cos/fhir", "Binary", "1", "2");
+		});
+
+		ParameterComponent input = input("send-response");
+		List<ParameterComponent> inputs = createHelper(4).forward(input, "hrp.dsf.test").toList();
+		assertEquals(1, inputs.size());
+
+		ParameterComponent forwarded = inputs.get(0);
+		assertSame(input.getType(), forwarded.getType());
+		assertEquals("https://cos/fhir/Binary/1/_history/2", ((Reference) forwarded.getValue()).getReference());
+		assertEquals("send-response", uploaded.get());
+
+		ArgumentCaptor<DocumentReference> securityContext = ArgumentCaptor.forClass(DocumentReference.class);
+		verify(minimalClient).create(securityContext.capture());
+		verify(readAccessHelper).addLocal(securityContext.getValue());
+		verify(readAccessHelper).addOrganization(securityContext.getValue(), "hrp.dsf.test");
+
+		// identified and linked to the Binary for the BinaryInputCleanup
+		verify(minimalClient).update(securityContext.getValue());
+		assertEquals(BinaryInputHelper.SECURITY_CONTEXT_IDENTIFIER_SYSTEM,
+				securityContext.getValue().getIdentifierFirstRep().getSystem());
+		assertTrue(securityContext.getValue().getIdentifierFirstRep().hasValue());
+		assertEquals("DocumentReference/3/_history/1", securityContext.getValue().getIdElement().getValue());
+		assertEquals("Binary/1", securityContext.getValue().getContentFirstRep().getAttachment().getUrl());
+	}
+
+	@Test
+	public void testForwardAboveThresholdEncoded() throws Exception
+	{
+		mockLocalClient();
+
+		AtomicReference<byte[]> uploaded = new AtomicReference<>();
+		ArgumentCaptor<MediaType> mediaType = ArgumentCaptor.forClass(MediaType.class);
+		when(minimalClient.createBinary(any(), mediaType.capture(), eq("DocumentReference/3"))).thenAnswer(i ->
+		{
+			uploaded.set(i.<InputStream> getArgument(0).readAllBytes());
+			return new IdType("https://cos/fhir", "Binary", "1", "2");
+		});
+
+		String value = "send-response".repeat(1_000);
+		List<ParameterComponent> inputs = createHelper(4, ContentEncoding.GZIP).forward(input(value), "hrp.dsf.test")
+				.toList();
+
+		assertEquals(2, inputs.size());
+		assertEquals("https://cos/fhir/Binary/1/_history/2", ((Reference) inputs.get(0).getValue()).getReference());
+		assertEquals("http://dsf.dev/fhir/CodeSystem/tutorial-content-encoding",
+				inputs.get(1).getType().getCodingFirstRep().getSystem());
+		assertEquals("gzip", inputs.get(1).getType().getCodingFirstRep().getCode());
+		assertEquals("tutorial-input", ((StringType) inputs.get(1).getValue()).getValue());
+		assertEquals("application/gzip", mediaType.getValue().toString());
+
+		assertTrue(uploaded.get().length < value.length() / 10);
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(uploaded.get())))
+		{
+			assertEquals(value, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	private ParameterComponent binaryInput(String content)
+	{
+		return binaryInput(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private ParameterComponent binaryInput(byte[] content)
+	{
+		when(api.getFhirWebserviceClientProvider()).thenReturn(clientProvider);
+		when(clientProvider.getWebserviceClient("https://cos/fhir")).thenReturn(remoteClient);
+		when(remoteClient.readBinary(eq("1"), eq("2"), any())).thenReturn(new ByteArrayInputStream(content));
+
+		return new ParameterComponent(input("").getType(), new Reference("https://cos/fhir/Binary/1/_history/2"));
+	}
+
+	@Test
+	public void testGetStringValueFromBinary() throws Exception
+	{
+		assertEquals(Optional.of("send-response"), createHelper(4).getStringValue(binaryInput("send-response")));
+	}
+
+	@Test
+	public void testValueEquals() throws Exception
+	{
+		BinaryInputHelper helper = createHelper(4);
+
+		assertTrue(helper.valueEquals(input("send-response"), "send-response"));
+		assertFalse(helper.valueEquals(input("send-response-not"), "send-response"));
+		assertFalse(helper.valueEquals(null, "send-response"));
+	}
+
+	@Test
+	public void testValueEqualsReadsBinaryOnlyAsFarAsNeeded() throws Exception
+	{
+		BinaryInputHelper helper = createHelper(4);
+		String large = "send-response" + "x".repeat(1_000_000);
+
+		ParameterComponent input = binaryInput(large);
+		InputStream in = remoteClient.readBinary("1", "2", null);
+		when(remoteClient.readBinary(eq("1"), eq("2"), any())).thenReturn(in);
+
+		assertFalse(helper.valueEquals(input, "send-response"));
+		assertEquals(large.length() - "send-response".length() - 1, in.available());
+
+		assertTrue(helper.valueEquals(binaryInput("send-response"), "send-response"));
+	}
+
+	private static byte[] gzip(String value) throws Exception
+	{
+		try (InputStream in = ContentEncoding.GZIP
+				.encode(new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8))))
+		{
+			return in.readAllBytes();
+		}
+	}
+
+	@Test
+	public void testGetStringValueFromEncodedBinary() throws Exception
+	{
+		BinaryInputHelper helper = createHelper(4);
+
+		assertEquals(Optional.of("send-response"),
+				helper.getStringValue(binaryInput(gzip("send-response")), ContentEncoding.GZIP));
+		assertEquals(Optional.of("send-response"), helper.getStringValue(input("send-response"), ContentEncoding.GZIP));
+	}
+
+	@Test
+	public void testValueEqualsEncoded() throws Exception
+	{
+		BinaryInputHelper helper = createHelper(4);
+
+		assertTrue(helper.valueEquals(binaryInput(gzip("send-response")), ContentEncoding.GZIP, "send-response"));
+		assertFalse(helper.valueEquals(binaryInput(gzip("send-response" + "x".repeat(1_000_000))),
+				ContentEncoding.GZIP, "send-response"));
+		assertTrue(helper.valueEquals(input("send-response"), ContentEncoding.GZIP, "send-response"));
+	}
+}
@@ -0,0 +1,60 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class CharSequenceInputStreamTest
+{
+	private static byte[] readByteByByte(InputStream in) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int b = in.read(); b >= 0; b = in.read())
+			out.write(b);
+
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testReadAcrossBuffers() throws Exception
+	{
+		// multi-byte characters and a surrogate pair split at buffer boundaries
+		String value = "send-response äöü € 😀 ".repeat(100);
+
+		try (InputStream in = new CharSequenceInputStream(value, StandardCharsets.UTF_8, 16))
+		{
+			assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+		}
+
+		try (InputStream in = new CharSequenceInputStream(value, StandardCharsets.UTF_8, 17))
+		{
+			assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), readByteByByte(in));
+		}
+	}
+
+	@Test
+	public void testMalformedReplaced() throws Exception
+	{
+		String value = "a\uD800b";
+
+		try (InputStream in = new CharSequenceInputStream(value, StandardCharsets.UTF_8))
+		{
+			assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+		}
+	}
+
+	@Test
+	public void testEmpty() throws Exception
+	{
+		try (InputStream in = new CharSequenceInputStream("", StandardCharsets.UTF_8))
+		{
+			assertEquals(-1, in.read());
+			assertEquals(-1, in.read(new byte[4], 0, 4));
+		}
+	}
+}
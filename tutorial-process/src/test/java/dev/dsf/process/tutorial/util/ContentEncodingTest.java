@@ -0,0 +1,90 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.junit.Test;
+
+public class ContentEncodingTest
+{
+	private static byte[] gzip(byte[] value) throws Exception
+	{
+		try (InputStream in = ContentEncoding.GZIP.encode(new ByteArrayInputStream(value)))
+		{
+			return in.readAllBytes();
+		}
+	}
+
+	@Test
+	public void testGzipReadableByGzipInputStream() throws Exception
+	{
+		byte[] random = new byte[100_000];
+		new Random(0).nextBytes(random);
+
+		for (byte[] value : new byte[][] { new byte[0], "send-response".getBytes(StandardCharsets.UTF_8),
+				"send-response äöü € 😀\n".repeat(10_000).getBytes(StandardCharsets.UTF_8), random })
+		{
+			try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip(value))))
+			{
+				assertArrayEquals(value, in.readAllBytes());
+			}
+		}
+	}
+
+	@Test
+	public void testGzipReadByteByByte() throws Exception
+	{
+		byte[] value = "send-response ".repeat(1_000).getBytes(StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = ContentEncoding.GZIP.encode(new ByteArrayInputStream(value)))
+		{
+			for (int b = in.read(); b >= 0; b = in.read())
+				out.write(b);
+		}
+
+		assertArrayEquals(gzip(value), out.toByteArray());
+		assertTrue(out.size() < value.length / 10);
+
+		try (InputStream in = ContentEncoding.GZIP.decode(new ByteArrayInputStream(out.toByteArray())))
+		{
+			assertArrayEquals(value, in.readAllBytes());
+		}
+	}
+
+	@Test
+	public void testFromCode() throws Exception
+	{
+		assertEquals(Optional.of(ContentEncoding.GZIP), ContentEncoding.fromCode("gzip"));
+		assertEquals(Optional.empty(), ContentEncoding.fromCode("zstd"));
+		assertEquals(Optional.empty(), ContentEncoding.fromCode(null));
+	}
+
+	@Test
+	public void testOf() throws Exception
+	{
+		Task task = new Task();
+		task.addInput(ContentEncoding.GZIP.toInput("tutorial-input"));
+		task.addInput(new Task.ParameterComponent(
+				new CodeableConcept(new Coding("http://dsf.dev/fhir/CodeSystem/tutorial", "tutorial-input", null)),
+				new StringType("send-response")));
+
+		assertEquals(Optional.of(ContentEncoding.GZIP),
+				ContentEncoding.of(InputParameterIndex.of(task), "tutorial-input"));
+		assertEquals(Optional.empty(), ContentEncoding.of(InputParameterIndex.of(task), "other-input"));
+		assertEquals(Optional.empty(), ContentEncoding.of(InputParameterIndex.of(new Task()), "tutorial-input"));
+	}
+}
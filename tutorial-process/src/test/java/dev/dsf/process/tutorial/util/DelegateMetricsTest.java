@@ -0,0 +1,195 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.junit.After;
+import org.junit.Test;
+
+import dev.dsf.bpe.v1.variables.Variables;
+
+public class DelegateMetricsTest
+{
+	private static final String OBJECT_NAME = "dev.dsf.process.tutorial:type=DelegateMetrics,version=test";
+
+	private final Variables variables = mock(Variables.class);
+
+	private DelegateMetrics metrics;
+
+	private DelegateMetrics createMetrics(boolean enabled, String objectName) throws Exception
+	{
+		metrics = new DelegateMetrics(enabled, objectName);
+		metrics.afterPropertiesSet();
+		return metrics;
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		if (metrics != null)
+			metrics.destroy();
+	}
+
+	private static DelegateExecution execution(String activityId)
+	{
+		DelegateExecution execution = mock(DelegateExecution.class);
+		when(execution.getProcessDefinitionId()).thenReturn("dsfdev_dicProcess:1:" + activityId);
+		when(execution.getCurrentActivityId()).thenReturn(activityId);
+		return execution;
+	}
+
+	@Test
+	public void testRecord() throws Exception
+	{
+		createMetrics(true, null);
+		DelegateExecution execution = execution("helloCos");
+
+		metrics.record(execution, variables, "cos.dsf.test", () -> Thread.sleep(5));
+		metrics.record(execution, variables, "cos.dsf.test", () ->
+		{
+		});
+
+		List<DelegateTimerSnapshot> timers = metrics.getTimers();
+		assertEquals(1, timers.size());
+
+		DelegateTimerSnapshot timer = timers.get(0);
+		assertEquals("dsfdev_dicProcess", timer.getProcessId());
+		assertEquals("helloCos", timer.getActivityId());
+		assertEquals("cos.dsf.test", timer.getOrganization());
+		assertEquals(2, timer.getCount());
+		assertEquals(0, timer.getErrors());
+		assertEquals(0, timer.getInFlight());
+		assertTrue(timer.getMaxMillis() >= 5);
+		assertTrue(timer.getP99Millis() <= timer.getMaxMillis());
+		assertTrue(timer.getP50Millis() < 5);
+	}
+
+	@Test
+	public void testRecordErrorRethrown() throws Exception
+	{
+		createMetrics(true, null);
+
+		try
+		{
+			metrics.record(execution("cosTask"), variables, null, () ->
+			{
+				throw new IllegalStateException("test");
+			});
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals("test", e.getMessage());
+		}
+
+		DelegateTimerSnapshot timer = metrics.getTimers().get(0);
+		assertEquals("-", timer.getOrganization());
+		assertEquals(1, timer.getCount());
+		assertEquals(1, timer.getErrors());
+		assertEquals(0, timer.getInFlight());
+	}
+
+	@Test
+	public void testRecordInFlight() throws Exception
+	{
+		createMetrics(true, null);
+		DelegateExecution execution = execution("hrpTask");
+
+		AtomicInteger inFlight = new AtomicInteger();
+		metrics.record(execution, variables, null, () -> inFlight.set(metrics.getTimers().get(0).getInFlight()));
+
+		assertEquals(1, inFlight.get());
+		assertEquals(0, metrics.getTimers().get(0).getInFlight());
+	}
+
+	@Test
+	public void testDisabled() throws Exception
+	{
+		createMetrics(false, OBJECT_NAME);
+
+		AtomicInteger executed = new AtomicInteger();
+		metrics.record(execution("cosTask"), variables, null, executed::incrementAndGet);
+
+		assertEquals(1, executed.get());
+		assertTrue(metrics.getTimers().isEmpty());
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(OBJECT_NAME)));
+	}
+
+	@Test
+	public void testRecordTraced() throws Exception
+	{
+		InMemorySpanExporter exporter = new InMemorySpanExporter();
+		metrics = new DelegateMetrics(false, null, new Tracer(true, exporter));
+		metrics.afterPropertiesSet();
+
+		metrics.record(execution("cosTask"), variables, null, () ->
+		{
+		});
+
+		assertTrue(metrics.getTimers().isEmpty());
+		assertEquals(1, exporter.getSpans().size());
+		assertEquals("cosTask", exporter.getSpans().get(0).activityId());
+	}
+
+	@Test
+	public void testReset() throws Exception
+	{
+		createMetrics(true, null);
+
+		metrics.record(execution("cosTask"), variables, null, () ->
+		{
+		});
+		metrics.reset();
+
+		assertTrue(metrics.getTimers().isEmpty());
+	}
+
+	@Test
+	public void testBuckets() throws Exception
+	{
+		long previousUpperBound = -1;
+		for (long nanos : new long[] { 0, 1, 15, 16, 17, 31, 32, 1_000, 1_000_000, 123_456_789, 60_000_000_000L })
+		{
+			int bucket = DelegateMetrics.bucket(nanos);
+			long upperBound = DelegateMetrics.upperBound(bucket);
+
+			assertTrue(nanos + " <= " + upperBound, nanos <= upperBound);
+			assertTrue(nanos + " within 1/16 of " + upperBound, upperBound - nanos <= nanos / 16);
+			assertTrue(upperBound >= previousUpperBound);
+
+			previousUpperBound = upperBound;
+		}
+	}
+
+	@Test
+	public void testJmx() throws Exception
+	{
+		createMetrics(true, OBJECT_NAME);
+		metrics.record(execution("cosTask"), variables, null, () ->
+		{
+		});
+
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		CompositeData[] timers = (CompositeData[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name,
+				"Timers");
+
+		assertEquals(1, timers.length);
+		assertEquals("cosTask", timers[0].get("activityId"));
+		assertEquals(1L, timers[0].get("count"));
+
+		metrics.destroy();
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+}
@@ -0,0 +1,71 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.hl7.fhir.r4.model.ActivityDefinition;
+import org.junit.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+import dev.dsf.process.tutorial.TutorialProcessPluginDefinition;
+import dev.dsf.process.tutorial.validation.ValidationSupportCache;
+
+public class FhirResourceIndexTest
+{
+	private static final FhirContext fhirContext = ValidationSupportCache.getFhirContext();
+
+	@Test
+	public void testCreateContainsAllResources() throws Exception
+	{
+		TutorialProcessPluginDefinition definition = new TutorialProcessPluginDefinition();
+		FhirResourceIndex index = FhirResourceIndex.create(definition, fhirContext, getClass().getClassLoader());
+
+		assertEquals(definition.getFhirResourcesByProcessId().values().stream().mapToInt(List::size).sum(),
+				index.getEntries().size());
+
+		FhirResourceIndex.Entry activityDefinition = index
+				.findByUrl(ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_URI).get();
+		assertEquals(ConstantsTutorial.PROCESS_NAME_FULL_DIC, activityDefinition.getProcessId());
+		assertEquals("ActivityDefinition", activityDefinition.getResourceType());
+		assertEquals(ConstantsTutorial.RESOURCE_VERSION, activityDefinition.getVersion());
+	}
+
+	@Test
+	public void testWriteAndReadLazy() throws Exception
+	{
+		TutorialProcessPluginDefinition definition = new TutorialProcessPluginDefinition();
+		FhirResourceIndex created = FhirResourceIndex.create(definition, fhirContext, getClass().getClassLoader());
+
+		StringWriter written = new StringWriter();
+		created.write(written);
+
+		ClassLoader indexOnly = new ClassLoader(getClass().getClassLoader())
+		{
+			@Override
+			public InputStream getResourceAsStream(String name)
+			{
+				if (FhirResourceIndex.INDEX_FILE.equals(name))
+					return new ByteArrayInputStream(written.toString().getBytes(StandardCharsets.UTF_8));
+				else
+					return super.getResourceAsStream(name);
+			}
+		};
+
+		FhirResourceIndex read = FhirResourceIndex.read(definition, fhirContext, indexOnly);
+		assertEquals(created.getEntries().size(), read.getEntries().size());
+
+		FhirResourceIndex.Entry entry = read.findByUrl(ConstantsTutorial.PROFILE_TUTORIAL_TASK_DIC_PROCESS_URI).get();
+		ActivityDefinition resource = (ActivityDefinition) read.getResource(entry);
+
+		assertTrue(resource.getDateElement().hasValue());
+		assertSame(resource, read.getResource(entry));
+	}
+}
@@ -0,0 +1,67 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileSpanExporterTest
+{
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private static Span span(String spanId)
+	{
+		return new Span("t", spanId, null, "p", "a", "-", 1, 2, false);
+	}
+
+	@Test
+	public void testFlushAndDestroy() throws Exception
+	{
+		Path file = folder.getRoot().toPath().resolve("log/spans.jsonl");
+		FileSpanExporter exporter = new FileSpanExporter(file, Duration.ofHours(1));
+		exporter.afterPropertiesSet();
+
+		exporter.export(span("s1"));
+		exporter.flush();
+
+		assertEquals(List.of(span("s1").toJson()), Files.readAllLines(file));
+
+		exporter.export(span("s2"));
+		exporter.destroy();
+
+		assertEquals(List.of(span("s1").toJson(), span("s2").toJson()), Files.readAllLines(file));
+	}
+
+	@Test
+	public void testScheduledFlush() throws Exception
+	{
+		Path file = folder.getRoot().toPath().resolve("spans.jsonl");
+		FileSpanExporter exporter = new FileSpanExporter(file, Duration.ofMillis(10));
+		exporter.afterPropertiesSet();
+
+		try
+		{
+			// no further span exported, flushed by the scheduled task only
+			exporter.export(span("s1"));
+
+			long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+			while (Files.size(file) == 0 && System.nanoTime() < deadline)
+				Thread.sleep(10);
+
+			assertTrue(Files.size(file) > 0);
+			assertEquals(List.of(span("s1").toJson()), Files.readAllLines(file));
+		}
+		finally
+		{
+			exporter.destroy();
+		}
+	}
+}
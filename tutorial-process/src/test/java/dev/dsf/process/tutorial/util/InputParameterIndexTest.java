@@ -0,0 +1,79 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.IntegerType;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.hl7.fhir.r4.model.Type;
+import org.junit.Test;
+
+public class InputParameterIndexTest
+{
+	private static final String SYSTEM = "http://dsf.dev/fhir/CodeSystem/tutorial";
+
+	private static ParameterComponent input(String code, Type value)
+	{
+		return new ParameterComponent(new CodeableConcept(new Coding(SYSTEM, code, null)), value);
+	}
+
+	private static Task createTask()
+	{
+		Task task = new Task();
+		for (int i = 0; i < 100; i++)
+			task.addInput(input("filler-" + i, new StringType(String.valueOf(i))));
+		task.addInput(input("tutorial-input", new IntegerType(1)));
+		task.addInput(input("tutorial-input", new StringType("send-response")));
+		return task;
+	}
+
+	@Test
+	public void testLookup() throws Exception
+	{
+		Task task = createTask();
+		InputParameterIndex index = InputParameterIndex.of(task);
+
+		assertSame(task.getInput().get(100), index.getFirstInputParameter(SYSTEM, "tutorial-input").get());
+		assertEquals(2, index.getInputParameters(SYSTEM, "tutorial-input").size());
+		assertEquals(Optional.of("send-response"), index.getFirstInputParameterStringValue(SYSTEM, "tutorial-input"));
+		assertEquals(1, index.getFirstInputParameterValue(SYSTEM, "tutorial-input", IntegerType.class).get()
+				.getValue().intValue());
+
+		assertFalse(index.getFirstInputParameter(SYSTEM, "unknown").isPresent());
+		assertTrue(index.getInputParameters("http://other", "tutorial-input").isEmpty());
+	}
+
+	@Test
+	public void testBuiltOncePerTask() throws Exception
+	{
+		Task task = createTask();
+		InputParameterIndex index = InputParameterIndex.of(task);
+
+		assertSame(index, InputParameterIndex.of(task));
+		assertNotSame(index, InputParameterIndex.of(createTask()));
+
+		// input added
+		task.addInput(input("added", new StringType("added")));
+		InputParameterIndex added = InputParameterIndex.of(task);
+
+		assertNotSame(index, added);
+		assertEquals(Optional.of("added"), added.getFirstInputParameterStringValue(SYSTEM, "added"));
+
+		// inputs replaced with the same number of inputs, as when the Task is read again
+		task.setInput(createTask().getInput());
+		task.getInput().set(101, input("tutorial-input", new StringType("replaced")));
+
+		assertEquals(Optional.of("send-response"), index.getFirstInputParameterStringValue(SYSTEM, "tutorial-input"));
+		assertEquals(Optional.of("replaced"),
+				InputParameterIndex.of(task).getFirstInputParameterStringValue(SYSTEM, "tutorial-input"));
+	}
+}
@@ -0,0 +1,243 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hl7.fhir.r4.model.Endpoint;
+import org.hl7.fhir.r4.model.Endpoint.EndpointStatus;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import dev.dsf.bpe.v1.ProcessPluginApi;
+import dev.dsf.bpe.v1.constants.NamingSystems;
+import dev.dsf.bpe.v1.service.EndpointProvider;
+import dev.dsf.bpe.v1.service.OrganizationProvider;
+import dev.dsf.bpe.v1.variables.Target;
+import dev.dsf.bpe.v1.variables.Variables;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TargetCacheTest
+{
+	private static final String ORGANIZATION_IDENTIFIER = "Test_HRP";
+	private static final String ENDPOINT_IDENTIFIER = "Test_HRP_Endpoint";
+	private static final String ENDPOINT_ADDRESS = "https://hrp/fhir";
+
+	@Mock
+	private ProcessPluginApi api;
+
+	@Mock
+	private OrganizationProvider organizationProvider;
+
+	@Mock
+	private EndpointProvider endpointProvider;
+
+	@Mock
+	private Variables variables;
+
+	@Mock
+	private Target target;
+
+	private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+	private final Clock clock = new Clock()
+	{
+		@Override
+		public ZoneOffset getZone()
+		{
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone)
+		{
+			return this;
+		}
+
+		@Override
+		public Instant instant()
+		{
+			return now;
+		}
+	};
+
+	@Before
+	public void before()
+	{
+		when(api.getOrganizationProvider()).thenReturn(organizationProvider);
+	}
+
+	private void mockOrganizationWithEndpoint(EndpointStatus status)
+	{
+		Identifier endpointIdentifier = NamingSystems.EndpointIdentifier.withValue(ENDPOINT_IDENTIFIER);
+
+		Organization organization = new Organization();
+		organization.addIdentifier(NamingSystems.OrganizationIdentifier.withValue(ORGANIZATION_IDENTIFIER));
+		organization.addEndpoint(new Reference().setIdentifier(endpointIdentifier));
+
+		Endpoint endpoint = new Endpoint();
+		endpoint.addIdentifier(endpointIdentifier);
+		endpoint.setStatus(status);
+		endpoint.setAddress(ENDPOINT_ADDRESS);
+
+		when(organizationProvider.getOrganization(ORGANIZATION_IDENTIFIER)).thenReturn(Optional.of(organization));
+		when(api.getEndpointProvider()).thenReturn(endpointProvider);
+		when(endpointProvider.getEndpoint(any(Identifier.class))).thenReturn(Optional.of(endpoint));
+	}
+
+	private TargetCache createCache(Duration timeToLive) throws Exception
+	{
+		TargetCache cache = new TargetCache(api, timeToLive, clock);
+		cache.afterPropertiesSet();
+		return cache;
+	}
+
+	@Test
+	public void testGetTargetCached() throws Exception
+	{
+		mockOrganizationWithEndpoint(EndpointStatus.ACTIVE);
+		when(variables.createTarget(ORGANIZATION_IDENTIFIER, ENDPOINT_IDENTIFIER, ENDPOINT_ADDRESS)).thenReturn(target);
+
+		TargetCache cache = createCache(Duration.ofMinutes(5));
+
+		assertSame(target, cache.getTarget(variables, ORGANIZATION_IDENTIFIER));
+		assertSame(target, cache.getTarget(variables, ORGANIZATION_IDENTIFIER));
+
+		verify(organizationProvider, times(1)).getOrganization(ORGANIZATION_IDENTIFIER);
+		verify(variables, times(1)).createTarget(ORGANIZATION_IDENTIFIER, ENDPOINT_IDENTIFIER, ENDPOINT_ADDRESS);
+	}
+
+	@Test
+	public void testGetTargetWithCorrelationKey() throws Exception
+	{
+		mockOrganizationWithEndpoint(EndpointStatus.ACTIVE);
+		when(variables.createTarget(ORGANIZATION_IDENTIFIER, ENDPOINT_IDENTIFIER, ENDPOINT_ADDRESS)).thenReturn(target);
+		when(target.getOrganizationIdentifierValue()).thenReturn(ORGANIZATION_IDENTIFIER);
+		when(target.getEndpointIdentifierValue()).thenReturn(ENDPOINT_IDENTIFIER);
+		when(target.getEndpointUrl()).thenReturn(ENDPOINT_ADDRESS);
+
+		Target correlated = mock(Target.class);
+		when(variables.createTarget(ORGANIZATION_IDENTIFIER, ENDPOINT_IDENTIFIER, ENDPOINT_ADDRESS, "key-1"))
+				.thenReturn(correlated);
+
+		TargetCache cache = createCache(Duration.ofMinutes(5));
+
+		assertSame(correlated, cache.getTarget(variables, ORGANIZATION_IDENTIFIER, "key-1"));
+		assertSame(target, cache.getTarget(variables, ORGANIZATION_IDENTIFIER, null));
+
+		verify(organizationProvider, times(1)).getOrganization(ORGANIZATION_IDENTIFIER);
+	}
+
+	@Test
+	public void testGetTargetResolvedConcurrently() throws Exception
+	{
+		mockOrganizationWithEndpoint(EndpointStatus.ACTIVE);
+		Target concurrent = mock(Target.class);
+
+		TargetCache cache = createCache(Duration.ofMinutes(5));
+
+		// a lookup of the same organization while resolving, not possible if resolved within the map
+		AtomicInteger resolving = new AtomicInteger();
+		when(variables.createTarget(ORGANIZATION_IDENTIFIER, ENDPOINT_IDENTIFIER, ENDPOINT_ADDRESS)).thenAnswer(i ->
+		{
+			if (resolving.getAndIncrement() > 0)
+				return concurrent;
+
+			assertSame(concurrent, cache.getTarget(variables, ORGANIZATION_IDENTIFIER));
+			return target;
+		});
+
+		assertSame(concurrent, cache.getTarget(variables, ORGANIZATION_IDENTIFIER));
+		assertSame(concurrent, cache.getTarget(variables, ORGANIZATION_IDENTIFIER));
+
+		verify(organizationProvider, times(2)).getOrganization(ORGANIZATION_IDENTIFIER);
+	}
+
+	@Test
+	public void testGetTargetExpired() throws Exception
+	{
+		mockOrganizationWithEndpoint(EndpointStatus.ACTIVE);
+		when(variables.createTarget(ORGANIZATION_IDENTIFIER, ENDPOINT_IDENTIFIER, ENDPOINT_ADDRESS)).thenReturn(target);
+
+		TargetCache cache = createCache(Duration.ofMinutes(5));
+
+		cache.getTarget(variables, ORGANIZATION_IDENTIFIER);
+		now = now.plus(Duration.ofMinutes(5));
+		cache.getTarget(variables, ORGANIZATION_IDENTIFIER);
+
+		verify(organizationProvider, times(2)).getOrganization(ORGANIZATION_IDENTIFIER);
+	}
+
+	@Test
+	public void testGetTargetInvalidated() throws Exception
+	{
+		mockOrganizationWithEndpoint(EndpointStatus.ACTIVE);
+		when(variables.createTarget(ORGANIZATION_IDENTIFIER, ENDPOINT_IDENTIFIER, ENDPOINT_ADDRESS)).thenReturn(target);
+
+		TargetCache cache = createCache(Duration.ofMinutes(5));
+
+		cache.getTarget(variables, ORGANIZATION_IDENTIFIER);
+		cache.invalidate(ORGANIZATION_IDENTIFIER);
+		cache.getTarget(variables, ORGANIZATION_IDENTIFIER);
+
+		verify(organizationProvider, times(2)).getOrganization(ORGANIZATION_IDENTIFIER);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetTargetOrganizationNotFound() throws Exception
+	{
+		when(organizationProvider.getOrganization(anyString())).thenReturn(Optional.empty());
+
+		try
+		{
+			createCache(Duration.ofMinutes(5)).getTarget(variables, ORGANIZATION_IDENTIFIER);
+		}
+		finally
+		{
+			verify(variables, never()).createTarget(anyString(), anyString(), anyString());
+		}
+	}
+
+	@Test
+	public void testGetTargetEndpointNotActive() throws Exception
+	{
+		mockOrganizationWithEndpoint(EndpointStatus.OFF);
+
+		TargetCache cache = createCache(Duration.ofMinutes(5));
+
+		try
+		{
+			cache.getTarget(variables, ORGANIZATION_IDENTIFIER);
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals("No active endpoint for organization with identifier '" + ORGANIZATION_IDENTIFIER + "' found",
+					e.getMessage());
+		}
+
+		verify(variables, never()).createTarget(anyString(), anyString(), eq(ENDPOINT_ADDRESS));
+	}
+}
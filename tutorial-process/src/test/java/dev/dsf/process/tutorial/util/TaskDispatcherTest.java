@@ -0,0 +1,269 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.hl7.fhir.r4.model.IdType;
+import org.junit.After;
+import org.junit.Test;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+
+public class TaskDispatcherTest
+{
+	private TaskDispatcher dispatcher;
+
+	private final List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+
+	private TaskDispatcher createDispatcher(int threads, int queueCapacity) throws Exception
+	{
+		return createDispatcher(threads, queueCapacity, 1);
+	}
+
+	private TaskDispatcher createDispatcher(int threads, int queueCapacity, int maxAttempts) throws Exception
+	{
+		dispatcher = new TaskDispatcher(threads, queueCapacity, maxAttempts, Duration.ofMillis(1),
+				Duration.ofSeconds(5));
+		dispatcher.afterPropertiesSet();
+		return dispatcher;
+	}
+
+	private CompletableFuture<IdType> dispatch(String description, Supplier<IdType> send)
+	{
+		return dispatcher.dispatch(description, send, failures::add);
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		if (dispatcher != null)
+			dispatcher.destroy();
+	}
+
+	@Test
+	public void testDispatchAsync() throws Exception
+	{
+		createDispatcher(1, 1);
+
+		CountDownLatch release = new CountDownLatch(1);
+		Thread caller = Thread.currentThread();
+
+		CompletableFuture<IdType> sent = dispatch("test", () ->
+		{
+			await(release);
+			assertNotEquals(caller, Thread.currentThread());
+			return new IdType("Task", "1", "1");
+		});
+
+		assertFalse(sent.isDone());
+		release.countDown();
+
+		assertEquals("Task/1", sent.get(5, TimeUnit.SECONDS).toVersionless().getValue());
+	}
+
+	@Test
+	public void testDispatchQueueFullRejected() throws Exception
+	{
+		createDispatcher(1, 1);
+
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IdType> running = dispatch("running", () -> await(release));
+		CompletableFuture<IdType> queued = dispatch("queued", () -> await(release));
+
+		AtomicInteger attempts = new AtomicInteger();
+		try
+		{
+			dispatch("overflow", () ->
+			{
+				attempts.incrementAndGet();
+				return new IdType("Task", "3", "1");
+			});
+			fail("RejectedExecutionException expected");
+		}
+		catch (RejectedExecutionException e)
+		{
+			// not sent on the calling thread
+			assertEquals(0, attempts.get());
+			assertEquals(1, dispatcher.getRejectedCount());
+		}
+		finally
+		{
+			release.countDown();
+		}
+
+		running.get(5, TimeUnit.SECONDS);
+		queued.get(5, TimeUnit.SECONDS);
+		assertTrue(failures.isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDispatchSynchronousRethrows() throws Exception
+	{
+		createDispatcher(0, 0);
+
+		try
+		{
+			dispatch("failing", () ->
+			{
+				throw new IllegalStateException("test");
+			});
+		}
+		finally
+		{
+			assertTrue(failures.isEmpty());
+			assertEquals(1, dispatcher.getFailedCount());
+		}
+	}
+
+	@Test
+	public void testDispatchAsyncFailureHandled() throws Exception
+	{
+		createDispatcher(1, 1);
+
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IdType> failing = dispatch("failing", () ->
+		{
+			await(release);
+			throw new IllegalStateException("test");
+		});
+
+		// not thrown to the caller, independent of whether the send already failed
+		release.countDown();
+
+		try
+		{
+			failing.get(5, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		assertEquals(1, failures.size());
+		assertEquals("test", failures.get(0).getMessage());
+		assertEquals(1, dispatcher.getFailedCount());
+	}
+
+	@Test
+	public void testDestroyReportsQueued() throws Exception
+	{
+		dispatcher = new TaskDispatcher(1, 1, 1, Duration.ZERO, Duration.ofMillis(10));
+		dispatcher.afterPropertiesSet();
+
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IdType> running = dispatch("running", () -> await(release));
+		CompletableFuture<IdType> queued = dispatch("queued", () -> new IdType("Task", "2", "1"));
+
+		dispatcher.destroy();
+		release.countDown();
+
+		assertTrue(queued.isCompletedExceptionally());
+		assertTrue(failures.stream().anyMatch(e -> e.getMessage().contains("queued")));
+
+		// running send interrupted by the shutdown
+		try
+		{
+			running.get(5, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException e)
+		{
+			assertEquals(2, dispatcher.getFailedCount());
+		}
+	}
+
+	@Test
+	public void testDispatchSynchronousNotRetried() throws Exception
+	{
+		createDispatcher(0, 0, 3);
+
+		AtomicInteger attempts = new AtomicInteger();
+		try
+		{
+			dispatch("failing", () ->
+			{
+				attempts.incrementAndGet();
+				throw new ProcessingException("test");
+			});
+			fail("ProcessingException expected");
+		}
+		catch (ProcessingException e)
+		{
+			assertEquals(1, attempts.get());
+		}
+	}
+
+	@Test
+	public void testDispatchRetried() throws Exception
+	{
+		createDispatcher(1, 1, 3);
+
+		AtomicInteger attempts = new AtomicInteger();
+		CompletableFuture<IdType> sent = dispatch("retried", () ->
+		{
+			if (attempts.incrementAndGet() < 3)
+				throw new ProcessingException("test");
+
+			return new IdType("Task", "1", "1");
+		});
+
+		assertEquals("Task/1", sent.get(5, TimeUnit.SECONDS).toVersionless().getValue());
+		assertEquals(3, attempts.get());
+		assertTrue(failures.isEmpty());
+	}
+
+	@Test
+	public void testDispatchClientErrorNotRetried() throws Exception
+	{
+		createDispatcher(1, 1, 3);
+
+		AtomicInteger attempts = new AtomicInteger();
+		CompletableFuture<IdType> sent = dispatch("rejected", () ->
+		{
+			attempts.incrementAndGet();
+			throw new WebApplicationException(403);
+		});
+
+		try
+		{
+			sent.get(5, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof WebApplicationException);
+		}
+
+		assertEquals(1, attempts.get());
+		assertEquals(1, failures.size());
+	}
+
+	private static IdType await(CountDownLatch latch)
+	{
+		try
+		{
+			latch.await(5, TimeUnit.SECONDS);
+			return new IdType("Task", "1", "1");
+		}
+		catch (InterruptedException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
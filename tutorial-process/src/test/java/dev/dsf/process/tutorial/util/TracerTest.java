@@ -0,0 +1,207 @@
+package dev.dsf.process.tutorial.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.ParameterComponent;
+import org.junit.Test;
+
+import dev.dsf.bpe.v1.variables.Variables;
+import dev.dsf.process.tutorial.ConstantsTutorial;
+
+public class TracerTest
+{
+	private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+	private final InMemorySpanExporter exporter = new InMemorySpanExporter();
+	private final Tracer tracer = new Tracer(true, exporter);
+
+	private static DelegateExecution execution(String activityId)
+	{
+		DelegateExecution execution = mock(DelegateExecution.class);
+		when(execution.getProcessDefinitionId()).thenReturn("dsfdev_cosProcess:1:" + activityId);
+		when(execution.getCurrentActivityId()).thenReturn(activityId);
+		return execution;
+	}
+
+	private static Variables variables(Task latestTask)
+	{
+		Variables variables = mock(Variables.class);
+		when(variables.getLatestTask()).thenReturn(latestTask);
+		return variables;
+	}
+
+	private static Task task(String traceparent)
+	{
+		Task task = new Task();
+		task.addInput().setValue(new StringType(traceparent)).getType().addCoding()
+				.setSystem(ConstantsTutorial.CODESYSTEM_TUTORIAL_TRACE)
+				.setCode(ConstantsTutorial.CODESYSTEM_TUTORIAL_TRACE_VALUE_TRACEPARENT);
+		return task;
+	}
+
+	@Test
+	public void testParse() throws Exception
+	{
+		TraceContext context = TraceContext.parse(TRACEPARENT).get();
+
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.getTraceId());
+		assertEquals("00f067aa0ba902b7", context.getSpanId());
+		assertEquals(TRACEPARENT, context.toTraceparent());
+	}
+
+	@Test
+	public void testParseInvalid() throws Exception
+	{
+		for (String traceparent : new String[] { null, "", "01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01",
+				"00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+				"00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01",
+				"00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01", "00-4bf92f35-00f067aa0ba902b7-01" })
+		{
+			assertFalse(String.valueOf(traceparent), TraceContext.parse(traceparent).isPresent());
+		}
+	}
+
+	@Test
+	public void testChild() throws Exception
+	{
+		TraceContext parent = TraceContext.parse(TRACEPARENT).get();
+		TraceContext child = parent.child();
+
+		assertEquals(parent.getTraceId(), child.getTraceId());
+		assertNotEquals(parent.getSpanId(), child.getSpanId());
+		assertTrue(TraceContext.parse(child.toTraceparent()).isPresent());
+	}
+
+	@Test
+	public void testTraceWithParent() throws Exception
+	{
+		Variables variables = variables(task(TRACEPARENT));
+		AtomicReference<ParameterComponent> input = new AtomicReference<>();
+
+		tracer.trace(execution("cosTask"), variables, "hrp.dsf.test",
+				() -> input.set(Tracer.getTraceparentInput().get()));
+
+		List<Span> spans = exporter.getSpans();
+		assertEquals(1, spans.size());
+
+		Span span = spans.get(0);
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", span.traceId());
+		assertEquals("00f067aa0ba902b7", span.parentSpanId());
+		assertEquals("dsfdev_cosProcess", span.processId());
+		assertEquals("cosTask", span.activityId());
+		assertEquals("hrp.dsf.test", span.organization());
+		assertFalse(span.error());
+
+		TraceContext sent = TraceContext.parse(((StringType) input.get().getValue()).getValue()).get();
+		assertEquals(span.traceId(), sent.getTraceId());
+		assertEquals(span.spanId(), sent.getSpanId());
+
+		assertFalse(Tracer.getTraceparentInput().isPresent());
+		verify(variables, never()).setString(anyString(), anyString());
+	}
+
+	@Test
+	public void testTraceWithoutParent() throws Exception
+	{
+		Variables variables = variables(new Task());
+
+		tracer.trace(execution("selectCosTargets"), variables, null, () ->
+		{
+		});
+
+		Span span = exporter.getSpans().get(0);
+		assertNull(span.parentSpanId());
+		assertEquals("-", span.organization());
+		verify(variables).setString(eq(ConstantsTutorial.BPMN_EXECUTION_VARIABLE_TRACE_ID), eq(span.traceId()));
+
+		when(variables.getString(ConstantsTutorial.BPMN_EXECUTION_VARIABLE_TRACE_ID)).thenReturn(span.traceId());
+		tracer.trace(execution("helloCos"), variables, null, () ->
+		{
+		});
+
+		assertEquals(span.traceId(), exporter.getSpans().get(1).traceId());
+	}
+
+	@Test
+	public void testTraceError() throws Exception
+	{
+		try
+		{
+			tracer.trace(execution("cosTask"), variables(task(TRACEPARENT)), null, () ->
+			{
+				throw new IllegalStateException("test");
+			});
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals("test", e.getMessage());
+		}
+
+		assertTrue(exporter.getSpans().get(0).error());
+		assertFalse(Tracer.getTraceparentInput().isPresent());
+	}
+
+	@Test
+	public void testExportErrorClearsSpan() throws Exception
+	{
+		Tracer failingTracer = new Tracer(true, span ->
+		{
+			throw new IllegalStateException("export");
+		});
+
+		try
+		{
+			failingTracer.trace(execution("cosTask"), variables(task(TRACEPARENT)), null, () ->
+			{
+			});
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals("export", e.getMessage());
+		}
+
+		assertFalse(Tracer.getTraceparentInput().isPresent());
+	}
+
+	@Test
+	public void testDisabled() throws Exception
+	{
+		Variables variables = mock(Variables.class);
+		AtomicReference<Boolean> inputPresent = new AtomicReference<>();
+
+		Tracer.disabled().trace(execution("cosTask"), variables, null,
+				() -> inputPresent.set(Tracer.getTraceparentInput().isPresent()));
+
+		assertFalse(inputPresent.get());
+		verify(variables, never()).getLatestTask();
+	}
+
+	@Test
+	public void testSpanToJson() throws Exception
+	{
+		Span span = new Span("t", "s", null, "p", "a\"b", "-", 1, 2, false);
+
+		assertEquals("{\"traceId\":\"t\",\"spanId\":\"s\",\"parentSpanId\":null,\"processId\":\"p\","
+				+ "\"activityId\":\"a\\\"b\",\"organization\":\"-\",\"startEpochMicros\":1,\"durationNanos\":2,"
+				+ "\"error\":false}", span.toJson());
+	}
+}
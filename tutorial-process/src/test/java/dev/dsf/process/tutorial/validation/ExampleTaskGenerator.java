@@ -0,0 +1,162 @@
+package dev.dsf.process.tutorial.validation;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hl7.fhir.r4.model.ActivityDefinition;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.ElementDefinition;
+import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.PrimitiveType;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.Task;
+import org.hl7.fhir.r4.model.Task.TaskIntent;
+import org.hl7.fhir.r4.model.Task.TaskStatus;
+import org.hl7.fhir.r4.model.Type;
+
+import dev.dsf.bpe.v1.constants.CodeSystems;
+import dev.dsf.bpe.v1.constants.NamingSystems;
+
+/**
+ * Creates one example {@link Task} per process authorization of an {@link ActivityDefinition}. Required input slices
+ * with fixed type codings are taken from the differential of the referenced task profile.
+ */
+public class ExampleTaskGenerator
+{
+	private static final String EXTENSION_PROCESS_AUTHORIZATION =
+			"http://dsf.dev/fhir/StructureDefinition/extension-process-authorization";
+	private static final Pattern INPUT_SLICE = Pattern.compile("Task\\.input:([^.]+)");
+
+	private static final String LOCAL_ORGANIZATION = "local.dsf.test";
+	private static final String REMOTE_ORGANIZATION = "remote.dsf.test";
+
+	public static final class ExampleTask
+	{
+		private final String messageName;
+		private final Task task;
+
+		private ExampleTask(String messageName, Task task)
+		{
+			this.messageName = messageName;
+			this.task = task;
+		}
+
+		public String getMessageName()
+		{
+			return messageName;
+		}
+
+		public Task getTask()
+		{
+			return task;
+		}
+	}
+
+	private final Function<String, Optional<StructureDefinition>> taskProfileByCanonical;
+
+	/**
+	 * @param taskProfileByCanonical
+	 *            not <code>null</code>, resolves task profiles by <code>url|version</code>
+	 */
+	public ExampleTaskGenerator(Function<String, Optional<StructureDefinition>> taskProfileByCanonical)
+	{
+		this.taskProfileByCanonical = taskProfileByCanonical;
+	}
+
+	public List<ExampleTask> createExampleTasks(ActivityDefinition activityDefinition)
+	{
+		List<ExampleTask> tasks = new ArrayList<>();
+
+		for (Extension authorization : activityDefinition.getExtensionsByUrl(EXTENSION_PROCESS_AUTHORIZATION))
+		{
+			String messageName = primitiveValue(authorization.getExtensionByUrl("message-name"));
+			String taskProfile = primitiveValue(authorization.getExtensionByUrl("task-profile"));
+
+			if (messageName == null || taskProfile == null)
+				continue;
+
+			boolean remoteRequester = authorization.getExtensionsByUrl("requester").stream()
+					.map(Extension::getValue).filter(v -> v instanceof Coding).map(v -> ((Coding) v).getCode())
+					.anyMatch(c -> c != null && c.startsWith("REMOTE_"));
+
+			Task task = new Task();
+			task.getMeta().addProfile(taskProfile);
+			task.setInstantiatesCanonical(activityDefinition.getUrl() + "|" + activityDefinition.getVersion());
+			task.setStatus(TaskStatus.REQUESTED);
+			task.setIntent(TaskIntent.ORDER);
+			task.setAuthoredOn(new Date());
+			task.getRequester().setType(ResourceType.Organization.name()).getIdentifier()
+					.setSystem(NamingSystems.OrganizationIdentifier.SID)
+					.setValue(remoteRequester ? REMOTE_ORGANIZATION : LOCAL_ORGANIZATION);
+			task.getRestriction().addRecipient().setType(ResourceType.Organization.name()).getIdentifier()
+					.setSystem(NamingSystems.OrganizationIdentifier.SID).setValue(LOCAL_ORGANIZATION);
+
+			task.addInput().setValue(new StringType(messageName)).getType().addCoding()
+					.setSystem(CodeSystems.BpmnMessage.URL).setCode(CodeSystems.BpmnMessage.Codes.MESSAGE_NAME);
+			if (remoteRequester)
+				task.addInput().setValue(new StringType(UUID.randomUUID().toString())).getType().addCoding()
+						.setSystem(CodeSystems.BpmnMessage.URL).setCode(CodeSystems.BpmnMessage.Codes.BUSINESS_KEY);
+
+			taskProfileByCanonical.apply(taskProfile).ifPresent(profile -> addRequiredInputs(profile, task));
+
+			tasks.add(new ExampleTask(messageName, task));
+		}
+
+		return tasks;
+	}
+
+	private String primitiveValue(Extension extension)
+	{
+		if (extension != null && extension.getValue() instanceof PrimitiveType<?> p)
+			return p.getValueAsString();
+		else
+			return null;
+	}
+
+	private void addRequiredInputs(StructureDefinition profile, Task task)
+	{
+		List<ElementDefinition> elements = profile.getDifferential().getElement();
+
+		for (ElementDefinition slice : elements)
+		{
+			Matcher matcher = INPUT_SLICE.matcher(slice.getId() == null ? "" : slice.getId());
+			if (!matcher.matches() || slice.getMin() < 1)
+				continue;
+
+			String sliceName = matcher.group(1);
+			Optional<String> system = fixedValue(elements, "Task.input:" + sliceName + ".type.coding.system");
+			Optional<String> code = fixedValue(elements, "Task.input:" + sliceName + ".type.coding.code");
+
+			if (system.isEmpty() || code.isEmpty() || CodeSystems.BpmnMessage.URL.equals(system.get()))
+				continue;
+
+			Type value = findElement(elements, "Task.input:" + sliceName + ".value[x]")
+					.filter(ElementDefinition::hasFixed).map(e -> e.getFixed().copy())
+					.orElseGet(() -> new StringType("example"));
+
+			task.addInput().setValue(value).getType().addCoding().setSystem(system.get()).setCode(code.get());
+		}
+	}
+
+	private Optional<ElementDefinition> findElement(List<ElementDefinition> elements, String id)
+	{
+		return elements.stream().filter(e -> id.equals(e.getId())).findFirst();
+	}
+
+	private Optional<String> fixedValue(List<ElementDefinition> elements, String id)
+	{
+		return findElement(elements, id).filter(ElementDefinition::hasFixed).map(ElementDefinition::getFixed)
+				.filter(f -> f instanceof PrimitiveType<?>).map(f -> ((PrimitiveType<?>) f).getValueAsString())
+				.or(() -> findElement(elements, id).filter(ElementDefinition::hasPattern)
+						.map(ElementDefinition::getPattern).filter(f -> f instanceof PrimitiveType<?>)
+						.map(f -> ((PrimitiveType<?>) f).getValueAsString()));
+	}
+}
@@ -0,0 +1,312 @@
+package dev.dsf.process.tutorial.validation;
+
+import static dev.dsf.process.tutorial.ConstantsTutorial.RESOURCE_VERSION;
+import static dev.dsf.process.tutorial.TutorialProcessPluginDefinition.RELEASE_DATE;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hl7.fhir.r4.model.ActivityDefinition;
+import org.hl7.fhir.r4.model.MetadataResource;
+import org.hl7.fhir.r4.model.Resource;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.StrictErrorHandler;
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import ca.uhn.fhir.validation.ValidationResult;
+import dev.dsf.fhir.validation.ResourceValidator;
+import dev.dsf.fhir.validation.ValidationSupportRule;
+import dev.dsf.process.tutorial.validation.ExampleTaskGenerator.ExampleTask;
+
+/**
+ * Validates all FHIR resources below {@value #FHIR_DIRECTORY} and one example Task per process authorization of each
+ * ActivityDefinition. All resources share one validation support chain, validation runs in parallel after a first
+ * sequential validation warmed up the chain. Results are written to {@value #REPORT_FILE}.
+ */
+public class PluginResourceValidationTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(PluginResourceValidationTest.class);
+
+	private static final String FHIR_DIRECTORY = "src/main/resources/fhir";
+	private static final String REPORT_FILE = "target/fhir-validation-report.json";
+
+	private static final String RELEASE_DATE_VALUE = RELEASE_DATE.format(DateTimeFormatter.ISO_LOCAL_DATE);
+
+	@ClassRule
+	public static final ValidationSupportRule validationRule = ValidationSupportCache.getRule(RESOURCE_VERSION,
+			RELEASE_DATE, concat(Arrays.asList("dsf-task-base-1.0.0.xml", "dsf-activity-definition-1.0.0.xml",
+					"dsf-extension-process-authorization-1.0.0.xml",
+					"dsf-extension-process-authorization-parent-organization-role-1.0.0.xml",
+					"dsf-extension-process-authorization-parent-organization-role-practitioner-1.0.0.xml",
+					"dsf-extension-process-authorization-organization-1.0.0.xml",
+					"dsf-extension-process-authorization-organization-practitioner-1.0.0.xml",
+					"dsf-extension-process-authorization-practitioner-1.0.0.xml",
+					"dsf-coding-process-authorization-local-all-1.0.0.xml",
+					"dsf-coding-process-authorization-local-all-practitioner-1.0.0.xml",
+					"dsf-coding-process-authorization-local-parent-organization-role-1.0.0.xml",
+					"dsf-coding-process-authorization-local-parent-organization-role-practitioner-1.0.0.xml",
+					"dsf-coding-process-authorization-local-organization-1.0.0.xml",
+					"dsf-coding-process-authorization-local-organization-practitioner-1.0.0.xml",
+					"dsf-coding-process-authorization-remote-all-1.0.0.xml",
+					"dsf-coding-process-authorization-remote-parent-organization-role-1.0.0.xml",
+					"dsf-coding-process-authorization-remote-organization-1.0.0.xml"),
+					localFiles("StructureDefinition")),
+			concat(Arrays.asList("dsf-read-access-tag-1.0.0.xml", "dsf-bpmn-message-1.0.0.xml",
+					"dsf-process-authorization-1.0.0.xml"), localFiles("CodeSystem")),
+			concat(Arrays.asList("dsf-read-access-tag-1.0.0.xml", "dsf-bpmn-message-1.0.0.xml",
+					"dsf-process-authorization-recipient-1.0.0.xml", "dsf-process-authorization-requester-1.0.0.xml"),
+					localFiles("ValueSet")));
+
+	private static List<String> concat(List<String> dsfFiles, List<String> localFiles)
+	{
+		return Stream.concat(dsfFiles.stream(), localFiles.stream()).collect(Collectors.toList());
+	}
+
+	private static List<String> localFiles(String folder)
+	{
+		Path directory = Paths.get(FHIR_DIRECTORY, folder);
+		if (!Files.isDirectory(directory))
+			return List.of();
+
+		try (Stream<Path> files = Files.list(directory))
+		{
+			return files.map(f -> f.getFileName().toString()).filter(f -> f.endsWith(".xml") || f.endsWith(".json"))
+					.sorted().collect(Collectors.toList());
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static final class ValidationItem
+	{
+		final String source;
+		final Resource resource;
+		final String skipReason;
+
+		ValidationItem(String source, Resource resource, String skipReason)
+		{
+			this.source = source;
+			this.resource = resource;
+			this.skipReason = skipReason;
+		}
+	}
+
+	private static final class ValidationOutcome
+	{
+		final ValidationItem item;
+		final List<SingleValidationMessage> messages;
+		final long durationMillis;
+
+		ValidationOutcome(ValidationItem item, List<SingleValidationMessage> messages, long durationMillis)
+		{
+			this.item = item;
+			this.messages = messages;
+			this.durationMillis = durationMillis;
+		}
+
+		long count(ResultSeverityEnum... severities)
+		{
+			List<ResultSeverityEnum> s = Arrays.asList(severities);
+			return messages.stream().filter(m -> s.contains(m.getSeverity())).count();
+		}
+	}
+
+	private final ResourceValidator resourceValidator = ValidationSupportCache.getResourceValidator(validationRule);
+
+	@Test
+	public void testAllResourcesValid() throws Exception
+	{
+		List<ValidationItem> items = readResources();
+		items.addAll(createExampleTasks(items));
+
+		long start = System.currentTimeMillis();
+		List<ValidationOutcome> outcomes = validate(items);
+		long durationMillis = System.currentTimeMillis() - start;
+
+		writeReport(outcomes, durationMillis);
+
+		assertEquals(0, outcomes.stream().filter(o -> o.count(ResultSeverityEnum.ERROR, ResultSeverityEnum.FATAL) > 0)
+				.peek(o -> logger.error("{} invalid", o.item.source)).count());
+	}
+
+	private List<ValidationItem> readResources() throws IOException
+	{
+		Path fhirDirectory = Paths.get(FHIR_DIRECTORY);
+
+		try (Stream<Path> files = Files.walk(fhirDirectory))
+		{
+			List<Path> paths = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+
+			List<ValidationItem> items = new ArrayList<>();
+			for (Path path : paths)
+			{
+				String source = fhirDirectory.relativize(path).toString().replace('\\', '/');
+
+				if (path.getParent().equals(fhirDirectory))
+					items.add(new ValidationItem(source, null, "not in a resource type folder"));
+				else if (!source.endsWith(".xml") && !source.endsWith(".json"))
+					items.add(new ValidationItem(source, null, "not a FHIR xml or json file"));
+				else
+					items.add(new ValidationItem(source, parse(path), null));
+			}
+
+			return items;
+		}
+	}
+
+	private Resource parse(Path path) throws IOException
+	{
+		String content = Files.readString(path, StandardCharsets.UTF_8).replace("#{version}", RESOURCE_VERSION)
+				.replace("#{date}", RELEASE_DATE_VALUE);
+
+		IParser parser = path.toString().endsWith(".json") ? validationRule.getFhirContext().newJsonParser()
+				: validationRule.getFhirContext().newXmlParser();
+		parser.setParserErrorHandler(new StrictErrorHandler());
+
+		return (Resource) parser.parseResource(content);
+	}
+
+	private List<ValidationItem> createExampleTasks(List<ValidationItem> items)
+	{
+		List<StructureDefinition> profiles = items.stream().map(i -> i.resource)
+				.filter(r -> r instanceof StructureDefinition).map(r -> (StructureDefinition) r)
+				.collect(Collectors.toList());
+
+		ExampleTaskGenerator generator = new ExampleTaskGenerator(canonical -> findProfile(profiles, canonical));
+
+		List<ValidationItem> tasks = new ArrayList<>();
+		for (ValidationItem item : items)
+		{
+			if (item.resource instanceof ActivityDefinition a)
+			{
+				for (ExampleTask task : generator.createExampleTasks(a))
+					tasks.add(new ValidationItem("generated:" + item.source + "#" + task.getMessageName(),
+							task.getTask(), null));
+			}
+		}
+
+		return tasks;
+	}
+
+	private Optional<StructureDefinition> findProfile(List<StructureDefinition> profiles, String canonical)
+	{
+		return profiles.stream().filter(p -> canonical.equals(p.getUrl() + "|" + p.getVersion())
+				|| (!canonical.contains("|") && canonical.equals(p.getUrl()))).findFirst();
+	}
+
+	private List<ValidationOutcome> validate(List<ValidationItem> items) throws Exception
+	{
+		List<ValidationOutcome> outcomes = new ArrayList<>(items.size());
+		List<ValidationItem> toValidate = items.stream().filter(i -> i.resource != null).collect(Collectors.toList());
+
+		// first validation loads and snapshots the profiles, parallel validations afterwards only read the chain
+		if (!toValidate.isEmpty())
+			outcomes.add(validate(toValidate.get(0)));
+
+		int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), toValidate.size() - 1));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Callable<ValidationOutcome>> tasks = toValidate.stream().skip(1)
+					.<Callable<ValidationOutcome>> map(i -> () -> validate(i)).collect(Collectors.toList());
+
+			for (Future<ValidationOutcome> future : executor.invokeAll(tasks))
+				outcomes.add(future.get());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		items.stream().filter(i -> i.resource == null).map(i -> new ValidationOutcome(i, List.of(), 0))
+				.forEach(outcomes::add);
+
+		return outcomes;
+	}
+
+	private ValidationOutcome validate(ValidationItem item)
+	{
+		long start = System.currentTimeMillis();
+		ValidationResult result = resourceValidator.validate(item.resource);
+		long durationMillis = System.currentTimeMillis() - start;
+
+		logger.debug("{} validated in {} ms", item.source, durationMillis);
+		ValidationSupportRule.logValidationMessages(logger, result);
+
+		return new ValidationOutcome(item, result.getMessages(), durationMillis);
+	}
+
+	private void writeReport(List<ValidationOutcome> outcomes, long durationMillis) throws IOException
+	{
+		ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+		ObjectNode report = mapper.createObjectNode();
+		report.put("resourceVersion", RESOURCE_VERSION);
+		report.put("releaseDate", RELEASE_DATE_VALUE);
+		report.put("durationMillis", durationMillis);
+
+		ArrayNode resources = report.putArray("resources");
+		for (ValidationOutcome outcome : outcomes)
+		{
+			ObjectNode resource = resources.addObject();
+			resource.put("source", outcome.item.source);
+
+			if (outcome.item.resource == null)
+			{
+				resource.put("status", "SKIPPED");
+				resource.put("reason", outcome.item.skipReason);
+				continue;
+			}
+
+			long errors = outcome.count(ResultSeverityEnum.ERROR, ResultSeverityEnum.FATAL);
+			resource.put("resourceType", outcome.item.resource.getResourceType().name());
+			if (outcome.item.resource instanceof MetadataResource m && m.hasUrl())
+				resource.put("url", m.getUrl());
+			resource.put("status", errors > 0 ? "INVALID" : "VALID");
+			resource.put("errors", errors);
+			resource.put("warnings", outcome.count(ResultSeverityEnum.WARNING));
+			resource.put("durationMillis", outcome.durationMillis);
+
+			ArrayNode messages = resource.putArray("messages");
+			for (SingleValidationMessage message : outcome.messages)
+			{
+				messages.addObject().put("severity", message.getSeverity().name())
+						.put("location", message.getLocationString()).put("message", message.getMessage());
+			}
+		}
+
+		Path reportFile = Paths.get(REPORT_FILE);
+		Files.createDirectories(reportFile.getParent());
+		mapper.writeValue(reportFile.toFile(), report);
+
+		logger.info("Validation report for {} resource(s) written to {}", outcomes.size(), reportFile.toString());
+	}
+}
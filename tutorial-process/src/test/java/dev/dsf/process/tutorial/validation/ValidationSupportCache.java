@@ -0,0 +1,82 @@
+package dev.dsf.process.tutorial.validation;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.uhn.fhir.context.FhirContext;
+import dev.dsf.fhir.validation.ResourceValidator;
+import dev.dsf.fhir.validation.ResourceValidatorImpl;
+import dev.dsf.fhir.validation.ValidationSupportRule;
+
+/**
+ * JVM wide cache of {@link ValidationSupportRule}s and {@link ResourceValidator}s for test classes. Rules are keyed
+ * by resource version, release date and the sets of StructureDefinition, CodeSystem and ValueSet files, test classes
+ * with the same key share the rule, its {@link FhirContext} and all snapshots generated by its validation support
+ * chain.
+ */
+public final class ValidationSupportCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(ValidationSupportCache.class);
+
+	private record Key(String version, LocalDate releaseDate, Set<String> structureDefinitions,
+			Set<String> codeSystems, Set<String> valueSets)
+	{
+	}
+
+	private static final ConcurrentMap<Key, ValidationSupportRule> RULES = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<ValidationSupportRule, ResourceValidator> VALIDATORS = new ConcurrentHashMap<>();
+
+	private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+
+	private ValidationSupportCache()
+	{
+	}
+
+	/**
+	 * @return shared rule, created on first access with the given file lists
+	 */
+	public static ValidationSupportRule getRule(String version, LocalDate releaseDate,
+			List<String> structureDefinitions, List<String> codeSystems, List<String> valueSets)
+	{
+		Key key = new Key(Objects.requireNonNull(version, "version"),
+				Objects.requireNonNull(releaseDate, "releaseDate"), Set.copyOf(structureDefinitions),
+				Set.copyOf(codeSystems), Set.copyOf(valueSets));
+
+		return RULES.computeIfAbsent(key, k ->
+		{
+			logger.debug("Creating validation support for version {}, release date {} and {} StructureDefinition(s)",
+					version, releaseDate, structureDefinitions.size());
+
+			return new ValidationSupportRule(version, releaseDate, List.copyOf(structureDefinitions),
+					List.copyOf(codeSystems), List.copyOf(valueSets));
+		});
+	}
+
+	/**
+	 * @param rule
+	 *            not <code>null</code>
+	 * @return shared thread-safe validator using the rules context and validation support
+	 */
+	public static ResourceValidator getResourceValidator(ValidationSupportRule rule)
+	{
+		Objects.requireNonNull(rule, "rule");
+
+		return VALIDATORS.computeIfAbsent(rule,
+				r -> new ResourceValidatorImpl(r.getFhirContext(), r.getValidationSupport()));
+	}
+
+	/**
+	 * @return shared R4 context for test code not validating resources
+	 */
+	public static FhirContext getFhirContext()
+	{
+		return FHIR_CONTEXT;
+	}
+}